@@ -0,0 +1,38 @@
+package org.wordpress.android.datasets;
+
+import android.test.InstrumentationTestCase;
+
+public class ReaderPostTextCodecTest extends InstrumentationTestCase {
+    private static final String POST_TEXT = "<p>Hello &#8220;world&#8221; &#8212; it&#8217;s a test</p>\n"
+            + "<p><img class=\"aligncenter size-large wp-image-12\" src=\"https://example.files.wordpress.com/"
+            + "2015/01/a.jpg?w=640\" alt=\"\" width=\"640\" height=\"480\" /></p>\n<p>é中文</p>";
+
+    public void testRoundTrip() {
+        byte[] compressed = ReaderPostTextCodec.compress(POST_TEXT);
+        assertTrue(compressed.length < POST_TEXT.length());
+        assertEquals(POST_TEXT, ReaderPostTextCodec.decompress(compressed));
+    }
+
+    public void testEmptyText() {
+        assertEquals("", ReaderPostTextCodec.decompress(ReaderPostTextCodec.compress("")));
+        assertEquals("", ReaderPostTextCodec.decompress(ReaderPostTextCodec.compress(null)));
+        assertEquals("", ReaderPostTextCodec.decompress(null));
+    }
+
+    public void testLongText() {
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < 2 * 1024 * 1024) {
+            sb.append(POST_TEXT);
+        }
+        String text = sb.toString();
+        assertEquals(text, ReaderPostTextCodec.decompress(ReaderPostTextCodec.compress(text)));
+    }
+
+    public void testInvalidData() {
+        byte[] compressed = ReaderPostTextCodec.compress(POST_TEXT);
+        byte[] truncated = new byte[compressed.length / 2];
+        System.arraycopy(compressed, 0, truncated, 0, truncated.length);
+        assertEquals("", ReaderPostTextCodec.decompress(truncated));
+        assertEquals("", ReaderPostTextCodec.decompress(POST_TEXT.getBytes()));
+    }
+}
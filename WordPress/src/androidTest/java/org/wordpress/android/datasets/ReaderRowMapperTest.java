@@ -0,0 +1,332 @@
+package org.wordpress.android.datasets;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.test.InstrumentationTestCase;
+
+import org.wordpress.android.models.ReaderPost;
+import org.wordpress.android.models.ReaderPostList;
+import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.AppLog.T;
+import org.wordpress.android.util.SqlUtils;
+
+public class ReaderRowMapperTest extends InstrumentationTestCase {
+    private static final int POST_COUNT = 50;
+    private static final int BENCHMARK_POST_COUNT = 5000;
+    private static final int BENCHMARK_ITERATIONS = 5;
+    private static final int BENCHMARK_WRITE_COUNT = 1000;
+
+    // the columns the post list queries return, which skip tbl_posts.text
+    private static final String SQL_SELECT_POSTS_NO_TEXT = "SELECT post_id, blog_id, feed_id, author_id,"
+            + " pseudo_id, author_name, blog_name, blog_url, excerpt, featured_image, featured_video, title,"
+            + " url, short_url, post_avatar, timestamp, published, num_replies, num_likes, is_liked,"
+            + " is_followed, is_comments_open, is_reblogged, is_external, is_private, is_videopress,"
+            + " is_jetpack, primary_tag, secondary_tag, is_likes_enabled, is_sharing_enabled,"
+            + " attachments_json FROM tbl_posts ORDER BY timestamp DESC";
+
+    // differ from the sql the app writes with so the tests never share pooled statements with it
+    private static final String SQL_TEST_INSERT_USER =
+            "INSERT OR REPLACE INTO tbl_users (user_id, display_name) VALUES (?1, ?2) /* test */";
+    private static final String SQL_BENCHMARK_INSERT_USER =
+            "INSERT OR REPLACE INTO tbl_users (user_id, display_name) VALUES (?1, ?2) /* benchmark */";
+
+    private SQLiteDatabase mDb;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mDb = SQLiteDatabase.create(null);
+        ReaderPostTable.createTables(mDb);
+        ReaderUserTable.createTables(mDb);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        ReaderStatementPool.clear();
+        mDb.close();
+        super.tearDown();
+    }
+
+    public void testMapPostWithText() {
+        insertPosts(1);
+        Cursor c = mDb.rawQuery("SELECT * FROM tbl_posts", null);
+        try {
+            ReaderPost post = ReaderPostTable.POST_MAPPER.mapFirst(c);
+            assertEquals(1, post.postId);
+            assertEquals(100, post.blogId);
+            assertEquals("Post 1", post.getTitle());
+            assertEquals(getPostText(1), post.getText());
+            assertTrue(post.isLikedByCurrentUser);
+        } finally {
+            SqlUtils.closeCursor(c);
+        }
+    }
+
+    public void testMapPostsWithoutText() {
+        insertPosts(10);
+        Cursor c = mDb.rawQuery(SQL_SELECT_POSTS_NO_TEXT, null);
+        try {
+            ReaderPostList posts = ReaderPostTable.POST_MAPPER.mapAll(c, new ReaderPostList());
+            assertEquals(10, posts.size());
+            assertEquals(10, posts.get(0).postId);
+            assertEquals("Post 10", posts.get(0).getTitle());
+            assertEquals("", posts.get(0).getText());
+        } finally {
+            SqlUtils.closeCursor(c);
+        }
+    }
+
+    public void testMapEmptyCursor() {
+        Cursor c = mDb.rawQuery("SELECT * FROM tbl_posts", null);
+        try {
+            assertNull(ReaderPostTable.POST_MAPPER.mapFirst(c));
+            assertEquals(0, ReaderPostTable.POST_MAPPER.mapAll(c, new ReaderPostList()).size());
+        } finally {
+            SqlUtils.closeCursor(c);
+        }
+    }
+
+    /*
+     * the row mapper must map every column the post list queries return the same way the
+     * getColumnIndex() lookups it replaced did
+     */
+    public void testMapPostsMatchesLegacyMapping() {
+        insertPosts(POST_COUNT);
+        ReaderPostList expected = legacyGetPosts();
+        ReaderPostList posts = mapperGetPosts();
+
+        assertEquals(POST_COUNT, posts.size());
+        assertEquals(expected.size(), posts.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertSamePost(expected.get(i), posts.get(i));
+        }
+    }
+
+    public void testStatementPoolReusesStatements() {
+        SQLiteStatement stmt = ReaderStatementPool.acquire(mDb, SQL_TEST_INSERT_USER);
+        stmt.bindLong(1, 1);
+        stmt.bindString(2, "user 1");
+        stmt.execute();
+        ReaderStatementPool.release(SQL_TEST_INSERT_USER, stmt);
+
+        // the released statement is handed out again with its bindings cleared
+        SQLiteStatement reused = ReaderStatementPool.acquire(mDb, SQL_TEST_INSERT_USER);
+        assertSame(stmt, reused);
+        reused.bindLong(1, 2);
+        reused.bindString(2, "user 2");
+        reused.execute();
+
+        // a statement acquired while the other one is in use is a different one
+        SQLiteStatement other = ReaderStatementPool.acquire(mDb, SQL_TEST_INSERT_USER);
+        assertNotSame(reused, other);
+        ReaderStatementPool.release(SQL_TEST_INSERT_USER, other);
+        ReaderStatementPool.release(SQL_TEST_INSERT_USER, reused);
+
+        assertEquals(2, SqlUtils.getRowCount(mDb, "tbl_users"));
+    }
+
+    /*
+     * Benchmark: logs the time needed to map a 5k post list by looking up each column by name
+     * on every row vs with the row mapper. Check the TESTS log output to compare.
+     */
+    public void testBenchmarkMapPosts() {
+        insertPosts(BENCHMARK_POST_COUNT);
+
+        // the first pass fills the cursor window and warms up both code paths
+        assertEquals(BENCHMARK_POST_COUNT, legacyGetPosts().size());
+        assertEquals(BENCHMARK_POST_COUNT, mapperGetPosts().size());
+
+        long start = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+            legacyGetPosts();
+        }
+        long legacyMs = (System.nanoTime() - start) / 1000000;
+
+        start = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+            mapperGetPosts();
+        }
+        long mapperMs = (System.nanoTime() - start) / 1000000;
+
+        AppLog.i(T.TESTS, String.format("ReaderRowMapper: %d ms row mapper, %d ms getColumnIndex per row, "
+                + "for %d iterations of %d posts", mapperMs, legacyMs, BENCHMARK_ITERATIONS, BENCHMARK_POST_COUNT));
+    }
+
+    /*
+     * Benchmark: logs the time needed for 1k single-row writes when the statement is compiled
+     * for every write vs taken from the statement pool. Check the TESTS log output to compare.
+     */
+    public void testBenchmarkStatementPool() {
+        long start = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_WRITE_COUNT; i++) {
+            SQLiteStatement stmt = mDb.compileStatement(SQL_BENCHMARK_INSERT_USER);
+            try {
+                stmt.bindLong(1, i);
+                stmt.bindString(2, "user " + i);
+                stmt.execute();
+            } finally {
+                SqlUtils.closeStatement(stmt);
+            }
+        }
+        long compileMs = (System.nanoTime() - start) / 1000000;
+
+        start = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_WRITE_COUNT; i++) {
+            SQLiteStatement stmt = ReaderStatementPool.acquire(mDb, SQL_BENCHMARK_INSERT_USER);
+            try {
+                stmt.bindLong(1, i);
+                stmt.bindString(2, "user " + i);
+                stmt.execute();
+            } finally {
+                ReaderStatementPool.release(SQL_BENCHMARK_INSERT_USER, stmt);
+            }
+        }
+        long poolMs = (System.nanoTime() - start) / 1000000;
+
+        assertEquals(BENCHMARK_WRITE_COUNT, SqlUtils.getRowCount(mDb, "tbl_users"));
+        AppLog.i(T.TESTS, String.format("ReaderStatementPool: %d ms pooled, %d ms compiled per write, "
+                + "for %d writes", poolMs, compileMs, BENCHMARK_WRITE_COUNT));
+    }
+
+    private static void assertSamePost(ReaderPost expected, ReaderPost post) {
+        assertEquals(expected.postId, post.postId);
+        assertEquals(expected.blogId, post.blogId);
+        assertEquals(expected.feedId, post.feedId);
+        assertEquals(expected.authorId, post.authorId);
+        assertEquals(expected.getPseudoId(), post.getPseudoId());
+        assertEquals(expected.getAuthorName(), post.getAuthorName());
+        assertEquals(expected.getBlogName(), post.getBlogName());
+        assertEquals(expected.getBlogUrl(), post.getBlogUrl());
+        assertEquals(expected.getExcerpt(), post.getExcerpt());
+        assertEquals(expected.getFeaturedImage(), post.getFeaturedImage());
+        assertEquals(expected.getFeaturedVideo(), post.getFeaturedVideo());
+        assertEquals(expected.getTitle(), post.getTitle());
+        assertEquals(expected.getUrl(), post.getUrl());
+        assertEquals(expected.getShortUrl(), post.getShortUrl());
+        assertEquals(expected.getPostAvatar(), post.getPostAvatar());
+        assertEquals(expected.timestamp, post.timestamp);
+        assertEquals(expected.getPublished(), post.getPublished());
+        assertEquals(expected.numReplies, post.numReplies);
+        assertEquals(expected.numLikes, post.numLikes);
+        assertEquals(expected.isLikedByCurrentUser, post.isLikedByCurrentUser);
+        assertEquals(expected.isFollowedByCurrentUser, post.isFollowedByCurrentUser);
+        assertEquals(expected.isCommentsOpen, post.isCommentsOpen);
+        assertEquals(expected.isRebloggedByCurrentUser, post.isRebloggedByCurrentUser);
+        assertEquals(expected.isExternal, post.isExternal);
+        assertEquals(expected.isPrivate, post.isPrivate);
+        assertEquals(expected.isVideoPress, post.isVideoPress);
+        assertEquals(expected.isJetpack, post.isJetpack);
+        assertEquals(expected.getPrimaryTag(), post.getPrimaryTag());
+        assertEquals(expected.getSecondaryTag(), post.getSecondaryTag());
+        assertEquals(expected.isLikesEnabled, post.isLikesEnabled);
+        assertEquals(expected.isSharingEnabled, post.isSharingEnabled);
+        assertEquals(expected.getAttachmentsJson(), post.getAttachmentsJson());
+    }
+
+    private static String getPostText(int postId) {
+        return "<p>Text of post " + postId + "</p>";
+    }
+
+    private void insertPosts(int numPosts) {
+        mDb.beginTransaction();
+        try {
+            for (int i = 1; i <= numPosts; i++) {
+                ContentValues values = new ContentValues();
+                values.put("post_id", i);
+                values.put("blog_id", 100);
+                values.put("pseudo_id", "pseudo" + i);
+                values.put("author_name", "Author " + (i % 20));
+                values.put("title", "Post " + i);
+                values.put("text", ReaderPostTextCodec.compress(getPostText(i)));
+                values.put("excerpt", "Excerpt of post " + i);
+                values.put("url", "https://example.wordpress.com/post-" + i);
+                values.put("blog_url", "https://example.wordpress.com");
+                values.put("blog_name", "Example");
+                values.put("featured_image", "https://example.files.wordpress.com/" + i + ".jpg");
+                values.put("timestamp", i);
+                values.put("published", "2015-01-01T00:00:00+00:00");
+                values.put("num_likes", i % 7);
+                values.put("is_liked", 1);
+                values.put("attachments_json", "");
+                mDb.insertOrThrow("tbl_posts", null, values);
+            }
+            mDb.setTransactionSuccessful();
+        } finally {
+            mDb.endTransaction();
+        }
+    }
+
+    private ReaderPostList mapperGetPosts() {
+        Cursor c = mDb.rawQuery(SQL_SELECT_POSTS_NO_TEXT, null);
+        try {
+            return ReaderPostTable.POST_MAPPER.mapAll(c, new ReaderPostList());
+        } finally {
+            SqlUtils.closeCursor(c);
+        }
+    }
+
+    private ReaderPostList legacyGetPosts() {
+        Cursor c = mDb.rawQuery(SQL_SELECT_POSTS_NO_TEXT, null);
+        try {
+            ReaderPostList posts = new ReaderPostList();
+            if (c.moveToFirst()) {
+                do {
+                    posts.add(legacyGetPostFromCursor(c));
+                } while (c.moveToNext());
+            }
+            return posts;
+        } finally {
+            SqlUtils.closeCursor(c);
+        }
+    }
+
+    // how ReaderPostTable mapped rows before ReaderRowMapper
+    private static ReaderPost legacyGetPostFromCursor(Cursor c) {
+        ReaderPost post = new ReaderPost();
+
+        post.postId = c.getLong(c.getColumnIndex("post_id"));
+        post.blogId = c.getLong(c.getColumnIndex("blog_id"));
+        post.feedId = c.getLong(c.getColumnIndex("feed_id"));
+        post.authorId = c.getLong(c.getColumnIndex("author_id"));
+        post.setPseudoId(c.getString(c.getColumnIndex("pseudo_id")));
+
+        post.setAuthorName(c.getString(c.getColumnIndex("author_name")));
+        post.setBlogName(c.getString(c.getColumnIndex("blog_name")));
+        post.setBlogUrl(c.getString(c.getColumnIndex("blog_url")));
+        post.setExcerpt(c.getString(c.getColumnIndex("excerpt")));
+        post.setFeaturedImage(c.getString(c.getColumnIndex("featured_image")));
+        post.setFeaturedVideo(c.getString(c.getColumnIndex("featured_video")));
+
+        post.setTitle(c.getString(c.getColumnIndex("title")));
+        post.setUrl(c.getString(c.getColumnIndex("url")));
+        post.setShortUrl(c.getString(c.getColumnIndex("short_url")));
+        post.setPostAvatar(c.getString(c.getColumnIndex("post_avatar")));
+
+        post.timestamp = c.getLong(c.getColumnIndex("timestamp"));
+        post.setPublished(c.getString(c.getColumnIndex("published")));
+
+        post.numReplies = c.getInt(c.getColumnIndex("num_replies"));
+        post.numLikes = c.getInt(c.getColumnIndex("num_likes"));
+
+        post.isLikedByCurrentUser = SqlUtils.sqlToBool(c.getInt(c.getColumnIndex("is_liked")));
+        post.isFollowedByCurrentUser = SqlUtils.sqlToBool(c.getInt(c.getColumnIndex("is_followed")));
+        post.isCommentsOpen = SqlUtils.sqlToBool(c.getInt(c.getColumnIndex("is_comments_open")));
+        post.isRebloggedByCurrentUser = SqlUtils.sqlToBool(c.getInt(c.getColumnIndex("is_reblogged")));
+        post.isExternal = SqlUtils.sqlToBool(c.getInt(c.getColumnIndex("is_external")));
+        post.isPrivate = SqlUtils.sqlToBool(c.getInt(c.getColumnIndex("is_private")));
+        post.isVideoPress = SqlUtils.sqlToBool(c.getInt(c.getColumnIndex("is_videopress")));
+        post.isJetpack = SqlUtils.sqlToBool(c.getInt(c.getColumnIndex("is_jetpack")));
+
+        post.setPrimaryTag(c.getString(c.getColumnIndex("primary_tag")));
+        post.setSecondaryTag(c.getString(c.getColumnIndex("secondary_tag")));
+
+        post.isLikesEnabled = SqlUtils.sqlToBool(c.getInt(c.getColumnIndex("is_likes_enabled")));
+        post.isSharingEnabled = SqlUtils.sqlToBool(c.getInt(c.getColumnIndex("is_sharing_enabled")));
+
+        post.setAttachmentsJson(c.getString(c.getColumnIndex("attachments_json")));
+
+        return post;
+    }
+}
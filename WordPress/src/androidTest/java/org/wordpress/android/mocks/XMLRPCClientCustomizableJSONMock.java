@@ -6,10 +6,13 @@ import com.google.gson.internal.StringMap;
 import org.wordpress.android.TestUtils;
 import org.wordpress.android.util.AppLog;
 import org.wordpress.android.util.AppLog.T;
+import org.xmlpull.v1.XmlPullParserException;
+import org.xmlrpc.android.XMLRPCAsyncCall;
 import org.xmlrpc.android.XMLRPCCallback;
 import org.xmlrpc.android.XMLRPCException;
+import org.xmlrpc.android.XMLRPCMulticall;
+import org.xmlrpc.android.XMLRPCStreamVisitor;
 
-import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
@@ -66,15 +69,39 @@ public class XMLRPCClientCustomizableJSONMock extends XMLRPCClientCustomizableMo
         return null;
     }
 
-    public Object call(String method, Object[] params, File tempFile) throws XMLRPCException {
-        return null;
+    public int callStreaming(String method, Object[] params, XMLRPCStreamVisitor visitor) throws XMLRPCException {
+        Object retValue = call(method, params);
+        if (retValue == null) {
+            return 0;
+        }
+        if (!(retValue instanceof Object[])) {
+            visitor.onValue(0, retValue);
+            return 1;
+        }
+        Object[] values = (Object[]) retValue;
+        for (int i = 0; i < values.length; i++) {
+            visitor.onValue(i, values[i]);
+        }
+        return values.length;
+    }
+
+    public void callMulticall(XMLRPCMulticall multicall) throws IOException, XmlPullParserException {
+        multicall.callSequentially(this);
     }
 
     public long callAsync(XMLRPCCallback listener, String methodName, Object[] params) {
         return 0;
     }
 
-    public long callAsync(XMLRPCCallback listener, String methodName, Object[] params, File tempFile) {
-        return 0;
+    public XMLRPCAsyncCall callAsync(XMLRPCCallback listener, String methodName, Object[] params,
+                                     XMLRPCAsyncCall.Priority priority) {
+        return null;
+    }
+
+    public boolean cancelAsync(long id) {
+        return false;
+    }
+
+    public void cancelAllAsync() {
     }
 }
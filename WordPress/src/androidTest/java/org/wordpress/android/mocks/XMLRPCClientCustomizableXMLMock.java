@@ -3,12 +3,14 @@ package org.wordpress.android.mocks;
 import org.wordpress.android.util.AppLog;
 import org.wordpress.android.util.AppLog.T;
 import org.xmlpull.v1.XmlPullParserException;
+import org.xmlrpc.android.XMLRPCAsyncCall;
 import org.xmlrpc.android.XMLRPCCallback;
 import org.xmlrpc.android.XMLRPCClient;
 import org.xmlrpc.android.XMLRPCException;
 import org.xmlrpc.android.XMLRPCFault;
+import org.xmlrpc.android.XMLRPCMulticall;
+import org.xmlrpc.android.XMLRPCStreamVisitor;
 
-import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
@@ -41,9 +43,39 @@ public class XMLRPCClientCustomizableXMLMock extends XMLRPCClientCustomizableMoc
         return null;
     }
 
+    private int streamFile(String method, String prefix, XMLRPCStreamVisitor visitor)
+            throws IOException, XMLRPCException, XmlPullParserException {
+        String filename = prefix + "-" + method + ".xml";
+        try {
+            InputStream is = mContext.getAssets().open(filename);
+            return XMLRPCClient.streamXMLRPCResponse(is, null, visitor);
+        } catch (FileNotFoundException e) {
+            AppLog.e(T.TESTS, "file not found: " + filename);
+        }
+        return -1;
+    }
+
+    public int callStreaming(String method, Object[] params, XMLRPCStreamVisitor visitor)
+            throws XMLRPCException, IOException, XmlPullParserException {
+        mXmlRpcClient.preparePostMethod(method, params);
+        AppLog.v(T.TESTS, "XMLRPCClientCustomizableXMLMock callStreaming: " + method);
+        if ("login-failure".equals(mPrefix)) {
+            // Wrong login
+            throw new XMLRPCFault("code 403", 403);
+        }
+
+        int count = streamFile(method, mPrefix, visitor);
+        if (count == -1) {
+            // failback to default
+            AppLog.w(T.TESTS, "failback to default");
+            count = Math.max(0, streamFile(method, "default", visitor));
+        }
+        return count;
+    }
+
     public Object call(String method, Object[] params) throws XMLRPCException, IOException, XmlPullParserException {
         try {
-            mXmlRpcClient.preparePostMethod(method, params, null);
+            mXmlRpcClient.preparePostMethod(method, params);
         } catch (IOException e) {
             // unexpected error, test must fail
             throw new XMLRPCException("preparePostMethod failed");
@@ -67,15 +99,23 @@ public class XMLRPCClientCustomizableXMLMock extends XMLRPCClientCustomizableMoc
         return null;
     }
 
-    public Object call(String method, Object[] params, File tempFile) throws XMLRPCException {
-        return null;
+    public void callMulticall(XMLRPCMulticall multicall) throws IOException, XmlPullParserException {
+        multicall.callSequentially(this);
     }
 
     public long callAsync(XMLRPCCallback listener, String methodName, Object[] params) {
         return 0;
     }
 
-    public long callAsync(XMLRPCCallback listener, String methodName, Object[] params, File tempFile) {
-        return 0;
+    public XMLRPCAsyncCall callAsync(XMLRPCCallback listener, String methodName, Object[] params,
+                                     XMLRPCAsyncCall.Priority priority) {
+        return null;
+    }
+
+    public boolean cancelAsync(long id) {
+        return false;
+    }
+
+    public void cancelAllAsync() {
     }
 }
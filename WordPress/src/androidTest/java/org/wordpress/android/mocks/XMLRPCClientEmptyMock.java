@@ -1,10 +1,14 @@
 package org.wordpress.android.mocks;
 
+import org.xmlpull.v1.XmlPullParserException;
+import org.xmlrpc.android.XMLRPCAsyncCall;
 import org.xmlrpc.android.XMLRPCCallback;
 import org.xmlrpc.android.XMLRPCClientInterface;
 import org.xmlrpc.android.XMLRPCException;
+import org.xmlrpc.android.XMLRPCMulticall;
+import org.xmlrpc.android.XMLRPCStreamVisitor;
 
-import java.io.File;
+import java.io.IOException;
 import java.net.URI;
 
 public class XMLRPCClientEmptyMock implements XMLRPCClientInterface {
@@ -25,15 +29,27 @@ public class XMLRPCClientEmptyMock implements XMLRPCClientInterface {
         return null;
     }
 
-    public Object call(String method, Object[] params, File tempFile) throws XMLRPCException {
-        return null;
+    public int callStreaming(String method, Object[] params, XMLRPCStreamVisitor visitor) throws XMLRPCException {
+        return 0;
+    }
+
+    public void callMulticall(XMLRPCMulticall multicall) throws IOException, XmlPullParserException {
+        multicall.callSequentially(this);
     }
 
     public long callAsync(XMLRPCCallback listener, String methodName, Object[] params) {
         return 0;
     }
 
-    public long callAsync(XMLRPCCallback listener, String methodName, Object[] params, File tempFile) {
-        return 0;
+    public XMLRPCAsyncCall callAsync(XMLRPCCallback listener, String methodName, Object[] params,
+                                     XMLRPCAsyncCall.Priority priority) {
+        return null;
+    }
+
+    public boolean cancelAsync(long id) {
+        return false;
+    }
+
+    public void cancelAllAsync() {
     }
 }
@@ -11,6 +11,10 @@ import org.wordpress.android.WordPress;
 import org.wordpress.android.WordPressDB;
 import org.wordpress.android.models.CategoryNode;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 public class WordPressDB_Test extends InstrumentationTestCase {
     protected Context testContext;
     protected Context targetContext;
@@ -21,4 +25,177 @@ public class WordPressDB_Test extends InstrumentationTestCase {
         targetContext = new RenamingDelegatingContext(getInstrumentation().getTargetContext(), "test_");
         testContext = getInstrumentation().getContext();
     }
+
+    public void testQueriesUseIndexes() {
+        TestUtils.dropDB(targetContext);
+        SQLiteDatabase db = new WordPressDB(targetContext).getDatabase();
+
+        assertQueryPlanUses(db, "SELECT id FROM posts WHERE blogID=? AND isPage=? ORDER BY localDraft DESC, "
+                + "date_created_gmt DESC", "posts_list_idx");
+        // the query getPostSyncStates() runs
+        assertQueryPlanUses(db, "SELECT id, postid, content_hash, isLocalChange FROM posts WHERE blogID=? AND isPage=? "
+                + "AND localDraft != 1 AND postid IN (?,?)", "posts_remote_id_idx");
+        assertQueryPlanUses(db, "SELECT uploadState FROM media WHERE blogId=? AND mediaId=?", "media_id_idx");
+        assertQueryPlanUses(db, "SELECT * FROM media WHERE uploadState=? AND blogId=?", "media_upload_state_idx");
+        assertQueryPlanUses(db, "SELECT * FROM media WHERE uploadState=? ORDER BY id", "media_upload_queue_idx");
+        assertQueryPlanUses(db, "SELECT category_name FROM cats WHERE blog_id=?", "cats_blog_id_idx");
+    }
+
+    public void testSearchMediaFiles() {
+        TestUtils.dropDB(targetContext);
+        WordPressDB wpDB = new WordPressDB(targetContext);
+        SQLiteDatabase db = wpDB.getDatabase();
+        db.execSQL("INSERT INTO media (postID, blogId, mediaId, title, caption, date_created_gmt) "
+                + "VALUES (0, '1', '10', 'Beach sunset', '', 1)");
+        db.execSQL("INSERT INTO media (postID, blogId, mediaId, title, caption, date_created_gmt) "
+                + "VALUES (0, '1', '11', 'Holidays', 'sunset on the beach', 2)");
+        db.execSQL("INSERT INTO media (postID, blogId, mediaId, title, caption, date_created_gmt) "
+                + "VALUES (0, '2', '12', 'Sunset', '', 3)");
+
+        // title matches come first, then the most recent files
+        assertMediaIds(wpDB.searchMediaFiles("1", "sun", 0, -1), "10", "11");
+        assertMediaIds(wpDB.searchMediaFiles("1", "BEACH, sunset", 0, -1), "10", "11");
+        assertMediaIds(wpDB.searchMediaFiles("1", "sunset", 1, 1), "11");
+        assertMediaIds(wpDB.searchMediaFiles("1", "moon", 0, -1));
+
+        // the tokenizer only folds the case of ASCII letters, non ASCII ones must be left as typed
+        db.execSQL("INSERT INTO media (postID, blogId, mediaId, title, caption, date_created_gmt) "
+                + "VALUES (0, '1', '13', 'Écoles', '', 4)");
+        assertMediaIds(wpDB.searchMediaFiles("1", "École", 0, -1), "13");
+        assertMediaIds(wpDB.searchMediaFiles("1", "ÉCOLE", 0, -1), "13");
+
+        // the index follows updates and deletes
+        db.execSQL("UPDATE media SET title='Moon' WHERE mediaId='10'");
+        assertMediaIds(wpDB.searchMediaFiles("1", "moon", 0, -1), "10");
+        db.execSQL("DELETE FROM media WHERE mediaId='11'");
+        assertMediaIds(wpDB.searchMediaFiles("1", "sunset", 0, -1));
+        TestUtils.dropDB(targetContext);
+    }
+
+    public void testSearchPosts() {
+        TestUtils.dropDB(targetContext);
+        WordPressDB wpDB = new WordPressDB(targetContext);
+        SQLiteDatabase db = wpDB.getDatabase();
+        db.execSQL("INSERT INTO posts (blogID, postid, title, description, date_created_gmt, isPage) "
+                + "VALUES ('1', '1', 'Hello world', 'A first post', 1, 0)");
+        db.execSQL("INSERT INTO posts (blogID, postid, title, description, mt_text_more, date_created_gmt, isPage) "
+                + "VALUES ('1', '2', 'Second post', 'Hello again', 'and more', 2, 0)");
+
+        List<PostsListPost> posts = wpDB.searchPosts(1, false, "hello", 0, -1);
+        assertEquals(2, posts.size());
+        assertEquals("Hello world", posts.get(0).getTitle());
+        assertEquals(1, wpDB.searchPosts(1, false, "more", 0, -1).size());
+        assertEquals(0, wpDB.searchPosts(1, true, "hello", 0, -1).size());
+        TestUtils.dropDB(targetContext);
+    }
+
+    public void testMediaUploadQueue() {
+        TestUtils.dropDB(targetContext);
+        WordPressDB wpDB = new WordPressDB(targetContext);
+        SQLiteDatabase db = wpDB.getDatabase();
+        db.execSQL("INSERT INTO media (postID, blogId, mediaId, uploadState) VALUES (0, '1', '10', 'queued')");
+        db.execSQL("INSERT INTO media (postID, blogId, mediaId, uploadState) VALUES (0, '2', '11', 'queued')");
+        db.execSQL("INSERT INTO media (postID, blogId, mediaId, uploadState) VALUES (0, '1', '12', 'uploaded')");
+
+        // the queue spans all blogs, in the order the files were queued
+        assertMediaIds(wpDB.getMediaUploadQueue(), "10", "11");
+
+        wpDB.startMediaUpload("1", "10");
+        assertMediaIds(wpDB.getMediaUploadQueue(), "11");
+        assertMediaIds(wpDB.getMediaUploadsInProgress(), "10");
+
+        wpDB.retryMediaUpload("1", "10", 1234);
+        assertMediaIds(wpDB.getMediaUploadQueue(), "10", "11");
+        assertUploadAttempts(wpDB, "10", 1, 1234);
+
+        // queuing a file again starts its upload over
+        wpDB.updateMediaUploadState("1", "10", "queued");
+        assertUploadAttempts(wpDB, "10", 0, 0);
+        TestUtils.dropDB(targetContext);
+    }
+
+    public void testMediaLibrarySync() {
+        TestUtils.dropDB(targetContext);
+        WordPressDB wpDB = new WordPressDB(targetContext);
+        SQLiteDatabase db = wpDB.getDatabase();
+        db.execSQL("INSERT INTO media (postID, blogId, mediaId, title) VALUES (0, '1', '10', 'old title')");
+        db.execSQL("INSERT INTO media (postID, blogId, mediaId, title) VALUES (0, '1', '11', 'deleted on server')");
+        db.execSQL("INSERT INTO media (postID, blogId, mediaId, uploadState) VALUES (0, '1', '12', 'queued')");
+        db.execSQL("INSERT INTO media (postID, blogId, mediaId, uploadState) VALUES (0, '1', '13', 'delete')");
+        db.execSQL("INSERT INTO media (postID, blogId, mediaId) VALUES (0, '2', '20')");
+
+        int syncGeneration = wpDB.getNextMediaSyncGeneration("1");
+        assertEquals(1, syncGeneration);
+        List<MediaFile> mediaFiles = Arrays.asList(newMediaFile("10", "new title"), newMediaFile("13", "delete me"),
+                newMediaFile("14", "new file"));
+        // 10 is updated and 14 inserted, 13 is waiting to be deleted on the server
+        assertEquals(2, wpDB.saveMediaFilesFromSync("1", mediaFiles, syncGeneration));
+        // nothing changed since the last sync
+        assertEquals(0, wpDB.saveMediaFilesFromSync("1", mediaFiles, syncGeneration));
+
+        // only 11 wasn't returned by the server, local files and other blogs are left alone
+        assertEquals(1, wpDB.deleteMediaFilesNotInSync("1", syncGeneration));
+        assertMediaIds(db.rawQuery("SELECT mediaId FROM media ORDER BY mediaId", null), "10", "12", "13", "14", "20");
+        Cursor c = wpDB.getMediaFile("1", "10");
+        assertTrue(c.moveToFirst());
+        assertEquals("new title", c.getString(c.getColumnIndex(WordPressDB.COLUMN_NAME_TITLE)));
+        c.close();
+
+        assertEquals(2, wpDB.getNextMediaSyncGeneration("1"));
+        TestUtils.dropDB(targetContext);
+    }
+
+    public void testMediaUploadedDuringSyncIsKept() {
+        TestUtils.dropDB(targetContext);
+        WordPressDB wpDB = new WordPressDB(targetContext);
+        SQLiteDatabase db = wpDB.getDatabase();
+        List<MediaFile> mediaFiles = Arrays.asList(newMediaFile("10", "synced"));
+        assertEquals(1, wpDB.saveMediaFilesFromSync("1", mediaFiles, wpDB.getNextMediaSyncGeneration("1")));
+
+        // a file finishes uploading after the next sync started but before it saved any page
+        int syncGeneration = wpDB.getNextMediaSyncGeneration("1");
+        MediaFile uploadedFile = newMediaFile("15", "uploaded");
+        uploadedFile.setUploadState("uploaded");
+        wpDB.saveMediaFile(uploadedFile);
+        wpDB.saveMediaFilesFromSync("1", mediaFiles, syncGeneration);
+
+        assertEquals(0, wpDB.deleteMediaFilesNotInSync("1", syncGeneration));
+        assertMediaIds(db.rawQuery("SELECT mediaId FROM media ORDER BY mediaId", null), "10", "15");
+        TestUtils.dropDB(targetContext);
+    }
+
+    private MediaFile newMediaFile(String mediaId, String title) {
+        MediaFile mediaFile = new MediaFile();
+        mediaFile.setBlogId("1");
+        mediaFile.setMediaId(mediaId);
+        mediaFile.setTitle(title);
+        return mediaFile;
+    }
+
+    private void assertUploadAttempts(WordPressDB wpDB, String mediaId, int attempts, long retryAt) {
+        Cursor c = wpDB.getMediaFile("1", mediaId);
+        assertTrue(c.moveToFirst());
+        assertEquals(attempts, c.getInt(c.getColumnIndex(WordPressDB.COLUMN_NAME_UPLOAD_ATTEMPTS)));
+        assertEquals(retryAt, c.getLong(c.getColumnIndex(WordPressDB.COLUMN_NAME_UPLOAD_RETRY_AT)));
+        c.close();
+    }
+
+    private void assertMediaIds(Cursor cursor, String... mediaIds) {
+        List<String> actualMediaIds = new ArrayList<String>();
+        while (cursor.moveToNext()) {
+            actualMediaIds.add(cursor.getString(cursor.getColumnIndex("mediaId")));
+        }
+        cursor.close();
+        assertEquals(Arrays.asList(mediaIds), actualMediaIds);
+    }
+
+    private void assertQueryPlanUses(SQLiteDatabase db, String query, String index) {
+        Cursor c = db.rawQuery("EXPLAIN QUERY PLAN " + query, null);
+        StringBuilder plan = new StringBuilder();
+        while (c.moveToNext()) {
+            plan.append(c.getString(c.getColumnCount() - 1)).append('\n');
+        }
+        c.close();
+        assertTrue(query + " doesn't use " + index + ":\n" + plan, plan.indexOf(index) >= 0);
+    }
 }
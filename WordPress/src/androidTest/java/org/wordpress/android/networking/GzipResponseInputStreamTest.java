@@ -0,0 +1,114 @@
+package org.wordpress.android.networking;
+
+import android.test.InstrumentationTestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.zip.GZIPOutputStream;
+
+public class GzipResponseInputStreamTest extends InstrumentationTestCase {
+    private static final String BODY = "<?xml version=\"1.0\"?><methodResponse><params><param><value>"
+            + "<string>gzip gzip gzip gzip gzip gzip gzip gzip</string></value></param></params></methodResponse>";
+
+    public void testIsGzipEncoding() {
+        assertTrue(GzipResponseInputStream.isGzipEncoding("gzip"));
+        assertTrue(GzipResponseInputStream.isGzipEncoding(" GZIP "));
+        assertFalse(GzipResponseInputStream.isGzipEncoding("deflate"));
+        assertFalse(GzipResponseInputStream.isGzipEncoding(null));
+    }
+
+    public void testReadGzipBody() throws IOException {
+        byte[] compressed = gzip(BODY.getBytes("UTF-8"));
+        GzipResponseInputStream stream = new GzipResponseInputStream(new ByteArrayInputStream(compressed), "test");
+        assertEquals(BODY, new String(readFully(stream), "UTF-8"));
+        stream.close();
+    }
+
+    public void testByteAccounting() throws IOException {
+        byte[] body = BODY.getBytes("UTF-8");
+        byte[] compressed = gzip(body);
+        GzipResponseInputStream stream = new GzipResponseInputStream(new ByteArrayInputStream(compressed), "test");
+
+        // single byte and buffered reads are both counted
+        assertEquals(body[0], (byte) stream.read());
+        readFully(stream);
+
+        assertEquals(compressed.length, stream.getCompressedBytes());
+        assertEquals(body.length, stream.getUncompressedBytes());
+        stream.close();
+    }
+
+    public void testEmptyBodyWithGzipHeader() throws IOException {
+        GzipResponseInputStream stream = new GzipResponseInputStream(new ByteArrayInputStream(new byte[0]), "test");
+        assertEquals(-1, stream.read());
+        assertEquals(0, stream.getCompressedBytes());
+        assertEquals(0, stream.getUncompressedBytes());
+        stream.close();
+    }
+
+    public void testPlainBodyWithGzipHeader() throws IOException {
+        GzipResponseInputStream stream = new GzipResponseInputStream(
+                new ByteArrayInputStream(BODY.getBytes("UTF-8")), "test");
+        try {
+            readFully(stream);
+            fail("a body that isn't gzip encoded must not be returned as is");
+        } catch (IOException e) {
+            // expected
+        } finally {
+            stream.close();
+        }
+        assertEquals(0, stream.getUncompressedBytes());
+    }
+
+    public void testTruncatedBody() throws IOException {
+        byte[] compressed = gzip(BODY.getBytes("UTF-8"));
+        byte[] truncated = Arrays.copyOf(compressed, compressed.length / 2);
+        GzipResponseInputStream stream = new GzipResponseInputStream(new ByteArrayInputStream(truncated), "test");
+        try {
+            readFully(stream);
+            fail("a truncated body must not read as a complete one");
+        } catch (IOException e) {
+            // expected
+        } finally {
+            stream.close();
+        }
+    }
+
+    public void testTruncatedHeader() throws IOException {
+        byte[] compressed = gzip(BODY.getBytes("UTF-8"));
+        byte[] truncated = Arrays.copyOf(compressed, 4);
+        GzipResponseInputStream stream = new GzipResponseInputStream(new ByteArrayInputStream(truncated), "test");
+        try {
+            stream.read();
+            fail("a truncated gzip header must not read as an empty body");
+        } catch (IOException e) {
+            // expected
+        } finally {
+            stream.close();
+        }
+    }
+
+    static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
+        GZIPOutputStream gzipStream = new GZIPOutputStream(byteStream);
+        try {
+            gzipStream.write(data);
+        } finally {
+            gzipStream.close();
+        }
+        return byteStream.toByteArray();
+    }
+
+    static byte[] readFully(InputStream stream) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[64];
+        int length;
+        while ((length = stream.read(buffer)) != -1) {
+            out.write(buffer, 0, length);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,90 @@
+package org.wordpress.android.networking;
+
+import android.test.InstrumentationTestCase;
+
+import org.apache.http.HttpEntity;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+public class WPDelayedHurlStackTest extends InstrumentationTestCase {
+    private static final String BODY = "{\"posts\":[{\"ID\":1,\"title\":\"gzip gzip gzip gzip gzip gzip\"}]}";
+
+    public void testGzipResponseIsDecompressed() throws IOException {
+        byte[] compressed = GzipResponseInputStreamTest.gzip(BODY.getBytes("UTF-8"));
+        HttpEntity entity = WPDelayedHurlStack.entityFromConnection(new FakeConnection(compressed, "gzip"));
+
+        assertNull(entity.getContentEncoding());
+        assertEquals(-1, entity.getContentLength());
+        InputStream content = entity.getContent();
+        try {
+            assertEquals(BODY, new String(GzipResponseInputStreamTest.readFully(content), "UTF-8"));
+        } finally {
+            content.close();
+        }
+    }
+
+    public void testPlainResponseIsUnchanged() throws IOException {
+        byte[] body = BODY.getBytes("UTF-8");
+        HttpEntity entity = WPDelayedHurlStack.entityFromConnection(new FakeConnection(body, null));
+
+        assertNull(entity.getContentEncoding());
+        assertEquals(body.length, entity.getContentLength());
+        InputStream content = entity.getContent();
+        try {
+            assertEquals(BODY, new String(GzipResponseInputStreamTest.readFully(content), "UTF-8"));
+        } finally {
+            content.close();
+        }
+    }
+
+    /*
+     * connection returning a canned response body
+     */
+    private static class FakeConnection extends HttpURLConnection {
+        private final byte[] mBody;
+        private final String mContentEncoding;
+
+        FakeConnection(byte[] body, String contentEncoding) throws IOException {
+            super(new URL("https://public-api.wordpress.com/rest/v1.1/read/following"));
+            mBody = body;
+            mContentEncoding = contentEncoding;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return new ByteArrayInputStream(mBody);
+        }
+
+        @Override
+        public String getContentEncoding() {
+            return mContentEncoding;
+        }
+
+        @Override
+        public int getContentLength() {
+            return mBody.length;
+        }
+
+        @Override
+        public String getContentType() {
+            return "application/json";
+        }
+
+        @Override
+        public void connect() {
+        }
+
+        @Override
+        public void disconnect() {
+        }
+
+        @Override
+        public boolean usingProxy() {
+            return false;
+        }
+    }
+}
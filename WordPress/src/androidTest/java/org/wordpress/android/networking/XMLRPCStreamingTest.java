@@ -0,0 +1,55 @@
+package org.wordpress.android.networking;
+
+import android.test.InstrumentationTestCase;
+
+import org.wordpress.android.TestUtils;
+import org.xmlrpc.android.XMLRPCClient;
+import org.xmlrpc.android.XMLRPCStructVisitor;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class XMLRPCStreamingTest extends InstrumentationTestCase {
+    // number of times the recorded media library page is repeated to build a large response
+    private static final int LARGE_RESPONSE_REPEAT = 200;
+
+    private byte[] buildLargeResponse() throws Exception {
+        InputStream is = getInstrumentation().getContext().getAssets().open("default-wp.getMediaLibrary.xml");
+        String recorded = TestUtils.convertStreamToString(is);
+        int dataStart = recorded.indexOf("<data>") + "<data>".length();
+        int dataEnd = recorded.lastIndexOf("</data>");
+        String items = recorded.substring(dataStart, dataEnd);
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(recorded.substring(0, dataStart));
+        for (int i = 0; i < LARGE_RESPONSE_REPEAT; i++) {
+            sb.append(items);
+        }
+        sb.append(recorded.substring(dataEnd));
+        return sb.toString().getBytes("UTF-8");
+    }
+
+    public void testStreamingMatchesTreeBuilding() throws Exception {
+        byte[] response = buildLargeResponse();
+
+        Object[] tree = (Object[]) XMLRPCClient.parseXMLRPCResponse(new ByteArrayInputStream(response), null);
+
+        final List<Object> attachmentIds = new ArrayList<Object>();
+        int count = XMLRPCClient.streamXMLRPCResponse(new ByteArrayInputStream(response), null,
+                new XMLRPCStructVisitor() {
+                    @Override
+                    public void onStruct(int index, Map<?, ?> struct) {
+                        attachmentIds.add(struct.get("attachment_id"));
+                    }
+                });
+
+        assertEquals(tree.length, count);
+        assertEquals(tree.length, attachmentIds.size());
+        for (int i = 0; i < tree.length; i++) {
+            assertEquals(((Map<?, ?>) tree[i]).get("attachment_id"), attachmentIds.get(i));
+        }
+    }
+}
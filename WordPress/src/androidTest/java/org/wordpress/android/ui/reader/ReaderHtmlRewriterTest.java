@@ -0,0 +1,106 @@
+package org.wordpress.android.ui.reader;
+
+import android.test.InstrumentationTestCase;
+
+import org.wordpress.android.ui.reader.utils.ReaderHtmlRewriter;
+import org.wordpress.android.ui.reader.utils.ReaderHtmlUtils;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class ReaderHtmlRewriterTest extends InstrumentationTestCase {
+    private static final int PHOTO_BLOG_IMAGE_COUNT = 150;
+
+    // same patterns the renderer used to scan the content with
+    private static final Pattern IMG_TAG_PATTERN = Pattern.compile(
+            "<img(\\s+.*?)(?:src\\s*=\\s*(?:'|\")(.*?)(?:'|\"))(.*?)>",
+            Pattern.DOTALL | Pattern.CASE_INSENSITIVE);
+    private static final Pattern IFRAME_TAG_PATTERN = Pattern.compile(
+            "<iframe(\\s+.*?)(?:src\\s*=\\s*(?:'|\")(.*?)(?:'|\"))(.*?)>",
+            Pattern.DOTALL | Pattern.CASE_INSENSITIVE);
+
+    private static final ReaderHtmlRewriter.TagRewriter TEST_REWRITER = new ReaderHtmlRewriter.TagRewriter() {
+        @Override
+        public String rewriteImageTag(String imageTag, String imageUrl) {
+            return "<img src='" + imageUrl + "?w=600' width='300' />";
+        }
+        @Override
+        public String rewriteIframeTag(String iframeTag, String src) {
+            return "<iframe src='" + src + "' width='300' />";
+        }
+    };
+
+    public void testRewriteTags() {
+        String content = "<p>Hello <IMG class=\"a\" src=\"http://a.com/1.jpg\" alt=\"1 > 0\">"
+                + "<img src='http://a.com/2.jpg'/></p><iframe  src=\"http://v.com/1\" width=\"640\"></iframe>"
+                + "<imgx src='http://a.com/3.jpg'><img alt='no source'><image src='x'>";
+        String expected = "<p>Hello <img src='http://a.com/1.jpg?w=600' width='300' />"
+                + "<img src='http://a.com/2.jpg?w=600' width='300' /></p>"
+                + "<iframe src='http://v.com/1' width='300' /></iframe>"
+                + "<imgx src='http://a.com/3.jpg'><img alt='no source'><image src='x'>";
+        assertEquals(expected, ReaderHtmlRewriter.rewrite(content, TEST_REWRITER));
+    }
+
+    public void testRewriteKeepsContent() {
+        assertEquals("", ReaderHtmlRewriter.rewrite(null, TEST_REWRITER));
+        assertEquals("no tags", ReaderHtmlRewriter.rewrite("no tags", TEST_REWRITER));
+        assertEquals("a < b <img src='x.jpg'", ReaderHtmlRewriter.rewrite("a < b <img src='x.jpg'", TEST_REWRITER));
+
+        ReaderHtmlRewriter.TagRewriter keepRewriter = new ReaderHtmlRewriter.TagRewriter() {
+            @Override
+            public String rewriteImageTag(String imageTag, String imageUrl) {
+                return null;
+            }
+            @Override
+            public String rewriteIframeTag(String iframeTag, String src) {
+                return null;
+            }
+        };
+        String content = "<p><img src='x.jpg'></p>";
+        assertEquals(content, ReaderHtmlRewriter.rewrite(content, keepRewriter));
+    }
+
+    /*
+     * the single-pass rewriter must produce the same html as the regex scan + replace approach the
+     * renderer used before, on a photo-blog post with many images and a few embeds
+     */
+    public void testRewriteMatchesLegacyRewrite() {
+        String content = getPhotoBlogContent();
+        assertEquals(legacyRewrite(content), ReaderHtmlRewriter.rewrite(content, TEST_REWRITER));
+    }
+
+    private static String getPhotoBlogContent() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < PHOTO_BLOG_IMAGE_COUNT; i++) {
+            sb.append("<div class=\"wp-caption\"><a href=\"http://photos.example.com/photo-").append(i).append("/\">")
+                    .append("<img class=\"size-large wp-image-").append(i).append("\" ")
+                    .append("src=\"http://photos.example.com/files/photo-").append(i).append(".jpg?w=1024\" ")
+                    .append("alt=\"Photo ").append(i).append("\" width=\"1024\" height=\"683\" /></a>")
+                    .append("<p class=\"wp-caption-text\">Caption for photo ").append(i).append("</p></div>");
+            if (i % 25 == 0) {
+                sb.append("<iframe width=\"640\" height=\"360\" src=\"http://video.example.com/embed/")
+                        .append(i).append("\" frameborder=\"0\"></iframe>");
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String legacyRewrite(String content) {
+        StringBuilder builder = new StringBuilder(content);
+        Matcher matcher = IMG_TAG_PATTERN.matcher(builder.toString());
+        while (matcher.find()) {
+            String tag = matcher.group();
+            String newTag = TEST_REWRITER.rewriteImageTag(tag, ReaderHtmlUtils.getSrcAttrValue(tag));
+            int start = builder.indexOf(tag);
+            builder.replace(start, start + tag.length(), newTag);
+        }
+        matcher = IFRAME_TAG_PATTERN.matcher(builder.toString());
+        while (matcher.find()) {
+            String tag = matcher.group();
+            String newTag = TEST_REWRITER.rewriteIframeTag(tag, ReaderHtmlUtils.getSrcAttrValue(tag));
+            int start = builder.indexOf(tag);
+            builder.replace(start, start + tag.length(), newTag);
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,178 @@
+package org.wordpress.android.ui.reader.adapters;
+
+import android.support.v7.widget.RecyclerView;
+import android.test.InstrumentationTestCase;
+import android.view.ViewGroup;
+
+import org.wordpress.android.models.ReaderPost;
+import org.wordpress.android.models.ReaderPostList;
+import org.wordpress.android.ui.reader.models.ReaderPostKey;
+import org.wordpress.android.ui.reader.models.ReaderPostKeyList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class ReaderPostWindowTest extends InstrumentationTestCase {
+    private static final int BLOG_ID = 1;
+
+    public void testGetRefreshRange() {
+        int keyCount = ReaderPostWindow.PAGE_SIZE * 5;
+        ReaderPostKeyList keys = newKeys(keyCount);
+
+        // nothing in memory, so only the first page is reloaded
+        assertRange(0, ReaderPostWindow.PAGE_SIZE, ReaderPostWindow.getRefreshRange(keys, new HashSet<String>()));
+        assertRange(0, 3, ReaderPostWindow.getRefreshRange(newKeys(3), new HashSet<String>()));
+
+        // the posts in memory and the ones between them
+        assertRange(3, 8, ReaderPostWindow.getRefreshRange(keys, newCacheKeys(3, 7, 5)));
+
+        // never more than the window keeps in memory
+        int maxCachedPosts = ReaderPostWindow.PAGE_SIZE * 3;
+        assertRange(2, 2 + maxCachedPosts, ReaderPostWindow.getRefreshRange(keys, newCacheKeys(2, keyCount - 1)));
+    }
+
+    public void testIsInSameOrder() {
+        ReaderPostKeyList keys = newKeys(1, 2, 3);
+
+        // removed and inserted posts don't change the order of the others
+        ReaderPostKeyList newKeys = newKeys(4, 1, 3, 5);
+        assertTrue(ReaderPostWindow.isInSameOrder(keys, newKeys, toCacheKeys(newKeys)));
+
+        newKeys = newKeys(1, 3, 2);
+        assertFalse(ReaderPostWindow.isInSameOrder(keys, newKeys, toCacheKeys(newKeys)));
+    }
+
+    public void testApplyRefresh() {
+        List<String> events = new ArrayList<String>();
+        ReaderPostWindow window = new ReaderPostWindow(newAdapter(events), null);
+
+        window.applyRefresh(newKeys(1, 2, 3), newPosts(1, 2, 3));
+        assertEquals(Arrays.asList("changed"), events);
+        assertEquals(3, window.size());
+        assertNotNull(window.peekPost(2));
+
+        // 2 was removed, 4 inserted at the top and 1 was liked
+        events.clear();
+        ReaderPostList reloadedPosts = newPosts(4, 1, 3);
+        reloadedPosts.get(1).numLikes = 1;
+        window.applyRefresh(newKeys(4, 1, 3), reloadedPosts);
+        assertEquals(Arrays.asList("removed 1", "inserted 0", "changed 1"), events);
+        assertKeys(window, 4, 1, 3);
+        assertEquals(1, window.peekPost(1).numLikes);
+
+        // reordered posts replace the whole list
+        events.clear();
+        window.applyRefresh(newKeys(3, 4, 1), newPosts(3));
+        assertEquals(Arrays.asList("changed"), events);
+        assertKeys(window, 3, 4, 1);
+    }
+
+    public void testClearForgetsPosts() {
+        ReaderPostWindow window = new ReaderPostWindow(newAdapter(new ArrayList<String>()), null);
+        window.applyRefresh(newKeys(1, 2), newPosts(1, 2));
+        window.clear();
+        assertEquals(0, window.size());
+        assertEquals(0, window.getCachedPosts().size());
+    }
+
+    private static ReaderPostKeyList newKeys(int count) {
+        ReaderPostKeyList keys = new ReaderPostKeyList();
+        for (int i = 0; i < count; i++) {
+            keys.add(newKey(i));
+        }
+        return keys;
+    }
+
+    private static ReaderPostKeyList newKeys(long... postIds) {
+        ReaderPostKeyList keys = new ReaderPostKeyList();
+        for (long postId : postIds) {
+            keys.add(newKey(postId));
+        }
+        return keys;
+    }
+
+    private static ReaderPostKey newKey(long postId) {
+        return new ReaderPostKey(BLOG_ID, postId, 1000 - postId, "pseudo-" + postId);
+    }
+
+    private static ReaderPostList newPosts(long... postIds) {
+        ReaderPostList posts = new ReaderPostList();
+        for (long postId : postIds) {
+            ReaderPost post = new ReaderPost();
+            post.blogId = BLOG_ID;
+            post.postId = postId;
+            posts.add(post);
+        }
+        return posts;
+    }
+
+    private static Set<String> newCacheKeys(long... postIds) {
+        return toCacheKeys(newKeys(postIds));
+    }
+
+    private static Set<String> toCacheKeys(ReaderPostKeyList keys) {
+        Set<String> cacheKeys = new HashSet<String>();
+        for (ReaderPostKey key : keys) {
+            cacheKeys.add(key.getBlogId() + ":" + key.getPostId());
+        }
+        return cacheKeys;
+    }
+
+    private static void assertRange(int first, int last, int[] range) {
+        assertEquals(first, range[0]);
+        assertEquals(last, range[1]);
+    }
+
+    private static void assertKeys(ReaderPostWindow window, long... postIds) {
+        assertEquals(postIds.length, window.size());
+        for (int i = 0; i < postIds.length; i++) {
+            assertEquals(postIds[i], window.getKey(i).getPostId());
+        }
+    }
+
+    /*
+     * adapter that records the notifications the window sends it
+     */
+    private static RecyclerView.Adapter<RecyclerView.ViewHolder> newAdapter(final List<String> events) {
+        RecyclerView.Adapter<RecyclerView.ViewHolder> adapter = new RecyclerView.Adapter<RecyclerView.ViewHolder>() {
+            @Override
+            public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+                return null;
+            }
+
+            @Override
+            public void onBindViewHolder(RecyclerView.ViewHolder holder, int position) {
+            }
+
+            @Override
+            public int getItemCount() {
+                return 0;
+            }
+        };
+        adapter.registerAdapterDataObserver(new RecyclerView.AdapterDataObserver() {
+            @Override
+            public void onChanged() {
+                events.add("changed");
+            }
+
+            @Override
+            public void onItemRangeChanged(int positionStart, int itemCount) {
+                events.add("changed " + positionStart);
+            }
+
+            @Override
+            public void onItemRangeInserted(int positionStart, int itemCount) {
+                events.add("inserted " + positionStart);
+            }
+
+            @Override
+            public void onItemRangeRemoved(int positionStart, int itemCount) {
+                events.add("removed " + positionStart);
+            }
+        });
+        return adapter;
+    }
+}
@@ -0,0 +1,60 @@
+package org.wordpress.android.ui.reader.services;
+
+import android.test.InstrumentationTestCase;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.wordpress.android.models.ReaderPost;
+import org.wordpress.android.models.ReaderTag;
+import org.wordpress.android.models.ReaderTagType;
+import org.wordpress.android.ui.reader.ReaderConstants;
+import org.wordpress.android.ui.reader.services.ReaderPostService.UpdateAction;
+
+public class ReaderPostServiceTest extends InstrumentationTestCase {
+    private static final String PAGE_PARAMS = "?number=" + ReaderConstants.READER_MAX_POSTS_TO_REQUEST + "&order=DESC";
+
+    public void testRefreshRequestsNewestPage() {
+        ReaderTag likedTag = new ReaderTag("Posts I Like",
+                "https://public-api.wordpress.com/rest/v1.1/read/liked", ReaderTagType.DEFAULT);
+        ReaderTag followedTag = new ReaderTag("Blogs I Follow",
+                "https://public-api.wordpress.com/rest/v1.1/read/following", ReaderTagType.DEFAULT);
+
+        assertEquals("read/liked" + PAGE_PARAMS, ReaderPostService.getPathForTag(likedTag, UpdateAction.REQUEST_NEWER));
+        assertEquals("read/following" + PAGE_PARAMS,
+                ReaderPostService.getPathForTag(followedTag, UpdateAction.REQUEST_NEWER));
+        assertEquals("sites/1/posts/?meta=site,likes", ReaderPostService.getPathForBlog(1, UpdateAction.REQUEST_NEWER));
+        assertEquals("read/feed/1/posts/?meta=site,likes",
+                ReaderPostService.getPathForFeed(1, UpdateAction.REQUEST_NEWER));
+    }
+
+    /*
+     * liking a post published before the newest post in "Posts I Like" must still add it to the
+     * top of the list on refresh - the refresh requests the newest page regardless of what's
+     * stored, and the post is sorted by the date it was liked
+     */
+    public void testRefreshReturnsNewlyLikedOlderPost() throws JSONException {
+        ReaderPost newestStoredPost = ReaderPost.fromJson(newLikedPostJson(1, "2015-03-01T00:00:00+00:00",
+                "2015-03-02T00:00:00+00:00"));
+        ReaderPost likedOlderPost = ReaderPost.fromJson(newLikedPostJson(2, "2014-01-01T00:00:00+00:00",
+                "2015-03-10T00:00:00+00:00"));
+
+        ReaderTag likedTag = new ReaderTag("Posts I Like",
+                "https://public-api.wordpress.com/rest/v1.1/read/liked", ReaderTagType.DEFAULT);
+        String path = ReaderPostService.getPathForTag(likedTag, UpdateAction.REQUEST_NEWER);
+        assertFalse(path.contains("after="));
+
+        assertTrue(likedOlderPost.getPublished().compareTo(newestStoredPost.getPublished()) < 0);
+        assertTrue(likedOlderPost.timestamp > newestStoredPost.timestamp);
+    }
+
+    private static JSONObject newLikedPostJson(long postId, String published, String liked) throws JSONException {
+        JSONObject json = new JSONObject();
+        json.put("ID", postId);
+        json.put("site_ID", 1);
+        json.put("title", "Post " + postId);
+        json.put("date", published);
+        json.put("date_liked", liked);
+        json.put("i_like", true);
+        return json;
+    }
+}
@@ -0,0 +1,70 @@
+package org.wordpress.android.util;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Build;
+import android.test.InstrumentationTestCase;
+
+public class BitmapPoolTest extends InstrumentationTestCase {
+    private static final int THUMBNAIL_BYTES = 100 * 100 * 4;
+
+    public void testReuseSameSize() {
+        BitmapPool pool = new BitmapPool(10 * THUMBNAIL_BYTES);
+        Bitmap bitmap = Bitmap.createBitmap(100, 100, Bitmap.Config.ARGB_8888);
+        assertTrue(pool.put(bitmap));
+        // already pooled
+        assertFalse(pool.put(bitmap));
+
+        assertSame(bitmap, pool.getReusableBitmap(getDecodeOptions(100, 100, 1)));
+        assertNull(pool.getReusableBitmap(getDecodeOptions(100, 100, 1)));
+        assertEquals(0.5f, pool.getHitRate(), 0.001f);
+    }
+
+    public void testReuseLarger() {
+        BitmapPool pool = new BitmapPool(10 * THUMBNAIL_BYTES);
+        Bitmap bitmap = Bitmap.createBitmap(100, 100, Bitmap.Config.ARGB_8888);
+        pool.put(bitmap);
+
+        // a 200x200 image sampled by 2 fits in the pooled bitmap, which only works on KitKat and up
+        Bitmap reusable = pool.getReusableBitmap(getDecodeOptions(200, 200, 2));
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+            assertSame(bitmap, reusable);
+        } else {
+            assertNull(reusable);
+        }
+
+        // too big for the pooled bitmap
+        assertNull(pool.getReusableBitmap(getDecodeOptions(400, 400, 1)));
+    }
+
+    public void testImmutableBitmapIsNotPooled() {
+        BitmapPool pool = new BitmapPool(10 * THUMBNAIL_BYTES);
+        Bitmap bitmap = Bitmap.createBitmap(new int[100 * 100], 100, 100, Bitmap.Config.ARGB_8888);
+        assertFalse(bitmap.isMutable());
+        assertFalse(pool.put(bitmap));
+    }
+
+    public void testEvictOldestWhenFull() {
+        BitmapPool pool = new BitmapPool(4 * THUMBNAIL_BYTES);
+        Bitmap oldest = Bitmap.createBitmap(100, 100, Bitmap.Config.ARGB_8888);
+        pool.put(oldest);
+        for (int i = 0; i < 4; i++) {
+            pool.put(Bitmap.createBitmap(100, 100, Bitmap.Config.ARGB_8888));
+        }
+
+        for (int i = 0; i < 4; i++) {
+            Bitmap bitmap = pool.getReusableBitmap(getDecodeOptions(100, 100, 1));
+            assertNotNull(bitmap);
+            assertNotSame(oldest, bitmap);
+        }
+        assertNull(pool.getReusableBitmap(getDecodeOptions(100, 100, 1)));
+    }
+
+    private static BitmapFactory.Options getDecodeOptions(int width, int height, int sampleSize) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.outWidth = width;
+        options.outHeight = height;
+        options.inSampleSize = sampleSize;
+        return options;
+    }
+}
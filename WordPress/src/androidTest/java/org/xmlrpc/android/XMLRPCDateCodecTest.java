@@ -0,0 +1,91 @@
+package org.xmlrpc.android;
+
+import android.test.InstrumentationTestCase;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Random;
+import java.util.SimpleTimeZone;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class XMLRPCDateCodecTest extends InstrumentationTestCase {
+    private static final int TIMESTAMP_COUNT = 100000;
+
+    private SimpleDateFormat newReferenceFormat() {
+        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyyMMdd'T'HH:mm:ss");
+        dateFormat.setCalendar(Calendar.getInstance(new SimpleTimeZone(0, "GMT")));
+        return dateFormat;
+    }
+
+    // post timestamps between 2003 and 2033
+    private String[] buildTimestamps(SimpleDateFormat dateFormat) {
+        Random random = new Random(42);
+        String[] timestamps = new String[TIMESTAMP_COUNT];
+        for (int i = 0; i < TIMESTAMP_COUNT; i++) {
+            long millis = 1041379200000L + (long) (random.nextDouble() * 30L * 365L * 24L * 3600L * 1000L);
+            timestamps[i] = dateFormat.format(new Date(millis / 1000L * 1000L));
+        }
+        return timestamps;
+    }
+
+    public void testMatchesSimpleDateFormat() throws Exception {
+        SimpleDateFormat dateFormat = newReferenceFormat();
+        for (String timestamp : buildTimestamps(dateFormat)) {
+            Date expected = (Date) dateFormat.parseObject(timestamp);
+            assertEquals(timestamp, expected, XMLRPCDateCodec.parse(timestamp));
+            assertEquals(timestamp, XMLRPCDateCodec.formatToString(expected));
+        }
+    }
+
+    public void testFallbackValues() throws Exception {
+        SimpleDateFormat dateFormat = newReferenceFormat();
+        String[] values = {"00000000T00:00:00", "20140230T10:00:00", "15000101T00:00:00",
+                "20140102T03:04:05Z", "20140102T03:04:05+02:00"};
+        for (String value : values) {
+            assertEquals(value, dateFormat.parseObject(value), XMLRPCDateCodec.parse(value));
+        }
+    }
+
+    /*
+     * the codec is shared by the threads parsing responses, it must give the same results when
+     * used from several threads at once
+     */
+    public void testConcurrentParseAndFormat() throws Exception {
+        SimpleDateFormat dateFormat = newReferenceFormat();
+        final String[] timestamps = buildTimestamps(dateFormat);
+        final Date[] expected = new Date[timestamps.length];
+        for (int i = 0; i < timestamps.length; i++) {
+            expected[i] = (Date) dateFormat.parseObject(timestamps[i]);
+        }
+
+        final AtomicInteger mismatchCount = new AtomicInteger();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            final int firstIndex = t;
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < timestamps.length; i++) {
+                        int index = (firstIndex * timestamps.length / 4 + i) % timestamps.length;
+                        try {
+                            if (!expected[index].equals(XMLRPCDateCodec.parse(timestamps[index]))
+                                    || !timestamps[index].equals(XMLRPCDateCodec.formatToString(expected[index]))) {
+                                mismatchCount.incrementAndGet();
+                            }
+                        } catch (ParseException e) {
+                            mismatchCount.incrementAndGet();
+                        }
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(0, mismatchCount.get());
+    }
+}
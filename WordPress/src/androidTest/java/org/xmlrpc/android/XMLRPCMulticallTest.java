@@ -0,0 +1,50 @@
+package org.xmlrpc.android;
+
+import android.test.InstrumentationTestCase;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class XMLRPCMulticallTest extends InstrumentationTestCase {
+    public void testDispatchResultsAndFaults() throws Exception {
+        XMLRPCMulticall multicall = new XMLRPCMulticall();
+        XMLRPCMulticall.Call optionsCall = multicall.add("wp.getOptions", new Object[]{1, "user", "pass"});
+        XMLRPCMulticall.Call profileCall = multicall.add("wp.getProfile", new Object[]{1, "user", "pass"});
+
+        Map<String, Object> options = new HashMap<String, Object>();
+        options.put("blog_title", "Test");
+        Map<String, Object> fault = new HashMap<String, Object>();
+        fault.put("faultCode", 403);
+        fault.put("faultString", "Incorrect username or password.");
+        multicall.dispatchResponse(new Object[]{new Object[]{options}, fault});
+
+        assertEquals(options, optionsCall.getResult());
+        try {
+            profileCall.getResult();
+            fail("the fault must be thrown by the call it belongs to");
+        } catch (XMLRPCFault e) {
+            assertEquals(403, e.getFaultCode());
+        }
+    }
+
+    public void testInvalidResponseFailsEveryCall() throws Exception {
+        XMLRPCMulticall multicall = new XMLRPCMulticall();
+        XMLRPCMulticall.Call optionsCall = multicall.add("wp.getOptions", null);
+        XMLRPCMulticall.Call profileCall = multicall.add("wp.getProfile", null);
+
+        try {
+            multicall.dispatchResponse(new Object[]{new Object[]{"only one result"}});
+            fail("a response that doesn't match the calls must be rejected");
+        } catch (XMLRPCException e) {
+            // expected
+        }
+        for (XMLRPCMulticall.Call call : new XMLRPCMulticall.Call[]{optionsCall, profileCall}) {
+            try {
+                call.getResult();
+                fail("every call must fail");
+            } catch (XMLRPCException e) {
+                // expected
+            }
+        }
+    }
+}
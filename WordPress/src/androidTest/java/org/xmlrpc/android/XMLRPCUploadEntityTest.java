@@ -0,0 +1,76 @@
+package org.xmlrpc.android;
+
+import android.test.InstrumentationTestCase;
+import android.util.Base64;
+import android.util.Xml;
+
+import org.wordpress.android.models.MediaFile;
+import org.xmlpull.v1.XmlSerializer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+public class XMLRPCUploadEntityTest extends InstrumentationTestCase {
+    public void testContentMatchesWrittenEntity() throws IOException {
+        // not a multiple of 3 or of the encoder's chunk size, so the last chunk is padded
+        byte[] data = new byte[100 * 1024 + 1];
+        new Random(42).nextBytes(data);
+        File file = File.createTempFile("upload", ".bin", getInstrumentation().getTargetContext().getCacheDir());
+        try {
+            FileOutputStream out = new FileOutputStream(file);
+            try {
+                out.write(data);
+            } finally {
+                out.close();
+            }
+
+            XMLRPCUploadEntity entity = newEntity(file);
+            ByteArrayOutputStream written = new ByteArrayOutputStream();
+            entity.writeTo(written);
+            byte[] content = readContent(entity);
+
+            assertEquals(entity.getContentLength(), written.size());
+            assertTrue(Arrays.equals(written.toByteArray(), content));
+            assertTrue(new String(content, "UTF-8").contains(
+                    "<base64>" + Base64.encodeToString(data, Base64.NO_WRAP) + "</base64>"));
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static XMLRPCUploadEntity newEntity(File file) throws IOException {
+        XMLRPCUploadEntity entity = new XMLRPCUploadEntity();
+        XmlSerializer serializer = Xml.newSerializer();
+        serializer.setOutput(entity.getDocumentOutputStream(), "UTF-8");
+        serializer.startDocument(null, null);
+        serializer.startTag("", "base64");
+        MediaFile mediaFile = new MediaFile();
+        mediaFile.setFilePath(file.getPath());
+        entity.writeMediaFile(serializer, mediaFile);
+        serializer.endTag("", "base64");
+        serializer.endDocument();
+        serializer.flush();
+        entity.finishDocument();
+        return entity;
+    }
+
+    private static byte[] readContent(XMLRPCUploadEntity entity) throws IOException {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        InputStream in = entity.getContent();
+        try {
+            byte[] buffer = new byte[1000];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                content.write(buffer, 0, read);
+            }
+        } finally {
+            in.close();
+        }
+        return content.toByteArray();
+    }
+}
@@ -50,7 +50,8 @@ import org.wordpress.android.util.ABTestingUtils;
 import org.wordpress.android.util.ABTestingUtils.Feature;
 import org.wordpress.android.util.AppLog;
 import org.wordpress.android.util.AppLog.T;
-import org.wordpress.android.util.BitmapLruCache;
+import org.wordpress.android.util.BitmapCache;
+import org.wordpress.android.util.BitmapCacheImageLoader;
 import org.wordpress.android.util.DateTimeUtils;
 import org.wordpress.android.util.HelpshiftHelper;
 import org.wordpress.android.util.NetworkUtils;
@@ -100,9 +101,10 @@ public class WordPress extends Application {
     private static final int SECONDS_BETWEEN_STATS_UPDATE = 30 * 60;
     private static final int SECONDS_BETWEEN_OPTIONS_UPDATE = 10 * 60;
     private static final int SECONDS_BETWEEN_BLOGLIST_UPDATE = 6 * 60 * 60;
+    private static final long BITMAP_DISK_CACHE_SIZE = 20 * 1024 * 1024;
 
     private static Context mContext;
-    private static BitmapLruCache mBitmapCache;
+    private static BitmapCache mBitmapCache;
 
 
     /**
@@ -133,13 +135,13 @@ public class WordPress extends Application {
         }
     };
 
-    public static BitmapLruCache getBitmapCache() {
+    public static BitmapCache getBitmapCache() {
         if (mBitmapCache == null) {
             // The cache size will be measured in kilobytes rather than
             // number of items. See http://developer.android.com/training/displaying-bitmaps/cache-bitmap.html
             int maxMemory = (int) (Runtime.getRuntime().maxMemory() / 1024);
             int cacheSize = maxMemory / 16;  //Use 1/16th of the available memory for this memory cache.
-            mBitmapCache = new BitmapLruCache(cacheSize);
+            mBitmapCache = new BitmapCache(mContext, cacheSize, BITMAP_DISK_CACHE_SIZE);
         }
         return mBitmapCache;
     }
@@ -209,7 +211,7 @@ public class WordPress extends Application {
 
     public static void setupVolleyQueue() {
         requestQueue = Volley.newRequestQueue(mContext, VolleyUtils.getHTTPClientStack(mContext));
-        imageLoader = new ImageLoader(requestQueue, getBitmapCache());
+        imageLoader = new BitmapCacheImageLoader(requestQueue, getBitmapCache());
         VolleyLog.setTag(AppLog.TAG);
         // http://stackoverflow.com/a/17035814
         imageLoader.setBatchedResponseDelay(0);
@@ -747,6 +749,7 @@ public class WordPress extends Application {
             }
 
             if (evictBitmaps && mBitmapCache != null) {
+                mBitmapCache.logStats();
                 mBitmapCache.evictAll();
             }
         }
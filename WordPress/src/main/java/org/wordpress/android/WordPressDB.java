@@ -7,6 +7,8 @@ import android.content.SharedPreferences;
 import android.database.Cursor;
 import android.database.DatabaseUtils;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteDoneException;
+import android.database.sqlite.SQLiteStatement;
 import android.preference.PreferenceManager;
 import android.text.TextUtils;
 import android.util.Base64;
@@ -39,8 +41,8 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.Vector;
@@ -71,8 +73,12 @@ public class WordPressDB {
     public static final String COLUMN_NAME_DATE_CREATED_GMT      = "date_created_gmt";
     public static final String COLUMN_NAME_VIDEO_PRESS_SHORTCODE = "videoPressShortcode";
     public static final String COLUMN_NAME_UPLOAD_STATE          = "uploadState";
+    public static final String COLUMN_NAME_UPLOAD_ATTEMPTS       = "uploadAttempts";
+    public static final String COLUMN_NAME_UPLOAD_RETRY_AT       = "uploadRetryAt";
+    public static final String COLUMN_NAME_SYNC_GENERATION       = "syncGeneration";
+    public static final String COLUMN_NAME_CONTENT_HASH          = "contentHash";
 
-    private static final int DATABASE_VERSION = 29;
+    private static final int DATABASE_VERSION = 35;
 
     private static final String CREATE_TABLE_SETTINGS = "create table if not exists accounts (id integer primary key autoincrement, "
             + "url text, blogName text, username text, password text, imagePlacement text, centerThumbnail boolean, fullSizeImage boolean, maxImageWidth text, maxImageWidthId integer);";
@@ -138,6 +144,38 @@ public class WordPressDB {
     // Add boolean to POSTS to track posts currently being uploaded
     private static final String ADD_IS_UPLOADING = "alter table posts add isUploading boolean default 0";
 
+    // hash of the post as last fetched from the server, unchanged posts are skipped by savePosts()
+    private static final String ADD_POST_CONTENT_HASH = "alter table posts add content_hash text default ''";
+
+    // indexes for the posts list, the posts sync, the media library, the media upload queue and categories
+    private static final String CREATE_INDEX_POSTS_LIST = "create index if not exists posts_list_idx on posts (blogID, isPage, localDraft, date_created_gmt);";
+    // the posts sync looks posts up by blog, type and remote id - without isPage the planner prefers posts_list_idx
+    private static final String CREATE_INDEX_POSTS_REMOTE_ID = "create index if not exists posts_remote_id_idx on posts (blogID, isPage, postid);";
+    private static final String DROP_INDEX_POSTS_REMOTE_ID = "drop index if exists posts_remote_id_idx;";
+    private static final String CREATE_INDEX_MEDIA_ID = "create index if not exists media_id_idx on media (blogId, mediaId);";
+    private static final String CREATE_INDEX_MEDIA_UPLOAD_STATE = "create index if not exists media_upload_state_idx on media (blogId, uploadState);";
+    private static final String CREATE_INDEX_CATEGORIES_BLOG_ID = "create index if not exists cats_blog_id_idx on cats (blog_id);";
+
+    // full-text search indexes, the docid is the id of the media or post, kept in sync by triggers
+    private static final String MEDIA_FTS_TABLE = "media_fts";
+    private static final String POSTS_FTS_TABLE = "posts_fts";
+    private static final String CREATE_TABLE_MEDIA_FTS = "create virtual table if not exists media_fts using fts4 (title, caption, description);";
+    private static final String CREATE_TABLE_POSTS_FTS = "create virtual table if not exists posts_fts using fts4 (title, content);";
+    private static final String POPULATE_MEDIA_FTS = "insert into media_fts (docid, title, caption, description) select id, title, caption, description from media;";
+    private static final String POPULATE_POSTS_FTS = "insert into posts_fts (docid, title, content) select id, title, ifnull(description, '') || ' ' || ifnull(mt_text_more, '') from posts;";
+    private static final String CREATE_TRIGGER_MEDIA_FTS_INSERT = "create trigger if not exists media_fts_insert after insert on media begin "
+            + "insert into media_fts (docid, title, caption, description) values (new.id, new.title, new.caption, new.description); end;";
+    private static final String CREATE_TRIGGER_MEDIA_FTS_UPDATE = "create trigger if not exists media_fts_update after update of title, caption, description on media begin "
+            + "update media_fts set title=new.title, caption=new.caption, description=new.description where docid=old.id; end;";
+    private static final String CREATE_TRIGGER_MEDIA_FTS_DELETE = "create trigger if not exists media_fts_delete after delete on media begin "
+            + "delete from media_fts where docid=old.id; end;";
+    private static final String CREATE_TRIGGER_POSTS_FTS_INSERT = "create trigger if not exists posts_fts_insert after insert on posts begin "
+            + "insert into posts_fts (docid, title, content) values (new.id, new.title, ifnull(new.description, '') || ' ' || ifnull(new.mt_text_more, '')); end;";
+    private static final String CREATE_TRIGGER_POSTS_FTS_UPDATE = "create trigger if not exists posts_fts_update after update of title, description, mt_text_more on posts begin "
+            + "update posts_fts set title=new.title, content=ifnull(new.description, '') || ' ' || ifnull(new.mt_text_more, '') where docid=old.id; end;";
+    private static final String CREATE_TRIGGER_POSTS_FTS_DELETE = "create trigger if not exists posts_fts_delete after delete on posts begin "
+            + "delete from posts_fts where docid=old.id; end;";
+
     //add boolean to track if featured image should be included in the post content
     private static final String ADD_FEATURED_IN_POST = "alter table media add isFeaturedInPost boolean default false;";
 
@@ -161,10 +199,23 @@ public class WordPressDB {
     private static final String ADD_MEDIA_UPLOAD_STATE = "alter table media add uploadState default '';";
     private static final String ADD_MEDIA_VIDEOPRESS_SHORTCODE = "alter table media add videoPressShortcode text default '';";
 
+    // persistent state of media uploads, see MediaUploadService
+    private static final String ADD_MEDIA_UPLOAD_ATTEMPTS = "alter table media add uploadAttempts integer default 0;";
+    private static final String ADD_MEDIA_UPLOAD_RETRY_AT = "alter table media add uploadRetryAt integer default 0;";
+    private static final String CREATE_INDEX_MEDIA_UPLOAD_QUEUE = "create index if not exists media_upload_queue_idx on media (uploadState);";
+
+    // add the generation and content hash of the last media library sync to media, see saveMediaFilesFromSync()
+    private static final String ADD_MEDIA_SYNC_GENERATION = "alter table media add syncGeneration integer default 0;";
+    private static final String ADD_MEDIA_CONTENT_HASH = "alter table media add contentHash text default '';";
+
     // add hidden flag to blog settings (accounts)
     private static final String ADD_ACCOUNTS_HIDDEN_FLAG = "alter table accounts add isHidden boolean default 0;";
 
     private SQLiteDatabase db;
+    // compiled statements reused across calls, by SQL, see getCachedStatement()
+    private final Map<String, SQLiteStatement> mStatementCache = new HashMap<String, SQLiteStatement>();
+    // highest media sync generation handed out for each blog, see getNextMediaSyncGeneration()
+    private final Map<String, Integer> mMediaSyncGenerations = new HashMap<String, Integer>();
 
     protected static final String PASSWORD_SECRET = BuildConfig.DB_SECRET;
     private Context context;
@@ -278,6 +329,47 @@ public class WordPressDB {
                 // Remove WordPress.com credentials
                 removeDotComCredentials();
                 currentVersion++;
+            case 29:
+                // Add content_hash column to POSTS
+                db.execSQL(ADD_POST_CONTENT_HASH);
+                currentVersion++;
+            case 30:
+                // Add indexes for the most frequent queries on POSTS, MEDIA and CATEGORIES
+                db.execSQL(CREATE_INDEX_POSTS_LIST);
+                db.execSQL(CREATE_INDEX_POSTS_REMOTE_ID);
+                db.execSQL(CREATE_INDEX_MEDIA_ID);
+                db.execSQL(CREATE_INDEX_MEDIA_UPLOAD_STATE);
+                db.execSQL(CREATE_INDEX_CATEGORIES_BLOG_ID);
+                currentVersion++;
+            case 31:
+                // Add full-text search indexes for MEDIA and POSTS
+                db.execSQL(CREATE_TABLE_MEDIA_FTS);
+                db.execSQL(CREATE_TABLE_POSTS_FTS);
+                db.execSQL(POPULATE_MEDIA_FTS);
+                db.execSQL(POPULATE_POSTS_FTS);
+                db.execSQL(CREATE_TRIGGER_MEDIA_FTS_INSERT);
+                db.execSQL(CREATE_TRIGGER_MEDIA_FTS_UPDATE);
+                db.execSQL(CREATE_TRIGGER_MEDIA_FTS_DELETE);
+                db.execSQL(CREATE_TRIGGER_POSTS_FTS_INSERT);
+                db.execSQL(CREATE_TRIGGER_POSTS_FTS_UPDATE);
+                db.execSQL(CREATE_TRIGGER_POSTS_FTS_DELETE);
+                currentVersion++;
+            case 32:
+                // Add upload attempts and retry time to MEDIA so uploads can be retried and resumed
+                db.execSQL(ADD_MEDIA_UPLOAD_ATTEMPTS);
+                db.execSQL(ADD_MEDIA_UPLOAD_RETRY_AT);
+                db.execSQL(CREATE_INDEX_MEDIA_UPLOAD_QUEUE);
+                currentVersion++;
+            case 33:
+                // Add sync generation and content hash to MEDIA so the media library can be synced incrementally
+                db.execSQL(ADD_MEDIA_SYNC_GENERATION);
+                db.execSQL(ADD_MEDIA_CONTENT_HASH);
+                currentVersion++;
+            case 34:
+                // Add isPage to the POSTS remote id index so the posts sync uses it
+                db.execSQL(DROP_INDEX_POSTS_REMOTE_ID);
+                db.execSQL(CREATE_INDEX_POSTS_REMOTE_ID);
+                currentVersion++;
         }
 
         db.setVersion(DATABASE_VERSION);
@@ -287,6 +379,21 @@ public class WordPressDB {
         return db;
     }
 
+    /*
+     * returns the compiled statement for the passed SQL, compiled on first use. Callers must
+     * synchronize on the statement while binding and executing it, since it's shared by all threads.
+     */
+    private SQLiteStatement getCachedStatement(String sql) {
+        synchronized (mStatementCache) {
+            SQLiteStatement statement = mStatementCache.get(sql);
+            if (statement == null) {
+                statement = db.compileStatement(sql);
+                mStatementCache.put(sql, statement);
+            }
+            return statement;
+        }
+    }
+
     public static void deleteDatabase(Context ctx) {
         ctx.deleteDatabase(DATABASE_NAME);
     }
@@ -795,118 +902,271 @@ public class WordPressDB {
     }
 
     /**
-     * Saves a list of posts to the db
+     * Save posts returned by metaWeblog.getRecentPosts or wp.getPages. Posts that didn't change since
+     * they were last saved (same content hash) are skipped, and only the changed columns of the other
+     * posts are updated.
+     *
      * @param postsList: list of post objects
      * @param localBlogId: the posts table blog id
      * @param isPage: boolean to save as pages
+     * @param shouldOverwrite: overwrite the posts with local changes
+     * @return the remote ids of the posts in postsList, saved or unchanged
      */
-    public void savePosts(List<?> postsList, int localBlogId, boolean isPage, boolean shouldOverwrite) {
-        if (postsList != null && postsList.size() != 0) {
-            db.beginTransaction();
-            try {
-                for (Object post : postsList) {
-                    ContentValues values = new ContentValues();
+    public Set<String> savePosts(List<?> postsList, int localBlogId, boolean isPage, boolean shouldOverwrite) {
+        Set<String> remotePostIds = new HashSet<String>();
+        if (postsList == null || postsList.size() == 0) {
+            return remotePostIds;
+        }
 
-                    // Sanity checks
-                    if (!(post instanceof Map)) {
-                        continue;
-                    }
-                    Map<?, ?> postMap = (Map<?, ?>) post;
-                    String postID = MapUtils.getMapStr(postMap, (isPage) ? "page_id" : "postid");
-                    if (TextUtils.isEmpty(postID)) {
-                        // If we don't have a post or page ID, move on
-                        continue;
-                    }
+        for (Object post : postsList) {
+            if (post instanceof Map) {
+                String postID = MapUtils.getMapStr((Map<?, ?>) post, (isPage) ? "page_id" : "postid");
+                if (!TextUtils.isEmpty(postID)) {
+                    remotePostIds.add(postID);
+                }
+            }
+        }
 
-                    values.put("blogID", localBlogId);
-                    values.put("postid", postID);
-                    values.put("title", MapUtils.getMapStr(postMap, "title"));
-                    Date dateCreated = MapUtils.getMapDate(postMap, "dateCreated");
-                    if (dateCreated != null) {
-                        values.put("dateCreated", dateCreated.getTime());
-                    } else {
-                        Date now = new Date();
-                        values.put("dateCreated", now.getTime());
-                    }
+        int insertCount = 0;
+        int updateCount = 0;
+        db.beginTransaction();
+        try {
+            Map<String, PostSyncState> syncStates = getPostSyncStates(localBlogId, isPage, remotePostIds);
+            for (Object post : postsList) {
+                // Sanity checks
+                if (!(post instanceof Map)) {
+                    continue;
+                }
+                Map<?, ?> postMap = (Map<?, ?>) post;
+                String postID = MapUtils.getMapStr(postMap, (isPage) ? "page_id" : "postid");
+                if (TextUtils.isEmpty(postID)) {
+                    // If we don't have a post or page ID, move on
+                    continue;
+                }
 
-                    Date dateCreatedGmt = MapUtils.getMapDate(postMap, "date_created_gmt");
-                    if (dateCreatedGmt != null) {
-                        values.put("date_created_gmt", dateCreatedGmt.getTime());
-                    } else {
-                        dateCreatedGmt = new Date((Long) values.get("dateCreated"));
-                        values.put("date_created_gmt", dateCreatedGmt.getTime() + (dateCreatedGmt.getTimezoneOffset() * 60000));
-                    }
+                String contentHash = getPostContentHash(postMap);
+                PostSyncState syncState = syncStates.get(postID);
+                if (syncState == null) {
+                    ContentValues values = postMapToContentValues(postMap, localBlogId, isPage);
+                    values.put("content_hash", contentHash);
+                    db.insert(POSTS_TABLE, null, values);
+                    insertCount++;
+                    continue;
+                }
 
-                    values.put("description", MapUtils.getMapStr(postMap, "description"));
-                    values.put("link", MapUtils.getMapStr(postMap, "link"));
-                    values.put("permaLink", MapUtils.getMapStr(postMap, "permaLink"));
+                if (syncState.isLocalChange && !shouldOverwrite) {
+                    continue;
+                }
+                if (!syncState.isLocalChange && contentHash.equals(syncState.contentHash)) {
+                    // unchanged since the last sync
+                    continue;
+                }
 
-                    Object[] postCategories = (Object[]) postMap.get("categories");
-                    JSONArray jsonCategoriesArray = new JSONArray();
-                    if (postCategories != null) {
-                        for (Object postCategory : postCategories) {
-                            jsonCategoriesArray.put(postCategory.toString());
-                        }
-                    }
-                    values.put("categories", jsonCategoriesArray.toString());
-
-                    Object[] custom_fields = (Object[]) postMap.get("custom_fields");
-                    JSONArray jsonCustomFieldsArray = new JSONArray();
-                    if (custom_fields != null) {
-                        for (Object custom_field : custom_fields) {
-                            jsonCustomFieldsArray.put(custom_field.toString());
-                            // Update geo_long and geo_lat from custom fields
-                            if (!(custom_field instanceof Map))
-                                continue;
-                            Map<?, ?> customField = (Map<?, ?>) custom_field;
-                            if (customField.get("key") != null && customField.get("value") != null) {
-                                if (customField.get("key").equals("geo_longitude"))
-                                    values.put("longitude", customField.get("value").toString());
-                                if (customField.get("key").equals("geo_latitude"))
-                                    values.put("latitude", customField.get("value").toString());
-                            }
-                        }
-                    }
-                    values.put("custom_fields", jsonCustomFieldsArray.toString());
-
-                    values.put("mt_excerpt", MapUtils.getMapStr(postMap, (isPage) ? "excerpt" : "mt_excerpt"));
-                    values.put("mt_text_more", MapUtils.getMapStr(postMap, (isPage) ? "text_more" : "mt_text_more"));
-                    values.put("mt_allow_comments", MapUtils.getMapInt(postMap, "mt_allow_comments", 0));
-                    values.put("mt_allow_pings", MapUtils.getMapInt(postMap, "mt_allow_pings", 0));
-                    values.put("wp_slug", MapUtils.getMapStr(postMap, "wp_slug"));
-                    values.put("wp_password", MapUtils.getMapStr(postMap, "wp_password"));
-                    values.put("wp_author_id", MapUtils.getMapStr(postMap, "wp_author_id"));
-                    values.put("wp_author_display_name", MapUtils.getMapStr(postMap, "wp_author_display_name"));
-                    values.put("post_status", MapUtils.getMapStr(postMap, (isPage) ? "page_status" : "post_status"));
-                    values.put("userid", MapUtils.getMapStr(postMap, "userid"));
-
-                    if (isPage) {
-                        values.put("isPage", true);
-                        values.put("wp_page_parent_id", MapUtils.getMapStr(postMap, "wp_page_parent_id"));
-                        values.put("wp_page_parent_title", MapUtils.getMapStr(postMap, "wp_page_parent_title"));
-                    } else {
-                        values.put("mt_keywords", MapUtils.getMapStr(postMap, "mt_keywords"));
-                        values.put("wp_post_format", MapUtils.getMapStr(postMap, "wp_post_format"));
-                    }
+                ContentValues values = postMapToContentValues(postMap, localBlogId, isPage);
+                values.put("content_hash", contentHash);
+                if (syncState.isLocalChange) {
+                    values.put("isLocalChange", false);
+                }
+                removeUnchangedColumns(syncState.localTablePostId, values);
+                if (values.size() > 0) {
+                    db.update(POSTS_TABLE, values, "id=?", new String[]{String.valueOf(syncState.localTablePostId)});
+                    updateCount++;
+                }
+            }
 
-                    String whereClause = "blogID=? AND postID=? AND isPage=?";
-                    if (!shouldOverwrite) {
-                        whereClause += " AND NOT isLocalChange=1";
-                    }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        AppLog.d(T.POSTS, "savePosts: " + insertCount + " inserted, " + updateCount + " updated, "
+                + (remotePostIds.size() - insertCount - updateCount) + " unchanged");
+        return remotePostIds;
+    }
 
-                    int result = db.update(POSTS_TABLE, values, whereClause,
-                            new String[]{String.valueOf(localBlogId), postID, String.valueOf(SqlUtils.boolToSql(isPage))});
-                    if (result == 0)
-                        db.insert(POSTS_TABLE, null, values);
+    private static class PostSyncState {
+        long localTablePostId;
+        String contentHash;
+        boolean isLocalChange;
+    }
+
+    /*
+     * returns the sync state of the existing posts with the passed remote ids, by remote id
+     */
+    private Map<String, PostSyncState> getPostSyncStates(int localBlogId, boolean isPage, Set<String> remotePostIds) {
+        Map<String, PostSyncState> syncStates = new HashMap<String, PostSyncState>();
+        if (remotePostIds.isEmpty()) {
+            return syncStates;
+        }
+
+        List<String> args = new ArrayList<String>();
+        args.add(String.valueOf(localBlogId));
+        args.add(String.valueOf(SqlUtils.boolToSql(isPage)));
+        StringBuilder placeholders = new StringBuilder();
+        for (String remotePostId : remotePostIds) {
+            placeholders.append(placeholders.length() == 0 ? "?" : ",?");
+            args.add(remotePostId);
+        }
+        Cursor c = db.query(POSTS_TABLE, new String[]{"id", "postid", "content_hash", "isLocalChange"},
+                "blogID=? AND isPage=? AND localDraft != 1 AND postid IN (" + placeholders + ")",
+                args.toArray(new String[args.size()]), null, null, null);
+        try {
+            while (c.moveToNext()) {
+                PostSyncState syncState = new PostSyncState();
+                syncState.localTablePostId = c.getLong(0);
+                syncState.contentHash = StringUtils.notNullStr(c.getString(2));
+                syncState.isLocalChange = SqlUtils.sqlToBool(c.getInt(3));
+                syncStates.put(c.getString(1), syncState);
+            }
+        } finally {
+            c.close();
+        }
+        return syncStates;
+    }
+
+    /*
+     * removes the values that are the same in the existing row
+     */
+    private void removeUnchangedColumns(long localTablePostId, ContentValues values) {
+        List<String> columns = new ArrayList<String>();
+        for (Map.Entry<String, Object> entry : values.valueSet()) {
+            columns.add(entry.getKey());
+        }
+        Cursor c = db.query(POSTS_TABLE, columns.toArray(new String[columns.size()]), "id=?",
+                new String[]{String.valueOf(localTablePostId)}, null, null, null);
+        try {
+            if (!c.moveToFirst()) {
+                return;
+            }
+            for (int i = 0; i < columns.size(); i++) {
+                Object value = values.get(columns.get(i));
+                if (value instanceof Boolean) {
+                    value = SqlUtils.boolToSql((Boolean) value);
+                }
+                boolean isSameValue = c.isNull(i) ? value == null
+                        : value != null && value.toString().equals(c.getString(i));
+                if (isSameValue) {
+                    values.remove(columns.get(i));
                 }
+            }
+        } finally {
+            c.close();
+        }
+    }
 
-                db.setTransactionSuccessful();
-            } finally {
-                db.endTransaction();
+    /*
+     * hash of all the fields returned by the server for a post, keys are sorted so the hash doesn't
+     * depend on the map implementation
+     */
+    private static String getPostContentHash(Map<?, ?> postMap) {
+        StringBuilder sb = new StringBuilder();
+        appendHashContent(sb, postMap);
+        return StringUtils.getMd5Hash(sb.toString());
+    }
+
+    private static void appendHashContent(StringBuilder sb, Object value) {
+        if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            List<String> keys = new ArrayList<String>();
+            for (Object key : map.keySet()) {
+                keys.add(String.valueOf(key));
+            }
+            Collections.sort(keys);
+            sb.append('{');
+            for (String key : keys) {
+                sb.append(key).append('=');
+                appendHashContent(sb, map.get(key));
+                sb.append(';');
             }
+            sb.append('}');
+        } else if (value instanceof Object[]) {
+            sb.append('[');
+            for (Object item : (Object[]) value) {
+                appendHashContent(sb, item);
+                sb.append(';');
+            }
+            sb.append(']');
+        } else if (value instanceof Date) {
+            sb.append(((Date) value).getTime());
+        } else {
+            sb.append(value);
         }
     }
 
+    private ContentValues postMapToContentValues(Map<?, ?> postMap, int localBlogId, boolean isPage) {
+        ContentValues values = new ContentValues();
+        values.put("blogID", localBlogId);
+        values.put("postid", MapUtils.getMapStr(postMap, (isPage) ? "page_id" : "postid"));
+        values.put("title", MapUtils.getMapStr(postMap, "title"));
+        Date dateCreated = MapUtils.getMapDate(postMap, "dateCreated");
+        if (dateCreated != null) {
+            values.put("dateCreated", dateCreated.getTime());
+        } else {
+            Date now = new Date();
+            values.put("dateCreated", now.getTime());
+        }
+
+        Date dateCreatedGmt = MapUtils.getMapDate(postMap, "date_created_gmt");
+        if (dateCreatedGmt != null) {
+            values.put("date_created_gmt", dateCreatedGmt.getTime());
+        } else {
+            dateCreatedGmt = new Date((Long) values.get("dateCreated"));
+            values.put("date_created_gmt", dateCreatedGmt.getTime() + (dateCreatedGmt.getTimezoneOffset() * 60000));
+        }
+
+        values.put("description", MapUtils.getMapStr(postMap, "description"));
+        values.put("link", MapUtils.getMapStr(postMap, "link"));
+        values.put("permaLink", MapUtils.getMapStr(postMap, "permaLink"));
+
+        Object[] postCategories = (Object[]) postMap.get("categories");
+        JSONArray jsonCategoriesArray = new JSONArray();
+        if (postCategories != null) {
+            for (Object postCategory : postCategories) {
+                jsonCategoriesArray.put(postCategory.toString());
+            }
+        }
+        values.put("categories", jsonCategoriesArray.toString());
+
+        Object[] custom_fields = (Object[]) postMap.get("custom_fields");
+        JSONArray jsonCustomFieldsArray = new JSONArray();
+        if (custom_fields != null) {
+            for (Object custom_field : custom_fields) {
+                jsonCustomFieldsArray.put(custom_field.toString());
+                // Update geo_long and geo_lat from custom fields
+                if (!(custom_field instanceof Map))
+                    continue;
+                Map<?, ?> customField = (Map<?, ?>) custom_field;
+                if (customField.get("key") != null && customField.get("value") != null) {
+                    if (customField.get("key").equals("geo_longitude"))
+                        values.put("longitude", customField.get("value").toString());
+                    if (customField.get("key").equals("geo_latitude"))
+                        values.put("latitude", customField.get("value").toString());
+                }
+            }
+        }
+        values.put("custom_fields", jsonCustomFieldsArray.toString());
+
+        values.put("mt_excerpt", MapUtils.getMapStr(postMap, (isPage) ? "excerpt" : "mt_excerpt"));
+        values.put("mt_text_more", MapUtils.getMapStr(postMap, (isPage) ? "text_more" : "mt_text_more"));
+        values.put("mt_allow_comments", MapUtils.getMapInt(postMap, "mt_allow_comments", 0));
+        values.put("mt_allow_pings", MapUtils.getMapInt(postMap, "mt_allow_pings", 0));
+        values.put("wp_slug", MapUtils.getMapStr(postMap, "wp_slug"));
+        values.put("wp_password", MapUtils.getMapStr(postMap, "wp_password"));
+        values.put("wp_author_id", MapUtils.getMapStr(postMap, "wp_author_id"));
+        values.put("wp_author_display_name", MapUtils.getMapStr(postMap, "wp_author_display_name"));
+        values.put("post_status", MapUtils.getMapStr(postMap, (isPage) ? "page_status" : "post_status"));
+        values.put("userid", MapUtils.getMapStr(postMap, "userid"));
+
+        if (isPage) {
+            values.put("isPage", true);
+            values.put("wp_page_parent_id", MapUtils.getMapStr(postMap, "wp_page_parent_id"));
+            values.put("wp_page_parent_title", MapUtils.getMapStr(postMap, "wp_page_parent_title"));
+        } else {
+            values.put("mt_keywords", MapUtils.getMapStr(postMap, "mt_keywords"));
+            values.put("wp_post_format", MapUtils.getMapStr(postMap, "wp_post_format"));
+        }
+        return values;
+    }
+
     public List<PostsListPost> getPostsListPosts(int blogId, boolean loadPages) {
         List<PostsListPost> posts = new ArrayList<PostsListPost>();
         Cursor c;
@@ -915,6 +1175,32 @@ public class WordPressDB {
                         "date_created_gmt", "post_status", "isUploading", "localDraft", "isLocalChange" },
                 "blogID=? AND isPage=? AND NOT (localDraft=1 AND uploaded=1)",
                 new String[] {String.valueOf(blogId), (loadPages) ? "1" : "0"}, null, null, "localDraft DESC, date_created_gmt DESC");
+        return getPostsListPostsFromCursor(c);
+    }
+
+    /**
+     * Search the title and content of the posts or pages of a blog. Posts matching the search in their
+     * title come first, then posts are sorted like the posts list.
+     *
+     * @param limit number of posts to return, -1 to return all of them
+     */
+    public List<PostsListPost> searchPosts(int blogId, boolean loadPages, String searchTerm, int offset, int limit) {
+        String matchQuery = getFtsMatchQuery(searchTerm, null);
+        if (matchQuery == null) {
+            return new ArrayList<PostsListPost>();
+        }
+        Cursor c = db.rawQuery("SELECT id, blogID, title, date_created_gmt, post_status, isUploading, localDraft, isLocalChange"
+                + " FROM " + POSTS_TABLE + " WHERE blogID=? AND isPage=? AND NOT (localDraft=1 AND uploaded=1)"
+                + " AND id IN (SELECT docid FROM " + POSTS_FTS_TABLE + " WHERE " + POSTS_FTS_TABLE + " MATCH ?)"
+                + " ORDER BY (id IN (SELECT docid FROM " + POSTS_FTS_TABLE + " WHERE " + POSTS_FTS_TABLE + " MATCH ?)) DESC,"
+                + " localDraft DESC, date_created_gmt DESC LIMIT " + limit + " OFFSET " + offset,
+                new String[] {String.valueOf(blogId), (loadPages) ? "1" : "0", matchQuery,
+                        getFtsMatchQuery(searchTerm, "title")});
+        return getPostsListPostsFromCursor(c);
+    }
+
+    private List<PostsListPost> getPostsListPostsFromCursor(Cursor c) {
+        List<PostsListPost> posts = new ArrayList<PostsListPost>();
         int numRows = c.getCount();
         c.moveToFirst();
 
@@ -1003,6 +1289,8 @@ public class WordPressDB {
             values.put("isLocalChange", post.isLocalChange());
             values.put("mt_excerpt", post.getPostExcerpt());
             putPostLocation(post, values);
+            // local edits invalidate the hash of the post as fetched from the server
+            values.put("content_hash", "");
 
             result = db.update(POSTS_TABLE, values, "blogID=? AND id=? AND isPage=?",
                     new String[]{
@@ -1078,6 +1366,31 @@ public class WordPressDB {
 
     }
 
+    /**
+     * Delete the uploaded posts that aren't in remotePostIds, called after a full refresh to remove
+     * the posts deleted on the server
+     */
+    public void deleteUploadedPostsExcept(int blogID, boolean isPage, Set<String> remotePostIds) {
+        StringBuilder where = new StringBuilder("blogID=? AND localDraft != 1 AND isPage=?");
+        if (!remotePostIds.isEmpty()) {
+            where.append(" AND postid NOT IN (");
+            boolean isFirst = true;
+            for (String remotePostId : remotePostIds) {
+                if (!isFirst) {
+                    where.append(',');
+                }
+                DatabaseUtils.appendEscapedSQLString(where, remotePostId);
+                isFirst = false;
+            }
+            where.append(')');
+        }
+        int deleted = db.delete(POSTS_TABLE, where.toString(),
+                new String[]{String.valueOf(blogID), String.valueOf(SqlUtils.boolToSql(isPage))});
+        if (deleted > 0) {
+            AppLog.d(T.POSTS, "deleted " + deleted + " posts no longer returned by the server");
+        }
+    }
+
     public Post getPostForLocalTablePostId(long localTablePostId) {
         Cursor c = db.query(POSTS_TABLE, null, "id=?", new String[]{String.valueOf(localTablePostId)}, null, null, null);
 
@@ -1146,7 +1459,7 @@ public class WordPressDB {
 
     public List<String> loadCategories(int id) {
         Cursor c = db.query(CATEGORIES_TABLE, new String[] { "id", "wp_id",
-                "category_name" }, "blog_id=" + id, null, null, null, null);
+                "category_name" }, "blog_id=?", new String[] {String.valueOf(id)}, null, null, null);
         int numRows = c.getCount();
         c.moveToFirst();
         List<String> returnVector = new Vector<String>();
@@ -1163,32 +1476,31 @@ public class WordPressDB {
     }
 
     public int getCategoryId(int id, String category) {
-        Cursor c = db.query(CATEGORIES_TABLE, new String[] { "wp_id" },
-                "category_name=? AND blog_id=?", new String[] {category, String.valueOf(id)},
-                null, null, null);
-        if (c.getCount() == 0)
-            return 0;
-        c.moveToFirst();
-        int categoryID = 0;
-        categoryID = c.getInt(0);
-
-        c.close();
-
-        return categoryID;
+        SQLiteStatement stmt = getCachedStatement("SELECT wp_id FROM " + CATEGORIES_TABLE
+                + " WHERE category_name=? AND blog_id=?");
+        synchronized (stmt) {
+            stmt.bindString(1, StringUtils.notNullStr(category));
+            stmt.bindString(2, String.valueOf(id));
+            try {
+                return (int) stmt.simpleQueryForLong();
+            } catch (SQLiteDoneException e) {
+                return 0;
+            }
+        }
     }
 
     public int getCategoryParentId(int id, String category) {
-        Cursor c = db.query(CATEGORIES_TABLE, new String[] { "parent_id" },
-                "category_name=? AND blog_id=?", new String[] {category, String.valueOf(id)},
-                null, null, null);
-        if (c.getCount() == 0)
-            return -1;
-        c.moveToFirst();
-        int categoryParentID = c.getInt(0);
-
-        c.close();
-
-        return categoryParentID;
+        SQLiteStatement stmt = getCachedStatement("SELECT parent_id FROM " + CATEGORIES_TABLE
+                + " WHERE category_name=? AND blog_id=?");
+        synchronized (stmt) {
+            stmt.bindString(1, StringUtils.notNullStr(category));
+            stmt.bindString(2, String.valueOf(id));
+            try {
+                return (int) stmt.simpleQueryForLong();
+            } catch (SQLiteDoneException e) {
+                return -1;
+            }
+        }
     }
 
     public void clearCategories(int id) {
@@ -1350,6 +1662,204 @@ public class WordPressDB {
     }
 
     public void saveMediaFile(MediaFile mf) {
+        ContentValues values = mediaFileToContentValues(mf);
+        // the file may differ from what the server returned, so the next sync must update it
+        values.put(COLUMN_NAME_CONTENT_HASH, "");
+
+        synchronized (this) {
+            int result = 0;
+            boolean isMarkedForDelete = false;
+            if (mf.getMediaId() != null) {
+                isMarkedForDelete = "delete".equals(getMediaUploadState(mf.getBlogId(), mf.getMediaId()));
+
+                if (!isMarkedForDelete)
+                    result = db.update(MEDIA_TABLE, values, "blogId=? AND mediaId=?",
+                            new String[]{StringUtils.notNullStr(mf.getBlogId()), StringUtils.notNullStr(mf.getMediaId())});
+            }
+
+            if (result == 0 && !isMarkedForDelete) {
+                result = db.update(MEDIA_TABLE, values, "postID=? AND filePath=?",
+                        new String[]{String.valueOf(mf.getPostID()), StringUtils.notNullStr(mf.getFilePath())});
+                if (result == 0)
+                    db.insert(MEDIA_TABLE, null, values);
+            }
+
+            // stamp the file with the generation of the latest sync, which may still be running and not
+            // have saved any files yet, so that sync doesn't delete it, see deleteMediaFilesNotInSync()
+            if (!isMarkedForDelete && !TextUtils.isEmpty(mf.getMediaId())) {
+                String blogId = StringUtils.notNullStr(mf.getBlogId());
+                db.execSQL("UPDATE " + MEDIA_TABLE + " SET syncGeneration=? WHERE blogId=? AND mediaId=?",
+                        new Object[]{getLatestMediaSyncGeneration(blogId), blogId, mf.getMediaId()});
+            }
+        }
+
+    }
+
+    private static class MediaSyncState {
+        long localTableMediaId;
+        String uploadState;
+        String contentHash;
+    }
+
+    /**
+     * Returns the generation to stamp the media files returned by a full media library sync with,
+     * see saveMediaFilesFromSync() and deleteMediaFilesNotInSync()
+     */
+    public synchronized int getNextMediaSyncGeneration(String blogId) {
+        blogId = StringUtils.notNullStr(blogId);
+        int syncGeneration = getLatestMediaSyncGeneration(blogId) + 1;
+        mMediaSyncGenerations.put(blogId, syncGeneration);
+        return syncGeneration;
+    }
+
+    /*
+     * the generation of the latest sync of the passed blog - the one handed out to a sync that's still
+     * running counts too, since its files aren't stamped with it until its first page is saved
+     */
+    private int getLatestMediaSyncGeneration(String blogId) {
+        int syncGeneration = SqlUtils.intForQuery(db, "SELECT IFNULL(MAX(syncGeneration), 0) FROM " + MEDIA_TABLE
+                + " WHERE blogId=?", new String[]{blogId});
+        Integer handedOutGeneration = mMediaSyncGenerations.get(blogId);
+        if (handedOutGeneration != null && handedOutGeneration > syncGeneration) {
+            return handedOutGeneration;
+        }
+        return syncGeneration;
+    }
+
+    /**
+     * Save a page of media files returned by wp.getMediaLibrary in a single transaction. New files are
+     * inserted, files that changed since they were last synced are updated and unchanged files are
+     * skipped - files marked for delete are left alone. The files are then stamped with the passed sync
+     * generation (unless it's 0) so the files that a full sync didn't return can be deleted once it's done.
+     *
+     * @return the number of files inserted or updated
+     */
+    public int saveMediaFilesFromSync(String blogId, List<MediaFile> mediaFiles, int syncGeneration) {
+        if (TextUtils.isEmpty(blogId) || mediaFiles == null || mediaFiles.size() == 0) {
+            return 0;
+        }
+
+        Set<String> mediaIds = new HashSet<String>();
+        for (MediaFile mf : mediaFiles) {
+            if (!TextUtils.isEmpty(mf.getMediaId())) {
+                mediaIds.add(mf.getMediaId());
+            }
+        }
+
+        int insertCount = 0;
+        int updateCount = 0;
+        List<Long> syncedIds = new ArrayList<Long>();
+        synchronized (this) {
+            db.beginTransaction();
+            try {
+                Map<String, MediaSyncState> syncStates = getMediaSyncStates(blogId, mediaIds);
+                for (MediaFile mf : mediaFiles) {
+                    if (TextUtils.isEmpty(mf.getMediaId())) {
+                        continue;
+                    }
+
+                    ContentValues values = mediaFileToContentValues(mf);
+                    values.put(COLUMN_NAME_BLOG_ID, blogId);
+                    String contentHash = getMediaContentHash(values);
+                    MediaSyncState syncState = syncStates.get(mf.getMediaId());
+                    if (syncState == null) {
+                        values.put(COLUMN_NAME_CONTENT_HASH, contentHash);
+                        values.put(COLUMN_NAME_SYNC_GENERATION, syncGeneration);
+                        db.insert(MEDIA_TABLE, null, values);
+                        insertCount++;
+                        continue;
+                    }
+
+                    if ("delete".equals(syncState.uploadState)) {
+                        // waiting to be deleted on the server
+                        continue;
+                    }
+
+                    syncedIds.add(syncState.localTableMediaId);
+                    if (syncState.uploadState == null && contentHash.equals(syncState.contentHash)) {
+                        // unchanged since the last sync
+                        continue;
+                    }
+
+                    values.put(COLUMN_NAME_CONTENT_HASH, contentHash);
+                    db.update(MEDIA_TABLE, values, "id=?", new String[]{String.valueOf(syncState.localTableMediaId)});
+                    updateCount++;
+                }
+
+                // never lower the generation, in case a newer sync of the same blog got to these files first
+                if (syncGeneration > 0 && syncedIds.size() > 0) {
+                    db.execSQL("UPDATE " + MEDIA_TABLE + " SET syncGeneration=? WHERE syncGeneration < ? AND id IN ("
+                            + TextUtils.join(",", syncedIds) + ")", new Object[]{syncGeneration, syncGeneration});
+                }
+
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+        }
+
+        AppLog.d(T.MEDIA, "saveMediaFilesFromSync: " + insertCount + " inserted, " + updateCount + " updated, "
+                + (syncedIds.size() - updateCount) + " unchanged");
+        return insertCount + updateCount;
+    }
+
+    /**
+     * Delete the media files of the passed blog that weren't returned by the full media library sync
+     * with the passed generation, ie: the files that were deleted on the server. Local files (queued,
+     * uploading, failed or waiting to be deleted on the server) are kept.
+     *
+     * @return the number of deleted files
+     */
+    public int deleteMediaFilesNotInSync(String blogId, int syncGeneration) {
+        if (TextUtils.isEmpty(blogId)) {
+            return 0;
+        }
+        // 'deleted' is how the files that weren't synced yet were marked before sync generations
+        return db.delete(MEDIA_TABLE, "blogId=? AND syncGeneration < ? AND (uploadState IS NULL OR uploadState "
+                + "IN ('uploaded', 'deleted'))", new String[]{blogId, String.valueOf(syncGeneration)});
+    }
+
+    private Map<String, MediaSyncState> getMediaSyncStates(String blogId, Set<String> mediaIds) {
+        Map<String, MediaSyncState> syncStates = new HashMap<String, MediaSyncState>();
+        if (mediaIds.isEmpty()) {
+            return syncStates;
+        }
+
+        List<String> args = new ArrayList<String>();
+        args.add(blogId);
+        StringBuilder placeholders = new StringBuilder();
+        for (String mediaId : mediaIds) {
+            placeholders.append(placeholders.length() == 0 ? "?" : ",?");
+            args.add(mediaId);
+        }
+        Cursor c = db.query(MEDIA_TABLE, new String[]{"id", "mediaId", "uploadState", "contentHash"},
+                "blogId=? AND mediaId IN (" + placeholders + ")", args.toArray(new String[args.size()]),
+                null, null, null);
+        try {
+            while (c.moveToNext()) {
+                MediaSyncState syncState = new MediaSyncState();
+                syncState.localTableMediaId = c.getLong(0);
+                syncState.uploadState = c.getString(2);
+                syncState.contentHash = StringUtils.notNullStr(c.getString(3));
+                syncStates.put(c.getString(1), syncState);
+            }
+        } finally {
+            c.close();
+        }
+        return syncStates;
+    }
+
+    private static String getMediaContentHash(ContentValues values) {
+        Map<String, Object> valueMap = new HashMap<String, Object>();
+        for (Map.Entry<String, Object> entry : values.valueSet()) {
+            valueMap.put(entry.getKey(), entry.getValue());
+        }
+        StringBuilder sb = new StringBuilder();
+        appendHashContent(sb, valueMap);
+        return StringUtils.getMd5Hash(sb.toString());
+    }
+
+    private static ContentValues mediaFileToContentValues(MediaFile mf) {
         ContentValues values = new ContentValues();
         values.put(COLUMN_NAME_POST_ID, mf.getPostID());
         values.put(COLUMN_NAME_FILE_PATH, mf.getFilePath());
@@ -1374,31 +1884,21 @@ public class WordPressDB {
             values.put(COLUMN_NAME_UPLOAD_STATE, mf.getUploadState());
         else
             values.putNull(COLUMN_NAME_UPLOAD_STATE);
+        return values;
+    }
 
-        synchronized (this) {
-            int result = 0;
-            boolean isMarkedForDelete = false;
-            if (mf.getMediaId() != null) {
-                Cursor cursor = db.rawQuery("SELECT uploadState FROM " + MEDIA_TABLE + " WHERE mediaId=?",
-                        new String[]{StringUtils.notNullStr(mf.getMediaId())});
-                if (cursor != null && cursor.moveToFirst()) {
-                    isMarkedForDelete = "delete".equals(cursor.getString(0));
-                    cursor.close();
-                }
-
-                if (!isMarkedForDelete)
-                    result = db.update(MEDIA_TABLE, values, "blogId=? AND mediaId=?",
-                            new String[]{StringUtils.notNullStr(mf.getBlogId()), StringUtils.notNullStr(mf.getMediaId())});
-            }
-
-            if (result == 0 && !isMarkedForDelete) {
-                result = db.update(MEDIA_TABLE, values, "postID=? AND filePath=?",
-                        new String[]{String.valueOf(mf.getPostID()), StringUtils.notNullStr(mf.getFilePath())});
-                if (result == 0)
-                    db.insert(MEDIA_TABLE, null, values);
+    private String getMediaUploadState(String blogId, String mediaId) {
+        SQLiteStatement stmt = getCachedStatement("SELECT uploadState FROM " + MEDIA_TABLE
+                + " WHERE blogId=? AND mediaId=?");
+        synchronized (stmt) {
+            stmt.bindString(1, StringUtils.notNullStr(blogId));
+            stmt.bindString(2, StringUtils.notNullStr(mediaId));
+            try {
+                return stmt.simpleQueryForString();
+            } catch (SQLiteDoneException e) {
+                return null;
             }
         }
-
     }
 
     /** For a given blogId, get the first media files **/
@@ -1414,13 +1914,59 @@ public class WordPressDB {
                 + "(uploadState IS NULL OR uploadState IN ('uploaded', 'queued', 'failed', 'uploading')) ORDER BY (uploadState=?) DESC, date_created_gmt DESC", new String[] { blogId, "uploading" });
     }
 
+    /**
+     * Returns the MATCH expression for a search typed by the user: each word is a prefix query, and
+     * all of them must match. Returns null if the search has no words.
+     *
+     * @param column restrict the search to this column, null to search all the columns
+     */
+    static String getFtsMatchQuery(String searchTerm, String column) {
+        if (searchTerm == null) {
+            return null;
+        }
+        // the default "simple" tokenizer splits on ASCII characters that aren't letters or digits. It
+        // only folds the case of ASCII letters, in the indexed text and in the query alike, so the words
+        // are left as typed - lowercasing them here would also fold non ASCII letters the index didn't
+        String[] words = searchTerm.split("[\\x00-\\x2F\\x3A-\\x40\\x5B-\\x60\\x7B-\\x7F]+");
+        StringBuilder matchQuery = new StringBuilder();
+        for (String word : words) {
+            if (word.length() == 0 || word.equalsIgnoreCase("and") || word.equalsIgnoreCase("or")
+                    || word.equalsIgnoreCase("not") || word.equalsIgnoreCase("near")) {
+                continue;
+            }
+            if (matchQuery.length() > 0) {
+                matchQuery.append(' ');
+            }
+            if (column != null) {
+                matchQuery.append(column).append(':');
+            }
+            matchQuery.append(word).append('*');
+        }
+        return matchQuery.length() > 0 ? matchQuery.toString() : null;
+    }
+
+    /**
+     * Search the title, caption and description of the media files of a blog. Files matching the
+     * search in their title come first, then the most recent files.
+     *
+     * @param limit number of files to return, -1 to return all of them
+     */
+    public Cursor searchMediaFiles(String blogId, String searchTerm, int offset, int limit) {
+        String matchQuery = getFtsMatchQuery(searchTerm, null);
+        if (matchQuery == null) {
+            return getMediaFilesForBlog(blogId);
+        }
+        return db.rawQuery("SELECT id as _id, * FROM " + MEDIA_TABLE + " WHERE blogId=? AND mediaId <> '' AND "
+                + "(uploadState IS NULL OR uploadState ='uploaded') AND "
+                + "id IN (SELECT docid FROM " + MEDIA_FTS_TABLE + " WHERE " + MEDIA_FTS_TABLE + " MATCH ?) "
+                + "ORDER BY (id IN (SELECT docid FROM " + MEDIA_FTS_TABLE + " WHERE " + MEDIA_FTS_TABLE + " MATCH ?)) DESC, "
+                + "date_created_gmt DESC LIMIT " + limit + " OFFSET " + offset,
+                new String[] {blogId, matchQuery, getFtsMatchQuery(searchTerm, "title")});
+    }
+
     /** For a given blogId, get all the media files with searchTerm **/
     public Cursor getMediaFilesForBlog(String blogId, String searchTerm) {
-        // Currently on WordPress.com, the media search engine only searches the title.
-        // We'll match this.
-
-        String term = searchTerm.toLowerCase(Locale.getDefault());
-        return db.rawQuery("SELECT id as _id, * FROM " + MEDIA_TABLE + " WHERE blogId=? AND mediaId <> '' AND title LIKE ? AND (uploadState IS NULL OR uploadState ='uploaded') ORDER BY (uploadState=?) DESC, date_created_gmt DESC", new String[] { blogId, "%" + term + "%", "uploading" });
+        return searchMediaFiles(blogId, searchTerm, 0, -1);
     }
 
     /** For a given blogId, get the media file with the given media_id **/
@@ -1534,6 +2080,30 @@ public class WordPressDB {
         return db.rawQuery("SELECT * FROM " + MEDIA_TABLE + " WHERE uploadState=? AND blogId=?", new String[] {"queued", blogId});
     }
 
+    /** Get the queued media files for upload for all blogs, in the order they were queued **/
+    public Cursor getMediaUploadQueue() {
+        return db.rawQuery("SELECT * FROM " + MEDIA_TABLE + " WHERE uploadState=? ORDER BY id", new String[] {"queued"});
+    }
+
+    /** Get the media files being uploaded for all blogs **/
+    public Cursor getMediaUploadsInProgress() {
+        return db.rawQuery("SELECT * FROM " + MEDIA_TABLE + " WHERE uploadState=?", new String[] {"uploading"});
+    }
+
+    /** Mark a queued media file as uploading and count the attempt **/
+    public void startMediaUpload(String blogId, String mediaId) {
+        db.execSQL("UPDATE " + MEDIA_TABLE + " SET uploadState=?, uploadAttempts=uploadAttempts+1"
+                + " WHERE blogId=? AND mediaId=?", new Object[] {"uploading", blogId, mediaId});
+    }
+
+    /** Queue a media file to be uploaded again once retryAt (in millis) has passed **/
+    public void retryMediaUpload(String blogId, String mediaId, long retryAt) {
+        ContentValues values = new ContentValues();
+        values.put("uploadState", "queued");
+        values.put(COLUMN_NAME_UPLOAD_RETRY_AT, retryAt);
+        db.update(MEDIA_TABLE, values, "blogId=? AND mediaId=?", new String[] { blogId, mediaId });
+    }
+
     /** Update a media file to a new upload state **/
     public void updateMediaUploadState(String blogId, String mediaId, String uploadState) {
         if (blogId == null || blogId.equals(""))
@@ -1543,6 +2113,12 @@ public class WordPressDB {
         if (uploadState == null) values.putNull("uploadState");
         else values.put("uploadState", uploadState);
 
+        // queuing a file (again) starts its upload over
+        if ("queued".equals(uploadState)) {
+            values.put(COLUMN_NAME_UPLOAD_ATTEMPTS, 0);
+            values.put(COLUMN_NAME_UPLOAD_RETRY_AT, 0);
+        }
+
         if (mediaId == null) {
             db.update(MEDIA_TABLE, values, "blogId=? AND (uploadState IS NULL OR uploadState ='uploaded')", new String[] { blogId });
         } else {
@@ -1574,6 +2150,8 @@ public class WordPressDB {
         } else {
             values.put("caption", caption);
         }
+        // edited locally, so the next sync must update it with what the server has
+        values.put(COLUMN_NAME_CONTENT_HASH, "");
 
         db.update(MEDIA_TABLE, values, "blogId = ? AND mediaId=?", new String[] { blogId, mediaId });
     }
@@ -1614,19 +2192,6 @@ public class WordPressDB {
         }
     }
 
-    /** Mark media files as deleted without actually deleting them **/
-    public void setMediaFilesMarkedForDeleted(String blogId) {
-        // This is for syncing our files to the server:
-        // when we pull from the server, everything that is still 'deleted'
-        // was not downloaded from the server and can be removed via deleteFilesMarkedForDeleted()
-        updateMediaUploadState(blogId, null, "deleted");
-    }
-
-    /** Delete files marked as deleted **/
-    public void deleteFilesMarkedForDeleted(String blogId) {
-        db.delete(MEDIA_TABLE, "blogId=? AND uploadState=?", new String[] { blogId, "deleted" });
-    }
-
     /** Get a media file scheduled for delete for a given blogId **/
     public Cursor getMediaDeleteQueueItem(String blogId) {
         return db.rawQuery("SELECT blogId, mediaId FROM " + MEDIA_TABLE + " WHERE uploadState=? AND blogId=? LIMIT 1",
@@ -1650,15 +2215,13 @@ public class WordPressDB {
     }
 
     public boolean findLocalChanges(int blogId, boolean isPage) {
-        Cursor c = db.query(POSTS_TABLE, null,
-                "isLocalChange=? AND blogID=? AND isPage=?", new String[]{"1", String.valueOf(blogId), (isPage) ? "1" : "0"}, null, null, null);
-        int numRows = c.getCount();
-        c.close();
-        if (numRows > 0) {
-            return true;
+        SQLiteStatement stmt = getCachedStatement("SELECT EXISTS (SELECT 1 FROM " + POSTS_TABLE
+                + " WHERE isLocalChange=1 AND blogID=? AND isPage=?)");
+        synchronized (stmt) {
+            stmt.bindString(1, String.valueOf(blogId));
+            stmt.bindLong(2, SqlUtils.boolToSql(isPage));
+            return stmt.simpleQueryForLong() > 0;
         }
-
-        return false;
     }
 
     public boolean saveTheme(Theme theme) {
@@ -32,6 +32,7 @@ public final class AnalyticsTracker {
         READER_BLOCKED_BLOG,
         READER_BLOG_PREVIEW,
         READER_TAG_PREVIEW,
+        READER_PURGED_DATABASE,
         STATS_ACCESSED,
         STATS_VIEW_ALL_ACCESSED,
         STATS_SINGLE_POST_ACCESSED,
@@ -143,14 +143,23 @@ public class ReaderBlogTable {
         return blogInfo;
     }
 
-    public static void addOrUpdateBlog(ReaderBlog blogInfo) {
+    public static void addOrUpdateBlog(final ReaderBlog blogInfo) {
         if (blogInfo == null) {
             return;
         }
+        ReaderDatabaseWriter.write(new ReaderDatabaseWriter.Mutation() {
+            @Override
+            public void apply(SQLiteDatabase db) {
+                addOrUpdateBlog(db, blogInfo);
+            }
+        });
+    }
+
+    private static void addOrUpdateBlog(SQLiteDatabase db, ReaderBlog blogInfo) {
         String sql = "INSERT OR REPLACE INTO tbl_blog_info"
                 + "   (blog_id, feed_id, blog_url, image_url, feed_url, name, description, is_private, is_jetpack, is_following, num_followers)"
                 + "   VALUES (?1, ?2, ?3, ?4, ?5, ?6, ?7, ?8, ?9, ?10, ?11)";
-        SQLiteStatement stmt = ReaderDatabase.getWritableDb().compileStatement(sql);
+        SQLiteStatement stmt = db.compileStatement(sql);
         try {
             stmt.bindLong  (1, blogInfo.blogId);
             stmt.bindLong  (2, blogInfo.feedId);
@@ -193,25 +202,23 @@ public class ReaderBlogTable {
     /*
      * set followed blogs from the read/following/mine endpoint
      */
-    public static void setFollowedBlogs(ReaderBlogList followedBlogs) {
-        SQLiteDatabase db = ReaderDatabase.getWritableDb();
-        db.beginTransaction();
-        try {
-            // first set all existing blogs to not followed
-            db.execSQL("UPDATE tbl_blog_info SET is_following=0");
-
-            // then insert passed ones
-            if (followedBlogs != null) {
-                for (ReaderBlog blog: followedBlogs) {
-                    addOrUpdateBlog(blog);
+    public static void setFollowedBlogs(final ReaderBlogList followedBlogs) {
+        ReaderDatabaseWriter.write(new ReaderDatabaseWriter.Mutation() {
+            @Override
+            public void apply(SQLiteDatabase db) {
+                // first set all existing blogs to not followed
+                db.execSQL("UPDATE tbl_blog_info SET is_following=0");
+
+                // then insert passed ones
+                if (followedBlogs != null) {
+                    for (ReaderBlog blog: followedBlogs) {
+                        if (blog != null) {
+                            addOrUpdateBlog(db, blog);
+                        }
+                    }
                 }
             }
-
-            db.setTransactionSuccessful();
-
-        } finally {
-            db.endTransaction();
-        }
+        });
     }
 
     /*
@@ -236,19 +243,24 @@ public class ReaderBlogTable {
      * sets the follow state for passed blog without creating a record for it if it doesn't exist
      */
     public static void setIsFollowedBlogId(long blogId, boolean isFollowed) {
-        ReaderDatabase.getWritableDb().execSQL(
-                "UPDATE tbl_blog_info SET is_following="
-                        + SqlUtils.boolToSql(isFollowed)
-                        + " WHERE blog_id=?",
-                new String[]{Long.toString(blogId)});
+        setIsFollowed("blog_id", blogId, isFollowed);
     }
 
     public static void setIsFollowedFeedId(long feedId, boolean isFollowed) {
-        ReaderDatabase.getWritableDb().execSQL(
-                "UPDATE tbl_blog_info SET is_following="
-                        + SqlUtils.boolToSql(isFollowed)
-                        + " WHERE feed_id=?",
-                new String[]{Long.toString(feedId)});
+        setIsFollowed("feed_id", feedId, isFollowed);
+    }
+
+    private static void setIsFollowed(final String idColumn, final long id, final boolean isFollowed) {
+        ReaderDatabaseWriter.write(new ReaderDatabaseWriter.Mutation() {
+            @Override
+            public void apply(SQLiteDatabase db) {
+                db.execSQL(
+                        "UPDATE tbl_blog_info SET is_following="
+                                + SqlUtils.boolToSql(isFollowed)
+                                + " WHERE " + idColumn + "=?",
+                        new String[]{Long.toString(id)});
+            }
+        });
     }
 
     public static boolean isFollowedBlogUrl(String blogUrl) {
@@ -322,39 +334,39 @@ public class ReaderBlogTable {
         }
     }
 
-    public static void setRecommendedBlogs(ReaderRecommendBlogList blogs) {
-        SQLiteDatabase db = ReaderDatabase.getWritableDb();
-        SQLiteStatement stmt = db.compileStatement(
-                "INSERT INTO tbl_recommended_blogs"
-                        + " (blog_id, follow_reco_id, score, title, blog_url, image_url, reason)"
-                        + " VALUES (?1, ?2, ?3, ?4, ?5, ?6, ?7)");
-        db.beginTransaction();
+    public static void setRecommendedBlogs(final ReaderRecommendBlogList blogs) {
         try {
-            try {
-                // first delete all recommended blogs
-                SqlUtils.deleteAllRowsInTable(db, "tbl_recommended_blogs");
-
-                // then insert the passed ones
-                if (blogs != null && blogs.size() > 0) {
-                    for (ReaderRecommendedBlog blog : blogs) {
-                        stmt.bindLong(1, blog.blogId);
-                        stmt.bindLong(2, blog.followRecoId);
-                        stmt.bindLong(3, blog.score);
-                        stmt.bindString(4, blog.getTitle());
-                        stmt.bindString(5, blog.getBlogUrl());
-                        stmt.bindString(6, blog.getImageUrl());
-                        stmt.bindString(7, blog.getReason());
-                        stmt.execute();
+            ReaderDatabaseWriter.write(new ReaderDatabaseWriter.Mutation() {
+                @Override
+                public void apply(SQLiteDatabase db) {
+                    SQLiteStatement stmt = db.compileStatement(
+                            "INSERT INTO tbl_recommended_blogs"
+                                    + " (blog_id, follow_reco_id, score, title, blog_url, image_url, reason)"
+                                    + " VALUES (?1, ?2, ?3, ?4, ?5, ?6, ?7)");
+                    try {
+                        // first delete all recommended blogs
+                        SqlUtils.deleteAllRowsInTable(db, "tbl_recommended_blogs");
+
+                        // then insert the passed ones
+                        if (blogs != null && blogs.size() > 0) {
+                            for (ReaderRecommendedBlog blog : blogs) {
+                                stmt.bindLong(1, blog.blogId);
+                                stmt.bindLong(2, blog.followRecoId);
+                                stmt.bindLong(3, blog.score);
+                                stmt.bindString(4, blog.getTitle());
+                                stmt.bindString(5, blog.getBlogUrl());
+                                stmt.bindString(6, blog.getImageUrl());
+                                stmt.bindString(7, blog.getReason());
+                                stmt.execute();
+                            }
+                        }
+                    } finally {
+                        SqlUtils.closeStatement(stmt);
                     }
                 }
-                db.setTransactionSuccessful();
-
-            } catch (SQLException e) {
-                AppLog.e(AppLog.T.READER, e);
-            }
-        } finally {
-            SqlUtils.closeStatement(stmt);
-            db.endTransaction();
+            });
+        } catch (SQLException e) {
+            AppLog.e(AppLog.T.READER, e);
         }
     }
 }
@@ -53,6 +53,7 @@ public class ReaderCommentTable {
                 + " page_number         INTEGER DEFAULT 0,"
                 + " PRIMARY KEY (blog_id, post_id, comment_id))");
         db.execSQL("CREATE INDEX idx_page_number ON tbl_comments(page_number)");
+        db.execSQL("CREATE INDEX idx_comments_comment_id ON tbl_comments(blog_id, comment_id)");
     }
 
     protected static void dropTables(SQLiteDatabase db) {
@@ -66,7 +67,10 @@ public class ReaderCommentTable {
 
     protected static int purge(SQLiteDatabase db) {
         // purge comments attached to posts that no longer exist
-        int numDeleted = db.delete("tbl_comments", "post_id NOT IN (SELECT DISTINCT post_id FROM tbl_posts)", null);
+        int numDeleted = db.delete("tbl_comments",
+                "NOT EXISTS (SELECT 1 FROM tbl_posts"
+              + "  WHERE tbl_posts.post_id = tbl_comments.post_id"
+              + "  AND tbl_posts.blog_id = tbl_comments.blog_id)", null);
 
         // purge all but the first page of comments
         numDeleted += db.delete("tbl_comments", "page_number != 1", null);
@@ -132,13 +136,7 @@ public class ReaderCommentTable {
         String[] args = {Long.toString(post.blogId), Long.toString(post.postId)};
         Cursor c = ReaderDatabase.getReadableDb().rawQuery("SELECT * FROM tbl_comments WHERE blog_id=? AND post_id=? ORDER BY timestamp", args);
         try {
-            ReaderCommentList comments = new ReaderCommentList();
-            if (c.moveToFirst()) {
-                do {
-                    comments.add(getCommentFromCursor(c));
-                } while (c.moveToNext());
-            }
-            return comments;
+            return COMMENT_MAPPER.mapAll(c, new ReaderCommentList());
         } finally {
             SqlUtils.closeCursor(c);
         }
@@ -153,44 +151,46 @@ public class ReaderCommentTable {
         addOrUpdateComments(comments);
     }
 
-    public static void addOrUpdateComments(ReaderCommentList comments) {
+    private static final String SQL_INSERT_COMMENT =
+            "INSERT OR REPLACE INTO tbl_comments ("
+            + COLUMN_NAMES
+            + ") VALUES (?1,?2,?3,?4,?5,?6,?7,?8,?9,?10,?11,?12,?13,?14,?15,?16)";
+
+    public static void addOrUpdateComments(final ReaderCommentList comments) {
         if (comments == null || comments.size() == 0) {
             return;
         }
 
-        SQLiteDatabase db = ReaderDatabase.getWritableDb();
-        db.beginTransaction();
-        SQLiteStatement stmt = db.compileStatement("INSERT OR REPLACE INTO tbl_comments ("
-                                                  + COLUMN_NAMES
-                                                  + ") VALUES (?1,?2,?3,?4,?5,?6,?7,?8,?9,?10,?11,?12,?13,?14,?15,?16)");
-        try {
-            for (ReaderComment comment: comments) {
-                stmt.bindLong  (1,  comment.blogId);
-                stmt.bindLong  (2,  comment.postId);
-                stmt.bindLong  (3,  comment.commentId);
-                stmt.bindLong  (4,  comment.parentId);
-                stmt.bindString(5,  comment.getAuthorName());
-                stmt.bindString(6,  comment.getAuthorAvatar());
-                stmt.bindString(7,  comment.getAuthorUrl());
-                stmt.bindLong  (8,  comment.authorId);
-                stmt.bindLong  (9,  comment.authorBlogId);
-                stmt.bindString(10, comment.getPublished());
-                stmt.bindLong  (11, comment.timestamp);
-                stmt.bindString(12, comment.getStatus());
-                stmt.bindString(13, comment.getText());
-                stmt.bindLong  (14, comment.numLikes);
-                stmt.bindLong  (15, SqlUtils.boolToSql(comment.isLikedByCurrentUser));
-                stmt.bindLong  (16, comment.pageNumber);
-
-                stmt.execute();
+        ReaderDatabaseWriter.write(new ReaderDatabaseWriter.Mutation() {
+            @Override
+            public void apply(SQLiteDatabase db) {
+                SQLiteStatement stmt = ReaderStatementPool.acquire(db, SQL_INSERT_COMMENT);
+                try {
+                    for (ReaderComment comment: comments) {
+                        stmt.bindLong  (1,  comment.blogId);
+                        stmt.bindLong  (2,  comment.postId);
+                        stmt.bindLong  (3,  comment.commentId);
+                        stmt.bindLong  (4,  comment.parentId);
+                        stmt.bindString(5,  comment.getAuthorName());
+                        stmt.bindString(6,  comment.getAuthorAvatar());
+                        stmt.bindString(7,  comment.getAuthorUrl());
+                        stmt.bindLong  (8,  comment.authorId);
+                        stmt.bindLong  (9,  comment.authorBlogId);
+                        stmt.bindString(10, comment.getPublished());
+                        stmt.bindLong  (11, comment.timestamp);
+                        stmt.bindString(12, comment.getStatus());
+                        stmt.bindString(13, comment.getText());
+                        stmt.bindLong  (14, comment.numLikes);
+                        stmt.bindLong  (15, SqlUtils.boolToSql(comment.isLikedByCurrentUser));
+                        stmt.bindLong  (16, comment.pageNumber);
+
+                        stmt.execute();
+                    }
+                } finally {
+                    ReaderStatementPool.release(SQL_INSERT_COMMENT, stmt);
+                }
             }
-
-            db.setTransactionSuccessful();
-
-        } finally {
-            db.endTransaction();
-            SqlUtils.closeStatement(stmt);
-        }
+        });
     }
 
     public static ReaderComment getComment(long blogId, long postId, long commentId) {
@@ -198,10 +198,7 @@ public class ReaderCommentTable {
         Cursor c = ReaderDatabase.getReadableDb().rawQuery(
                 "SELECT * FROM tbl_comments WHERE blog_id=? AND post_id=? AND comment_id=? LIMIT 1", args);
         try {
-            if (!c.moveToFirst()) {
-                return null;
-            }
-            return getCommentFromCursor(c);
+            return COMMENT_MAPPER.mapFirst(c);
         } finally {
             SqlUtils.closeCursor(c);
         }
@@ -294,34 +291,52 @@ public class ReaderCommentTable {
                 args);
     }
 
-    private static ReaderComment getCommentFromCursor(Cursor c) {
-        if (c == null) {
-            throw new IllegalArgumentException("null comment cursor");
+    static final ReaderRowMapper<ReaderComment> COMMENT_MAPPER = new CommentMapper();
+
+    private static class CommentMapper extends ReaderRowMapper<ReaderComment> {
+        private final int mCommentId = addColumn("comment_id");
+        private final int mBlogId = addColumn("blog_id");
+        private final int mPostId = addColumn("post_id");
+        private final int mParentId = addColumn("parent_id");
+        private final int mPublished = addColumn("published");
+        private final int mTimestamp = addColumn("timestamp");
+        private final int mAuthorAvatar = addColumn("author_avatar");
+        private final int mAuthorName = addColumn("author_name");
+        private final int mAuthorUrl = addColumn("author_url");
+        private final int mAuthorId = addColumn("author_id");
+        private final int mAuthorBlogId = addColumn("author_blog_id");
+        private final int mStatus = addColumn("status");
+        private final int mText = addColumn("text");
+        private final int mNumLikes = addColumn("num_likes");
+        private final int mIsLiked = addColumn("is_liked");
+        private final int mPageNumber = addColumn("page_number");
+
+        @Override
+        protected ReaderComment mapRow(Cursor c, int[] index) {
+            ReaderComment comment = new ReaderComment();
+
+            comment.commentId = c.getLong(index[mCommentId]);
+            comment.blogId = c.getLong(index[mBlogId]);
+            comment.postId = c.getLong(index[mPostId]);
+            comment.parentId = c.getLong(index[mParentId]);
+
+            comment.setPublished(c.getString(index[mPublished]));
+            comment.timestamp = c.getLong(index[mTimestamp]);
+
+            comment.setAuthorAvatar(c.getString(index[mAuthorAvatar]));
+            comment.setAuthorName(c.getString(index[mAuthorName]));
+            comment.setAuthorUrl(c.getString(index[mAuthorUrl]));
+            comment.authorId = c.getLong(index[mAuthorId]);
+            comment.authorBlogId = c.getLong(index[mAuthorBlogId]);
+
+            comment.setStatus(c.getString(index[mStatus]));
+            comment.setText(c.getString(index[mText]));
+
+            comment.numLikes = c.getInt(index[mNumLikes]);
+            comment.isLikedByCurrentUser = SqlUtils.sqlToBool(c.getInt(index[mIsLiked]));
+            comment.pageNumber = c.getInt(index[mPageNumber]);
+
+            return comment;
         }
-
-        ReaderComment comment = new ReaderComment();
-
-        comment.commentId = c.getLong(c.getColumnIndex("comment_id"));
-        comment.blogId = c.getLong(c.getColumnIndex("blog_id"));
-        comment.postId = c.getLong(c.getColumnIndex("post_id"));
-        comment.parentId = c.getLong(c.getColumnIndex("parent_id"));
-
-        comment.setPublished(c.getString(c.getColumnIndex("published")));
-        comment.timestamp = c.getLong(c.getColumnIndex("timestamp"));
-
-        comment.setAuthorAvatar(c.getString(c.getColumnIndex("author_avatar")));
-        comment.setAuthorName(c.getString(c.getColumnIndex("author_name")));
-        comment.setAuthorUrl(c.getString(c.getColumnIndex("author_url")));
-        comment.authorId = c.getLong(c.getColumnIndex("author_id"));
-        comment.authorBlogId = c.getLong(c.getColumnIndex("author_blog_id"));
-
-        comment.setStatus(c.getString(c.getColumnIndex("status")));
-        comment.setText(c.getString(c.getColumnIndex("text")));
-
-        comment.numLikes = c.getInt(c.getColumnIndex("num_likes"));
-        comment.isLikedByCurrentUser = SqlUtils.sqlToBool(c.getInt(c.getColumnIndex("is_liked")));
-        comment.pageNumber = c.getInt(c.getColumnIndex("page_number"));
-
-        return comment;
     }
 }
@@ -3,8 +3,11 @@ package org.wordpress.android.datasets;
 import android.content.Context;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.os.SystemClock;
 
 import org.wordpress.android.WordPress;
+import org.wordpress.android.analytics.AnalyticsTracker;
+import org.wordpress.android.ui.reader.ReaderScheduler;
 import org.wordpress.android.util.AppLog;
 import org.wordpress.android.util.AppLog.T;
 
@@ -13,13 +16,15 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * database for all reader information
  */
 public class ReaderDatabase extends SQLiteOpenHelper {
     protected static final String DB_NAME = "wpreader.db";
-    private static final int DB_VERSION = 100;
+    private static final int DB_VERSION = 105;
 
     /*
      * version history
@@ -52,6 +57,11 @@ public class ReaderDatabase extends SQLiteOpenHelper {
      *   98 - added feed_id to tbl_posts
      *   99 - added feed_url to tbl_blog_info
      *  100 - changed primary key on tbl_blog_info
+     *  101 - added content_hash to tbl_posts
+     *  102 - added pseudo_id to idx_posts_timestamp
+     *  103 - added idx_post_tags_tag and idx_comments_comment_id
+     *  104 - added ReaderSyncStateTable
+     *  105 - tbl_posts text is now stored compressed
      */
 
     /*
@@ -63,9 +73,14 @@ public class ReaderDatabase extends SQLiteOpenHelper {
         if (mReaderDb == null) {
             synchronized(mDbLock) {
                 if (mReaderDb == null) {
-                    mReaderDb = new ReaderDatabase(WordPress.getContext());
+                    ReaderDatabase readerDb = new ReaderDatabase(WordPress.getContext());
                     // this ensures that onOpen() is called with a writable database (open will fail if app calls getReadableDb() first)
-                    mReaderDb.getWritableDatabase();
+                    SQLiteDatabase db = readerDb.getWritableDatabase();
+                    // write-ahead logging lets the Reader query the db while ReaderDatabaseWriter
+                    // is committing, and makes commits cheaper since they only append to the log -
+                    // must be enabled before the db is shared since it can't be done in a transaction
+                    db.enableWriteAheadLogging();
+                    mReaderDb = readerDb;
                 }
             }
         }
@@ -86,13 +101,18 @@ public class ReaderDatabase extends SQLiteOpenHelper {
     }
 
     /*
-     * resets (clears) the reader database
+     * resets (clears) the reader database - done by ReaderDatabaseWriter so it doesn't contend
+     * with a batch it's committing
      */
     public static void reset() {
-        // note that we must call getWritableDb() before getDatabase() in case the database
-        // object hasn't been created yet
-        SQLiteDatabase db = getWritableDb();
-        getDatabase().reset(db);
+        // note that getDatabase() creates the database object if it hasn't been created yet
+        final ReaderDatabase readerDb = getDatabase();
+        ReaderDatabaseWriter.write(new ReaderDatabaseWriter.Mutation() {
+            @Override
+            public void apply(SQLiteDatabase db) {
+                readerDb.recreateAllTables(db);
+            }
+        });
     }
 
     public ReaderDatabase(Context context) {
@@ -127,6 +147,7 @@ public class ReaderDatabase extends SQLiteOpenHelper {
         ReaderUserTable.createTables(db);
         ReaderThumbnailTable.createTables(db);
         ReaderBlogTable.createTables(db);
+        ReaderSyncStateTable.createTables(db);
     }
 
     private void dropAllTables(SQLiteDatabase db) {
@@ -137,6 +158,7 @@ public class ReaderDatabase extends SQLiteOpenHelper {
         ReaderUserTable.dropTables(db);
         ReaderThumbnailTable.dropTables(db);
         ReaderBlogTable.dropTables(db);
+        ReaderSyncStateTable.dropTables(db);
     }
 
     /*
@@ -145,58 +167,83 @@ public class ReaderDatabase extends SQLiteOpenHelper {
     private void reset(SQLiteDatabase db) {
         db.beginTransaction();
         try {
-            dropAllTables(db);
-            createAllTables(db);
+            recreateAllTables(db);
             db.setTransactionSuccessful();
         } finally {
             db.endTransaction();
         }
     }
 
+    /*
+     * same as reset() but within the caller's transaction
+     */
+    private void recreateAllTables(SQLiteDatabase db) {
+        // pooled statements were compiled against the dropped tables
+        ReaderStatementPool.clear();
+        dropAllTables(db);
+        createAllTables(db);
+    }
+
     /*
      * purge older/unattached data - use purgeAsync() to do this in the background
      */
     private static void purge() {
-        SQLiteDatabase db = getWritableDb();
-        db.beginTransaction();
-        try {
-            int numPostsDeleted = ReaderPostTable.purge(db);
+        long startTime = SystemClock.elapsedRealtime();
+        final int[] numPostsDeleted = new int[1];
+        ReaderDatabaseWriter.write(new ReaderDatabaseWriter.Mutation() {
+            @Override
+            public void apply(SQLiteDatabase db) {
+                numPostsDeleted[0] = purge(db);
+            }
+        });
+
+        long duration = SystemClock.elapsedRealtime() - startTime;
+        AppLog.i(T.READER, String.format("reader db purged in %d ms", duration));
+        Map<String, Object> properties = new HashMap<String, Object>();
+        properties.put("duration_ms", duration);
+        properties.put("num_posts_purged", numPostsDeleted[0]);
+        AnalyticsTracker.track(AnalyticsTracker.Stat.READER_PURGED_DATABASE, properties);
+    }
 
-            // don't bother purging other data unless posts were purged
-            if (numPostsDeleted > 0) {
-                AppLog.i(T.READER, String.format("%d total posts purged", numPostsDeleted));
+    /*
+     * purges within the caller's transaction, returns the # of posts purged
+     */
+    private static int purge(SQLiteDatabase db) {
+        int numPostsDeleted = ReaderPostTable.purge(db);
 
-                // purge unattached comments
-                int numCommentsDeleted = ReaderCommentTable.purge(db);
-                if (numCommentsDeleted > 0) {
-                    AppLog.i(T.READER, String.format("%d comments purged", numCommentsDeleted));
-                }
+        // don't bother purging other data unless posts were purged
+        if (numPostsDeleted > 0) {
+            AppLog.i(T.READER, String.format("%d total posts purged", numPostsDeleted));
 
-                // purge unattached likes
-                int numLikesDeleted = ReaderLikeTable.purge(db);
-                if (numLikesDeleted > 0) {
-                    AppLog.i(T.READER, String.format("%d likes purged", numLikesDeleted));
-                }
+            // purge unattached comments
+            int numCommentsDeleted = ReaderCommentTable.purge(db);
+            if (numCommentsDeleted > 0) {
+                AppLog.i(T.READER, String.format("%d comments purged", numCommentsDeleted));
+            }
 
-                // purge unattached thumbnails
-                int numThumbsPurged = ReaderThumbnailTable.purge(db);
-                if (numThumbsPurged > 0) {
-                    AppLog.i(T.READER, String.format("%d thumbnails purged", numThumbsPurged));
-                }
+            // purge unattached likes
+            int numLikesDeleted = ReaderLikeTable.purge(db);
+            if (numLikesDeleted > 0) {
+                AppLog.i(T.READER, String.format("%d likes purged", numLikesDeleted));
+            }
+
+            // purge unattached thumbnails
+            int numThumbsPurged = ReaderThumbnailTable.purge(db);
+            if (numThumbsPurged > 0) {
+                AppLog.i(T.READER, String.format("%d thumbnails purged", numThumbsPurged));
             }
-            db.setTransactionSuccessful();
-        } finally {
-            db.endTransaction();
         }
+        return numPostsDeleted;
     }
 
     public static void purgeAsync() {
-        new Thread() {
+        // keyed so purges requested while one is waiting to run don't purge again
+        ReaderScheduler.submit(ReaderScheduler.Lane.MAINTENANCE, "purge", new Runnable() {
             @Override
             public void run() {
                 purge();
             }
-        }.start();
+        });
     }
 
     /*
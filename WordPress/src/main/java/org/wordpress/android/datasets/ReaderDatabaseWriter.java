@@ -0,0 +1,204 @@
+package org.wordpress.android.datasets;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Process;
+
+import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.AppLog.T;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * single writer for the reader db - rather than each caller opening its own transaction and
+ * contending for the db lock (and paying for a sync to disk on every commit), mutations are
+ * queued and applied by one thread which commits them in batches. A batch is committed once
+ * it holds maxBatchSize mutations, or once maxLatencyMs have passed since its first mutation
+ * was dequeued, whichever comes first. If a mutation in a batch fails, the batch is rolled back
+ * and its mutations are retried one at a time so only the failed one is lost.
+ */
+public class ReaderDatabaseWriter {
+    public interface Mutation {
+        void apply(SQLiteDatabase db);
+    }
+
+    public static final int DEFAULT_MAX_BATCH_SIZE = 50;
+    public static final long DEFAULT_MAX_LATENCY_MS = 10;
+
+    private static volatile int sMaxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+    private static volatile long sMaxLatencyMs = DEFAULT_MAX_LATENCY_MS;
+
+    private static final BlockingQueue<PendingMutation> sQueue = new LinkedBlockingQueue<PendingMutation>();
+    private static final Object sThreadLock = new Object();
+    private static Thread sWriterThread;
+
+    /*
+     * sets the max # of mutations in a batch and the max time to wait for more mutations before
+     * committing a batch - a latency of zero commits whatever is queued without waiting
+     */
+    public static void setLimits(int maxBatchSize, long maxLatencyMs) {
+        if (maxBatchSize < 1 || maxLatencyMs < 0) {
+            throw new IllegalArgumentException("invalid reader db writer limits");
+        }
+        sMaxBatchSize = maxBatchSize;
+        sMaxLatencyMs = maxLatencyMs;
+    }
+
+    /*
+     * applies the passed mutation and returns once it has been committed, rethrowing any
+     * exception it threw - the mutation is applied immediately when called from a mutation or
+     * from a thread that already has a transaction open, since queuing it would deadlock
+     */
+    public static void write(Mutation mutation) {
+        if (mutation == null) {
+            return;
+        }
+        if (Thread.currentThread() == sWriterThread || ReaderDatabase.getWritableDb().inTransaction()) {
+            mutation.apply(ReaderDatabase.getWritableDb());
+            return;
+        }
+
+        PendingMutation pending = new PendingMutation(mutation, true);
+        enqueue(pending);
+        pending.await();
+    }
+
+    /*
+     * queues the passed mutation and returns without waiting for it to be committed
+     */
+    public static void writeAsync(Mutation mutation) {
+        if (mutation == null) {
+            return;
+        }
+        if (Thread.currentThread() == sWriterThread) {
+            mutation.apply(ReaderDatabase.getWritableDb());
+            return;
+        }
+        enqueue(new PendingMutation(mutation, false));
+    }
+
+    private static void enqueue(PendingMutation pending) {
+        synchronized (sThreadLock) {
+            if (sWriterThread == null) {
+                sWriterThread = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                        writeQueuedMutations();
+                    }
+                }, "ReaderDatabaseWriter");
+                sWriterThread.setDaemon(true);
+                sWriterThread.start();
+            }
+        }
+        sQueue.add(pending);
+    }
+
+    private static void writeQueuedMutations() {
+        List<PendingMutation> batch = new ArrayList<PendingMutation>();
+        while (true) {
+            try {
+                batch.add(sQueue.take());
+                int maxBatchSize = sMaxBatchSize;
+                sQueue.drainTo(batch, maxBatchSize - batch.size());
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sMaxLatencyMs);
+                while (batch.size() < maxBatchSize) {
+                    long waitNanos = deadline - System.nanoTime();
+                    PendingMutation pending = (waitNanos > 0 ? sQueue.poll(waitNanos, TimeUnit.NANOSECONDS) : null);
+                    if (pending == null) {
+                        break;
+                    }
+                    batch.add(pending);
+                    sQueue.drainTo(batch, maxBatchSize - batch.size());
+                }
+            } catch (InterruptedException e) {
+                // the writer thread is never interrupted on purpose, so just write what we have
+            }
+
+            if (batch.size() > 0) {
+                commitBatch(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private static void commitBatch(List<PendingMutation> batch) {
+        SQLiteDatabase db = ReaderDatabase.getWritableDb();
+        boolean isCommitted = false;
+        db.beginTransaction();
+        try {
+            for (PendingMutation pending : batch) {
+                pending.mMutation.apply(db);
+            }
+            db.setTransactionSuccessful();
+            isCommitted = true;
+        } catch (RuntimeException e) {
+            AppLog.w(T.READER, "reader db writer > batch of " + batch.size() + " failed, retrying one at a time");
+        } finally {
+            db.endTransaction();
+        }
+
+        if (isCommitted) {
+            for (PendingMutation pending : batch) {
+                pending.finish(null);
+            }
+            return;
+        }
+
+        for (PendingMutation pending : batch) {
+            RuntimeException exception = null;
+            db.beginTransaction();
+            try {
+                pending.mMutation.apply(db);
+                db.setTransactionSuccessful();
+            } catch (RuntimeException e) {
+                AppLog.e(T.READER, "reader db writer > mutation failed", e);
+                exception = e;
+            } finally {
+                db.endTransaction();
+            }
+            pending.finish(exception);
+        }
+    }
+
+    private static class PendingMutation {
+        private final Mutation mMutation;
+        private final CountDownLatch mLatch;
+        private volatile RuntimeException mException;
+
+        PendingMutation(Mutation mutation, boolean isWaitedOn) {
+            mMutation = mutation;
+            mLatch = (isWaitedOn ? new CountDownLatch(1) : null);
+        }
+
+        void finish(RuntimeException exception) {
+            mException = exception;
+            if (mLatch != null) {
+                mLatch.countDown();
+            }
+        }
+
+        void await() {
+            boolean isInterrupted = false;
+            while (true) {
+                try {
+                    mLatch.await();
+                    break;
+                } catch (InterruptedException e) {
+                    // the mutation will still be committed, so keep waiting for it
+                    isInterrupted = true;
+                }
+            }
+            if (isInterrupted) {
+                Thread.currentThread().interrupt();
+            }
+            if (mException != null) {
+                throw mException;
+            }
+        }
+    }
+}
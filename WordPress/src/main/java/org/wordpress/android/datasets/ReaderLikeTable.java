@@ -43,8 +43,14 @@ public class ReaderLikeTable {
      * purge likes attached to posts/comments that no longer exist
      */
     protected static int purge(SQLiteDatabase db) {
-        int numDeleted = db.delete("tbl_post_likes", "post_id NOT IN (SELECT DISTINCT post_id FROM tbl_posts)", null);
-        numDeleted += db.delete("tbl_comment_likes", "comment_id NOT IN (SELECT DISTINCT comment_id FROM tbl_comments)", null);
+        int numDeleted = db.delete("tbl_post_likes",
+                "NOT EXISTS (SELECT 1 FROM tbl_posts"
+              + "  WHERE tbl_posts.post_id = tbl_post_likes.post_id"
+              + "  AND tbl_posts.blog_id = tbl_post_likes.blog_id)", null);
+        numDeleted += db.delete("tbl_comment_likes",
+                "NOT EXISTS (SELECT 1 FROM tbl_comments"
+              + "  WHERE tbl_comments.blog_id = tbl_comment_likes.blog_id"
+              + "  AND tbl_comments.comment_id = tbl_comment_likes.comment_id)", null);
         return numDeleted;
     }
 
@@ -97,35 +103,34 @@ public class ReaderLikeTable {
         }
     }
 
-    public static void setLikesForPost(ReaderPost post, ReaderUserIdList userIds) {
+    public static void setLikesForPost(final ReaderPost post, final ReaderUserIdList userIds) {
         if (post == null) {
             return;
         }
 
-        SQLiteDatabase db = ReaderDatabase.getWritableDb();
-        db.beginTransaction();
-        SQLiteStatement stmt = db.compileStatement("INSERT INTO tbl_post_likes (blog_id, post_id, user_id) VALUES (?1,?2,?3)");
-        try {
-            // first delete all likes for this post
-            String[] args = {Long.toString(post.blogId), Long.toString(post.postId)};
-            db.delete("tbl_post_likes", "blog_id=? AND post_id=?", args);
-
-            // now insert the passed likes
-            if (userIds != null) {
-                stmt.bindLong(1, post.blogId);
-                stmt.bindLong(2, post.postId);
-                for (Long userId: userIds) {
-                    stmt.bindLong(3, userId);
-                    stmt.execute();
+        ReaderDatabaseWriter.write(new ReaderDatabaseWriter.Mutation() {
+            @Override
+            public void apply(SQLiteDatabase db) {
+                SQLiteStatement stmt = db.compileStatement("INSERT INTO tbl_post_likes (blog_id, post_id, user_id) VALUES (?1,?2,?3)");
+                try {
+                    // first delete all likes for this post
+                    String[] args = {Long.toString(post.blogId), Long.toString(post.postId)};
+                    db.delete("tbl_post_likes", "blog_id=? AND post_id=?", args);
+
+                    // now insert the passed likes
+                    if (userIds != null) {
+                        stmt.bindLong(1, post.blogId);
+                        stmt.bindLong(2, post.postId);
+                        for (Long userId: userIds) {
+                            stmt.bindLong(3, userId);
+                            stmt.execute();
+                        }
+                    }
+                } finally {
+                    SqlUtils.closeStatement(stmt);
                 }
             }
-
-            db.setTransactionSuccessful();
-
-        } finally {
-            db.endTransaction();
-            SqlUtils.closeStatement(stmt);
-        }
+        });
     }
 
 
@@ -187,35 +192,34 @@ public class ReaderLikeTable {
         }
     }
 
-    public static void setLikesForComment(ReaderComment comment, ReaderUserIdList userIds) {
+    public static void setLikesForComment(final ReaderComment comment, final ReaderUserIdList userIds) {
         if (comment == null) {
             return;
         }
 
-        SQLiteDatabase db = ReaderDatabase.getWritableDb();
-        db.beginTransaction();
-        SQLiteStatement stmt = db.compileStatement(
-                "INSERT INTO tbl_comment_likes (blog_id, comment_id, user_id) VALUES (?1,?2,?3)");
-        try {
-            String[] args = {Long.toString(comment.blogId),
-                             Long.toString(comment.commentId)};
-            db.delete("tbl_comment_likes", "blog_id=? AND comment_id=?", args);
-
-            if (userIds != null) {
-                stmt.bindLong(1, comment.blogId);
-                stmt.bindLong(2, comment.commentId);
-                for (Long userId: userIds) {
-                    stmt.bindLong(3, userId);
-                    stmt.execute();
+        ReaderDatabaseWriter.write(new ReaderDatabaseWriter.Mutation() {
+            @Override
+            public void apply(SQLiteDatabase db) {
+                SQLiteStatement stmt = db.compileStatement(
+                        "INSERT INTO tbl_comment_likes (blog_id, comment_id, user_id) VALUES (?1,?2,?3)");
+                try {
+                    String[] args = {Long.toString(comment.blogId),
+                                     Long.toString(comment.commentId)};
+                    db.delete("tbl_comment_likes", "blog_id=? AND comment_id=?", args);
+
+                    if (userIds != null) {
+                        stmt.bindLong(1, comment.blogId);
+                        stmt.bindLong(2, comment.commentId);
+                        for (Long userId: userIds) {
+                            stmt.bindLong(3, userId);
+                            stmt.execute();
+                        }
+                    }
+                } finally {
+                    SqlUtils.closeStatement(stmt);
                 }
             }
-
-            db.setTransactionSuccessful();
-
-        } finally {
-            db.endTransaction();
-            SqlUtils.closeStatement(stmt);
-        }
+        });
     }
 }
 
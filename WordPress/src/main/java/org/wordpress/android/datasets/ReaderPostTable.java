@@ -10,15 +10,23 @@ import org.wordpress.android.WordPress;
 import org.wordpress.android.models.ReaderPost;
 import org.wordpress.android.models.ReaderPostList;
 import org.wordpress.android.models.ReaderTag;
-import org.wordpress.android.models.ReaderTagList;
 import org.wordpress.android.models.ReaderTagType;
 import org.wordpress.android.ui.reader.ReaderConstants;
 import org.wordpress.android.ui.reader.actions.ReaderActions;
 import org.wordpress.android.ui.reader.models.ReaderBlogIdPostId;
 import org.wordpress.android.ui.reader.models.ReaderBlogIdPostIdList;
+import org.wordpress.android.ui.reader.models.ReaderPostDiff;
+import org.wordpress.android.ui.reader.models.ReaderPostKey;
+import org.wordpress.android.ui.reader.models.ReaderPostKeyList;
 import org.wordpress.android.util.AppLog;
 import org.wordpress.android.util.CrashlyticsUtils;
 import org.wordpress.android.util.SqlUtils;
+import org.wordpress.android.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * tbl_posts contains all reader posts
@@ -59,7 +67,8 @@ public class ReaderPostTable {
           + "secondary_tag,"        // 30
           + "is_likes_enabled,"     // 31
           + "is_sharing_enabled,"   // 32
-          + "attachments_json";     // 33
+          + "attachments_json,"     // 33
+          + "content_hash";         // 34
 
     // used when querying multiple rows and skipping tbl_posts.text
     private static final String COLUMN_NAMES_NO_TEXT =
@@ -105,7 +114,7 @@ public class ReaderPostTable {
                 + "	author_name	        TEXT,"
                 + " author_id           INTEGER DEFAULT 0,"
                 + "	title	            TEXT,"
-                + "	text                TEXT,"
+                + "	text                BLOB,"
                 + "	excerpt             TEXT,"
                 + " url                 TEXT,"
                 + " short_url           TEXT,"
@@ -131,9 +140,10 @@ public class ReaderPostTable {
                 + " is_likes_enabled    INTEGER DEFAULT 0,"
                 + " is_sharing_enabled  INTEGER DEFAULT 0,"
                 + " attachments_json    TEXT,"
+                + " content_hash        TEXT,"
                 + " PRIMARY KEY (post_id, blog_id)"
                 + ")");
-        db.execSQL("CREATE INDEX idx_posts_timestamp ON tbl_posts(timestamp)");
+        db.execSQL("CREATE INDEX idx_posts_timestamp ON tbl_posts(timestamp, pseudo_id)");
 
         db.execSQL("CREATE TABLE tbl_post_tags ("
                 + "   post_id     INTEGER DEFAULT 0,"
@@ -144,6 +154,7 @@ public class ReaderPostTable {
                 + "   tag_type    INTEGER DEFAULT 0,"
                 + "   PRIMARY KEY (post_id, blog_id, tag_name, tag_type)"
                 + ")");
+        db.execSQL("CREATE INDEX idx_post_tags_tag ON tbl_post_tags(tag_name, tag_type)");
     }
 
     protected static void dropTables(SQLiteDatabase db) {
@@ -162,44 +173,65 @@ public class ReaderPostTable {
      */
     protected static int purge(SQLiteDatabase db) {
         // delete posts in tbl_post_tags attached to tags that no longer exist
-        int numDeleted = db.delete("tbl_post_tags", "tag_name NOT IN (SELECT DISTINCT tag_name FROM tbl_tags)", null);
+        int numDeleted = db.delete("tbl_post_tags",
+                "NOT EXISTS (SELECT 1 FROM tbl_tags WHERE tbl_tags.tag_name = tbl_post_tags.tag_name)", null);
 
-        // delete excess posts on a per-tag basis
-        ReaderTagList tags = ReaderTagTable.getAllTags();
-        for (ReaderTag tag: tags) {
-            numDeleted += purgePostsForTag(db, tag);
-        }
+        // delete excess posts in all tags
+        numDeleted += purgeExcessPostsInTags(db);
 
         // delete posts in tbl_posts that no longer exist in tbl_post_tags
-        numDeleted += db.delete("tbl_posts", "pseudo_id NOT IN (SELECT DISTINCT pseudo_id FROM tbl_post_tags)", null);
+        numDeleted += db.delete("tbl_posts",
+                "NOT EXISTS (SELECT 1 FROM tbl_post_tags"
+              + "  WHERE tbl_post_tags.post_id = tbl_posts.post_id"
+              + "  AND tbl_post_tags.blog_id = tbl_posts.blog_id)", null);
 
         return numDeleted;
     }
 
     /*
-     * purge excess posts in the passed tag - note we only keep as many posts as are returned
-     * by a single request
+     * purge excess posts in all tags - note we only keep as many posts as are returned by a
+     * single request. This used to be done with a count query and a delete for each tag, now
+     * it's done for all tags at once: first the oldest post to keep in each tag with too many
+     * posts is stored in a temp table, then the posts older than it are deleted
      */
     private static final int MAX_POSTS_PER_TAG = ReaderConstants.READER_MAX_POSTS_TO_REQUEST;
-    private static int purgePostsForTag(SQLiteDatabase db, ReaderTag tag) {
-        int numPosts = getNumPostsWithTag(tag);
-        if (numPosts <= MAX_POSTS_PER_TAG) {
-            return 0;
+    private static int purgeExcessPostsInTags(SQLiteDatabase db) {
+        db.execSQL("CREATE TEMP TABLE IF NOT EXISTS tmp_purge_tags ("
+                + "   tag_name     TEXT NOT NULL COLLATE NOCASE,"
+                + "   tag_type     INTEGER DEFAULT 0,"
+                + "   post_rowid   INTEGER DEFAULT 0)");
+        try {
+            db.execSQL("INSERT INTO tmp_purge_tags (tag_name, tag_type, post_rowid)"
+                    + " SELECT tag_name, tag_type,"
+                    + "   (SELECT tbl_posts.rowid FROM tbl_posts, tbl_post_tags AS tags_in_tag"
+                    + "    WHERE tags_in_tag.tag_name = tbl_post_tags.tag_name"
+                    + "    AND tags_in_tag.tag_type = tbl_post_tags.tag_type"
+                    + "    AND tbl_posts.post_id = tags_in_tag.post_id"
+                    + "    AND tbl_posts.blog_id = tags_in_tag.blog_id"
+                    + "    ORDER BY tbl_posts.timestamp DESC, tbl_posts.pseudo_id DESC"
+                    + "    LIMIT 1 OFFSET " + (MAX_POSTS_PER_TAG - 1) + ")"
+                    + " FROM tbl_post_tags"
+                    + " GROUP BY tag_name, tag_type"
+                    + " HAVING count(*) > " + MAX_POSTS_PER_TAG);
+
+            String where = "rowid IN ("
+                    + "  SELECT tbl_post_tags.rowid"
+                    + "  FROM tmp_purge_tags, tbl_posts AS oldest_kept, tbl_post_tags, tbl_posts"
+                    + "  WHERE oldest_kept.rowid = tmp_purge_tags.post_rowid"
+                    + "  AND tbl_post_tags.tag_name = tmp_purge_tags.tag_name"
+                    + "  AND tbl_post_tags.tag_type = tmp_purge_tags.tag_type"
+                    + "  AND tbl_posts.post_id = tbl_post_tags.post_id"
+                    + "  AND tbl_posts.blog_id = tbl_post_tags.blog_id"
+                    + "  AND (tbl_posts.timestamp < oldest_kept.timestamp"
+                    + "       OR (tbl_posts.timestamp = oldest_kept.timestamp"
+                    + "           AND tbl_posts.pseudo_id < oldest_kept.pseudo_id))"
+                    + ")";
+            int numDeleted = db.delete("tbl_post_tags", where, null);
+            AppLog.d(AppLog.T.READER, String.format("reader post table > purged %d posts in tags", numDeleted));
+            return numDeleted;
+        } finally {
+            db.execSQL("DROP TABLE IF EXISTS tmp_purge_tags");
         }
-
-        int numToPurge = numPosts - MAX_POSTS_PER_TAG;
-        String[] args = {tag.getTagName(), Integer.toString(tag.tagType.toInt()), Integer.toString(numToPurge)};
-        String where = "pseudo_id IN ("
-                + "  SELECT tbl_posts.pseudo_id FROM tbl_posts, tbl_post_tags"
-                + "  WHERE tbl_posts.pseudo_id = tbl_post_tags.pseudo_id"
-                + "  AND tbl_post_tags.tag_name=?1"
-                + "  AND tbl_post_tags.tag_type=?2"
-                + "  ORDER BY tbl_posts.timestamp"
-                + "  LIMIT ?3"
-                + ")";
-        int numDeleted = db.delete("tbl_post_tags", where, args);
-        AppLog.d(AppLog.T.READER, String.format("reader post table > purged %d posts in tag %s", numDeleted, tag.getTagNameForLog()));
-        return numDeleted;
     }
 
     public static int getNumPostsInBlog(long blogId) {
@@ -247,10 +279,7 @@ public class ReaderPostTable {
         String[] args = new String[] {Long.toString(blogId), Long.toString(postId)};
         Cursor c = ReaderDatabase.getReadableDb().rawQuery(sql, args);
         try {
-            if (!c.moveToFirst()) {
-                return null;
-            }
-            return getPostFromCursor(c);
+            return POST_MAPPER.mapFirst(c);
         } finally {
             SqlUtils.closeCursor(c);
         }
@@ -274,21 +303,52 @@ public class ReaderPostTable {
      * returns whether any of the passed posts are new or changed - used after posts are retrieved
      */
     public static ReaderActions.UpdateResult comparePosts(ReaderPostList posts) {
+        return diffPosts(posts).getUpdateResult();
+    }
+
+    /*
+     * splits the passed posts into new, changed and unchanged posts by comparing their content hash
+     * with the stored ones - the stored hashes are read with a single query
+     */
+    public static ReaderPostDiff diffPosts(ReaderPostList posts) {
+        ReaderPostDiff diff = new ReaderPostDiff();
         if (posts == null || posts.size() == 0) {
-            return ReaderActions.UpdateResult.UNCHANGED;
+            return diff;
+        }
+
+        StringBuilder postIds = new StringBuilder();
+        for (ReaderPost post: posts) {
+            if (postIds.length() > 0) {
+                postIds.append(',');
+            }
+            postIds.append(post.postId);
+        }
+
+        // hashes of the stored posts by blog_id:post_id
+        Map<String, String> storedHashes = new HashMap<String, String>();
+        Cursor c = ReaderDatabase.getReadableDb().rawQuery(
+                "SELECT blog_id, post_id, content_hash FROM tbl_posts WHERE post_id IN (" + postIds + ")",
+                null);
+        try {
+            while (c.moveToNext()) {
+                storedHashes.put(c.getLong(0) + ":" + c.getLong(1), StringUtils.notNullStr(c.getString(2)));
+            }
+        } finally {
+            SqlUtils.closeCursor(c);
         }
 
-        boolean hasChanges = false;
         for (ReaderPost post: posts) {
-            ReaderPost existingPost = getPost(post.blogId, post.postId, true);
-            if (existingPost == null) {
-                return ReaderActions.UpdateResult.HAS_NEW;
-            } else if (!hasChanges && !post.isSamePost(existingPost)) {
-                hasChanges = true;
+            String storedHash = storedHashes.get(post.blogId + ":" + post.postId);
+            if (storedHash == null) {
+                diff.addNewPost(post);
+            } else if (storedHash.equals(post.getContentHash())) {
+                diff.addUnchangedPost(post);
+            } else {
+                diff.addChangedPost(post);
             }
         }
 
-        return (hasChanges ? ReaderActions.UpdateResult.CHANGED : ReaderActions.UpdateResult.UNCHANGED);
+        return diff;
     }
 
     /*
@@ -334,17 +394,23 @@ public class ReaderPostTable {
             return;
         }
 
-        String[] args = {Long.toString(post.blogId), Long.toString(post.postId)};
+        final String[] args = {Long.toString(post.blogId), Long.toString(post.postId)};
 
-        ContentValues values = new ContentValues();
+        final ContentValues values = new ContentValues();
         values.put("num_likes", numLikes);
         values.put("is_liked", SqlUtils.boolToSql(isLikedByCurrentUser));
-
-        ReaderDatabase.getWritableDb().update(
-                "tbl_posts",
-                values,
-                "blog_id=? AND post_id=?",
-                args);
+        values.put("content_hash", "");
+
+        ReaderDatabaseWriter.write(new ReaderDatabaseWriter.Mutation() {
+            @Override
+            public void apply(SQLiteDatabase db) {
+                db.update(
+                        "tbl_posts",
+                        values,
+                        "blog_id=? AND post_id=?",
+                        args);
+            }
+        });
     }
 
 
@@ -364,22 +430,35 @@ public class ReaderPostTable {
         }
 
         // first delete posts from tbl_post_tags, and if any were deleted next delete posts in tbl_posts that no longer exist in tbl_post_tags
-        String[] args = {tag.getTagName(), Integer.toString(tag.tagType.toInt())};
-        int numDeleted = ReaderDatabase.getWritableDb().delete("tbl_post_tags",
-                "tag_name=? AND tag_type=?",
-                args);
-
-        if (numDeleted > 0)
-            ReaderDatabase.getWritableDb().delete("tbl_posts",
-                    "post_id NOT IN (SELECT DISTINCT post_id FROM tbl_post_tags)",
-                    null);
+        final String[] args = {tag.getTagName(), Integer.toString(tag.tagType.toInt())};
+        final int[] numDeleted = new int[1];
+        ReaderDatabaseWriter.write(new ReaderDatabaseWriter.Mutation() {
+            @Override
+            public void apply(SQLiteDatabase db) {
+                numDeleted[0] = db.delete("tbl_post_tags",
+                        "tag_name=? AND tag_type=?",
+                        args);
+
+                if (numDeleted[0] > 0)
+                    db.delete("tbl_posts",
+                            "post_id NOT IN (SELECT DISTINCT post_id FROM tbl_post_tags)",
+                            null);
+            }
+        });
 
-        return numDeleted;
+        return numDeleted[0];
     }
 
     public static int deletePostsInBlog(long blogId) {
-        String[] args = {Long.toString(blogId)};
-        return ReaderDatabase.getWritableDb().delete("tbl_posts", "blog_id = ?", args);
+        final String[] args = {Long.toString(blogId)};
+        final int[] numDeleted = new int[1];
+        ReaderDatabaseWriter.write(new ReaderDatabaseWriter.Mutation() {
+            @Override
+            public void apply(SQLiteDatabase db) {
+                numDeleted[0] = db.delete("tbl_posts", "blog_id = ?", args);
+            }
+        });
+        return numDeleted[0];
     }
 
     /*
@@ -435,144 +514,174 @@ public class ReaderPostTable {
     public static void setFollowStatusForPostsInFeed(long feedId, boolean isFollowed) {
         setFollowStatusForPosts(0, feedId, isFollowed);
     }
-    private static void setFollowStatusForPosts(long blogId, long feedId, boolean isFollowed) {
+    private static void setFollowStatusForPosts(final long blogId, final long feedId, final boolean isFollowed) {
         if (blogId == 0 && feedId == 0) {
             return;
         }
 
-        SQLiteDatabase db = ReaderDatabase.getWritableDb();
-        db.beginTransaction();
-        try {
-            if (blogId != 0) {
-                String sql = "UPDATE tbl_posts SET is_followed=" + SqlUtils.boolToSql(isFollowed)
-                          + " WHERE blog_id=?";
-                db.execSQL(sql, new String[]{Long.toString(blogId)});
-            } else {
-                String sql = "UPDATE tbl_posts SET is_followed=" + SqlUtils.boolToSql(isFollowed)
-                          + " WHERE feed_id=?";
-                db.execSQL(sql, new String[]{Long.toString(feedId)});
-            }
-
-
-            // if blog/feed is no longer followed, remove its posts tagged with "Blogs I Follow" in
-            // tbl_post_tags
-            if (!isFollowed) {
+        // the posts and their tags are updated in a single transaction
+        ReaderDatabaseWriter.write(new ReaderDatabaseWriter.Mutation() {
+            @Override
+            public void apply(SQLiteDatabase db) {
                 if (blogId != 0) {
-                    db.delete("tbl_post_tags", "blog_id=? AND tag_name=?",
-                            new String[]{Long.toString(blogId), ReaderTag.TAG_NAME_FOLLOWING});
+                    String sql = "UPDATE tbl_posts SET is_followed=" + SqlUtils.boolToSql(isFollowed)
+                              + ", content_hash='' WHERE blog_id=?";
+                    db.execSQL(sql, new String[]{Long.toString(blogId)});
                 } else {
-                    db.delete("tbl_post_tags", "feed_id=? AND tag_name=?",
-                            new String[]{Long.toString(feedId), ReaderTag.TAG_NAME_FOLLOWING});
+                    String sql = "UPDATE tbl_posts SET is_followed=" + SqlUtils.boolToSql(isFollowed)
+                              + ", content_hash='' WHERE feed_id=?";
+                    db.execSQL(sql, new String[]{Long.toString(feedId)});
                 }
-            }
 
-            db.setTransactionSuccessful();
-        } finally {
-            db.endTransaction();
-        }
+
+                // if blog/feed is no longer followed, remove its posts tagged with "Blogs I Follow" in
+                // tbl_post_tags
+                if (!isFollowed) {
+                    if (blogId != 0) {
+                        db.delete("tbl_post_tags", "blog_id=? AND tag_name=?",
+                                new String[]{Long.toString(blogId), ReaderTag.TAG_NAME_FOLLOWING});
+                    } else {
+                        db.delete("tbl_post_tags", "feed_id=? AND tag_name=?",
+                                new String[]{Long.toString(feedId), ReaderTag.TAG_NAME_FOLLOWING});
+                    }
+                }
+            }
+        });
     }
 
     /*
      * Android's CursorWindow has a max size of 2MB per row which can be exceeded
      * with a very large text column, causing an IllegalStateException when the
-     * row is read - prevent this by limiting the amount of text that's stored in
-     * the text column - note that this situation very rarely occurs
+     * row is read - the text is stored compressed (see ReaderPostTextCodec) so even
+     * long-form posts fit, but prevent this by limiting both the length of the text
+     * that's compressed and the size of the compressed text - note that this
+     * situation very rarely occurs
      * https://github.com/android/platform_frameworks_base/blob/master/core/res/res/values/config.xml#L946
      * https://github.com/android/platform_frameworks_base/blob/3bdbf644d61f46b531838558fabbd5b990fc4913/core/java/android/database/CursorWindow.java#L103
      */
-    private static final int MAX_TEXT_LEN = (1024 * 1024) / 2;
-    private static String maxText(final ReaderPost post) {
+    private static final int MAX_TEXT_LEN = 4 * 1024 * 1024;
+    private static final int MAX_COMPRESSED_TEXT_LEN = 1024 * 1024;
+    private static byte[] compressText(final ReaderPost post) {
         if (post.getText().length() <= MAX_TEXT_LEN) {
-            return post.getText();
+            byte[] compressed = ReaderPostTextCodec.compress(post.getText());
+            if (compressed.length <= MAX_COMPRESSED_TEXT_LEN) {
+                return compressed;
+            }
         }
         // if the post has an excerpt (which should always be the case), store it as the full text
         // with a link to the full article
         if (post.hasExcerpt()) {
             AppLog.w(AppLog.T.READER, "reader post table > max text exceeded, storing excerpt");
-            return "<p>" + post.getExcerpt() + "</p>"
+            return ReaderPostTextCodec.compress("<p>" + post.getExcerpt() + "</p>"
                   + String.format("<p style='text-align:center'><a href='%s'>%s</a></p>",
-                    post.getUrl(), WordPress.getContext().getString(R.string.reader_label_view_original));
+                    post.getUrl(), WordPress.getContext().getString(R.string.reader_label_view_original)));
         } else {
+            // a char is at most three bytes in UTF-8, so this can't exceed the compressed max
             AppLog.w(AppLog.T.READER, "reader post table > max text exceeded, storing truncated text");
-            return post.getText().substring(0, MAX_TEXT_LEN);
+            int maxLen = Math.min(post.getText().length(), MAX_COMPRESSED_TEXT_LEN / 3);
+            return ReaderPostTextCodec.compress(post.getText().substring(0, maxLen));
         }
     }
 
     public static void addOrUpdatePosts(final ReaderTag tag, ReaderPostList posts) {
-        if (posts == null || posts.size() == 0) {
+        addOrUpdatePosts(tag, posts, posts);
+    }
+
+    /*
+     * writes the new and changed posts in the passed diff - unchanged posts are only added to the
+     * passed tag
+     */
+    public static void addOrUpdatePosts(final ReaderTag tag, ReaderPostDiff diff) {
+        if (diff == null) {
             return;
         }
+        addOrUpdatePosts(tag, diff.getNewOrChangedPosts(), diff.getAllPosts());
+    }
 
-        SQLiteDatabase db = ReaderDatabase.getWritableDb();
-        SQLiteStatement stmtPosts = db.compileStatement(
-                "INSERT OR REPLACE INTO tbl_posts ("
-                + COLUMN_NAMES
-                + ") VALUES (?1,?2,?3,?4,?5,?6,?7,?8,?9,?10,?11,?12,?13,?14,?15,?16,?17,?18,?19,?20,?21,?22,?23,?24,?25,?26,?27,?28,?29,?30,?31,?32,?33)");
-        SQLiteStatement stmtTags = db.compileStatement(
-                "INSERT OR REPLACE INTO tbl_post_tags (post_id, blog_id, feed_id, pseudo_id, tag_name, tag_type) VALUES (?1,?2,?3,?4,?5,?6)");
+    private static final String SQL_INSERT_POST =
+            "INSERT OR REPLACE INTO tbl_posts ("
+            + COLUMN_NAMES
+            + ") VALUES (?1,?2,?3,?4,?5,?6,?7,?8,?9,?10,?11,?12,?13,?14,?15,?16,?17,?18,?19,?20,?21,?22,?23,?24,?25,?26,?27,?28,?29,?30,?31,?32,?33,?34)";
+    private static final String SQL_INSERT_POST_TAG =
+            "INSERT OR REPLACE INTO tbl_post_tags (post_id, blog_id, feed_id, pseudo_id, tag_name, tag_type) VALUES (?1,?2,?3,?4,?5,?6)";
 
-        db.beginTransaction();
-        try {
-            // first insert into tbl_posts
-            for (ReaderPost post: posts) {
-                stmtPosts.bindLong  (1,  post.postId);
-                stmtPosts.bindLong  (2,  post.blogId);
-                stmtPosts.bindLong  (3,  post.feedId);
-                stmtPosts.bindString(4,  post.getPseudoId());
-                stmtPosts.bindString(5,  post.getAuthorName());
-                stmtPosts.bindLong  (6,  post.authorId);
-                stmtPosts.bindString(7,  post.getTitle());
-                stmtPosts.bindString(8,  maxText(post));
-                stmtPosts.bindString(9,  post.getExcerpt());
-                stmtPosts.bindString(10, post.getUrl());
-                stmtPosts.bindString(11, post.getShortUrl());
-                stmtPosts.bindString(12, post.getBlogUrl());
-                stmtPosts.bindString(13, post.getBlogName());
-                stmtPosts.bindString(14, post.getFeaturedImage());
-                stmtPosts.bindString(15, post.getFeaturedVideo());
-                stmtPosts.bindString(16, post.getPostAvatar());
-                stmtPosts.bindLong  (17, post.timestamp);
-                stmtPosts.bindString(18, post.getPublished());
-                stmtPosts.bindLong  (19, post.numReplies);
-                stmtPosts.bindLong  (20, post.numLikes);
-                stmtPosts.bindLong  (21, SqlUtils.boolToSql(post.isLikedByCurrentUser));
-                stmtPosts.bindLong  (22, SqlUtils.boolToSql(post.isFollowedByCurrentUser));
-                stmtPosts.bindLong  (23, SqlUtils.boolToSql(post.isCommentsOpen));
-                stmtPosts.bindLong  (24, SqlUtils.boolToSql(post.isRebloggedByCurrentUser));
-                stmtPosts.bindLong  (25, SqlUtils.boolToSql(post.isExternal));
-                stmtPosts.bindLong  (26, SqlUtils.boolToSql(post.isPrivate));
-                stmtPosts.bindLong  (27, SqlUtils.boolToSql(post.isVideoPress));
-                stmtPosts.bindLong  (28, SqlUtils.boolToSql(post.isJetpack));
-                stmtPosts.bindString(29, post.getPrimaryTag());
-                stmtPosts.bindString(30, post.getSecondaryTag());
-                stmtPosts.bindLong  (31, SqlUtils.boolToSql(post.isLikesEnabled));
-                stmtPosts.bindLong  (32, SqlUtils.boolToSql(post.isSharingEnabled));
-                stmtPosts.bindString(33, post.getAttachmentsJson());
-                stmtPosts.execute();
-            }
+    private static void addOrUpdatePosts(final ReaderTag tag, final ReaderPostList posts, final ReaderPostList taggedPosts) {
+        if (posts.size() == 0 && (tag == null || taggedPosts.size() == 0)) {
+            return;
+        }
+
+        // compress the text here rather than in the mutation so it doesn't hold up the writer
+        final List<byte[]> compressedTexts = new ArrayList<byte[]>(posts.size());
+        for (ReaderPost post: posts) {
+            compressedTexts.add(compressText(post));
+        }
 
-            // now add to tbl_post_tags if a tag was passed
-            if (tag != null) {
-                String tagName = tag.getTagName();
-                int tagType = tag.tagType.toInt();
-                for (ReaderPost post: posts) {
-                    stmtTags.bindLong  (1, post.postId);
-                    stmtTags.bindLong  (2, post.blogId);
-                    stmtTags.bindLong  (3, post.feedId);
-                    stmtTags.bindString(4, post.getPseudoId());
-                    stmtTags.bindString(5, tagName);
-                    stmtTags.bindLong  (6, tagType);
-                    stmtTags.execute();
+        ReaderDatabaseWriter.write(new ReaderDatabaseWriter.Mutation() {
+            @Override
+            public void apply(SQLiteDatabase db) {
+                SQLiteStatement stmtPosts = ReaderStatementPool.acquire(db, SQL_INSERT_POST);
+                SQLiteStatement stmtTags = ReaderStatementPool.acquire(db, SQL_INSERT_POST_TAG);
+                try {
+                    // first insert into tbl_posts
+                    for (int i = 0; i < posts.size(); i++) {
+                        ReaderPost post = posts.get(i);
+                        stmtPosts.bindLong  (1,  post.postId);
+                        stmtPosts.bindLong  (2,  post.blogId);
+                        stmtPosts.bindLong  (3,  post.feedId);
+                        stmtPosts.bindString(4,  post.getPseudoId());
+                        stmtPosts.bindString(5,  post.getAuthorName());
+                        stmtPosts.bindLong  (6,  post.authorId);
+                        stmtPosts.bindString(7,  post.getTitle());
+                        stmtPosts.bindBlob  (8,  compressedTexts.get(i));
+                        stmtPosts.bindString(9,  post.getExcerpt());
+                        stmtPosts.bindString(10, post.getUrl());
+                        stmtPosts.bindString(11, post.getShortUrl());
+                        stmtPosts.bindString(12, post.getBlogUrl());
+                        stmtPosts.bindString(13, post.getBlogName());
+                        stmtPosts.bindString(14, post.getFeaturedImage());
+                        stmtPosts.bindString(15, post.getFeaturedVideo());
+                        stmtPosts.bindString(16, post.getPostAvatar());
+                        stmtPosts.bindLong  (17, post.timestamp);
+                        stmtPosts.bindString(18, post.getPublished());
+                        stmtPosts.bindLong  (19, post.numReplies);
+                        stmtPosts.bindLong  (20, post.numLikes);
+                        stmtPosts.bindLong  (21, SqlUtils.boolToSql(post.isLikedByCurrentUser));
+                        stmtPosts.bindLong  (22, SqlUtils.boolToSql(post.isFollowedByCurrentUser));
+                        stmtPosts.bindLong  (23, SqlUtils.boolToSql(post.isCommentsOpen));
+                        stmtPosts.bindLong  (24, SqlUtils.boolToSql(post.isRebloggedByCurrentUser));
+                        stmtPosts.bindLong  (25, SqlUtils.boolToSql(post.isExternal));
+                        stmtPosts.bindLong  (26, SqlUtils.boolToSql(post.isPrivate));
+                        stmtPosts.bindLong  (27, SqlUtils.boolToSql(post.isVideoPress));
+                        stmtPosts.bindLong  (28, SqlUtils.boolToSql(post.isJetpack));
+                        stmtPosts.bindString(29, post.getPrimaryTag());
+                        stmtPosts.bindString(30, post.getSecondaryTag());
+                        stmtPosts.bindLong  (31, SqlUtils.boolToSql(post.isLikesEnabled));
+                        stmtPosts.bindLong  (32, SqlUtils.boolToSql(post.isSharingEnabled));
+                        stmtPosts.bindString(33, post.getAttachmentsJson());
+                        stmtPosts.bindString(34, post.getContentHash());
+                        stmtPosts.execute();
+                    }
+
+                    // now add to tbl_post_tags if a tag was passed
+                    if (tag != null) {
+                        String tagName = tag.getTagName();
+                        int tagType = tag.tagType.toInt();
+                        for (ReaderPost post: taggedPosts) {
+                            stmtTags.bindLong  (1, post.postId);
+                            stmtTags.bindLong  (2, post.blogId);
+                            stmtTags.bindLong  (3, post.feedId);
+                            stmtTags.bindString(4, post.getPseudoId());
+                            stmtTags.bindString(5, tagName);
+                            stmtTags.bindLong  (6, tagType);
+                            stmtTags.execute();
+                        }
+                    }
+                } finally {
+                    ReaderStatementPool.release(SQL_INSERT_POST, stmtPosts);
+                    ReaderStatementPool.release(SQL_INSERT_POST_TAG, stmtTags);
                 }
             }
-
-            db.setTransactionSuccessful();
-
-        } finally {
-            db.endTransaction();
-            SqlUtils.closeStatement(stmtPosts);
-            SqlUtils.closeStatement(stmtTags);
-        }
+        });
     }
 
     public static ReaderPostList getPostsWithTag(ReaderTag tag, int maxPosts, boolean excludeTextColumn) {
@@ -587,23 +696,15 @@ public class ReaderPostTable {
                    + " AND tbl_post_tags.tag_name=?"
                    + " AND tbl_post_tags.tag_type=?";
 
-        if (tag.tagType == ReaderTagType.DEFAULT) {
-            // skip posts that are no longer liked if this is "Posts I Like", skip posts that are no
-            // longer followed if this is "Blogs I Follow"
-            if (tag.isPostsILike()) {
-                sql += " AND tbl_posts.is_liked != 0";
-            } else if (tag.isBlogsIFollow()) {
-                sql += " AND tbl_posts.is_followed != 0";
-            }
-        }
+        sql += getDefaultTagFilter(tag);
 
-        sql += " ORDER BY tbl_posts.timestamp DESC";
+        // the limit is bound rather than appended so the sql is the same for every call, which
+        // lets sqlite reuse the statement it compiled for it - a limit of -1 means no limit
+        sql += " ORDER BY tbl_posts.timestamp DESC LIMIT ?";
 
-        if (maxPosts > 0) {
-            sql += " LIMIT " + Integer.toString(maxPosts);
-        }
-
-        String[] args = {tag.getTagName(), Integer.toString(tag.tagType.toInt())};
+        String[] args = {tag.getTagName(),
+                         Integer.toString(tag.tagType.toInt()),
+                         Integer.toString(maxPosts > 0 ? maxPosts : -1)};
         Cursor cursor = ReaderDatabase.getReadableDb().rawQuery(sql, args);
         try {
             return getPostListFromCursor(cursor);
@@ -614,13 +715,10 @@ public class ReaderPostTable {
 
     public static ReaderPostList getPostsInBlog(long blogId, int maxPosts, boolean excludeTextColumn) {
         String columns = (excludeTextColumn ? COLUMN_NAMES_NO_TEXT : "tbl_posts.*");
-        String sql = "SELECT " + columns + " FROM tbl_posts WHERE blog_id = ? ORDER BY tbl_posts.timestamp DESC";
+        String sql = "SELECT " + columns + " FROM tbl_posts WHERE blog_id = ? ORDER BY tbl_posts.timestamp DESC LIMIT ?";
 
-        if (maxPosts > 0) {
-            sql += " LIMIT " + Integer.toString(maxPosts);
-        }
-
-        Cursor cursor = ReaderDatabase.getReadableDb().rawQuery(sql, new String[]{Long.toString(blogId)});
+        String[] args = {Long.toString(blogId), Integer.toString(maxPosts > 0 ? maxPosts : -1)};
+        Cursor cursor = ReaderDatabase.getReadableDb().rawQuery(sql, args);
         try {
             return getPostListFromCursor(cursor);
         } finally {
@@ -643,21 +741,15 @@ public class ReaderPostTable {
                 + " AND tbl_post_tags.tag_name=?"
                 + " AND tbl_post_tags.tag_type=?";
 
-        if (tag.tagType == ReaderTagType.DEFAULT) {
-            if (tag.isPostsILike()) {
-                sql += " AND tbl_posts.is_liked != 0";
-            } else if (tag.isBlogsIFollow()) {
-                sql += " AND tbl_posts.is_followed != 0";
-            }
-        }
+        sql += getDefaultTagFilter(tag);
 
-        sql += " ORDER BY tbl_posts.timestamp DESC";
+        // the limit is bound rather than appended so the sql is the same for every call, which
+        // lets sqlite reuse the statement it compiled for it - a limit of -1 means no limit
+        sql += " ORDER BY tbl_posts.timestamp DESC LIMIT ?";
 
-        if (maxPosts > 0) {
-            sql += " LIMIT " + Integer.toString(maxPosts);
-        }
-
-        String[] args = {tag.getTagName(), Integer.toString(tag.tagType.toInt())};
+        String[] args = {tag.getTagName(),
+                         Integer.toString(tag.tagType.toInt()),
+                         Integer.toString(maxPosts > 0 ? maxPosts : -1)};
         Cursor cursor = ReaderDatabase.getReadableDb().rawQuery(sql, args);
         try {
             if (cursor != null && cursor.moveToFirst()) {
@@ -696,82 +788,247 @@ public class ReaderPostTable {
         }
     }
 
-    public static void setPostReblogged(ReaderPost post, boolean isReblogged) {
-        if (post == null) {
-            return;
+    /*
+     * skip posts that are no longer liked if this is "Posts I Like", skip posts that are no
+     * longer followed if this is "Blogs I Follow"
+     */
+    private static String getDefaultTagFilter(ReaderTag tag) {
+        if (tag.tagType == ReaderTagType.DEFAULT) {
+            if (tag.isPostsILike()) {
+                return " AND tbl_posts.is_liked != 0";
+            } else if (tag.isBlogsIFollow()) {
+                return " AND tbl_posts.is_followed != 0";
+            }
+        }
+        return "";
+    }
+
+    /*
+     * returns the keys of the posts with the passed tag, in the order used by getPostsWithTagFrom()
+     */
+    public static ReaderPostKeyList getPostKeysWithTag(ReaderTag tag, int maxPosts) {
+        if (tag == null) {
+            return new ReaderPostKeyList();
+        }
+
+        String sql = "SELECT tbl_posts.blog_id, tbl_posts.post_id, tbl_posts.timestamp, tbl_posts.pseudo_id"
+                + " FROM tbl_posts, tbl_post_tags"
+                + " WHERE tbl_posts.post_id = tbl_post_tags.post_id"
+                + " AND tbl_posts.blog_id = tbl_post_tags.blog_id"
+                + " AND tbl_post_tags.tag_name=?"
+                + " AND tbl_post_tags.tag_type=?"
+                + getDefaultTagFilter(tag)
+                + " ORDER BY tbl_posts.timestamp DESC, tbl_posts.pseudo_id DESC";
+
+        if (maxPosts > 0) {
+            sql += " LIMIT " + Integer.toString(maxPosts);
+        }
+
+        String[] args = {tag.getTagName(), Integer.toString(tag.tagType.toInt())};
+        return getPostKeysForQuery(sql, args);
+    }
+
+    /*
+     * returns the keys of the posts in the passed blog, in the order used by getPostsInBlogFrom()
+     */
+    public static ReaderPostKeyList getPostKeysInBlog(long blogId, int maxPosts) {
+        String sql = "SELECT blog_id, post_id, timestamp, pseudo_id FROM tbl_posts WHERE blog_id = ?"
+                + " ORDER BY timestamp DESC, pseudo_id DESC";
+
+        if (maxPosts > 0) {
+            sql += " LIMIT " + Integer.toString(maxPosts);
+        }
+
+        return getPostKeysForQuery(sql, new String[]{Long.toString(blogId)});
+    }
+
+    private static ReaderPostKeyList getPostKeysForQuery(String sql, String[] args) {
+        ReaderPostKeyList keys = new ReaderPostKeyList();
+        Cursor cursor = ReaderDatabase.getReadableDb().rawQuery(sql, args);
+        try {
+            if (cursor != null && cursor.moveToFirst()) {
+                do {
+                    keys.add(new ReaderPostKey(cursor.getLong(0), cursor.getLong(1), cursor.getLong(2), cursor.getString(3)));
+                } while (cursor.moveToNext());
+            }
+            return keys;
+        } finally {
+            SqlUtils.closeCursor(cursor);
         }
+    }
 
-        String sql = "UPDATE tbl_posts SET is_reblogged=" + SqlUtils.boolToSql(isReblogged)
-                  + " WHERE blog_id=? AND post_id=?";
-        String[] args = {Long.toString(post.blogId), Long.toString(post.postId)};
-        ReaderDatabase.getWritableDb().execSQL(sql, args);
+    /*
+     * keyset paging - returns up to maxPosts posts with the passed tag, starting with the post with
+     * the passed key (newest first)
+     */
+    public static ReaderPostList getPostsWithTagFrom(ReaderTag tag,
+                                                     ReaderPostKey fromKey,
+                                                     int maxPosts,
+                                                     boolean excludeTextColumn) {
+        if (tag == null || fromKey == null) {
+            return new ReaderPostList();
+        }
+
+        String columns = (excludeTextColumn ? COLUMN_NAMES_NO_TEXT : "tbl_posts.*");
+        String sql = "SELECT " + columns + " FROM tbl_posts, tbl_post_tags"
+                + " WHERE tbl_posts.post_id = tbl_post_tags.post_id"
+                + " AND tbl_posts.blog_id = tbl_post_tags.blog_id"
+                + " AND tbl_post_tags.tag_name=?1"
+                + " AND tbl_post_tags.tag_type=?2"
+                + getDefaultTagFilter(tag)
+                + " AND (tbl_posts.timestamp < ?3 OR (tbl_posts.timestamp = ?3 AND tbl_posts.pseudo_id <= ?4))"
+                + " ORDER BY tbl_posts.timestamp DESC, tbl_posts.pseudo_id DESC"
+                + " LIMIT " + Integer.toString(maxPosts);
+
+        String[] args = {tag.getTagName(), Integer.toString(tag.tagType.toInt()),
+                Long.toString(fromKey.getTimestamp()), fromKey.getPseudoId()};
+        Cursor cursor = ReaderDatabase.getReadableDb().rawQuery(sql, args);
+        try {
+            return getPostListFromCursor(cursor);
+        } finally {
+            SqlUtils.closeCursor(cursor);
+        }
     }
 
-    private static ReaderPost getPostFromCursor(Cursor c) {
-        if (c == null) {
-            throw new IllegalArgumentException("getPostFromCursor > null cursor");
+    /*
+     * keyset paging - returns up to maxPosts posts in the passed blog, starting with the post with
+     * the passed key (newest first)
+     */
+    public static ReaderPostList getPostsInBlogFrom(long blogId,
+                                                    ReaderPostKey fromKey,
+                                                    int maxPosts,
+                                                    boolean excludeTextColumn) {
+        if (fromKey == null) {
+            return new ReaderPostList();
         }
 
-        ReaderPost post = new ReaderPost();
+        String columns = (excludeTextColumn ? COLUMN_NAMES_NO_TEXT : "tbl_posts.*");
+        String sql = "SELECT " + columns + " FROM tbl_posts WHERE blog_id = ?1"
+                + " AND (timestamp < ?2 OR (timestamp = ?2 AND pseudo_id <= ?3))"
+                + " ORDER BY timestamp DESC, pseudo_id DESC"
+                + " LIMIT " + Integer.toString(maxPosts);
 
-        // text column is skipped when retrieving multiple rows
-        int idxText = c.getColumnIndex("text");
-        if (idxText > -1) {
-            post.setText(c.getString(idxText));
+        String[] args = {Long.toString(blogId), Long.toString(fromKey.getTimestamp()), fromKey.getPseudoId()};
+        Cursor cursor = ReaderDatabase.getReadableDb().rawQuery(sql, args);
+        try {
+            return getPostListFromCursor(cursor);
+        } finally {
+            SqlUtils.closeCursor(cursor);
         }
+    }
 
-        post.postId = c.getLong(c.getColumnIndex("post_id"));
-        post.blogId = c.getLong(c.getColumnIndex("blog_id"));
-        post.feedId = c.getLong(c.getColumnIndex("feed_id"));
-        post.authorId = c.getLong(c.getColumnIndex("author_id"));
-        post.setPseudoId(c.getString(c.getColumnIndex("pseudo_id")));
+    public static void setPostReblogged(ReaderPost post, boolean isReblogged) {
+        if (post == null) {
+            return;
+        }
 
-        post.setAuthorName(c.getString(c.getColumnIndex("author_name")));
-        post.setBlogName(c.getString(c.getColumnIndex("blog_name")));
-        post.setBlogUrl(c.getString(c.getColumnIndex("blog_url")));
-        post.setExcerpt(c.getString(c.getColumnIndex("excerpt")));
-        post.setFeaturedImage(c.getString(c.getColumnIndex("featured_image")));
-        post.setFeaturedVideo(c.getString(c.getColumnIndex("featured_video")));
+        final String sql = "UPDATE tbl_posts SET is_reblogged=" + SqlUtils.boolToSql(isReblogged)
+                  + ", content_hash='' WHERE blog_id=? AND post_id=?";
+        final String[] args = {Long.toString(post.blogId), Long.toString(post.postId)};
+        ReaderDatabaseWriter.write(new ReaderDatabaseWriter.Mutation() {
+            @Override
+            public void apply(SQLiteDatabase db) {
+                db.execSQL(sql, args);
+            }
+        });
+    }
+
+    static final ReaderRowMapper<ReaderPost> POST_MAPPER = new PostMapper();
+
+    private static class PostMapper extends ReaderRowMapper<ReaderPost> {
+        private final int mText = addColumn("text");
+        private final int mPostId = addColumn("post_id");
+        private final int mBlogId = addColumn("blog_id");
+        private final int mFeedId = addColumn("feed_id");
+        private final int mAuthorId = addColumn("author_id");
+        private final int mPseudoId = addColumn("pseudo_id");
+        private final int mAuthorName = addColumn("author_name");
+        private final int mBlogName = addColumn("blog_name");
+        private final int mBlogUrl = addColumn("blog_url");
+        private final int mExcerpt = addColumn("excerpt");
+        private final int mFeaturedImage = addColumn("featured_image");
+        private final int mFeaturedVideo = addColumn("featured_video");
+        private final int mTitle = addColumn("title");
+        private final int mUrl = addColumn("url");
+        private final int mShortUrl = addColumn("short_url");
+        private final int mPostAvatar = addColumn("post_avatar");
+        private final int mTimestamp = addColumn("timestamp");
+        private final int mPublished = addColumn("published");
+        private final int mNumReplies = addColumn("num_replies");
+        private final int mNumLikes = addColumn("num_likes");
+        private final int mIsLiked = addColumn("is_liked");
+        private final int mIsFollowed = addColumn("is_followed");
+        private final int mIsCommentsOpen = addColumn("is_comments_open");
+        private final int mIsReblogged = addColumn("is_reblogged");
+        private final int mIsExternal = addColumn("is_external");
+        private final int mIsPrivate = addColumn("is_private");
+        private final int mIsVideoPress = addColumn("is_videopress");
+        private final int mIsJetpack = addColumn("is_jetpack");
+        private final int mPrimaryTag = addColumn("primary_tag");
+        private final int mSecondaryTag = addColumn("secondary_tag");
+        private final int mIsLikesEnabled = addColumn("is_likes_enabled");
+        private final int mIsSharingEnabled = addColumn("is_sharing_enabled");
+        private final int mAttachmentsJson = addColumn("attachments_json");
+
+        @Override
+        protected ReaderPost mapRow(Cursor c, int[] index) {
+            ReaderPost post = new ReaderPost();
+
+            // text column is skipped when retrieving multiple rows, so it's only inflated
+            // when a single post is retrieved with its text
+            if (index[mText] > -1) {
+                post.setText(ReaderPostTextCodec.decompress(c.getBlob(index[mText])));
+            }
+
+            post.postId = c.getLong(index[mPostId]);
+            post.blogId = c.getLong(index[mBlogId]);
+            post.feedId = c.getLong(index[mFeedId]);
+            post.authorId = c.getLong(index[mAuthorId]);
+            post.setPseudoId(c.getString(index[mPseudoId]));
+
+            post.setAuthorName(c.getString(index[mAuthorName]));
+            post.setBlogName(c.getString(index[mBlogName]));
+            post.setBlogUrl(c.getString(index[mBlogUrl]));
+            post.setExcerpt(c.getString(index[mExcerpt]));
+            post.setFeaturedImage(c.getString(index[mFeaturedImage]));
+            post.setFeaturedVideo(c.getString(index[mFeaturedVideo]));
 
-        post.setTitle(c.getString(c.getColumnIndex("title")));
-        post.setUrl(c.getString(c.getColumnIndex("url")));
-        post.setShortUrl(c.getString(c.getColumnIndex("short_url")));
-        post.setPostAvatar(c.getString(c.getColumnIndex("post_avatar")));
+            post.setTitle(c.getString(index[mTitle]));
+            post.setUrl(c.getString(index[mUrl]));
+            post.setShortUrl(c.getString(index[mShortUrl]));
+            post.setPostAvatar(c.getString(index[mPostAvatar]));
 
-        post.timestamp = c.getLong(c.getColumnIndex("timestamp"));
-        post.setPublished(c.getString(c.getColumnIndex("published")));
+            post.timestamp = c.getLong(index[mTimestamp]);
+            post.setPublished(c.getString(index[mPublished]));
 
-        post.numReplies = c.getInt(c.getColumnIndex("num_replies"));
-        post.numLikes = c.getInt(c.getColumnIndex("num_likes"));
+            post.numReplies = c.getInt(index[mNumReplies]);
+            post.numLikes = c.getInt(index[mNumLikes]);
 
-        post.isLikedByCurrentUser = SqlUtils.sqlToBool(c.getInt(c.getColumnIndex("is_liked")));
-        post.isFollowedByCurrentUser = SqlUtils.sqlToBool(c.getInt( c.getColumnIndex("is_followed")));
-        post.isCommentsOpen = SqlUtils.sqlToBool(c.getInt(c.getColumnIndex("is_comments_open")));
-        post.isRebloggedByCurrentUser = SqlUtils.sqlToBool(c.getInt(c.getColumnIndex("is_reblogged")));
-        post.isExternal = SqlUtils.sqlToBool(c.getInt(c.getColumnIndex("is_external")));
-        post.isPrivate = SqlUtils.sqlToBool(c.getInt(c.getColumnIndex("is_private")));
-        post.isVideoPress = SqlUtils.sqlToBool(c.getInt(c.getColumnIndex("is_videopress")));
-        post.isJetpack = SqlUtils.sqlToBool(c.getInt(c.getColumnIndex("is_jetpack")));
+            post.isLikedByCurrentUser = SqlUtils.sqlToBool(c.getInt(index[mIsLiked]));
+            post.isFollowedByCurrentUser = SqlUtils.sqlToBool(c.getInt(index[mIsFollowed]));
+            post.isCommentsOpen = SqlUtils.sqlToBool(c.getInt(index[mIsCommentsOpen]));
+            post.isRebloggedByCurrentUser = SqlUtils.sqlToBool(c.getInt(index[mIsReblogged]));
+            post.isExternal = SqlUtils.sqlToBool(c.getInt(index[mIsExternal]));
+            post.isPrivate = SqlUtils.sqlToBool(c.getInt(index[mIsPrivate]));
+            post.isVideoPress = SqlUtils.sqlToBool(c.getInt(index[mIsVideoPress]));
+            post.isJetpack = SqlUtils.sqlToBool(c.getInt(index[mIsJetpack]));
 
-        post.setPrimaryTag(c.getString(c.getColumnIndex("primary_tag")));
-        post.setSecondaryTag(c.getString(c.getColumnIndex("secondary_tag")));
+            post.setPrimaryTag(c.getString(index[mPrimaryTag]));
+            post.setSecondaryTag(c.getString(index[mSecondaryTag]));
 
-        post.isLikesEnabled = SqlUtils.sqlToBool(c.getInt(c.getColumnIndex("is_likes_enabled")));
-        post.isSharingEnabled = SqlUtils.sqlToBool(c.getInt(c.getColumnIndex("is_sharing_enabled")));
+            post.isLikesEnabled = SqlUtils.sqlToBool(c.getInt(index[mIsLikesEnabled]));
+            post.isSharingEnabled = SqlUtils.sqlToBool(c.getInt(index[mIsSharingEnabled]));
 
-        post.setAttachmentsJson(c.getString(c.getColumnIndex("attachments_json")));
+            post.setAttachmentsJson(c.getString(index[mAttachmentsJson]));
 
-        return post;
+            return post;
+        }
     }
 
     private static ReaderPostList getPostListFromCursor(Cursor cursor) {
         ReaderPostList posts = new ReaderPostList();
         try {
-            if (cursor != null && cursor.moveToFirst()) {
-                do {
-                    posts.add(getPostFromCursor(cursor));
-                } while (cursor.moveToNext());
-            }
+            POST_MAPPER.mapAll(cursor, posts);
         } catch (IllegalStateException e) {
             CrashlyticsUtils.logException(e, CrashlyticsUtils.ExceptionType.SPECIFIC);
             AppLog.e(AppLog.T.READER, e);
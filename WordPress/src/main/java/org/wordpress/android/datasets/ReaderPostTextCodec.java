@@ -0,0 +1,132 @@
+package org.wordpress.android.datasets;
+
+import org.wordpress.android.util.AppLog;
+
+import java.io.ByteArrayOutputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * compresses the text of reader posts before it's stored in tbl_posts.text - the text is
+ * deflated using a preset dictionary of strings that are common in WordPress post HTML, which
+ * lets short posts compress well since they don't have enough repetition of their own. The
+ * dictionary can't be changed without bumping ReaderDatabase.DB_VERSION since the stored
+ * text can only be inflated with the dictionary it was deflated with.
+ */
+class ReaderPostTextCodec {
+    // deflate finds matches closer to the end of the dictionary more cheaply, so the most
+    // common strings are at the end
+    private static final String DICTIONARY =
+            "<table><tbody><tr><td></td></tr></tbody></table><h1></h1><h2></h2><h3></h3><h4></h4>"
+            + "<ol><li></li></ol><ul><li></li></ul><code></code><pre></pre><cite></cite>"
+            + "<blockquote><p></p></blockquote><hr /><sup></sup><del></del><u></u>"
+            + "<iframe class=\"youtube-player\" type=\"text/html\" width=\"640\" height=\"390\" "
+            + "src=\"https://www.youtube.com/embed/?version=3&#038;rel=1&#038;fs=1&#038;autohide=2"
+            + "&#038;showsearch=0&#038;showinfo=1&#038;iv_load_policy=1&#038;wmode=transparent\" "
+            + "allowfullscreen=\"true\" style=\"border:0;\"></iframe>"
+            + "<div class=\"embed-vimeo\"><iframe src=\"https://player.vimeo.com/video/\" frameborder=\"0\" "
+            + "webkitallowfullscreen mozallowfullscreen allowfullscreen></iframe></div>"
+            + "<div id=\"jp-post-flair\" class=\"sharedaddy sd-like-enabled sd-sharing-enabled\">"
+            + "<div class=\"sharedaddy sd-sharing-enabled\"><div class=\"robots-nocontent sd-block "
+            + "sd-social sd-social-icon-text sd-sharing\"><h3 class=\"sd-title\">Share this:</h3>"
+            + "<div class=\"sd-content\"><ul><li class=\"share-twitter\"><li class=\"share-facebook\">"
+            + "<li class=\"share-end\"></li></ul></div></div></div></div>"
+            + "<div id=\"attachment_\" style=\"width: px\" class=\"wp-caption aligncenter\">"
+            + "<div class=\"wp-caption alignnone\"><p class=\"wp-caption-text\">"
+            + "<div class=\"tiled-gallery type-rectangular tiled-gallery-unresized\" data-original-width=\""
+            + "<div class=\"gallery-row\" style=\"width: px; height: px;\"><div class=\"gallery-group images-1\" "
+            + "<div class=\"tiled-gallery-item tiled-gallery-item-large\"><meta itemprop=\"width\" content=\""
+            + "<div id='gallery-1' class='gallery galleryid- gallery-columns-3 gallery-size-thumbnail'>"
+            + "<dl class='gallery-item'><dt class='gallery-icon landscape'>"
+            + "data-attachment-id=\"\" data-permalink=\"\" data-orig-file=\"\" data-orig-size=\"\" "
+            + "data-comments-opened=\"1\" data-image-meta=\"{&quot;aperture&quot;:&quot;0&quot;,"
+            + "&quot;credit&quot;:&quot;&quot;,&quot;camera&quot;:&quot;&quot;,&quot;caption&quot;:"
+            + "&quot;&quot;,&quot;created_timestamp&quot;:&quot;0&quot;,&quot;copyright&quot;:"
+            + "&quot;&quot;,&quot;focal_length&quot;:&quot;0&quot;,&quot;iso&quot;:&quot;0&quot;,"
+            + "&quot;shutter_speed&quot;:&quot;0&quot;,&quot;title&quot;:&quot;&quot;,"
+            + "&quot;orientation&quot;:&quot;0&quot;}\" data-image-title=\"\" data-image-description=\"\" "
+            + "data-medium-file=\"\" data-large-file=\"\" "
+            + "srcset=\"?w=300 300w, ?w=768 768w, ?w=1024 1024w\" sizes=\"(max-width: 1024px) 100vw, 1024px\" "
+            + "<span style=\"font-weight:400;\"></span><span style=\"color:#\"></span>"
+            + "<a href=\"https://twitter.com/\"></a><a href=\"https://en.wikipedia.org/wiki/\">"
+            + " target=\"_blank\" rel=\"noopener\"> title=\"\"> alt=\"\" "
+            + ".files.wordpress.com/20?w=640&#038;h=&#038;crop=1\" "
+            + "<a href=\"https://wordpress.com/\"><a href=\"http://\">&#8220;&#8221;&#8217;s &#8212; &#8230;"
+            + "&#8216;&#8211;&#160;&nbsp;&amp; the and of to in that is for with this you on was it "
+            + "<strong></strong><em></em><b></b><i></i><br />\n"
+            + "<img class=\"aligncenter size-full wp-image-\" "
+            + "<img class=\"alignnone size-large wp-image-\" "
+            + "<img class=\"aligncenter size-large wp-image-\" src=\"https://"
+            + ".wordpress.com/wp-content/uploads/20 width=\"\" height=\"\" /></a>"
+            + "</a></p>\n<p><a href=\"https://"
+            + "</p>\n<p>";
+
+    private static final byte[] DICTIONARY_BYTES = getUtf8Bytes(DICTIONARY);
+    private static final int BUFFER_SIZE = 8192;
+
+    private static byte[] getUtf8Bytes(String text) {
+        try {
+            return text.getBytes("UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            // UTF-8 is always supported
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static byte[] compress(String text) {
+        byte[] input = getUtf8Bytes(text != null ? text : "");
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        try {
+            deflater.setDictionary(DICTIONARY_BYTES);
+            deflater.setInput(input);
+            deflater.finish();
+            ByteArrayOutputStream output = new ByteArrayOutputStream(Math.max(64, input.length / 4));
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (!deflater.finished()) {
+                int count = deflater.deflate(buffer);
+                output.write(buffer, 0, count);
+            }
+            return output.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /*
+     * returns the text compressed by compress(), or an empty string if it can't be inflated
+     */
+    static String decompress(byte[] data) {
+        if (data == null || data.length == 0) {
+            return "";
+        }
+
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            ByteArrayOutputStream output = new ByteArrayOutputStream(data.length * 4);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (!inflater.finished()) {
+                int count = inflater.inflate(buffer);
+                output.write(buffer, 0, count);
+                if (count == 0 && !inflater.finished()) {
+                    if (inflater.needsDictionary()) {
+                        inflater.setDictionary(DICTIONARY_BYTES);
+                    } else {
+                        AppLog.w(AppLog.T.READER, "reader post text codec > truncated text");
+                        return "";
+                    }
+                }
+            }
+            return output.toString("UTF-8");
+        } catch (DataFormatException e) {
+            AppLog.e(AppLog.T.READER, "reader post text codec > unable to inflate text", e);
+            return "";
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
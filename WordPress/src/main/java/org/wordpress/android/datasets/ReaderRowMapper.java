@@ -0,0 +1,91 @@
+package org.wordpress.android.datasets;
+
+import android.database.Cursor;
+import android.text.TextUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * maps cursor rows to reader models without looking up every column by name on every row -
+ * subclasses declare the columns they read with addColumn(), and the index of each column is
+ * resolved once per cursor shape (the list of columns a query returns) and cached, so mapping
+ * a row is just a series of typed reads by index. Columns a query doesn't return resolve to -1,
+ * which mappers can check to skip optional columns (ex: tbl_posts.text)
+ */
+abstract class ReaderRowMapper<T> {
+    private final List<String> mColumnNames = new ArrayList<String>();
+    // a mapper only sees a handful of shapes (ex: tbl_posts.* and COLUMN_NAMES_NO_TEXT), so
+    // this never needs to be trimmed
+    private final ConcurrentHashMap<String, int[]> mIndexCache = new ConcurrentHashMap<String, int[]>();
+
+    /*
+     * declares a column read by mapRow() and returns its position in the array of indices
+     * passed to mapRow() - must only be called while the mapper is being constructed
+     */
+    protected int addColumn(String columnName) {
+        mColumnNames.add(columnName);
+        return mColumnNames.size() - 1;
+    }
+
+    /*
+     * returns the model for the current row of the passed cursor - index[column] is the cursor
+     * index of each column returned by addColumn(), or -1 if the query didn't return it
+     */
+    protected abstract T mapRow(Cursor c, int[] index);
+
+    /*
+     * returns the model for the first row of the passed cursor, or null if it's empty
+     */
+    T mapFirst(Cursor c) {
+        if (c == null || !c.moveToFirst()) {
+            return null;
+        }
+        return mapRow(c, getIndices(c));
+    }
+
+    /*
+     * adds the models for all rows of the passed cursor to the passed list and returns it
+     */
+    <L extends List<T>> L mapAll(Cursor c, L list) {
+        if (c != null && c.moveToFirst()) {
+            int[] index = getIndices(c);
+            do {
+                list.add(mapRow(c, index));
+            } while (c.moveToNext());
+        }
+        return list;
+    }
+
+    int[] getIndices(Cursor c) {
+        String[] cursorColumns = c.getColumnNames();
+        String shape = TextUtils.join(",", cursorColumns);
+        int[] index = mIndexCache.get(shape);
+        if (index == null) {
+            index = new int[mColumnNames.size()];
+            for (int i = 0; i < index.length; i++) {
+                index[i] = indexOf(cursorColumns, mColumnNames.get(i));
+            }
+            mIndexCache.put(shape, index);
+        }
+        return index;
+    }
+
+    /*
+     * same matching as Cursor.getColumnIndex() - case-insensitive, ignoring any table prefix
+     */
+    private static int indexOf(String[] cursorColumns, String columnName) {
+        for (int i = 0; i < cursorColumns.length; i++) {
+            String name = cursorColumns[i];
+            int period = name.lastIndexOf('.');
+            if (period > -1) {
+                name = name.substring(period + 1);
+            }
+            if (name.equalsIgnoreCase(columnName)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,65 @@
+package org.wordpress.android.datasets;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import org.wordpress.android.util.SqlUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * reuses the compiled statements the reader tables write with rather than compiling them again
+ * for every write - acquire() hands out an idle statement for the passed sql (compiling one if
+ * there isn't one) and release() clears its bindings and returns it to the pool, so a statement
+ * is only ever used by one thread at a time. Almost all writes happen on the db writer thread,
+ * so there's rarely more than one statement per sql.
+ */
+class ReaderStatementPool {
+    private static final int MAX_IDLE_PER_SQL = 2;
+
+    private static final Map<String, List<SQLiteStatement>> sIdleStatements =
+            new HashMap<String, List<SQLiteStatement>>();
+
+    static synchronized SQLiteStatement acquire(SQLiteDatabase db, String sql) {
+        List<SQLiteStatement> idle = sIdleStatements.get(sql);
+        if (idle != null && idle.size() > 0) {
+            return idle.remove(idle.size() - 1);
+        }
+        return db.compileStatement(sql);
+    }
+
+    static synchronized void release(String sql, SQLiteStatement stmt) {
+        if (stmt == null) {
+            return;
+        }
+
+        // don't hold on to the values bound to the statement, which may be large
+        stmt.clearBindings();
+
+        List<SQLiteStatement> idle = sIdleStatements.get(sql);
+        if (idle == null) {
+            idle = new ArrayList<SQLiteStatement>();
+            sIdleStatements.put(sql, idle);
+        }
+        if (idle.size() < MAX_IDLE_PER_SQL) {
+            idle.add(stmt);
+        } else {
+            SqlUtils.closeStatement(stmt);
+        }
+    }
+
+    /*
+     * closes all idle statements - called when the reader db is reset
+     */
+    static synchronized void clear() {
+        for (List<SQLiteStatement> idle : sIdleStatements.values()) {
+            for (SQLiteStatement stmt : idle) {
+                SqlUtils.closeStatement(stmt);
+            }
+        }
+        sIdleStatements.clear();
+    }
+}
@@ -0,0 +1,83 @@
+package org.wordpress.android.datasets;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.text.TextUtils;
+
+import org.wordpress.android.networking.ConditionalRestRequest;
+import org.wordpress.android.util.SqlUtils;
+
+/**
+ * stores the validators (ETag & Last-Modified) of the last response to each reader endpoint so
+ * the next request to it can be conditional - only the validators of the last url requested for
+ * an endpoint are kept, since they don't apply once the url changes (ex: when the number of
+ * posts requested changes)
+ */
+public class ReaderSyncStateTable {
+    protected static void createTables(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE tbl_sync_state ("
+                + " endpoint        TEXT PRIMARY KEY,"
+                + " url             TEXT NOT NULL,"
+                + " etag            TEXT,"
+                + " last_modified   TEXT)");
+    }
+
+    protected static void dropTables(SQLiteDatabase db) {
+        db.execSQL("DROP TABLE IF EXISTS tbl_sync_state");
+    }
+
+    /*
+     * returns the validators of the last response to the passed endpoint, or null if there are
+     * none or they were returned for a different url
+     */
+    public static ConditionalRestRequest.Validators getValidators(String endpoint, String url) {
+        if (TextUtils.isEmpty(endpoint) || TextUtils.isEmpty(url)) {
+            return null;
+        }
+
+        String[] args = {endpoint, url};
+        Cursor c = ReaderDatabase.getReadableDb().rawQuery(
+                "SELECT etag, last_modified FROM tbl_sync_state WHERE endpoint=? AND url=?", args);
+        try {
+            if (!c.moveToFirst()) {
+                return null;
+            }
+            return new ConditionalRestRequest.Validators(c.getString(0), c.getString(1));
+        } finally {
+            SqlUtils.closeCursor(c);
+        }
+    }
+
+    public static void setValidators(String endpoint, String url, ConditionalRestRequest.Validators validators) {
+        if (TextUtils.isEmpty(endpoint)) {
+            return;
+        }
+
+        if (TextUtils.isEmpty(url) || validators == null || validators.isEmpty()) {
+            clearValidators(endpoint);
+            return;
+        }
+
+        final ContentValues values = new ContentValues();
+        values.put("endpoint", endpoint);
+        values.put("url", url);
+        values.put("etag", validators.getETag());
+        values.put("last_modified", validators.getLastModified());
+        ReaderDatabaseWriter.write(new ReaderDatabaseWriter.Mutation() {
+            @Override
+            public void apply(SQLiteDatabase db) {
+                db.insertWithOnConflict("tbl_sync_state", null, values, SQLiteDatabase.CONFLICT_REPLACE);
+            }
+        });
+    }
+
+    public static void clearValidators(final String endpoint) {
+        ReaderDatabaseWriter.write(new ReaderDatabaseWriter.Mutation() {
+            @Override
+            public void apply(SQLiteDatabase db) {
+                db.delete("tbl_sync_state", "endpoint=?", new String[]{endpoint});
+            }
+        });
+    }
+}
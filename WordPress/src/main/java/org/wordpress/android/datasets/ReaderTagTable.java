@@ -55,24 +55,22 @@ public class ReaderTagTable {
     /*
      * replaces all tags with the passed list
      */
-    public static void replaceTags(ReaderTagList tags) {
+    public static void replaceTags(final ReaderTagList tags) {
         if (tags == null || tags.size() == 0) {
             return;
         }
 
-        SQLiteDatabase db = ReaderDatabase.getWritableDb();
-        db.beginTransaction();
         try {
-            try {
-                // first delete all existing tags, then insert the passed ones
-                db.execSQL("DELETE FROM tbl_tags");
-                addOrUpdateTags(tags);
-                db.setTransactionSuccessful();
-            } catch (SQLException e) {
-                AppLog.e(T.READER, e);
-            }
-        } finally {
-            db.endTransaction();
+            ReaderDatabaseWriter.write(new ReaderDatabaseWriter.Mutation() {
+                @Override
+                public void apply(SQLiteDatabase db) {
+                    // first delete all existing tags, then insert the passed ones
+                    db.execSQL("DELETE FROM tbl_tags");
+                    addOrUpdateTags(db, tags);
+                }
+            });
+        } catch (SQLException e) {
+            AppLog.e(T.READER, e);
         }
     }
 
@@ -80,18 +78,23 @@ public class ReaderTagTable {
         if (tag == null) {
             return;
         }
-        ReaderTagList tags = new ReaderTagList();
+        final ReaderTagList tags = new ReaderTagList();
         tags.add(tag);
-        addOrUpdateTags(tags);
+        ReaderDatabaseWriter.write(new ReaderDatabaseWriter.Mutation() {
+            @Override
+            public void apply(SQLiteDatabase db) {
+                addOrUpdateTags(db, tags);
+            }
+        });
     }
 
-    private static void addOrUpdateTags(ReaderTagList tagList) {
+    private static void addOrUpdateTags(SQLiteDatabase db, ReaderTagList tagList) {
         if (tagList == null || tagList.size() == 0) {
             return;
         }
         SQLiteStatement stmt = null;
         try {
-            stmt = ReaderDatabase.getWritableDb().compileStatement(
+            stmt = db.compileStatement(
                     "INSERT OR REPLACE INTO tbl_tags (tag_name, tag_type, endpoint) VALUES (?1,?2,?3)"
             );
 
@@ -224,8 +227,13 @@ public class ReaderTagTable {
         if (tag == null) {
             return;
         }
-        String[] args = {tag.getTagName(), Integer.toString(tag.tagType.toInt())};
-        ReaderDatabase.getWritableDb().delete("tbl_tags", "tag_name=? AND tag_type=?", args);
+        final String[] args = {tag.getTagName(), Integer.toString(tag.tagType.toInt())};
+        ReaderDatabaseWriter.write(new ReaderDatabaseWriter.Mutation() {
+            @Override
+            public void apply(SQLiteDatabase db) {
+                db.delete("tbl_tags", "tag_name=? AND tag_type=?", args);
+            }
+        });
     }
 
 
@@ -239,22 +247,27 @@ public class ReaderTagTable {
                 args);
     }
 
-    public static void setTagLastUpdated(ReaderTag tag) {
+    public static void setTagLastUpdated(final ReaderTag tag) {
        if (tag == null) {
             return;
         }
 
-        String date = DateTimeUtils.javaDateToIso8601(new Date());
-        String sql = "UPDATE tbl_tags SET date_updated=?1 WHERE tag_name=?2 AND tag_type=?3";
-        SQLiteStatement stmt = ReaderDatabase.getWritableDb().compileStatement(sql);
-        try {
-            stmt.bindString(1, date);
-            stmt.bindString(2, tag.getTagName());
-            stmt.bindLong  (3, tag.tagType.toInt());
-            stmt.execute();
-        } finally {
-            SqlUtils.closeStatement(stmt);
-        }
+        final String date = DateTimeUtils.javaDateToIso8601(new Date());
+        ReaderDatabaseWriter.write(new ReaderDatabaseWriter.Mutation() {
+            @Override
+            public void apply(SQLiteDatabase db) {
+                String sql = "UPDATE tbl_tags SET date_updated=?1 WHERE tag_name=?2 AND tag_type=?3";
+                SQLiteStatement stmt = db.compileStatement(sql);
+                try {
+                    stmt.bindString(1, date);
+                    stmt.bindString(2, tag.getTagName());
+                    stmt.bindLong  (3, tag.tagType.toInt());
+                    stmt.execute();
+                } finally {
+                    SqlUtils.closeStatement(stmt);
+                }
+            }
+        });
     }
 
     /*
@@ -311,36 +324,35 @@ public class ReaderTagTable {
         }
     }
 
-    public static void setRecommendedTags(ReaderTagList tagList) {
+    public static void setRecommendedTags(final ReaderTagList tagList) {
         if (tagList == null) {
             return;
         }
 
-        SQLiteDatabase db = ReaderDatabase.getWritableDb();
-        SQLiteStatement stmt = db.compileStatement
-                ("INSERT INTO tbl_tags_recommended (tag_name, tag_type, endpoint) VALUES (?1,?2,?3)");
-        db.beginTransaction();
         try {
-            try {
-                // first delete all recommended tags
-                db.execSQL("DELETE FROM tbl_tags_recommended");
-
-                // then insert the passed ones
-                for (ReaderTag tag: tagList) {
-                    stmt.bindString(1, tag.getTagName());
-                    stmt.bindLong  (2, tag.tagType.toInt());
-                    stmt.bindString(3, tag.getEndpoint());
-                    stmt.execute();
+            ReaderDatabaseWriter.write(new ReaderDatabaseWriter.Mutation() {
+                @Override
+                public void apply(SQLiteDatabase db) {
+                    SQLiteStatement stmt = db.compileStatement
+                            ("INSERT INTO tbl_tags_recommended (tag_name, tag_type, endpoint) VALUES (?1,?2,?3)");
+                    try {
+                        // first delete all recommended tags
+                        db.execSQL("DELETE FROM tbl_tags_recommended");
+
+                        // then insert the passed ones
+                        for (ReaderTag tag: tagList) {
+                            stmt.bindString(1, tag.getTagName());
+                            stmt.bindLong  (2, tag.tagType.toInt());
+                            stmt.bindString(3, tag.getEndpoint());
+                            stmt.execute();
+                        }
+                    } finally {
+                        SqlUtils.closeStatement(stmt);
+                    }
                 }
-
-                db.setTransactionSuccessful();
-
-            } catch (SQLException e) {
-                AppLog.e(T.READER, e);
-            }
-        } finally {
-            SqlUtils.closeStatement(stmt);
-            db.endTransaction();
+            });
+        } catch (SQLException e) {
+            AppLog.e(T.READER, e);
         }
     }
 }
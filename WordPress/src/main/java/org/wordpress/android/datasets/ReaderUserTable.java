@@ -50,31 +50,33 @@ public class ReaderUserTable {
         + " profile_url,"   // 6
         + " avatar_url";    // 7
 
-    public static void addOrUpdateUsers(ReaderUserList users) {
+    private static final String SQL_INSERT_USER =
+            "INSERT OR REPLACE INTO tbl_users (" + COLUMN_NAMES + ") VALUES (?1,?2,?3,?4,?5,?6,?7)";
+
+    public static void addOrUpdateUsers(final ReaderUserList users) {
         if (users==null || users.size()==0)
             return;
 
-        SQLiteDatabase db = ReaderDatabase.getWritableDb();
-        db.beginTransaction();
-        SQLiteStatement stmt = db.compileStatement("INSERT OR REPLACE INTO tbl_users (" + COLUMN_NAMES + ") VALUES (?1,?2,?3,?4,?5,?6,?7)");
-        try {
-            for (ReaderUser user: users) {
-                stmt.bindLong  (1, user.userId);
-                stmt.bindLong  (2, user.blogId);
-                stmt.bindString(3, user.getUserName());
-                stmt.bindString(4, user.getDisplayName());
-                stmt.bindString(5, user.getUrl());
-                stmt.bindString(6, user.getProfileUrl());
-                stmt.bindString(7, user.getAvatarUrl());
-                stmt.execute();
+        ReaderDatabaseWriter.write(new ReaderDatabaseWriter.Mutation() {
+            @Override
+            public void apply(SQLiteDatabase db) {
+                SQLiteStatement stmt = ReaderStatementPool.acquire(db, SQL_INSERT_USER);
+                try {
+                    for (ReaderUser user: users) {
+                        stmt.bindLong  (1, user.userId);
+                        stmt.bindLong  (2, user.blogId);
+                        stmt.bindString(3, user.getUserName());
+                        stmt.bindString(4, user.getDisplayName());
+                        stmt.bindString(5, user.getUrl());
+                        stmt.bindString(6, user.getProfileUrl());
+                        stmt.bindString(7, user.getAvatarUrl());
+                        stmt.execute();
+                    }
+                } finally {
+                    ReaderStatementPool.release(SQL_INSERT_USER, stmt);
+                }
             }
-
-            db.setTransactionSuccessful();
-
-        } finally {
-            db.endTransaction();
-            SqlUtils.closeStatement(stmt);
-        }
+        });
     }
 
     /*
@@ -137,9 +139,7 @@ public class ReaderUserTable {
         String args[] = {Long.toString(userId)};
         Cursor c = ReaderDatabase.getReadableDb().rawQuery("SELECT * FROM tbl_users WHERE user_id=?", args);
         try {
-            if (!c.moveToFirst())
-                return null;
-            return getUserFromCursor(c);
+            return USER_MAPPER.mapFirst(c);
         } finally {
             SqlUtils.closeCursor(c);
         }
@@ -159,13 +159,7 @@ public class ReaderUserTable {
 
         Cursor c = ReaderDatabase.getReadableDb().rawQuery(sql, args);
         try {
-            ReaderUserList users = new ReaderUserList();
-            if (c.moveToFirst()) {
-                do {
-                    users.add(getUserFromCursor(c));
-                } while (c.moveToNext());
-            }
-            return users;
+            return USER_MAPPER.mapAll(c, new ReaderUserList());
         } finally {
             SqlUtils.closeCursor(c);
         }
@@ -183,29 +177,36 @@ public class ReaderUserTable {
 
         Cursor c = ReaderDatabase.getReadableDb().rawQuery(sql, args);
         try {
-            ReaderUserList users = new ReaderUserList();
-            if (c.moveToFirst()) {
-                do {
-                    users.add(getUserFromCursor(c));
-                } while (c.moveToNext());
-            }
-            return users;
+            return USER_MAPPER.mapAll(c, new ReaderUserList());
         } finally {
             SqlUtils.closeCursor(c);
         }
     }
 
-    private static ReaderUser getUserFromCursor(Cursor c) {
-        ReaderUser user = new ReaderUser();
-
-        user.userId = c.getLong(c.getColumnIndex("user_id"));
-        user.blogId = c.getLong(c.getColumnIndex("blog_id"));
-        user.setUserName(c.getString(c.getColumnIndex("user_name")));
-        user.setDisplayName(c.getString(c.getColumnIndex("display_name")));
-        user.setUrl(c.getString(c.getColumnIndex("url")));
-        user.setProfileUrl(c.getString(c.getColumnIndex("profile_url")));
-        user.setAvatarUrl(c.getString(c.getColumnIndex("avatar_url")));
-
-        return user;
+    static final ReaderRowMapper<ReaderUser> USER_MAPPER = new UserMapper();
+
+    private static class UserMapper extends ReaderRowMapper<ReaderUser> {
+        private final int mUserId = addColumn("user_id");
+        private final int mBlogId = addColumn("blog_id");
+        private final int mUserName = addColumn("user_name");
+        private final int mDisplayName = addColumn("display_name");
+        private final int mUrl = addColumn("url");
+        private final int mProfileUrl = addColumn("profile_url");
+        private final int mAvatarUrl = addColumn("avatar_url");
+
+        @Override
+        protected ReaderUser mapRow(Cursor c, int[] index) {
+            ReaderUser user = new ReaderUser();
+
+            user.userId = c.getLong(index[mUserId]);
+            user.blogId = c.getLong(index[mBlogId]);
+            user.setUserName(c.getString(index[mUserName]));
+            user.setDisplayName(c.getString(index[mDisplayName]));
+            user.setUrl(c.getString(index[mUrl]));
+            user.setProfileUrl(c.getString(index[mProfileUrl]));
+            user.setAvatarUrl(c.getString(index[mAvatarUrl]));
+
+            return user;
+        }
     }
 }
@@ -486,6 +486,48 @@ public class ReaderPost {
                 && post.isRebloggedByCurrentUser == this.isRebloggedByCurrentUser;
     }
 
+    /*
+     * returns a hash of all the columns stored in tbl_posts, used to detect whether a post returned
+     * by the server differs from the stored one without reading the stored post
+     */
+    public String getContentHash() {
+        StringBuilder sb = new StringBuilder()
+                .append(postId).append('\n')
+                .append(blogId).append('\n')
+                .append(feedId).append('\n')
+                .append(getPseudoId()).append('\n')
+                .append(getAuthorName()).append('\n')
+                .append(authorId).append('\n')
+                .append(getTitle()).append('\n')
+                .append(getText()).append('\n')
+                .append(getExcerpt()).append('\n')
+                .append(getUrl()).append('\n')
+                .append(getShortUrl()).append('\n')
+                .append(getBlogUrl()).append('\n')
+                .append(getBlogName()).append('\n')
+                .append(getFeaturedImage()).append('\n')
+                .append(getFeaturedVideo()).append('\n')
+                .append(getPostAvatar()).append('\n')
+                .append(timestamp).append('\n')
+                .append(getPublished()).append('\n')
+                .append(numReplies).append('\n')
+                .append(numLikes).append('\n')
+                .append(isLikedByCurrentUser).append('\n')
+                .append(isFollowedByCurrentUser).append('\n')
+                .append(isCommentsOpen).append('\n')
+                .append(isRebloggedByCurrentUser).append('\n')
+                .append(isExternal).append('\n')
+                .append(isPrivate).append('\n')
+                .append(isVideoPress).append('\n')
+                .append(isJetpack).append('\n')
+                .append(getPrimaryTag()).append('\n')
+                .append(getSecondaryTag()).append('\n')
+                .append(isLikesEnabled).append('\n')
+                .append(isSharingEnabled).append('\n')
+                .append(getAttachmentsJson());
+        return StringUtils.getMd5Hash(sb.toString());
+    }
+
     /****
      * the following are transient variables - not stored in the db or returned in the json - whose
      * sole purpose is to cache commonly-used values for the post that speeds up using them inside
@@ -0,0 +1,35 @@
+package org.wordpress.android.networking;
+
+import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.AppLog.T;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Logs the bytes saved by gzip compressed responses by endpoint (host and path, with numeric ids
+ * collapsed), to check how much we save on metered connections. Both XML-RPC and REST responses are
+ * recorded here.
+ */
+public class CompressionStats {
+    private static final Pattern NUMERIC_ID_PATTERN = Pattern.compile("\\d+");
+    private static final Map<String, Long> sBytesSaved = new HashMap<String, Long>();
+
+    /**
+     * Returns the key used for the url host and path: numeric ids are replaced, so that
+     * "sites/123/posts" and "sites/456/posts" are the same endpoint
+     */
+    public static String getEndpoint(String host, String path) {
+        String endpoint = (host != null ? host : "") + (path != null ? path : "");
+        return NUMERIC_ID_PATTERN.matcher(endpoint).replaceAll("#");
+    }
+
+    public static synchronized void record(String endpoint, long compressedBytes, long uncompressedBytes) {
+        Long bytesSaved = sBytesSaved.get(endpoint);
+        long totalBytesSaved = (bytesSaved != null ? bytesSaved : 0) + uncompressedBytes - compressedBytes;
+        sBytesSaved.put(endpoint, totalBytesSaved);
+        AppLog.v(T.API, "gzip " + endpoint + ": " + compressedBytes + " bytes instead of " + uncompressedBytes
+                + ", " + totalBytesSaved + " bytes saved in total");
+    }
+}
@@ -0,0 +1,146 @@
+package org.wordpress.android.networking;
+
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Decompresses a gzip encoded response body and records the compressed and decompressed sizes in
+ * CompressionStats when closed.
+ *
+ * The gzip header is only read on the first read, so an empty body (HEAD requests, 204 and 304
+ * responses with a Content-Encoding header) reads as empty instead of failing.
+ */
+public class GzipResponseInputStream extends InputStream {
+    private final CountingInputStream mCompressedStream;
+    private final String mEndpoint;
+    private InputStream mGzipStream;
+    private long mUncompressedBytes;
+    private boolean mIsEmpty;
+    private boolean mIsClosed;
+
+    public GzipResponseInputStream(InputStream compressedStream, String endpoint) {
+        mCompressedStream = new CountingInputStream(compressedStream);
+        mEndpoint = endpoint;
+    }
+
+    public static boolean isGzipEncoding(String contentEncoding) {
+        return contentEncoding != null && contentEncoding.trim().equalsIgnoreCase("gzip");
+    }
+
+    /**
+     * Number of gzip encoded bytes read so far
+     */
+    public long getCompressedBytes() {
+        return mCompressedStream.getCount();
+    }
+
+    /**
+     * Number of decompressed bytes returned so far
+     */
+    public long getUncompressedBytes() {
+        return mUncompressedBytes;
+    }
+
+    private boolean openGzipStream() throws IOException {
+        if (mGzipStream == null && !mIsEmpty) {
+            try {
+                mGzipStream = new GZIPInputStream(mCompressedStream);
+            } catch (EOFException e) {
+                if (mCompressedStream.getCount() > 0) {
+                    throw e;
+                }
+                mIsEmpty = true;
+            }
+        }
+        return mGzipStream != null;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!openGzipStream()) {
+            return -1;
+        }
+        int b = mGzipStream.read();
+        if (b != -1) {
+            mUncompressedBytes++;
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] buffer, int byteOffset, int byteCount) throws IOException {
+        if (!openGzipStream()) {
+            return -1;
+        }
+        int bytesRead = mGzipStream.read(buffer, byteOffset, byteCount);
+        if (bytesRead > 0) {
+            mUncompressedBytes += bytesRead;
+        }
+        return bytesRead;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return mGzipStream != null ? mGzipStream.available() : 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!mIsClosed) {
+            mIsClosed = true;
+            if (mUncompressedBytes > 0) {
+                CompressionStats.record(mEndpoint, getCompressedBytes(), mUncompressedBytes);
+            }
+        }
+        if (mGzipStream != null) {
+            mGzipStream.close();
+        } else {
+            mCompressedStream.close();
+        }
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+        private long mCount;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        long getCount() {
+            return mCount;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                mCount++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int byteOffset, int byteCount) throws IOException {
+            int bytesRead = super.read(buffer, byteOffset, byteCount);
+            if (bytesRead > 0) {
+                mCount += bytesRead;
+            }
+            return bytesRead;
+        }
+
+        @Override
+        public long skip(long byteCount) throws IOException {
+            long skipped = super.skip(byteCount);
+            mCount += skipped;
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
+}
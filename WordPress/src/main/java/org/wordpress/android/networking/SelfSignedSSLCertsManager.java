@@ -13,6 +13,7 @@ import org.wordpress.android.WordPress;
 import org.wordpress.android.util.AppLog;
 import org.wordpress.android.util.AppLog.T;
 import org.wordpress.android.util.GenericCallback;
+import org.xmlrpc.android.XMLRPCConnectionManager;
 
 import java.io.ByteArrayInputStream;
 import java.io.File;
@@ -107,8 +108,9 @@ public class SelfSignedSSLCertsManager {
             mLocalKeyStore.setCertificateEntry(alias, cert);
         }
         saveTrustStore();
-        // reset the Volley queue Otherwise new certs are not used
+        // reset the Volley queue and the XML-RPC connections Otherwise new certs are not used
         WordPress.setupVolleyQueue();
+        XMLRPCConnectionManager.resetUserTrustedConnections();
     }
 
     public void addCertificate(X509Certificate cert) throws IOException, GeneralSecurityException {
@@ -119,6 +121,7 @@ public class SelfSignedSSLCertsManager {
         String alias = hashName(cert.getSubjectX500Principal());
         mLocalKeyStore.setCertificateEntry(alias, cert);
         saveTrustStore();
+        XMLRPCConnectionManager.resetUserTrustedConnections();
     }
 
     public KeyStore getLocalKeyStore() {
@@ -51,6 +51,9 @@ import javax.net.ssl.TrustManager;
  */
 public class WPDelayedHurlStack implements HttpStack {
     private static final String HEADER_CONTENT_TYPE = "Content-Type";
+    private static final String HEADER_ACCEPT_ENCODING = "Accept-Encoding";
+    private static final String HEADER_CONTENT_ENCODING = "Content-Encoding";
+    private static final String HEADER_CONTENT_LENGTH = "Content-Length";
 
     private SSLSocketFactory mSslSocketFactory;
     private final Blog mCurrentBlog;
@@ -110,6 +113,11 @@ public class WPDelayedHurlStack implements HttpStack {
         HashMap<String, String> map = new HashMap<String, String>();
         map.putAll(request.getHeaders());
         map.putAll(additionalHeaders);
+        // Asking for gzip explicitly turns off the transparent decompression of HttpURLConnection,
+        // responses are decompressed in entityFromConnection() where we can count the bytes saved
+        if (!map.containsKey(HEADER_ACCEPT_ENCODING)) {
+            map.put(HEADER_ACCEPT_ENCODING, "gzip");
+        }
 
         URL parsedUrl = new URL(url);
         HttpURLConnection connection = openConnection(parsedUrl, request);
@@ -128,9 +136,18 @@ public class WPDelayedHurlStack implements HttpStack {
         StatusLine responseStatus = new BasicStatusLine(protocolVersion,
                 connection.getResponseCode(), connection.getResponseMessage());
         BasicHttpResponse response = new BasicHttpResponse(responseStatus);
-        response.setEntity(entityFromConnection(connection));
+        HttpEntity entity = entityFromConnection(connection);
+        response.setEntity(entity);
+        // the content encoding is only dropped from the entity when the content is decompressed
+        boolean isDecompressed = GzipResponseInputStream.isGzipEncoding(connection.getContentEncoding())
+                && entity.getContentEncoding() == null;
         for (Entry<String, List<String>> header : connection.getHeaderFields().entrySet()) {
             if (header.getKey() != null) {
+                if (isDecompressed && (header.getKey().equalsIgnoreCase(HEADER_CONTENT_ENCODING)
+                        || header.getKey().equalsIgnoreCase(HEADER_CONTENT_LENGTH))) {
+                    // these describe the compressed body
+                    continue;
+                }
                 Header h = new BasicHeader(header.getKey(), header.getValue().get(0));
                 response.addHeader(h);
             }
@@ -139,11 +156,12 @@ public class WPDelayedHurlStack implements HttpStack {
     }
 
     /**
-     * Initializes an {@link HttpEntity} from the given {@link HttpURLConnection}.
+     * Initializes an {@link HttpEntity} from the given {@link HttpURLConnection}, gzip encoded
+     * content is decompressed.
      * @param connection
      * @return an HttpEntity populated with data from <code>connection</code>.
      */
-    private static HttpEntity entityFromConnection(HttpURLConnection connection) {
+    static HttpEntity entityFromConnection(HttpURLConnection connection) {
         BasicHttpEntity entity = new BasicHttpEntity();
         InputStream inputStream;
         try {
@@ -151,9 +169,16 @@ public class WPDelayedHurlStack implements HttpStack {
         } catch (IOException ioe) {
             inputStream = connection.getErrorStream();
         }
-        entity.setContent(inputStream);
-        entity.setContentLength(connection.getContentLength());
-        entity.setContentEncoding(connection.getContentEncoding());
+        if (inputStream != null && GzipResponseInputStream.isGzipEncoding(connection.getContentEncoding())) {
+            URL url = connection.getURL();
+            entity.setContent(new GzipResponseInputStream(inputStream,
+                    CompressionStats.getEndpoint(url.getHost(), url.getPath())));
+            entity.setContentLength(-1);
+        } else {
+            entity.setContent(inputStream);
+            entity.setContentLength(connection.getContentLength());
+            entity.setContentEncoding(connection.getContentEncoding());
+        }
         entity.setContentType(connection.getContentType());
         return entity;
     }
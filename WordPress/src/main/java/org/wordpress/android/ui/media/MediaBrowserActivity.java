@@ -278,7 +278,7 @@ public class MediaBrowserActivity extends WPDrawerActivity implements MediaGridL
 
             if (!mMediaGridFragment.hasRetrievedAllMediaFromServer()) {
                 mMediaGridFragment.setRefreshing(true);
-                mMediaGridFragment.refreshMediaFromServer(0, false);
+                mMediaGridFragment.refreshMediaFromServer(0, true);
             }
         }
 
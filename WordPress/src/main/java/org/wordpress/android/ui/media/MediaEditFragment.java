@@ -28,6 +28,7 @@ import org.wordpress.android.WordPress;
 import org.wordpress.android.WordPressDB;
 import org.wordpress.android.models.Blog;
 import org.wordpress.android.util.ActivityUtils;
+import org.wordpress.android.util.BitmapCache;
 import org.wordpress.android.util.ImageUtils.BitmapWorkerCallback;
 import org.wordpress.android.util.ImageUtils.BitmapWorkerTask;
 import org.xmlrpc.android.ApiHelper;
@@ -360,11 +361,11 @@ public class MediaEditFragment extends Fragment {
         return super.onOptionsItemSelected(item);
     }
 
-    private synchronized void loadLocalImage(ImageView imageView, String filePath, int width, int height) {
+    private synchronized void loadLocalImage(ImageView imageView, String filePath, final int width, final int height) {
         if (MediaUtils.isValidImage(filePath)) {
             imageView.setTag(filePath);
 
-            Bitmap bitmap = WordPress.getBitmapCache().get(filePath);
+            Bitmap bitmap = WordPress.getBitmapCache().get(BitmapCache.getCacheKey(filePath, width, height));
             if (bitmap != null) {
                 imageView.setImageBitmap(bitmap);
             } else {
@@ -374,7 +375,7 @@ public class MediaEditFragment extends Fragment {
                         if (imageView != null) {
                             imageView.setImageBitmap(bitmap);
                         }
-                        WordPress.getBitmapCache().put(path, bitmap);
+                        WordPress.getBitmapCache().put(BitmapCache.getCacheKey(path, width, height), bitmap);
                     }
                 });
                 task.execute(filePath);
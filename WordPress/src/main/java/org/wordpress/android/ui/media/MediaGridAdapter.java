@@ -5,9 +5,7 @@ import android.content.Context;
 import android.database.Cursor;
 import android.database.MatrixCursor;
 import android.database.MergeCursor;
-import android.graphics.Bitmap;
 import android.net.Uri;
-import android.os.Handler;
 import android.text.TextUtils;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -29,15 +27,10 @@ import org.wordpress.android.WordPress;
 import org.wordpress.android.WordPressDB;
 import org.wordpress.android.ui.CheckableFrameLayout;
 import org.wordpress.android.util.DisplayUtils;
-import org.wordpress.android.util.ImageUtils.BitmapWorkerCallback;
-import org.wordpress.android.util.ImageUtils.BitmapWorkerTask;
 import org.wordpress.android.util.PhotonUtils;
 import org.wordpress.android.util.StringUtils;
 
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
 
 /**
  * An adapter for the media gallery listViews.
@@ -48,9 +41,7 @@ public class MediaGridAdapter extends CursorAdapter {
     private boolean mIsRefreshing;
     private int mCursorDataCount;
     private int mGridItemWidth;
-    private final Map<String, List<BitmapReadyCallback>> mFilePathToCallbackMap;
-    private final Handler mHandler;
-    private final int mLocalImageWidth;
+    private final MediaThumbnailLoader mThumbnailLoader;
     private final LayoutInflater mInflater;
     private boolean mIsCurrentBlogPhotonCapable;
     private ImageLoader mImageLoader;
@@ -64,10 +55,6 @@ public class MediaGridAdapter extends CursorAdapter {
         public boolean isInMultiSelect();
     }
 
-    interface BitmapReadyCallback {
-        void onBitmapReady(Bitmap bitmap);
-    }
-
     private static enum ViewTypes {
         LOCAL, NETWORK, PROGRESS, SPACER
     }
@@ -76,10 +63,9 @@ public class MediaGridAdapter extends CursorAdapter {
         super(context, c, flags);
         mContext = context;
         mSelectedItems = new ArrayList<String>();
-        mLocalImageWidth = context.getResources().getDimensionPixelSize(R.dimen.media_grid_local_image_width);
+        mThumbnailLoader = new MediaThumbnailLoader(
+                context.getResources().getDimensionPixelSize(R.dimen.media_grid_local_image_width));
         mInflater = LayoutInflater.from(context);
-        mFilePathToCallbackMap = new HashMap<String, List<BitmapReadyCallback>>();
-        mHandler = new Handler();
         setImageLoader(imageLoader);
         checkPhotonCapable();
     }
@@ -304,67 +290,24 @@ public class MediaGridAdapter extends CursorAdapter {
 
     }
 
-    private synchronized void loadLocalImage(Cursor cursor, final ImageView imageView) {
-        final String filePath = cursor.getString(cursor.getColumnIndex(WordPressDB.COLUMN_NAME_FILE_PATH));
+    private void loadLocalImage(Cursor cursor, ImageView imageView) {
+        String filePath = cursor.getString(cursor.getColumnIndex(WordPressDB.COLUMN_NAME_FILE_PATH));
 
         if (MediaUtils.isValidImage(filePath)) {
-            imageView.setTag(filePath);
-
-            Bitmap bitmap = WordPress.getBitmapCache().get(filePath);
-            if (bitmap != null) {
-                imageView.setImageBitmap(bitmap);
-            } else {
-                imageView.setImageBitmap(null);
-
-                boolean shouldFetch = false;
-
-                List<BitmapReadyCallback> list;
-                if (mFilePathToCallbackMap.containsKey(filePath)) {
-                    list = mFilePathToCallbackMap.get(filePath);
-                } else {
-                    list = new ArrayList<MediaGridAdapter.BitmapReadyCallback>();
-                    shouldFetch = true;
-                    mFilePathToCallbackMap.put(filePath, list);
-                }
-                list.add(new BitmapReadyCallback() {
-                    @Override
-                    public void onBitmapReady(Bitmap bitmap) {
-                        if (imageView.getTag() instanceof String && imageView.getTag().equals(filePath))
-                            imageView.setImageBitmap(bitmap);
-                    }
-                });
-
-
-                if (shouldFetch) {
-                    fetchBitmap(filePath);
-                }
-            }
+            mThumbnailLoader.load(filePath, imageView);
         } else {
             // if not image, for now show no image.
+            mThumbnailLoader.cancel(imageView);
+            imageView.setTag(null);
             imageView.setImageBitmap(null);
         }
     }
 
-    private void fetchBitmap(final String filePath) {
-        BitmapWorkerTask task = new BitmapWorkerTask(null, mLocalImageWidth, mLocalImageWidth, new BitmapWorkerCallback() {
-            @Override
-            public void onBitmapReady(final String path, ImageView imageView, final Bitmap bitmap) {
-                mHandler.post(new Runnable() {
-                    @Override
-                    public void run() {
-                        List<BitmapReadyCallback> callbacks = mFilePathToCallbackMap.get(path);
-                        for (BitmapReadyCallback callback : callbacks) {
-                            callback.onBitmapReady(bitmap);
-                        }
-
-                        WordPress.getBitmapCache().put(path, bitmap);
-                        callbacks.clear();
-                        mFilePathToCallbackMap.remove(path);
-                    }
-                });
-            }
-        });
-        task.execute(filePath);
+    /*
+     * stops loading the thumbnail of a local image whose view was recycled
+     */
+    void cancelLocalImage(ImageView imageView) {
+        mThumbnailLoader.cancel(imageView);
     }
 
     @Override
@@ -8,6 +8,7 @@ import android.content.Context;
 import android.content.DialogInterface;
 import android.content.Intent;
 import android.database.Cursor;
+import android.os.AsyncTask;
 import android.os.Bundle;
 import android.view.ActionMode;
 import android.view.LayoutInflater;
@@ -24,6 +25,7 @@ import android.widget.AdapterView.OnItemSelectedListener;
 import android.widget.ArrayAdapter;
 import android.widget.DatePicker;
 import android.widget.GridView;
+import android.widget.ImageView;
 import android.widget.LinearLayout;
 import android.widget.TextView;
 
@@ -374,14 +376,17 @@ public class MediaGridFragment extends Fragment
             List<Object> apiArgs = new ArrayList<Object>();
             apiArgs.add(WordPress.getCurrentBlog());
 
+            // only a refresh the user asked for syncs the whole library
+            final boolean isFullSync = (offset == 0 && !auto);
             Callback callback = new Callback() {
-                // refresh db from server. If returned count is 0, we've retrieved all the media.
+                // refresh db from server. After a full sync, or if returned count is 0, we've
+                // retrieved all the media.
                 // stop retrieving until the user manually refreshes
 
                 @Override
                 public void onSuccess(int count) {
                     MediaGridAdapter adapter = (MediaGridAdapter) mGridView.getAdapter();
-                    mHasRetrievedAllMedia = (count == 0);
+                    mHasRetrievedAllMedia = (isFullSync || count == 0);
                     adapter.setHasRetrievedAll(mHasRetrievedAllMedia);
 
                     mIsRefreshing = false;
@@ -443,8 +448,14 @@ public class MediaGridFragment extends Fragment
                 }
             };
 
-            ApiHelper.SyncMediaLibraryTask getMediaTask = new ApiHelper.SyncMediaLibraryTask(offset, mFilter, callback);
-            getMediaTask.execute(apiArgs);
+            if (isFullSync) {
+                ApiHelper.SyncMediaLibraryTask.newFullSyncTask(callback).executeOnExecutor(
+                        AsyncTask.THREAD_POOL_EXECUTOR, apiArgs);
+            } else {
+                ApiHelper.SyncMediaLibraryTask getMediaTask = new ApiHelper.SyncMediaLibraryTask(offset, mFilter,
+                        callback);
+                getMediaTask.execute(apiArgs);
+            }
         }
     }
 
@@ -664,6 +675,9 @@ public class MediaGridFragment extends Fragment
 
                 });
                 container.cancelRequest();
+            } else if (tag != null && imageView instanceof ImageView) {
+                // local image, the tag is its file path
+                mGridAdapter.cancelLocalImage((ImageView) imageView);
             }
         }
 
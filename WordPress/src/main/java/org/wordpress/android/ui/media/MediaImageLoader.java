@@ -9,6 +9,7 @@ import com.android.volley.toolbox.Volley;
 import org.wordpress.android.WordPress;
 import org.wordpress.android.models.Blog;
 import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.BitmapCacheImageLoader;
 import org.wordpress.android.util.VolleyUtils;
 
 /**
@@ -30,7 +31,7 @@ class MediaImageLoader {
             AppLog.d(AppLog.T.MEDIA, "using custom imageLoader");
             Context context = WordPress.getContext();
             RequestQueue authRequestQueue = Volley.newRequestQueue(context, VolleyUtils.getHTTPClientStack(context, blog));
-            ImageLoader imageLoader = new ImageLoader(authRequestQueue, WordPress.getBitmapCache());
+            ImageLoader imageLoader = new BitmapCacheImageLoader(authRequestQueue, WordPress.getBitmapCache());
             imageLoader.setBatchedResponseDelay(0);
             return imageLoader;
         } else {
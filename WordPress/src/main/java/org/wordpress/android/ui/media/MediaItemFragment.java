@@ -31,6 +31,7 @@ import org.wordpress.android.R;
 import org.wordpress.android.WordPress;
 import org.wordpress.android.WordPressDB;
 import org.wordpress.android.models.Blog;
+import org.wordpress.android.util.BitmapCache;
 import org.wordpress.android.util.ImageUtils.BitmapWorkerCallback;
 import org.wordpress.android.util.ImageUtils.BitmapWorkerTask;
 import org.wordpress.android.util.StringUtils;
@@ -290,11 +291,11 @@ public class MediaItemFragment extends Fragment {
         mImageView.setImageDrawable(new ColorDrawable(getResources().getColor(R.color.grey_light)));
     }
 
-    private synchronized void loadLocalImage(ImageView imageView, String filePath, int width, int height) {
+    private synchronized void loadLocalImage(ImageView imageView, String filePath, final int width, final int height) {
         if (MediaUtils.isValidImage(filePath)) {
             imageView.setTag(filePath);
 
-            Bitmap bitmap = WordPress.getBitmapCache().get(filePath);
+            Bitmap bitmap = WordPress.getBitmapCache().get(BitmapCache.getCacheKey(filePath, width, height));
             if (bitmap != null) {
                 imageView.setImageBitmap(bitmap);
             } else {
@@ -302,7 +303,7 @@ public class MediaItemFragment extends Fragment {
                     @Override
                     public void onBitmapReady(String path, ImageView imageView, Bitmap bitmap) {
                         imageView.setImageBitmap(bitmap);
-                        WordPress.getBitmapCache().put(path, bitmap);
+                        WordPress.getBitmapCache().put(BitmapCache.getCacheKey(path, width, height), bitmap);
                     }
                 });
                 task.execute(filePath);
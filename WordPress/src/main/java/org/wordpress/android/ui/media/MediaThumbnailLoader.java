@@ -0,0 +1,199 @@
+package org.wordpress.android.ui.media;
+
+import android.graphics.Bitmap;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.widget.ImageView;
+
+import org.wordpress.android.WordPress;
+import org.wordpress.android.util.BitmapCache;
+import org.wordpress.android.util.ImageUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads the thumbnails of local media files into the image views of the media grid. Thumbnails are
+ * decoded on a small shared pool of background threads, newest request first, so the cells that just
+ * scrolled into view are shown before the ones that scrolled past. Requests for the same file share a
+ * single decode, and a request is dropped once no view is waiting for it (see cancel()), so views that
+ * are recycled don't keep the pool busy with files nobody will see.
+ */
+class MediaThumbnailLoader {
+    private static final int NUM_DECODE_THREADS = 2;
+    private static final long KEEP_ALIVE_SECONDS = 10;
+
+    private static final ThreadPoolExecutor sDecodeExecutor = new ThreadPoolExecutor(NUM_DECODE_THREADS,
+            NUM_DECODE_THREADS, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LifoBlockingDeque<Runnable>(),
+            new DecodeThreadFactory());
+    static {
+        sDecodeExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    private final int mThumbnailSize;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    // the pending request of each file, so duplicate requests share a single decode
+    private final ConcurrentHashMap<String, ThumbnailRequest> mRequests =
+            new ConcurrentHashMap<String, ThumbnailRequest>();
+    // the request each view is waiting for - only used from the ui thread
+    private final Map<ImageView, ThumbnailRequest> mViewRequests = new WeakHashMap<ImageView, ThumbnailRequest>();
+
+    MediaThumbnailLoader(int thumbnailSize) {
+        mThumbnailSize = thumbnailSize;
+    }
+
+    /*
+     * shows the thumbnail of the passed file in the passed view, right away if it's in memory or once
+     * it's read from the disk cache or decoded - must be called from the ui thread
+     */
+    void load(String filePath, ImageView imageView) {
+        cancel(imageView);
+        imageView.setTag(filePath);
+
+        Bitmap bitmap = WordPress.getBitmapCache().get(getCacheKey(filePath));
+        if (bitmap != null) {
+            imageView.setImageBitmap(bitmap);
+            return;
+        }
+        imageView.setImageBitmap(null);
+
+        // join the pending request for the same file if there's one, otherwise start a new one
+        ThumbnailRequest request = new ThumbnailRequest(filePath);
+        request.addView(imageView);
+        ThumbnailRequest pendingRequest = mRequests.putIfAbsent(filePath, request);
+        if (pendingRequest != null && pendingRequest.addView(imageView)) {
+            request = pendingRequest;
+        } else {
+            if (pendingRequest != null) {
+                mRequests.put(filePath, request);
+            }
+            sDecodeExecutor.execute(request);
+        }
+        mViewRequests.put(imageView, request);
+    }
+
+    /*
+     * stops waiting for the thumbnail the passed view was waiting for, if any, and drops the request
+     * if no other view is waiting for it - must be called from the ui thread
+     */
+    void cancel(ImageView imageView) {
+        ThumbnailRequest request = mViewRequests.remove(imageView);
+        if (request != null && request.removeView(imageView)) {
+            mRequests.remove(request.mFilePath, request);
+            sDecodeExecutor.remove(request);
+        }
+    }
+
+    private String getCacheKey(String filePath) {
+        return BitmapCache.getCacheKey(filePath, mThumbnailSize, mThumbnailSize);
+    }
+
+    private class ThumbnailRequest implements Runnable {
+        private final String mFilePath;
+        // the views waiting for the thumbnail - only used from the ui thread
+        private final List<ImageView> mImageViews = new ArrayList<ImageView>();
+        private volatile boolean mIsCancelled;
+        private boolean mIsDone;
+
+        ThumbnailRequest(String filePath) {
+            mFilePath = filePath;
+        }
+
+        /*
+         * returns false if the request is already done or cancelled
+         */
+        boolean addView(ImageView imageView) {
+            if (mIsDone || mIsCancelled) {
+                return false;
+            }
+            if (!mImageViews.contains(imageView)) {
+                mImageViews.add(imageView);
+            }
+            return true;
+        }
+
+        /*
+         * returns true if the request was cancelled because no view is waiting for it anymore
+         */
+        boolean removeView(ImageView imageView) {
+            mImageViews.remove(imageView);
+            if (mImageViews.isEmpty() && !mIsDone) {
+                mIsCancelled = true;
+            }
+            return mIsCancelled;
+        }
+
+        @Override
+        public void run() {
+            if (mIsCancelled) {
+                return;
+            }
+            // the disk tier of the cache is read here since it's too slow for the ui thread
+            Bitmap cachedBitmap = WordPress.getBitmapCache().load(getCacheKey(mFilePath));
+            final boolean isCached = (cachedBitmap != null);
+            final Bitmap bitmap = (isCached ? cachedBitmap
+                    : ImageUtils.decodeThumbnailFromFilePath(mFilePath, mThumbnailSize, mThumbnailSize));
+            mHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    onDecoded(bitmap, isCached);
+                }
+            });
+        }
+
+        private void onDecoded(Bitmap bitmap, boolean isCached) {
+            mIsDone = true;
+            mRequests.remove(mFilePath, this);
+            if (bitmap == null) {
+                mImageViews.clear();
+                return;
+            }
+
+            // cached even if the request was cancelled while decoding, the file may scroll back into view
+            if (!isCached) {
+                WordPress.getBitmapCache().put(getCacheKey(mFilePath), bitmap);
+            }
+            for (ImageView imageView : mImageViews) {
+                if (mViewRequests.get(imageView) == this && mFilePath.equals(imageView.getTag())) {
+                    imageView.setImageBitmap(bitmap);
+                    mViewRequests.remove(imageView);
+                }
+            }
+            mImageViews.clear();
+        }
+    }
+
+    /*
+     * queue that hands out the most recently added task first
+     */
+    private static class LifoBlockingDeque<E> extends LinkedBlockingDeque<E> {
+        @Override
+        public boolean offer(E e) {
+            return offerFirst(e);
+        }
+    }
+
+    private static class DecodeThreadFactory implements ThreadFactory {
+        private final AtomicInteger mThreadCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            return new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    runnable.run();
+                }
+            }, "MediaThumbnailLoader-" + mThreadCount.incrementAndGet());
+        }
+    }
+}
@@ -6,38 +6,87 @@ import android.content.Intent;
 import android.database.Cursor;
 import android.os.Handler;
 import android.os.IBinder;
+import android.os.Looper;
 import android.support.v4.content.LocalBroadcastManager;
 
 import org.wordpress.android.R;
 import org.wordpress.android.WordPress;
 import org.wordpress.android.WordPressDB;
+import org.wordpress.android.models.Blog;
 import org.wordpress.android.models.MediaFile;
+import org.wordpress.android.util.AppLog;
 import org.wordpress.android.util.AppLog.T;
 import org.wordpress.android.util.CrashlyticsUtils;
 import org.wordpress.android.util.CrashlyticsUtils.ExceptionType;
+import org.wordpress.android.util.StringUtils;
+import org.xmlpull.v1.XmlPullParserException;
 import org.xmlrpc.android.ApiHelper;
-import org.xmlrpc.android.ApiHelper.ErrorType;
-import org.xmlrpc.android.ApiHelper.GetMediaItemTask;
+import org.xmlrpc.android.XMLRPCConnectionManager;
+import org.xmlrpc.android.XMLRPCException;
+import org.xmlrpc.android.XMLRPCFault;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * A service for uploading media files from the media browser.
- * Only one file is uploaded at a time.
+ * Files are uploaded in parallel, up to getMaxUploadsPerBlog() at a time for each blog. The state of
+ * each upload is kept in the media table, so the queue survives the app being killed: the service
+ * is sticky, and uploads that were in progress when the process died are queued again when it's
+ * restarted. Uploads which fail because of the network or the server are retried with exponential
+ * backoff and jitter, up to MAX_UPLOAD_ATTEMPTS times, while uploads the blog rejects fail right away.
  */
 public class MediaUploadService extends Service {
-    // time to wait before trying to upload the next file
-    private static final int UPLOAD_WAIT_TIME = 1000;
+    // each upload holds a connection to the blog, so this is both the default and the upper bound of
+    // getMaxUploadsPerBlog() - it can only be lowered, ex: to upload one file at a time on a slow network
+    public static final int MAX_UPLOADS_PER_BLOG = XMLRPCConnectionManager.MEDIA_UPLOAD_CONNECTIONS_PER_HOST;
+
+    // max # of uploads running at once across all blogs
+    private static final int MAX_UPLOAD_THREADS = 6;
+    private static final int MAX_UPLOAD_ATTEMPTS = 5;
+    private static final long RETRY_BASE_DELAY_MS = 2000;
+    private static final long RETRY_MAX_DELAY_MS = 5 * 60 * 1000;
 
     /** Listen to this Intent for when there are updates to the upload queue **/
     public static final String MEDIA_UPLOAD_INTENT_NOTIFICATION = "MEDIA_UPLOAD_INTENT_NOTIFICATION";
     public static final String MEDIA_UPLOAD_INTENT_NOTIFICATION_EXTRA = "MEDIA_UPLOAD_INTENT_NOTIFICATION_EXTRA";
     public static final String MEDIA_UPLOAD_INTENT_NOTIFICATION_ERROR = "MEDIA_UPLOAD_INTENT_NOTIFICATION_ERROR";
 
+    private static volatile int sMaxUploadsPerBlog = MAX_UPLOADS_PER_BLOG;
+
+    // uploads that are running, key is blogId + mediaId, value is blogId - these are static since a
+    // stopped service lets its uploads finish, so the next instance mustn't start them again
+    private static final Map<String, String> sActiveUploads = new HashMap<String, String>();
+
+    // the running instance, only accessed on the main thread
+    private static MediaUploadService sRunningService;
+    private static final Handler sMainHandler = new Handler(Looper.getMainLooper());
+
+    private static final Random sRandom = new Random();
+
     private Context mContext;
-    private Handler mHandler = new Handler();
-    private boolean mUploadInProgress;
+    private final Handler mHandler = new Handler();
+    private ExecutorService mExecutor;
+    private boolean mIsDestroyed;
+
+    public static int getMaxUploadsPerBlog() {
+        return sMaxUploadsPerBlog;
+    }
+
+    public static void setMaxUploadsPerBlog(int maxUploads) {
+        if (maxUploads < 1) {
+            throw new IllegalArgumentException("at least one upload per blog is required");
+        }
+        if (maxUploads > MAX_UPLOADS_PER_BLOG) {
+            throw new IllegalArgumentException("at most " + MAX_UPLOADS_PER_BLOG + " uploads per blog are allowed");
+        }
+        sMaxUploadsPerBlog = maxUploads;
+    }
 
     @Override
     public IBinder onBind(Intent intent) {
@@ -49,135 +98,264 @@ public class MediaUploadService extends Service {
         super.onCreate();
 
         mContext = this.getApplicationContext();
-        mUploadInProgress = false;
+        mExecutor = Executors.newFixedThreadPool(MAX_UPLOAD_THREADS);
+        sRunningService = this;
 
-        cancelOldUploads();
+        requeueInterruptedUploads();
     }
 
     @Override
-    public void onStart(Intent intent, int startId) {
+    public int onStartCommand(Intent intent, int flags, int startId) {
+        mHandler.removeCallbacks(mFetchQueueTask);
         mHandler.post(mFetchQueueTask);
+        // restart the service if the app is killed so queued and interrupted uploads are resumed
+        return START_STICKY;
+    }
+
+    @Override
+    public void onDestroy() {
+        mIsDestroyed = true;
+        mHandler.removeCallbacks(mFetchQueueTask);
+        if (sRunningService == this) {
+            sRunningService = null;
+        }
+        // uploads that are running are allowed to finish
+        mExecutor.shutdown();
+        super.onDestroy();
     }
 
-    private Runnable mFetchQueueTask = new Runnable() {
+    /*
+     * starts as many queued uploads as each blog allows, then either waits for the next one to
+     * finish or for the next retry to be due, or stops the service once there's nothing left
+     */
+    private final Runnable mFetchQueueTask = new Runnable() {
         @Override
         public void run() {
-            Cursor cursor = getQueue();
+            if (mIsDestroyed) {
+                return;
+            }
+
+            long now = System.currentTimeMillis();
+            long nextRetryAt = 0;
+            Cursor cursor = WordPress.wpDB.getMediaUploadQueue();
             try {
-                if ((cursor == null || cursor.getCount() == 0 || mContext == null) && !mUploadInProgress) {
-                    MediaUploadService.this.stopSelf();
-                    return;
-                } else {
-                    if (mUploadInProgress) {
-                        mHandler.postDelayed(this, UPLOAD_WAIT_TIME);
-                    } else {
-                        uploadMediaFile(cursor);
+                while (cursor.moveToNext()) {
+                    long retryAt = cursor.getLong(cursor.getColumnIndex(WordPressDB.COLUMN_NAME_UPLOAD_RETRY_AT));
+                    if (retryAt > now) {
+                        nextRetryAt = (nextRetryAt == 0 ? retryAt : Math.min(nextRetryAt, retryAt));
+                        continue;
+                    }
+                    UploadJob job = new UploadJob(cursor);
+                    if (!isUploadActive(job) && getNumActiveUploads(job.mBlogId) < sMaxUploadsPerBlog) {
+                        startUpload(job);
                     }
                 }
             } finally {
-                if (cursor != null)
-                    cursor.close();
+                cursor.close();
             }
 
+            if (nextRetryAt > 0) {
+                mHandler.postDelayed(this, nextRetryAt - now);
+            } else if (getNumActiveUploads(null) == 0) {
+                MediaUploadService.this.stopSelf();
+            }
         }
     };
 
-    private void cancelOldUploads() {
-        // There should be no media files with an upload state of 'uploading' at the start of this service.
-        // Since we won't be able to receive notifications for these, set them to 'failed'.
+    /*
+     * there should be no uploads in progress when the service is created unless the app was
+     * killed while they were running - since they'll never finish, queue them again
+     */
+    private void requeueInterruptedUploads() {
+        Cursor cursor = WordPress.wpDB.getMediaUploadsInProgress();
+        try {
+            while (cursor.moveToNext()) {
+                UploadJob job = new UploadJob(cursor);
+                if (!isUploadActive(job)) {
+                    AppLog.i(T.MEDIA, "media upload > resuming interrupted upload of " + job.mMediaId);
+                    // the interrupted attempt was already counted when it started
+                    retryOrFail(job, null);
+                }
+            }
+        } finally {
+            cursor.close();
+        }
+    }
 
-        if(WordPress.getCurrentBlog() != null){
-            String blogId = String.valueOf(WordPress.getCurrentBlog().getLocalTableBlogId());
-            WordPress.wpDB.setMediaUploadingToFailed(blogId);
-            sendUpdateBroadcast(null, null);
+    private void startUpload(UploadJob job) {
+        synchronized (sActiveUploads) {
+            sActiveUploads.put(job.getKey(), job.mBlogId);
         }
+        WordPress.wpDB.startMediaUpload(job.mBlogId, job.mMediaId);
+        job.mAttempts++;
+        sendUpdateBroadcast(job.mMediaId, null);
+        mExecutor.execute(new UploadRunnable(job));
     }
 
-    private Cursor getQueue() {
-        if (WordPress.getCurrentBlog() == null)
-            return null;
+    private static boolean isUploadActive(UploadJob job) {
+        synchronized (sActiveUploads) {
+            return sActiveUploads.containsKey(job.getKey());
+        }
+    }
 
-        String blogId = String.valueOf(WordPress.getCurrentBlog().getLocalTableBlogId());
-        return WordPress.wpDB.getMediaUploadQueue(blogId);
+    /*
+     * returns the # of running uploads for the passed blog, or for all blogs if it's null
+     */
+    private static int getNumActiveUploads(String blogId) {
+        synchronized (sActiveUploads) {
+            if (blogId == null) {
+                return sActiveUploads.size();
+            }
+            int count = 0;
+            for (String activeBlogId : sActiveUploads.values()) {
+                if (blogId.equals(activeBlogId)) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+
+    /*
+     * called on the upload thread once an upload is done, whether it succeeded or not
+     */
+    private static void onUploadFinished(UploadJob job) {
+        synchronized (sActiveUploads) {
+            sActiveUploads.remove(job.getKey());
+        }
+        // a slot is free, so let the running service (which may not be the one that started this
+        // upload) start the next one
+        sMainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                if (sRunningService != null && !sRunningService.mIsDestroyed) {
+                    sRunningService.mHandler.removeCallbacks(sRunningService.mFetchQueueTask);
+                    sRunningService.mHandler.post(sRunningService.mFetchQueueTask);
+                }
+            }
+        });
     }
 
-    private void uploadMediaFile(Cursor cursor) {
-        if (!cursor.moveToFirst())
-            return;
+    /*
+     * queues the passed upload to be retried after a backoff delay, or marks it as failed if
+     * it's been attempted too many times
+     */
+    private void retryOrFail(UploadJob job, String errorMessage) {
+        if (job.mAttempts >= MAX_UPLOAD_ATTEMPTS) {
+            WordPress.wpDB.updateMediaUploadState(job.mBlogId, job.mMediaId, "failed");
+            sendUpdateBroadcast(job.mMediaId, errorMessage != null ? errorMessage : getString(R.string.upload_failed));
+        } else {
+            WordPress.wpDB.retryMediaUpload(job.mBlogId, job.mMediaId,
+                    System.currentTimeMillis() + getRetryDelayMs(job.mAttempts));
+            sendUpdateBroadcast(job.mMediaId, null);
+        }
+    }
 
-        mUploadInProgress = true;
+    /*
+     * exponential backoff with jitter - the delay doubles with each attempt up to a max, and half
+     * of it is random so uploads that failed together (ex: when the connection dropped) don't all
+     * retry at the same moment
+     */
+    private static long getRetryDelayMs(int attempts) {
+        long delayMs = Math.min(RETRY_MAX_DELAY_MS, RETRY_BASE_DELAY_MS << Math.min(Math.max(attempts - 1, 0), 16));
+        return (delayMs / 2) + (long) (sRandom.nextDouble() * (delayMs / 2));
+    }
 
-        final String blogIdStr = cursor.getString((cursor.getColumnIndex(WordPressDB.COLUMN_NAME_BLOG_ID)));
-        final String mediaId = cursor.getString(cursor.getColumnIndex(WordPressDB.COLUMN_NAME_MEDIA_ID));
-        String fileName = cursor.getString(cursor.getColumnIndex(WordPressDB.COLUMN_NAME_FILE_NAME));
-        String filePath = cursor.getString(cursor.getColumnIndex(WordPressDB.COLUMN_NAME_FILE_PATH));
-        String mimeType = cursor.getString(cursor.getColumnIndex(WordPressDB.COLUMN_NAME_MIME_TYPE));
+    private class UploadRunnable implements Runnable {
+        private final UploadJob mJob;
 
-        MediaFile mediaFile = new MediaFile();
-        mediaFile.setBlogId(blogIdStr);
-        mediaFile.setFileName(fileName);
-        mediaFile.setFilePath(filePath);
-        mediaFile.setMimeType(mimeType);
+        UploadRunnable(UploadJob job) {
+            mJob = job;
+        }
 
-        ApiHelper.UploadMediaTask task = new ApiHelper.UploadMediaTask(mContext, mediaFile,
-                new ApiHelper.UploadMediaTask.Callback() {
-            @Override
-            public void onSuccess(String id) {
-                // once the file has been uploaded, delete the local database entry and
-                // download the new one so that we are up-to-date and so that users can edit it.
-                WordPress.wpDB.deleteMediaFile(blogIdStr, mediaId);
-                sendUpdateBroadcast(mediaId, id);
-                fetchMediaFile(id);
+        @Override
+        public void run() {
+            try {
+                upload();
+            } finally {
+                onUploadFinished(mJob);
             }
+        }
 
-            @Override
-            public void onFailure(ApiHelper.ErrorType errorType, String errorMessage, Throwable throwable) {
-                WordPress.wpDB.updateMediaUploadState(blogIdStr, mediaId, "failed");
-                mUploadInProgress = false;
-                sendUpdateBroadcast(mediaId, getString(R.string.upload_failed));
-                mHandler.post(mFetchQueueTask);
-                // Only log the error if it's not caused by the network (internal inconsistency)
-                if (errorType != ErrorType.NETWORK_XMLRPC) {
-                    CrashlyticsUtils.logException(throwable, ExceptionType.SPECIFIC, T.MEDIA, errorMessage);
-                }
+        private void upload() {
+            Blog blog = WordPress.getBlog(StringUtils.stringToInt(mJob.mBlogId));
+            if (blog == null || mJob.mFilePath == null || !new File(mJob.mFilePath).exists()) {
+                AppLog.w(T.MEDIA, "media upload > blog or file no longer exists for " + mJob.mMediaId);
+                WordPress.wpDB.updateMediaUploadState(mJob.mBlogId, mJob.mMediaId, "failed");
+                sendUpdateBroadcast(mJob.mMediaId, getString(R.string.upload_failed));
+                return;
             }
-        });
 
-        WordPress.wpDB.updateMediaUploadState(blogIdStr, mediaId, "uploading");
-        sendUpdateBroadcast(mediaId, null);
-        List<Object> apiArgs = new ArrayList<Object>();
-        apiArgs.add(WordPress.getCurrentBlog());
-        task.execute(apiArgs);
-        mHandler.post(mFetchQueueTask);
-    }
+            MediaFile mediaFile = new MediaFile();
+            mediaFile.setBlogId(mJob.mBlogId);
+            mediaFile.setFileName(mJob.mFileName);
+            mediaFile.setFilePath(mJob.mFilePath);
+            mediaFile.setMimeType(mJob.mMimeType);
 
-    private void fetchMediaFile(final String id) {
-        List<Object> apiArgs = new ArrayList<Object>();
-        apiArgs.add(WordPress.getCurrentBlog());
-        GetMediaItemTask task = new GetMediaItemTask(Integer.valueOf(id),
-                new ApiHelper.GetMediaItemTask.Callback() {
-            @Override
-            public void onSuccess(MediaFile mediaFile) {
-                String blogId = mediaFile.getBlogId();
-                String mediaId = mediaFile.getMediaId();
-                WordPress.wpDB.updateMediaUploadState(blogId, mediaId, "uploaded");
-                mUploadInProgress = false;
-                sendUpdateBroadcast(id, null);
-                mHandler.post(mFetchQueueTask);
+            String remoteId;
+            try {
+                remoteId = ApiHelper.uploadMediaFile(blog, mediaFile);
+            } catch (XMLRPCFault e) {
+                // the blog rejected the file, so retrying won't help
+                AppLog.w(T.MEDIA, "media upload > rejected, " + e.getMessage());
+                WordPress.wpDB.updateMediaUploadState(mJob.mBlogId, mJob.mMediaId, "failed");
+                sendUpdateBroadcast(mJob.mMediaId, getString(R.string.upload_failed));
+                return;
+            } catch (ClassCastException e) {
+                WordPress.wpDB.updateMediaUploadState(mJob.mBlogId, mJob.mMediaId, "failed");
+                sendUpdateBroadcast(mJob.mMediaId, getString(R.string.upload_failed));
+                CrashlyticsUtils.logException(e, ExceptionType.SPECIFIC, T.MEDIA, e.getMessage());
+                return;
+            } catch (XMLRPCException e) {
+                AppLog.w(T.MEDIA, "media upload > attempt " + mJob.mAttempts + " failed, " + e.getMessage());
+                retryOrFail(mJob, null);
+                return;
+            } catch (IOException e) {
+                AppLog.w(T.MEDIA, "media upload > attempt " + mJob.mAttempts + " failed, " + e.getMessage());
+                retryOrFail(mJob, null);
+                return;
+            } catch (XmlPullParserException e) {
+                AppLog.w(T.MEDIA, "media upload > attempt " + mJob.mAttempts + " failed, " + e.getMessage());
+                retryOrFail(mJob, null);
+                return;
             }
 
-            @Override
-            public void onFailure(ApiHelper.ErrorType errorType, String errorMessage, Throwable throwable) {
-                mUploadInProgress = false;
-                sendUpdateBroadcast(id, getString(R.string.error_refresh_media));
-                mHandler.post(mFetchQueueTask);
-                // Only log the error if it's not caused by the network (internal inconsistency)
-                if (errorType != ErrorType.NETWORK_XMLRPC) {
-                    CrashlyticsUtils.logException(throwable, ExceptionType.SPECIFIC, T.MEDIA, errorMessage);
-                }
+            if (remoteId == null) {
+                retryOrFail(mJob, null);
+                return;
             }
-        });
-        task.execute(apiArgs);
+
+            // once the file has been uploaded, delete the local database entry and
+            // download the new one so that we are up-to-date and so that users can edit it.
+            WordPress.wpDB.deleteMediaFile(mJob.mBlogId, mJob.mMediaId);
+            sendUpdateBroadcast(mJob.mMediaId, remoteId);
+            fetchMediaFile(blog, remoteId);
+        }
+    }
+
+    private void fetchMediaFile(Blog blog, String id) {
+        String errorMessage = null;
+        try {
+            MediaFile mediaFile = ApiHelper.getMediaItem(blog, Integer.valueOf(id));
+            if (mediaFile != null) {
+                WordPress.wpDB.updateMediaUploadState(mediaFile.getBlogId(), mediaFile.getMediaId(), "uploaded");
+            } else {
+                errorMessage = getString(R.string.error_refresh_media);
+            }
+        } catch (ClassCastException e) {
+            errorMessage = getString(R.string.error_refresh_media);
+            CrashlyticsUtils.logException(e, ExceptionType.SPECIFIC, T.MEDIA, e.getMessage());
+        } catch (NumberFormatException e) {
+            errorMessage = getString(R.string.error_refresh_media);
+            CrashlyticsUtils.logException(e, ExceptionType.SPECIFIC, T.MEDIA, e.getMessage());
+        } catch (XMLRPCException e) {
+            errorMessage = getString(R.string.error_refresh_media);
+        } catch (IOException e) {
+            errorMessage = getString(R.string.error_refresh_media);
+        } catch (XmlPullParserException e) {
+            errorMessage = getString(R.string.error_refresh_media);
+        }
+        sendUpdateBroadcast(id, errorMessage);
     }
 
     private void sendUpdateBroadcast(String mediaId, String errorMessage) {
@@ -191,4 +369,29 @@ public class MediaUploadService extends Service {
         }
         lbm.sendBroadcast(intent);
     }
+
+    /*
+     * a queued upload as stored in the media table
+     */
+    private static class UploadJob {
+        private final String mBlogId;
+        private final String mMediaId;
+        private final String mFileName;
+        private final String mFilePath;
+        private final String mMimeType;
+        private int mAttempts;
+
+        UploadJob(Cursor cursor) {
+            mBlogId = cursor.getString(cursor.getColumnIndex(WordPressDB.COLUMN_NAME_BLOG_ID));
+            mMediaId = cursor.getString(cursor.getColumnIndex(WordPressDB.COLUMN_NAME_MEDIA_ID));
+            mFileName = cursor.getString(cursor.getColumnIndex(WordPressDB.COLUMN_NAME_FILE_NAME));
+            mFilePath = cursor.getString(cursor.getColumnIndex(WordPressDB.COLUMN_NAME_FILE_PATH));
+            mMimeType = cursor.getString(cursor.getColumnIndex(WordPressDB.COLUMN_NAME_MIME_TYPE));
+            mAttempts = cursor.getInt(cursor.getColumnIndex(WordPressDB.COLUMN_NAME_UPLOAD_ATTEMPTS));
+        }
+
+        String getKey() {
+            return mBlogId + ":" + mMediaId;
+        }
+    }
 }
@@ -49,7 +49,6 @@ import org.xmlrpc.android.XMLRPCException;
 import org.xmlrpc.android.XMLRPCFactory;
 
 import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
@@ -634,15 +633,6 @@ public class PostUploadService extends Service {
         }
 
         private String uploadVideo(MediaFile mediaFile) {
-            // create temp file for media upload
-            String tempFileName = "wp-" + System.currentTimeMillis();
-            try {
-                mContext.openFileOutput(tempFileName, Context.MODE_PRIVATE);
-            } catch (FileNotFoundException e) {
-                mErrorMessage = getResources().getString(R.string.file_error_create);
-                return null;
-            }
-
             if (mediaFile.getFilePath() == null) {
                 mErrorMessage = mContext.getString(R.string.error_media_upload);
                 return null;
@@ -716,16 +706,7 @@ public class PostUploadService extends Service {
             boolean selfHosted = WordPress.currentBlog != null && !WordPress.currentBlog.isDotcomFlag();
             boolean isVideoEnabled = selfHosted || (featureSet != null && mFeatureSet.isVideopressEnabled());
             if (isVideoEnabled) {
-                File tempFile;
-                try {
-                    String fileExtension = MimeTypeMap.getFileExtensionFromUrl(videoName);
-                    tempFile = createTempUploadFile(fileExtension);
-                } catch (IOException e) {
-                    mErrorMessage = getResources().getString(R.string.file_error_create);
-                    return null;
-                }
-
-                Object result = uploadFileHelper(params, tempFile);
+                Object result = uploadFileHelper(params);
                 Map<?, ?> resultMap = (HashMap<?, ?>) result;
                 if (resultMap != null && resultMap.containsKey("url")) {
                     String resultURL = resultMap.get("url").toString();
@@ -759,19 +740,8 @@ public class PostUploadService extends Service {
         }
 
         private String uploadImageFile(Map<String, Object> pictureParams, MediaFile mf, Blog blog) {
-            // create temporary upload file
-            File tempFile;
-            try {
-                String fileExtension = MimeTypeMap.getFileExtensionFromUrl(mf.getFileName());
-                tempFile = createTempUploadFile(fileExtension);
-            } catch (IOException e) {
-                mIsMediaError = true;
-                mErrorMessage = mContext.getString(R.string.file_not_found);
-                return null;
-            }
-
             Object[] params = {1, blog.getUsername(), blog.getPassword(), pictureParams};
-            Object result = uploadFileHelper(params, tempFile);
+            Object result = uploadFileHelper(params);
             if (result == null) {
                 mIsMediaError = true;
                 return null;
@@ -795,7 +765,7 @@ public class PostUploadService extends Service {
             return pictureURL;
         }
 
-        private Object uploadFileHelper(Object[] params, final File tempFile) {
+        private Object uploadFileHelper(Object[] params) {
             AppLog.d(T.POSTS, "uploadFileHelper: " + Arrays.toString(params));
 
             // Create listener for tracking upload progress in the notification
@@ -803,18 +773,18 @@ public class PostUploadService extends Service {
                 XMLRPCClient xmlrpcClient = (XMLRPCClient) mClient;
                 xmlrpcClient.setOnBytesUploadedListener(new XMLRPCClient.OnBytesUploadedListener() {
                     @Override
-                    public void onBytesUploaded(long uploadedBytes) {
-                        if (tempFile.length() == 0) {
+                    public void onBytesUploaded(long uploadedBytes, long totalBytes) {
+                        if (totalBytes <= 0) {
                             return;
                         }
-                        float percentage = (uploadedBytes * 100) / tempFile.length();
+                        float percentage = (uploadedBytes * 100) / totalBytes;
                         mPostUploadNotifier.updateNotificationProgress(percentage);
                     }
                 });
             }
 
             try {
-                return mClient.call("wp.uploadFile", params, tempFile);
+                return mClient.call("wp.uploadFile", params);
             } catch (XMLRPCException e) {
                 AppLog.e(T.API, e);
                 mErrorMessage = mContext.getResources().getString(R.string.error_media_upload) + ": " + e.getMessage();
@@ -827,19 +797,10 @@ public class PostUploadService extends Service {
                 AppLog.e(T.API, e);
                 mErrorMessage = mContext.getResources().getString(R.string.error_media_upload) + ": " + e.getMessage();
                 return null;
-            } finally {
-                // remove the temporary upload file now that we're done with it
-                if (tempFile != null && tempFile.exists()) {
-                    tempFile.delete();
-                }
             }
         }
     }
 
-    private File createTempUploadFile(String fileExtension) throws IOException {
-        return File.createTempFile("wp-", fileExtension, mContext.getCacheDir());
-    }
-
     private class PostUploadNotifier {
 
         private final NotificationManager mNotificationManager;
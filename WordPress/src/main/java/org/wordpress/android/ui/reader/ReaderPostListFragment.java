@@ -1012,8 +1012,8 @@ public class ReaderPostListFragment extends Fragment
             // id of the newest post in the database (which will contain the newly downloaded
             // posts) and comparing it to the id of the first post in the adapter
             long newestPostId = ReaderPostTable.getNewestPostIdWithTag(getCurrentTag());
-            ReaderPost post = getPostAdapter().getItem(0);
-            showNewPostsBar = (post != null && post.postId != newestPostId);
+            long firstPostId = getPostAdapter().getItemPostId(0);
+            showNewPostsBar = (firstPostId != 0 && firstPostId != newestPostId);
         } else {
             showNewPostsBar = false;
         }
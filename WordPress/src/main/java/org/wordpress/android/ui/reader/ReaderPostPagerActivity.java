@@ -64,6 +64,8 @@ public class ReaderPostPagerActivity extends ActionBarActivity
     private boolean mIsRequestingMorePosts;
     private boolean mIsSinglePostView;
 
+    private ReaderPostPrefetcher mPrefetcher;
+
     private static final String ARG_IS_SINGLE_POST = "is_single_post";
 
     @Override
@@ -84,6 +86,7 @@ public class ReaderPostPagerActivity extends ActionBarActivity
 
         mViewPager = (ReaderViewPager) findViewById(R.id.viewpager);
         mProgress = (ProgressBar) findViewById(R.id.progress_loading);
+        mPrefetcher = new ReaderPostPrefetcher(this);
 
         final String title;
         if (savedInstanceState != null) {
@@ -124,6 +127,7 @@ public class ReaderPostPagerActivity extends ActionBarActivity
                 super.onPageSelected(position);
                 AnalyticsTracker.track(AnalyticsTracker.Stat.READER_OPENED_ARTICLE);
                 onShowHideToolbar(true);
+                prefetchPostsAround(position);
             }
 
             @Override
@@ -159,6 +163,22 @@ public class ReaderPostPagerActivity extends ActionBarActivity
         EventBus.getDefault().unregister(this);
     }
 
+    @Override
+    protected void onDestroy() {
+        mPrefetcher.cancelAll();
+        super.onDestroy();
+    }
+
+    /*
+     * prerender the posts around the one at the passed position so they can be shown as soon
+     * as the user swipes to them
+     */
+    private void prefetchPostsAround(int position) {
+        if (hasPagerAdapter() && !mIsSinglePostView) {
+            mPrefetcher.prefetchAround(getPagerAdapter().mIdList, position);
+        }
+    }
+
     private boolean hasPagerAdapter() {
         return (mViewPager != null && mViewPager.getAdapter() != null);
     }
@@ -249,6 +269,7 @@ public class ReaderPostPagerActivity extends ActionBarActivity
                         } else if (adapter.isValidPosition(currentPosition)) {
                             mViewPager.setCurrentItem(currentPosition);
                         }
+                        prefetchPostsAround(mViewPager.getCurrentItem());
                     }
                 });
             }
@@ -0,0 +1,143 @@
+package org.wordpress.android.ui.reader;
+
+import android.content.Context;
+
+import org.wordpress.android.datasets.ReaderPostTable;
+import org.wordpress.android.models.ReaderPost;
+import org.wordpress.android.ui.reader.models.ReaderBlogIdPostId;
+import org.wordpress.android.ui.reader.models.ReaderBlogIdPostIdList;
+import org.wordpress.android.util.AppLog;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * used by ReaderPostPagerActivity to prerender the posts before and after the one being shown,
+ * so swiping to them shows their content without waiting for it to be rendered - posts are
+ * rendered on ReaderScheduler's visible lane, closest first, and prerendering stops once the
+ * prerendered posts reach MAX_PRERENDER_CHARS so they don't evict each other (or the post being
+ * shown) from the render cache. Prerenders of posts that are no longer close to the one being
+ * shown are cancelled. Must be used from the main thread.
+ */
+class ReaderPostPrefetcher {
+    // # of posts to prerender before and after the one being shown
+    private static final int PREFETCH_DISTANCE = 3;
+    private static final int MAX_PRERENDER_CHARS = ReaderPostRenderer.MAX_RENDER_CACHE_CHARS / 2;
+
+    private final ReaderResourceVars mResourceVars;
+    private final Map<String, ReaderScheduler.Task<String>> mTasks =
+            new HashMap<String, ReaderScheduler.Task<String>>();
+    // # of chars of each prerendered post, written by the render threads
+    private final Map<String, Integer> mPrerenderedChars = new ConcurrentHashMap<String, Integer>();
+
+    ReaderPostPrefetcher(Context context) {
+        // must use the same resource vars as the detail fragments so the rendered HTML matches
+        mResourceVars = new ReaderResourceVars(context);
+    }
+
+    private static String getTaskKey(ReaderBlogIdPostId id) {
+        return id.getBlogId() + ":" + id.getPostId();
+    }
+
+    /*
+     * prerenders the posts before and after the one at the passed position, and cancels
+     * prerendering the posts that are no longer close to it
+     */
+    void prefetchAround(ReaderBlogIdPostIdList ids, int position) {
+        if (ids == null || position < 0 || position >= ids.size()) {
+            return;
+        }
+
+        // closest posts first, next before previous since users usually swipe forward
+        Set<ReaderBlogIdPostId> prefetchIds = new LinkedHashSet<ReaderBlogIdPostId>();
+        for (int distance = 1; distance <= PREFETCH_DISTANCE; distance++) {
+            if (position + distance < ids.size()) {
+                prefetchIds.add(ids.get(position + distance));
+            }
+            if (position - distance >= 0) {
+                prefetchIds.add(ids.get(position - distance));
+            }
+        }
+        Set<String> prefetchKeys = new LinkedHashSet<String>();
+        for (ReaderBlogIdPostId id : prefetchIds) {
+            prefetchKeys.add(getTaskKey(id));
+        }
+
+        // the post being shown is rendered by its fragment, and the ones too far from it are
+        // no longer needed
+        Iterator<Map.Entry<String, ReaderScheduler.Task<String>>> iterator = mTasks.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, ReaderScheduler.Task<String>> entry = iterator.next();
+            if (!prefetchKeys.contains(entry.getKey())) {
+                entry.getValue().cancel(true);
+                iterator.remove();
+            }
+        }
+        mPrerenderedChars.keySet().retainAll(prefetchKeys);
+
+        int priority = ReaderPostRenderer.PRIORITY_VISIBLE;
+        for (ReaderBlogIdPostId id : prefetchIds) {
+            priority++;
+            String key = getTaskKey(id);
+            // posts that were skipped because the budget was reached are retried
+            ReaderScheduler.Task<String> existingTask = mTasks.get(key);
+            boolean isPrerenderedOrPending = existingTask != null
+                    && (!existingTask.isDone() || mPrerenderedChars.containsKey(key));
+            if (!isPrerenderedOrPending) {
+                ReaderScheduler.Task<String> task = ReaderScheduler.submit(ReaderScheduler.Lane.VISIBLE,
+                        priority, new PrerenderCallable(id.getBlogId(), id.getPostId(), key));
+                mTasks.put(key, task);
+            }
+        }
+    }
+
+    void cancelAll() {
+        for (ReaderScheduler.Task<String> task : mTasks.values()) {
+            task.cancel(true);
+        }
+        mTasks.clear();
+        mPrerenderedChars.clear();
+    }
+
+    private int getPrerenderedChars() {
+        int total = 0;
+        for (Integer numChars : mPrerenderedChars.values()) {
+            total += numChars;
+        }
+        return total;
+    }
+
+    private class PrerenderCallable implements Callable<String> {
+        private final long mBlogId;
+        private final long mPostId;
+        private final String mKey;
+
+        PrerenderCallable(long blogId, long postId, String key) {
+            mBlogId = blogId;
+            mPostId = postId;
+            mKey = key;
+        }
+
+        @Override
+        public String call() {
+            if (getPrerenderedChars() >= MAX_PRERENDER_CHARS) {
+                AppLog.d(AppLog.T.READER, "reader prefetcher > prerender budget reached");
+                return null;
+            }
+
+            ReaderPost post = ReaderPostTable.getPost(mBlogId, mPostId, false);
+            if (post == null || Thread.currentThread().isInterrupted()) {
+                return null;
+            }
+
+            String html = ReaderPostRenderer.prerender(mResourceVars, post);
+            mPrerenderedChars.put(mKey, html.length());
+            return html;
+        }
+    }
+}
@@ -3,14 +3,14 @@ package org.wordpress.android.ui.reader;
 import android.annotation.SuppressLint;
 import android.net.Uri;
 import android.os.Handler;
+import android.support.v4.util.LruCache;
 
 import org.wordpress.android.WordPress;
 import org.wordpress.android.models.ReaderPost;
 import org.wordpress.android.ui.reader.utils.ImageSizeMap;
 import org.wordpress.android.ui.reader.utils.ImageSizeMap.ImageSize;
 import org.wordpress.android.ui.reader.utils.ReaderHtmlUtils;
-import org.wordpress.android.ui.reader.utils.ReaderIframeScanner;
-import org.wordpress.android.ui.reader.utils.ReaderImageScanner;
+import org.wordpress.android.ui.reader.utils.ReaderHtmlRewriter;
 import org.wordpress.android.ui.reader.utils.ReaderUtils;
 import org.wordpress.android.ui.reader.views.ReaderWebView;
 import org.wordpress.android.util.AppLog;
@@ -19,6 +19,7 @@ import org.wordpress.android.util.PhotonUtils;
 import org.wordpress.android.util.StringUtils;
 
 import java.lang.ref.WeakReference;
+import java.util.concurrent.Callable;
 
 /**
  * generates and displays the HTML for post detail content - main purpose is to assign the
@@ -28,8 +29,27 @@ import java.lang.ref.WeakReference;
  * important to note that displayed images rely on dp rather than px sizes due to the
  * fact that WebView "converts CSS pixel values to density-independent pixel values"
  * http://developer.android.com/guide/webapps/targeting.html
+ *
+ * the rendered HTML is cached by post and content width, so re-opening a post shows it
+ * without rendering it again - posts can also be prerendered into the cache before they're
+ * shown, see ReaderPostPrefetcher
  */
 class ReaderPostRenderer {
+    // max # of chars in the rendered HTML cache (~2MB)
+    static final int MAX_RENDER_CACHE_CHARS = 1024 * 1024;
+
+    // priority of rendering a post that's being shown on ReaderScheduler's visible lane,
+    // prerendered posts use their distance from the post being shown so the closest ones are
+    // rendered first
+    static final int PRIORITY_VISIBLE = ReaderScheduler.PRIORITY_DEFAULT;
+
+    private static final LruCache<String, String> sRenderCache =
+            new LruCache<String, String>(MAX_RENDER_CACHE_CHARS) {
+                @Override
+                protected int sizeOf(String key, String html) {
+                    return html.length();
+                }
+            };
 
     private final ReaderResourceVars mResourceVars;
     private final ReaderPost mPost;
@@ -37,13 +57,23 @@ class ReaderPostRenderer {
     private final int mMinMidSizeWidthDp;
     private final WeakReference<ReaderWebView> mWeakWebView;
 
-    private StringBuilder mRenderBuilder;
     private String mRenderedHtml;
     private ImageSizeMap mAttachmentSizes;
 
     @SuppressLint("SetJavaScriptEnabled")
     ReaderPostRenderer(ReaderWebView webView, ReaderPost post) {
-        if (webView == null) {
+        this(webView, (webView != null ? new ReaderResourceVars(webView.getContext()) : null), post);
+
+        // enable JavaScript in the webView if it's safe to do so, otherwise videos
+        // and other embedded content won't work
+        webView.getSettings().setJavaScriptEnabled(canEnableJavaScript());
+    }
+
+    /*
+     * used when prerendering, in which case there's no webView
+     */
+    private ReaderPostRenderer(ReaderWebView webView, ReaderResourceVars resourceVars, ReaderPost post) {
+        if (webView == null && resourceVars == null) {
             throw new IllegalArgumentException("ReaderPostRenderer requires a webView");
         }
         if (post == null) {
@@ -52,72 +82,79 @@ class ReaderPostRenderer {
 
         mPost = post;
         mWeakWebView = new WeakReference<>(webView);
-        mResourceVars = new ReaderResourceVars(webView.getContext());
+        mResourceVars = resourceVars;
 
         mMinFullSizeWidthDp = pxToDp(mResourceVars.fullSizeImageWidthPx / 3);
         mMinMidSizeWidthDp = mMinFullSizeWidthDp / 2;
-
-        // enable JavaScript in the webView if it's safe to do so, otherwise videos
-        // and other embedded content won't work
-        webView.getSettings().setJavaScriptEnabled(canEnableJavaScript());
     }
 
     void beginRender() {
-        final Handler handler = new Handler();
-        mRenderBuilder = new StringBuilder(getPostContent());
+        String cachedHtml = sRenderCache.get(getRenderCacheKey());
+        if (cachedHtml != null) {
+            renderHtmlContent(cachedHtml);
+            return;
+        }
 
-        new Thread() {
+        final Handler handler = new Handler();
+        ReaderScheduler.submit(ReaderScheduler.Lane.VISIBLE, PRIORITY_VISIBLE, new Callable<String>() {
             @Override
-            public void run() {
-                resizeImages();
-                resizeIframes();
-
-                final String htmlContent = formatPostContentForWebView(mRenderBuilder.toString());
-                mRenderBuilder = null;
+            public String call() {
+                final String htmlContent = renderToCache();
                 handler.post(new Runnable() {
                     @Override
                     public void run() {
                         renderHtmlContent(htmlContent);
                     }
                 });
+                return htmlContent;
             }
-        }.start();
+        });
     }
 
     /*
-     * scan the content for images and make sure they're correctly sized for the device
+     * renders the passed post and adds the result to the cache without showing it, returns the
+     * rendered HTML - must be called from a background thread
      */
-    void resizeImages() {
-        ReaderHtmlUtils.HtmlScannerListener imageListener = new ReaderHtmlUtils.HtmlScannerListener() {
-            @Override
-            public void onTagFound(String imageTag, String imageUrl, int start, int end) {
-                replaceImageTag(imageTag, imageUrl);
-            }
-            @Override
-            public void onScanCompleted() {
-                // nop
-            }
-        };
-        ReaderImageScanner scanner = new ReaderImageScanner(mRenderBuilder.toString(), mPost.isPrivate);
-        scanner.beginScan(imageListener);
+    static String prerender(ReaderResourceVars resourceVars, ReaderPost post) {
+        return new ReaderPostRenderer(null, resourceVars, post).renderToCache();
+    }
+
+    private String renderToCache() {
+        String cacheKey = getRenderCacheKey();
+        String htmlContent = sRenderCache.get(cacheKey);
+        if (htmlContent == null) {
+            String content = ReaderHtmlRewriter.rewrite(getPostContent(), mTagRewriter);
+            htmlContent = formatPostContentForWebView(content);
+            sRenderCache.put(cacheKey, htmlContent);
+        }
+        return htmlContent;
     }
 
     /*
-     * scan the content for iframes and make sure they're correctly sized for the device
+     * replaces image and iframe tags with ones that are correctly sized for the device
      */
-    void resizeIframes() {
-        ReaderHtmlUtils.HtmlScannerListener iframeListener = new ReaderHtmlUtils.HtmlScannerListener() {
-            @Override
-            public void onTagFound(String tag, String src, int start, int end) {
-                replaceIframeTag(tag, src);
-            }
-            @Override
-            public void onScanCompleted() {
-                // nop
-            }
-        };
-        ReaderIframeScanner scanner = new ReaderIframeScanner(mRenderBuilder.toString());
-        scanner.beginScan(iframeListener);
+    private final ReaderHtmlRewriter.TagRewriter mTagRewriter = new ReaderHtmlRewriter.TagRewriter() {
+        @Override
+        public String rewriteImageTag(String imageTag, String imageUrl) {
+            return getNewImageTag(imageTag, imageUrl);
+        }
+        @Override
+        public String rewriteIframeTag(String iframeTag, String src) {
+            return getNewIframeTag(iframeTag, src);
+        }
+    };
+
+    /*
+     * returns the key for this post in the rendered HTML cache - the rendered HTML depends on the
+     * content width (which changes with orientation) and on the post's content, so both are
+     * part of the key
+     */
+    private String getRenderCacheKey() {
+        int contentHash = mPost.getText().hashCode();
+        contentHash = 31 * contentHash + mPost.getFeaturedImage().hashCode();
+        contentHash = 31 * contentHash + mPost.getAttachmentsJson().hashCode();
+        contentHash = 31 * contentHash + (mPost.isPrivate ? 1 : 0);
+        return mPost.blogId + ":" + mPost.postId + ":" + mResourceVars.fullSizeImageWidthPx + ":" + contentHash;
     }
 
     /*
@@ -141,11 +178,11 @@ class ReaderPostRenderer {
     }
 
     /*
-     * called when image scanner finds an image, tries to replace the image tag with one that
-     * has height & width attributes set correctly for the current display, if that fails
-     * replaces it with one that has our 'size-none' class
+     * returns an image tag to replace the passed one with, that has height & width attributes
+     * set correctly for the current display - if that fails returns one that has our
+     * 'size-none' class
      */
-    private void replaceImageTag(final String imageTag, final String imageUrl) {
+    private String getNewImageTag(final String imageTag, final String imageUrl) {
         ImageSize origSize = getImageSize(imageTag, imageUrl);
         boolean hasWidth = (origSize != null && origSize.width > 0);
         boolean isFullSize = hasWidth && (origSize.width >= mMinFullSizeWidthDp);
@@ -153,24 +190,15 @@ class ReaderPostRenderer {
                 && (origSize.width >= mMinMidSizeWidthDp)
                 && (origSize.width < mMinFullSizeWidthDp);
 
-        final String newImageTag;
         if (isFullSize) {
-            newImageTag = makeFullSizeImageTag(imageUrl, origSize.width, origSize.height);
+            return makeFullSizeImageTag(imageUrl, origSize.width, origSize.height);
         } else if (isMidSize) {
-            newImageTag = makeImageTag(imageUrl, origSize.width, origSize.height, "size-medium");
+            return makeImageTag(imageUrl, origSize.width, origSize.height, "size-medium");
         } else if (hasWidth) {
-            newImageTag = makeImageTag(imageUrl, origSize.width, origSize.height, "size-none");
+            return makeImageTag(imageUrl, origSize.width, origSize.height, "size-none");
         } else {
-            newImageTag = "<img class='size-none' src='" + imageUrl + "' />";
-        }
-
-        int start = mRenderBuilder.indexOf(imageTag);
-        if (start == -1) {
-            AppLog.w(AppLog.T.READER, "reader renderer > image not found in builder");
-            return;
+            return "<img class='size-none' src='" + imageUrl + "' />";
         }
-
-        mRenderBuilder.replace(start, start + imageTag.length(), newImageTag);
     }
 
     private String makeImageTag(final String imageUrl, int width, int height, final String imageClass) {
@@ -255,9 +283,9 @@ class ReaderPostRenderer {
     }
 
     /*
-     * replace the passed iframe tag with one that's correctly sized for the device
+     * returns an iframe tag to replace the passed one with, that's correctly sized for the device
      */
-    private void replaceIframeTag(final String tag, final String src) {
+    private String getNewIframeTag(final String tag, final String src) {
         int width = ReaderHtmlUtils.getWidthAttrValue(tag);
         int height = ReaderHtmlUtils.getHeightAttrValue(tag);
 
@@ -272,19 +300,11 @@ class ReaderPostRenderer {
             newHeight = mResourceVars.videoHeightPx;
         }
 
-        String newTag = new StringBuilder("<iframe src='").append(src).append("'")
+        return new StringBuilder("<iframe src='").append(src).append("'")
                 .append(" frameborder='0' allowfullscreen='true' allowtransparency='true'")
                 .append(" width='").append(pxToDp(newWidth)).append("'")
                 .append(" height='").append(pxToDp(newHeight)).append("' />")
                 .toString();
-
-        int start = mRenderBuilder.indexOf(tag);
-        if (start == -1) {
-            AppLog.w(AppLog.T.READER, "reader renderer > iframe not found in builder");
-            return;
-        }
-
-        mRenderBuilder.replace(start, start + tag.length(), newTag);
     }
 
     /*
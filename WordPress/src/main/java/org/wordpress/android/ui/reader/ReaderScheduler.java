@@ -0,0 +1,294 @@
+package org.wordpress.android.ui.reader;
+
+import android.os.Process;
+import android.os.SystemClock;
+
+import org.wordpress.android.util.AppLog;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * runs the Reader's background work in separate lanes so slow sync or maintenance work never
+ * delays work the user is waiting on - each lane has its own fixed-size pool whose threads time
+ * out when idle, and runs its tasks in order of priority, then in the order they're submitted.
+ * Tasks submitted with a key are coalesced: submitting a task while another with the same key
+ * is still waiting in the same lane returns the waiting task rather than queuing the same work
+ * twice. Per-lane queue depth and latency are available from getStats().
+ */
+public class ReaderScheduler {
+    public enum Lane {
+        // work the user is waiting on, ex: rendering the post being shown
+        VISIBLE(2, Process.THREAD_PRIORITY_BACKGROUND + Process.THREAD_PRIORITY_MORE_FAVORABLE),
+        // writing the results of updates to the db
+        SYNC(2, Process.THREAD_PRIORITY_BACKGROUND),
+        // housekeeping nobody is waiting on, ex: purging the db
+        MAINTENANCE(1, Process.THREAD_PRIORITY_LOWEST);
+
+        private final int mNumThreads;
+        private final int mThreadPriority;
+
+        Lane(int numThreads, int threadPriority) {
+            mNumThreads = numThreads;
+            mThreadPriority = threadPriority;
+        }
+    }
+
+    // lower values run first
+    public static final int PRIORITY_DEFAULT = 0;
+
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private static final Map<Lane, LaneExecutor> sExecutors = new EnumMap<Lane, LaneExecutor>(Lane.class);
+    static {
+        for (Lane lane : Lane.values()) {
+            sExecutors.put(lane, new LaneExecutor(lane));
+        }
+    }
+
+    public static Task<Void> submit(Lane lane, Runnable runnable) {
+        return submit(lane, null, runnable);
+    }
+
+    public static Task<Void> submit(Lane lane, String key, Runnable runnable) {
+        return submit(lane, key, PRIORITY_DEFAULT, new RunnableCallable(runnable));
+    }
+
+    public static <V> Task<V> submit(Lane lane, int priority, Callable<V> callable) {
+        return submit(lane, null, priority, callable);
+    }
+
+    /*
+     * runs the passed callable on the passed lane - if a key is passed and a task with the same
+     * key is waiting to run on that lane, that task is returned and the callable is dropped
+     */
+    @SuppressWarnings("unchecked")
+    public static <V> Task<V> submit(Lane lane, String key, int priority, Callable<V> callable) {
+        if (lane == null || callable == null) {
+            throw new IllegalArgumentException("ReaderScheduler requires a lane and a task");
+        }
+        LaneExecutor executor = sExecutors.get(lane);
+        Task<V> task = new Task<V>(executor, key, priority, callable);
+        if (key != null) {
+            Task<?> pendingTask = executor.mPendingTasks.putIfAbsent(key, task);
+            if (pendingTask != null) {
+                executor.mNumCoalesced.incrementAndGet();
+                return (Task<V>) pendingTask;
+            }
+        }
+        executor.mNumSubmitted.incrementAndGet();
+        executor.mPool.execute(task);
+        return task;
+    }
+
+    public static LaneStats getStats(Lane lane) {
+        return new LaneStats(lane, sExecutors.get(lane));
+    }
+
+    public static class Task<V> extends FutureTask<V> implements Comparable<Task<?>> {
+        private static final AtomicLong sNextSequence = new AtomicLong(1);
+
+        private final LaneExecutor mExecutor;
+        private final String mKey;
+        private final int mPriority;
+        private final long mSequence;
+        private final long mSubmittedAt;
+
+        private Task(LaneExecutor executor, String key, int priority, Callable<V> callable) {
+            super(callable);
+            mExecutor = executor;
+            mKey = key;
+            mPriority = priority;
+            mSequence = sNextSequence.getAndIncrement();
+            mSubmittedAt = SystemClock.elapsedRealtime();
+        }
+
+        @Override
+        public void run() {
+            // once the task starts, submitting the same work again must queue it since this
+            // task may have already read the state the new work depends on
+            removePending();
+            if (isCancelled()) {
+                return;
+            }
+            long startedAt = SystemClock.elapsedRealtime();
+            mExecutor.recordWait(startedAt - mSubmittedAt);
+            super.run();
+            mExecutor.recordRun(SystemClock.elapsedRealtime() - startedAt);
+        }
+
+        @Override
+        protected void done() {
+            removePending();
+            // FutureTask keeps the exception thrown by the task, so make sure it's not lost
+            if (!isCancelled()) {
+                try {
+                    get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    AppLog.e(AppLog.T.READER, "reader scheduler > task failed", e.getCause());
+                }
+            }
+        }
+
+        private void removePending() {
+            if (mKey != null) {
+                mExecutor.mPendingTasks.remove(mKey, this);
+            }
+        }
+
+        @Override
+        public int compareTo(Task<?> another) {
+            if (mPriority != another.mPriority) {
+                return mPriority < another.mPriority ? -1 : 1;
+            }
+            return mSequence < another.mSequence ? -1 : (mSequence == another.mSequence ? 0 : 1);
+        }
+    }
+
+    /*
+     * snapshot of the activity of a lane since the app started
+     */
+    public static class LaneStats {
+        private final Lane mLane;
+        private final int mQueueDepth;
+        private final int mNumActive;
+        private final long mNumSubmitted;
+        private final long mNumCoalesced;
+        private final long mNumCompleted;
+        private final long mAvgWaitMs;
+        private final long mMaxWaitMs;
+        private final long mAvgRunMs;
+
+        private LaneStats(Lane lane, LaneExecutor executor) {
+            mLane = lane;
+            mQueueDepth = executor.mPool.getQueue().size();
+            mNumActive = executor.mPool.getActiveCount();
+            mNumSubmitted = executor.mNumSubmitted.get();
+            mNumCoalesced = executor.mNumCoalesced.get();
+            mNumCompleted = executor.mNumCompleted.get();
+            mAvgWaitMs = mNumCompleted > 0 ? executor.mTotalWaitMs.get() / mNumCompleted : 0;
+            mMaxWaitMs = executor.mMaxWaitMs.get();
+            mAvgRunMs = mNumCompleted > 0 ? executor.mTotalRunMs.get() / mNumCompleted : 0;
+        }
+
+        public Lane getLane() {
+            return mLane;
+        }
+
+        /*
+         * # of tasks waiting to run, including cancelled ones which haven't been dequeued yet
+         */
+        public int getQueueDepth() {
+            return mQueueDepth;
+        }
+
+        public int getNumActive() {
+            return mNumActive;
+        }
+
+        public long getNumSubmitted() {
+            return mNumSubmitted;
+        }
+
+        public long getNumCoalesced() {
+            return mNumCoalesced;
+        }
+
+        public long getNumCompleted() {
+            return mNumCompleted;
+        }
+
+        /*
+         * time tasks waited in the queue before running
+         */
+        public long getAvgWaitMs() {
+            return mAvgWaitMs;
+        }
+
+        public long getMaxWaitMs() {
+            return mMaxWaitMs;
+        }
+
+        public long getAvgRunMs() {
+            return mAvgRunMs;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%s: %d queued, %d active, %d submitted, %d coalesced, %d completed, "
+                    + "wait avg %d ms max %d ms, run avg %d ms", mLane.name(), mQueueDepth, mNumActive,
+                    mNumSubmitted, mNumCoalesced, mNumCompleted, mAvgWaitMs, mMaxWaitMs, mAvgRunMs);
+        }
+    }
+
+    private static class LaneExecutor {
+        private final ThreadPoolExecutor mPool;
+        private final ConcurrentHashMap<String, Task<?>> mPendingTasks = new ConcurrentHashMap<String, Task<?>>();
+
+        private final AtomicLong mNumSubmitted = new AtomicLong();
+        private final AtomicLong mNumCoalesced = new AtomicLong();
+        private final AtomicLong mNumCompleted = new AtomicLong();
+        private final AtomicLong mTotalWaitMs = new AtomicLong();
+        private final AtomicLong mMaxWaitMs = new AtomicLong();
+        private final AtomicLong mTotalRunMs = new AtomicLong();
+
+        LaneExecutor(final Lane lane) {
+            mPool = new ThreadPoolExecutor(lane.mNumThreads, lane.mNumThreads, KEEP_ALIVE_SECONDS,
+                    TimeUnit.SECONDS, new PriorityBlockingQueue<Runnable>(), new ThreadFactory() {
+                        private final AtomicInteger mThreadCount = new AtomicInteger(1);
+
+                        @Override
+                        public Thread newThread(final Runnable runnable) {
+                            return new Thread(new Runnable() {
+                                @Override
+                                public void run() {
+                                    Process.setThreadPriority(lane.mThreadPriority);
+                                    runnable.run();
+                                }
+                            }, "ReaderScheduler " + lane.name() + " #" + mThreadCount.getAndIncrement());
+                        }
+                    });
+            mPool.allowCoreThreadTimeOut(true);
+        }
+
+        void recordWait(long waitMs) {
+            mTotalWaitMs.addAndGet(waitMs);
+            long maxWaitMs = mMaxWaitMs.get();
+            while (waitMs > maxWaitMs && !mMaxWaitMs.compareAndSet(maxWaitMs, waitMs)) {
+                maxWaitMs = mMaxWaitMs.get();
+            }
+        }
+
+        void recordRun(long runMs) {
+            mTotalRunMs.addAndGet(runMs);
+            mNumCompleted.incrementAndGet();
+        }
+    }
+
+    private static class RunnableCallable implements Callable<Void> {
+        private final Runnable mRunnable;
+
+        RunnableCallable(Runnable runnable) {
+            mRunnable = runnable;
+        }
+
+        @Override
+        public Void call() {
+            mRunnable.run();
+            return null;
+        }
+    }
+}
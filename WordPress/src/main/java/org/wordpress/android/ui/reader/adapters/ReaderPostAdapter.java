@@ -26,6 +26,8 @@ import org.wordpress.android.ui.reader.ReaderTypes;
 import org.wordpress.android.ui.reader.actions.ReaderActions;
 import org.wordpress.android.ui.reader.actions.ReaderBlogActions;
 import org.wordpress.android.ui.reader.actions.ReaderPostActions;
+import org.wordpress.android.ui.reader.models.ReaderPostKey;
+import org.wordpress.android.ui.reader.models.ReaderPostKeyList;
 import org.wordpress.android.ui.reader.views.ReaderFollowButton;
 import org.wordpress.android.ui.reader.views.ReaderIconCountView;
 import org.wordpress.android.util.AppLog;
@@ -34,6 +36,8 @@ import org.wordpress.android.util.DisplayUtils;
 import org.wordpress.android.util.ToastUtils;
 import org.wordpress.android.widgets.WPNetworkImageView;
 
+import java.util.Set;
+
 public class ReaderPostAdapter extends RecyclerView.Adapter<ReaderPostAdapter.ReaderPostViewHolder> {
     private ReaderTag mCurrentTag;
     private long mCurrentBlogId;
@@ -46,7 +50,7 @@ public class ReaderPostAdapter extends RecyclerView.Adapter<ReaderPostAdapter.Re
     private boolean mCanRequestMorePosts = false;
 
     private final ReaderTypes.ReaderPostListType mPostListType;
-    private final ReaderPostList mPosts = new ReaderPostList();
+    private final ReaderPostWindow mPosts;
 
     private ReaderInterfaces.OnPostSelectedListener mPostSelectedListener;
     private ReaderInterfaces.OnTagSelectedListener mOnTagSelectedListener;
@@ -112,7 +116,20 @@ public class ReaderPostAdapter extends RecyclerView.Adapter<ReaderPostAdapter.Re
 
     @Override
     public void onBindViewHolder(final ReaderPostViewHolder holder, final int position) {
-        final ReaderPost post = mPosts.get(position);
+        // if we're nearing the end of the posts, fire request to load more
+        if (mCanRequestMorePosts && mDataRequestedListener != null && (position >= getItemCount() - 1)) {
+            mDataRequestedListener.onRequestData();
+        }
+
+        // the post may not be loaded yet, in which case the card is hidden until its page is loaded
+        final ReaderPost post = mPosts.getPost(position);
+        if (post == null) {
+            holder.itemView.setVisibility(View.INVISIBLE);
+            holder.itemView.setOnClickListener(null);
+            return;
+        }
+        holder.itemView.setVisibility(View.VISIBLE);
+
         ReaderTypes.ReaderPostListType postListType = getPostListType();
 
         holder.txtTitle.setText(post.getTitle());
@@ -268,11 +285,6 @@ public class ReaderPostAdapter extends RecyclerView.Adapter<ReaderPostAdapter.Re
             holder.imgMore.setOnClickListener(null);
         }
 
-        // if we're nearing the end of the posts, fire request to load more
-        if (mCanRequestMorePosts && mDataRequestedListener != null && (position >= getItemCount() - 1)) {
-            mDataRequestedListener.onRequestData();
-        }
-
         if (mPostSelectedListener != null) {
             holder.itemView.setOnClickListener(new View.OnClickListener() {
                 @Override
@@ -289,6 +301,33 @@ public class ReaderPostAdapter extends RecyclerView.Adapter<ReaderPostAdapter.Re
         super();
 
         mPostListType = postListType;
+        mPosts = new ReaderPostWindow(this, new ReaderPostWindow.PostSource() {
+            @Override
+            public ReaderPostKeyList getPostKeys() {
+                switch (getPostListType()) {
+                    case TAG_PREVIEW:
+                    case TAG_FOLLOWED:
+                        return ReaderPostTable.getPostKeysWithTag(mCurrentTag, MAX_ROWS);
+                    case BLOG_PREVIEW:
+                        return ReaderPostTable.getPostKeysInBlog(mCurrentBlogId, MAX_ROWS);
+                    default:
+                        return new ReaderPostKeyList();
+                }
+            }
+
+            @Override
+            public ReaderPostList getPostsFrom(ReaderPostKey fromKey, int maxPosts) {
+                switch (getPostListType()) {
+                    case TAG_PREVIEW:
+                    case TAG_FOLLOWED:
+                        return ReaderPostTable.getPostsWithTagFrom(mCurrentTag, fromKey, maxPosts, EXCLUDE_TEXT_COLUMN);
+                    case BLOG_PREVIEW:
+                        return ReaderPostTable.getPostsInBlogFrom(mCurrentBlogId, fromKey, maxPosts, EXCLUDE_TEXT_COLUMN);
+                    default:
+                        return new ReaderPostList();
+                }
+            }
+        });
         mAvatarSz = context.getResources().getDimensionPixelSize(R.dimen.avatar_sz_medium);
         mMarginLarge = context.getResources().getDimensionPixelSize(R.dimen.margin_large);
 
@@ -349,7 +388,7 @@ public class ReaderPostAdapter extends RecyclerView.Adapter<ReaderPostAdapter.Re
     }
 
     private void clear() {
-        if (!mPosts.isEmpty()) {
+        if (!isEmpty()) {
             mPosts.clear();
             notifyDataSetChanged();
         }
@@ -379,9 +418,10 @@ public class ReaderPostAdapter extends RecyclerView.Adapter<ReaderPostAdapter.Re
     }
 
     public void removePostsInBlog(long blogId) {
-        ReaderPostList postsInBlog = mPosts.getPostsInBlog(blogId);
-        for (ReaderPost post : postsInBlog) {
-            removePost(post);
+        for (int i = getItemCount() - 1; i >= 0; i--) {
+            if (mPosts.getKey(i).getBlogId() == blogId) {
+                removeItem(i);
+            }
         }
     }
 
@@ -396,13 +436,16 @@ public class ReaderPostAdapter extends RecyclerView.Adapter<ReaderPostAdapter.Re
 
         final ReaderPost updatedPost = ReaderPostTable.getPost(post.blogId, post.postId, true);
         if (updatedPost != null) {
-            mPosts.set(index, updatedPost);
-            notifyDataSetChanged();
+            mPosts.setPost(index, updatedPost);
+            notifyItemChanged(index);
         }
     }
 
     int indexOfPost(ReaderPost post) {
-        return mPosts.indexOfPost(post);
+        if (post == null) {
+            return -1;
+        }
+        return mPosts.indexOfPost(post.blogId, post.postId);
     }
 
     /*
@@ -426,7 +469,8 @@ public class ReaderPostAdapter extends RecyclerView.Adapter<ReaderPostAdapter.Re
         boolean followStatus = post.isFollowedByCurrentUser;
         boolean isMatched;
 
-        for (ReaderPost thisPost : mPosts) {
+        // only the posts in memory need updating, the others will be loaded with the new status
+        for (ReaderPost thisPost : mPosts.getCachedPosts()) {
             if (hasBlogId) {
                 isMatched = (blogId == thisPost.blogId && skipPostId != thisPost.postId);
             } else {
@@ -434,7 +478,7 @@ public class ReaderPostAdapter extends RecyclerView.Adapter<ReaderPostAdapter.Re
             }
             if (isMatched && thisPost.isFollowedByCurrentUser != followStatus) {
                 thisPost.isFollowedByCurrentUser = followStatus;
-                int position = mPosts.indexOfPost(thisPost);
+                int position = indexOfPost(thisPost);
                 if (position > -1) {
                     notifyItemChanged(position);
                 }
@@ -450,11 +494,21 @@ public class ReaderPostAdapter extends RecyclerView.Adapter<ReaderPostAdapter.Re
         new LoadPostsTask().executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR);
     }
 
+    /*
+     * returns the post at the passed position, or null if it isn't loaded yet
+     */
     public ReaderPost getItem(int position) {
+        return mPosts.peekPost(position);
+    }
+
+    /*
+     * returns the id of the post at the passed position, even if the post isn't loaded yet
+     */
+    public long getItemPostId(int position) {
         if (isValidPosition(position)) {
-            return mPosts.get(position);
+            return mPosts.getKey(position).getPostId();
         } else {
-            return null;
+            return 0;
         }
     }
 
@@ -473,7 +527,7 @@ public class ReaderPostAdapter extends RecyclerView.Adapter<ReaderPostAdapter.Re
 
     @Override
     public long getItemId(int position) {
-        return mPosts.get(position).getStableId();
+        return mPosts.getKey(position).getStableId();
     }
 
     /*
@@ -515,7 +569,7 @@ public class ReaderPostAdapter extends RecyclerView.Adapter<ReaderPostAdapter.Re
         // update post in array and on screen
         ReaderPost updatedPost = ReaderPostTable.getPost(post.blogId, post.postId, true);
         if (updatedPost != null) {
-            mPosts.set(position, updatedPost);
+            mPosts.setPost(position, updatedPost);
             holder.likeCount.setSelected(updatedPost.isLikedByCurrentUser);
             showCounts(holder, updatedPost, true);
         }
@@ -547,7 +601,7 @@ public class ReaderPostAdapter extends RecyclerView.Adapter<ReaderPostAdapter.Re
         if (ReaderBlogActions.followBlogForPost(post, isAskingToFollow, actionListener)) {
             ReaderPost updatedPost = ReaderPostTable.getPost(post.blogId, post.postId, true);
             if (updatedPost != null) {
-                mPosts.set(position, updatedPost);
+                mPosts.setPost(position, updatedPost);
                 copyBlogFollowStatus(updatedPost);
             }
         }
@@ -563,16 +617,20 @@ public class ReaderPostAdapter extends RecyclerView.Adapter<ReaderPostAdapter.Re
     }
 
     /*
-     * AsyncTask to load posts in the current tag
+     * AsyncTask to load the keys of the posts in the current tag or blog, along with the posts
+     * that are in memory (or the first page of posts if none are)
      */
     private boolean mIsTaskRunning = false;
 
     private class LoadPostsTask extends AsyncTask<Void, Void, Boolean> {
-        ReaderPostList allPosts;
+        private Set<String> cachedPostKeys;
+        private ReaderPostKeyList allKeys;
+        private ReaderPostList reloadedPosts;
 
         @Override
         protected void onPreExecute() {
             mIsTaskRunning = true;
+            cachedPostKeys = mPosts.getCachedPostKeys();
         }
 
         @Override
@@ -586,19 +644,22 @@ public class ReaderPostAdapter extends RecyclerView.Adapter<ReaderPostAdapter.Re
             switch (getPostListType()) {
                 case TAG_PREVIEW:
                 case TAG_FOLLOWED:
-                    allPosts = ReaderPostTable.getPostsWithTag(mCurrentTag, MAX_ROWS, EXCLUDE_TEXT_COLUMN);
                     numExisting = ReaderPostTable.getNumPostsWithTag(mCurrentTag);
                     break;
                 case BLOG_PREVIEW:
-                    allPosts = ReaderPostTable.getPostsInBlog(mCurrentBlogId, MAX_ROWS, EXCLUDE_TEXT_COLUMN);
                     numExisting = ReaderPostTable.getNumPostsInBlog(mCurrentBlogId);
                     break;
                 default:
                     return false;
             }
 
-            if (mPosts.isSameList(allPosts)) {
-                return false;
+            ReaderPostWindow.PostSource source = mPosts.getSource();
+            allKeys = source.getPostKeys();
+            int[] range = ReaderPostWindow.getRefreshRange(allKeys, cachedPostKeys);
+            if (range[1] > range[0]) {
+                reloadedPosts = source.getPostsFrom(allKeys.get(range[0]), range[1] - range[0]);
+            } else {
+                reloadedPosts = new ReaderPostList();
             }
 
             // if we're not already displaying the max # posts, enable requesting more when
@@ -611,43 +672,7 @@ public class ReaderPostAdapter extends RecyclerView.Adapter<ReaderPostAdapter.Re
         @Override
         protected void onPostExecute(Boolean result) {
             if (result) {
-                if (mPosts.size() == 0) {
-                    // full refresh if existing list was empty
-                    mPosts.addAll(allPosts);
-                    notifyDataSetChanged();
-                } else {
-                    // full refresh if any posts were removed (can happen after user unfollows a blog)
-                    boolean anyRemoved = false;
-                    for (ReaderPost post: mPosts) {
-                        if (allPosts.indexOfPost(post) == -1) {
-                            anyRemoved = true;
-                            mPosts.clear();
-                            mPosts.addAll(allPosts);
-                            notifyDataSetChanged();
-                            break;
-                        }
-                    }
-
-                    // do more optimal check for new/changed posts if none were removed
-                    if (!anyRemoved) {
-                        int addIndex = 0;
-                        int index;
-                        for (ReaderPost post : allPosts) {
-                            index = mPosts.indexOfPost(post);
-                            if (index == -1) {
-                                mPosts.add(addIndex, post);
-                                notifyItemInserted(addIndex);
-                                addIndex++;
-                            } else {
-                                addIndex = index + 1;
-                                if (!post.isSamePost(mPosts.get(index))) {
-                                    mPosts.set(index, post);
-                                    notifyItemChanged(index);
-                                }
-                            }
-                        }
-                    }
-                }
+                mPosts.applyRefresh(allKeys, reloadedPosts);
             }
 
             if (mDataLoadedListener != null) {
@@ -658,4 +683,3 @@ public class ReaderPostAdapter extends RecyclerView.Adapter<ReaderPostAdapter.Re
         }
     }
 }
-
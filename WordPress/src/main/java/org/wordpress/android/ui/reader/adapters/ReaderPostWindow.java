@@ -0,0 +1,328 @@
+package org.wordpress.android.ui.reader.adapters;
+
+import android.os.AsyncTask;
+import android.support.v7.widget.RecyclerView;
+
+import org.wordpress.android.models.ReaderPost;
+import org.wordpress.android.models.ReaderPostList;
+import org.wordpress.android.ui.reader.ReaderConstants;
+import org.wordpress.android.ui.reader.models.ReaderPostKey;
+import org.wordpress.android.ui.reader.models.ReaderPostKeyList;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * windowed list of posts used by ReaderPostAdapter - the keys (ids, timestamp and pseudo_id) of
+ * all the posts in the list are loaded up front, but the posts themselves are loaded a page at a
+ * time by (timestamp, pseudo_id) keyset as the user scrolls, and only the most recently used
+ * MAX_CACHED_POSTS are kept in memory. Must be used from the main thread.
+ */
+class ReaderPostWindow {
+    static final int PAGE_SIZE = ReaderConstants.READER_MAX_POSTS_TO_REQUEST;
+    private static final int MAX_CACHED_POSTS = PAGE_SIZE * 3;
+    // prefetch the next or previous page when the user is this close to it
+    private static final int PREFETCH_DISTANCE = 5;
+
+    interface PostSource {
+        /*
+         * returns the keys of all the posts in the list, called from a background thread
+         */
+        ReaderPostKeyList getPostKeys();
+
+        /*
+         * returns up to maxPosts posts starting with the post with the passed key, called from a
+         * background thread
+         */
+        ReaderPostList getPostsFrom(ReaderPostKey fromKey, int maxPosts);
+    }
+
+    private final RecyclerView.Adapter<?> mAdapter;
+    private final PostSource mSource;
+
+    private ReaderPostKeyList mKeys = new ReaderPostKeyList();
+    private final Set<Integer> mLoadingPages = new HashSet<Integer>();
+    // incremented by clear() so pages that were loading for the previous list are dropped
+    private int mGeneration;
+
+    // posts by cache key, least recently used first
+    private final LinkedHashMap<String, ReaderPost> mCachedPosts =
+            new LinkedHashMap<String, ReaderPost>(MAX_CACHED_POSTS, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, ReaderPost> eldest) {
+                    return size() > MAX_CACHED_POSTS;
+                }
+            };
+
+    ReaderPostWindow(RecyclerView.Adapter<?> adapter, PostSource source) {
+        mAdapter = adapter;
+        mSource = source;
+    }
+
+    private static String getCacheKey(long blogId, long postId) {
+        return blogId + ":" + postId;
+    }
+
+    private static String getCacheKey(ReaderPostKey key) {
+        return getCacheKey(key.getBlogId(), key.getPostId());
+    }
+
+    PostSource getSource() {
+        return mSource;
+    }
+
+    int size() {
+        return mKeys.size();
+    }
+
+    boolean isValidPosition(int position) {
+        return (position >= 0 && position < mKeys.size());
+    }
+
+    ReaderPostKey getKey(int position) {
+        return mKeys.get(position);
+    }
+
+    int indexOfPost(long blogId, long postId) {
+        return mKeys.indexOfPost(blogId, postId);
+    }
+
+    /*
+     * returns the post at the passed position if it's in memory, null otherwise
+     */
+    ReaderPost peekPost(int position) {
+        if (!isValidPosition(position)) {
+            return null;
+        }
+        return mCachedPosts.get(getCacheKey(mKeys.get(position)));
+    }
+
+    /*
+     * same as peekPost() but starts loading the page containing the passed position if it's not in
+     * memory, and prefetches the adjacent page if the position is close to it - the adapter is
+     * notified once the posts are loaded
+     */
+    ReaderPost getPost(int position) {
+        ReaderPost post = peekPost(position);
+        if (!isValidPosition(position)) {
+            return null;
+        }
+
+        int page = position / PAGE_SIZE;
+        if (post == null) {
+            loadPage(page);
+        }
+        int positionInPage = position % PAGE_SIZE;
+        if (positionInPage >= PAGE_SIZE - PREFETCH_DISTANCE) {
+            prefetchPage(page + 1);
+        } else if (positionInPage < PREFETCH_DISTANCE && page > 0) {
+            prefetchPage(page - 1);
+        }
+
+        return post;
+    }
+
+    void setPost(int position, ReaderPost post) {
+        if (isValidPosition(position) && post != null) {
+            mCachedPosts.put(getCacheKey(mKeys.get(position)), post);
+        }
+    }
+
+    void remove(int position) {
+        if (isValidPosition(position)) {
+            mCachedPosts.remove(getCacheKey(mKeys.remove(position)));
+        }
+    }
+
+    void clear() {
+        mKeys = new ReaderPostKeyList();
+        mCachedPosts.clear();
+        mLoadingPages.clear();
+        mGeneration++;
+    }
+
+    /*
+     * returns the posts that are in memory
+     */
+    ReaderPostList getCachedPosts() {
+        ReaderPostList posts = new ReaderPostList();
+        posts.addAll(mCachedPosts.values());
+        return posts;
+    }
+
+    /*
+     * returns the cache keys of the posts in memory, used by getRefreshRange() from a background thread
+     */
+    Set<String> getCachedPostKeys() {
+        return new HashSet<String>(mCachedPosts.keySet());
+    }
+
+    /*
+     * returns the range of positions in the passed keys that should be reloaded when the list is
+     * refreshed: the range holding the posts that are in memory, or the first page if none are
+     */
+    static int[] getRefreshRange(ReaderPostKeyList keys, Set<String> cachedPostKeys) {
+        int first = -1;
+        int last = -1;
+        for (int i = 0; i < keys.size(); i++) {
+            if (cachedPostKeys.contains(getCacheKey(keys.get(i)))) {
+                if (first == -1) {
+                    first = i;
+                }
+                last = i;
+            }
+        }
+        if (first == -1) {
+            return new int[]{0, Math.min(PAGE_SIZE, keys.size())};
+        }
+        return new int[]{first, Math.min(last + 1, first + MAX_CACHED_POSTS)};
+    }
+
+    /*
+     * replaces the keys with the passed ones, stores the reloaded posts and notifies the adapter
+     * of the removed, inserted and changed posts
+     */
+    void applyRefresh(ReaderPostKeyList newKeys, ReaderPostList reloadedPosts) {
+        if (mKeys.size() == 0) {
+            mKeys = newKeys;
+            putPosts(reloadedPosts);
+            mAdapter.notifyDataSetChanged();
+            return;
+        }
+
+        Set<String> newCacheKeys = new HashSet<String>();
+        for (ReaderPostKey key : newKeys) {
+            newCacheKeys.add(getCacheKey(key));
+        }
+
+        if (!isInSameOrder(mKeys, newKeys, newCacheKeys)) {
+            // posts were reordered (their timestamp changed), nothing to do but replace the whole list
+            mKeys = newKeys;
+            putPosts(reloadedPosts);
+            mAdapter.notifyDataSetChanged();
+            return;
+        }
+
+        // remove the posts that no longer exist (can happen after user unfollows a blog)
+        for (int i = mKeys.size() - 1; i >= 0; i--) {
+            if (!newCacheKeys.contains(getCacheKey(mKeys.get(i)))) {
+                remove(i);
+                mAdapter.notifyItemRemoved(i);
+            }
+        }
+
+        // insert the new posts
+        for (int i = 0; i < newKeys.size(); i++) {
+            ReaderPostKey newKey = newKeys.get(i);
+            if (i < mKeys.size() && getCacheKey(mKeys.get(i)).equals(getCacheKey(newKey))) {
+                mKeys.set(i, newKey);
+            } else {
+                mKeys.add(i, newKey);
+                mAdapter.notifyItemInserted(i);
+            }
+        }
+
+        // replace the posts in memory, and notify the adapter of the ones that changed
+        for (ReaderPost post : reloadedPosts) {
+            ReaderPost existingPost = mCachedPosts.get(getCacheKey(post.blogId, post.postId));
+            mCachedPosts.put(getCacheKey(post.blogId, post.postId), post);
+            if (existingPost != null && !post.isSamePost(existingPost)) {
+                int position = indexOfPost(post.blogId, post.postId);
+                if (position > -1) {
+                    mAdapter.notifyItemChanged(position);
+                }
+            }
+        }
+    }
+
+    /*
+     * returns true if the existing posts that still exist are in the same order in the new keys
+     */
+    static boolean isInSameOrder(ReaderPostKeyList keys, ReaderPostKeyList newKeys, Set<String> newCacheKeys) {
+        int newIndex = 0;
+        for (ReaderPostKey key : keys) {
+            String cacheKey = getCacheKey(key);
+            if (!newCacheKeys.contains(cacheKey)) {
+                continue;
+            }
+            while (newIndex < newKeys.size() && !getCacheKey(newKeys.get(newIndex)).equals(cacheKey)) {
+                newIndex++;
+            }
+            if (newIndex == newKeys.size()) {
+                return false;
+            }
+            newIndex++;
+        }
+        return true;
+    }
+
+    private void putPosts(ReaderPostList posts) {
+        for (ReaderPost post : posts) {
+            mCachedPosts.put(getCacheKey(post.blogId, post.postId), post);
+        }
+    }
+
+    private void prefetchPage(int page) {
+        int position = page * PAGE_SIZE;
+        if (isValidPosition(position) && peekPost(position) == null) {
+            loadPage(page);
+        }
+    }
+
+    private void loadPage(int page) {
+        int position = page * PAGE_SIZE;
+        if (!isValidPosition(position) || mLoadingPages.contains(page)) {
+            return;
+        }
+        mLoadingPages.add(page);
+        new LoadPageTask(page, mKeys.get(position), mGeneration).executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR);
+    }
+
+    private class LoadPageTask extends AsyncTask<Void, Void, ReaderPostList> {
+        private final int mPage;
+        private final ReaderPostKey mFromKey;
+        private final int mTaskGeneration;
+
+        LoadPageTask(int page, ReaderPostKey fromKey, int generation) {
+            mPage = page;
+            mFromKey = fromKey;
+            mTaskGeneration = generation;
+        }
+
+        @Override
+        protected ReaderPostList doInBackground(Void... params) {
+            return mSource.getPostsFrom(mFromKey, PAGE_SIZE);
+        }
+
+        @Override
+        protected void onPostExecute(ReaderPostList posts) {
+            if (mTaskGeneration != mGeneration) {
+                // the list was cleared while the page was loading, and the page may be loading again
+                return;
+            }
+            mLoadingPages.remove(mPage);
+
+            // the list may have changed while the page was loading, so the posts are matched by id
+            Map<String, Integer> positions = new HashMap<String, Integer>();
+            for (int i = 0; i < mKeys.size(); i++) {
+                positions.put(getCacheKey(mKeys.get(i)), i);
+            }
+            int first = Integer.MAX_VALUE;
+            int last = -1;
+            for (ReaderPost post : posts) {
+                Integer position = positions.get(getCacheKey(post.blogId, post.postId));
+                if (position != null) {
+                    mCachedPosts.put(getCacheKey(post.blogId, post.postId), post);
+                    first = Math.min(first, position);
+                    last = Math.max(last, position);
+                }
+            }
+            if (last > -1) {
+                mAdapter.notifyItemRangeChanged(first, last - first + 1);
+            }
+        }
+    }
+}
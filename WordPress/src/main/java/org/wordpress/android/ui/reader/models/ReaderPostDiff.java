@@ -0,0 +1,77 @@
+package org.wordpress.android.ui.reader.models;
+
+import org.wordpress.android.models.ReaderPost;
+import org.wordpress.android.models.ReaderPostList;
+import org.wordpress.android.ui.reader.actions.ReaderActions;
+
+/**
+ * result of comparing a list of posts returned by the server with the posts in tbl_posts, see
+ * ReaderPostTable.diffPosts()
+ */
+public class ReaderPostDiff {
+    private final ReaderPostList newPosts = new ReaderPostList();
+    private final ReaderPostList changedPosts = new ReaderPostList();
+    private final ReaderPostList unchangedPosts = new ReaderPostList();
+
+    public void addNewPost(ReaderPost post) {
+        newPosts.add(post);
+    }
+
+    public void addChangedPost(ReaderPost post) {
+        changedPosts.add(post);
+    }
+
+    public void addUnchangedPost(ReaderPost post) {
+        unchangedPosts.add(post);
+    }
+
+    /*
+     * posts that don't exist in tbl_posts
+     */
+    public ReaderPostList getNewPosts() {
+        return newPosts;
+    }
+
+    /*
+     * posts that exist in tbl_posts but differ from the stored ones
+     */
+    public ReaderPostList getChangedPosts() {
+        return changedPosts;
+    }
+
+    /*
+     * posts that are the same as the stored ones, these don't need to be written
+     */
+    public ReaderPostList getUnchangedPosts() {
+        return unchangedPosts;
+    }
+
+    public ReaderPostList getNewOrChangedPosts() {
+        ReaderPostList posts = new ReaderPostList();
+        posts.addAll(newPosts);
+        posts.addAll(changedPosts);
+        return posts;
+    }
+
+    public ReaderPostList getAllPosts() {
+        ReaderPostList posts = getNewOrChangedPosts();
+        posts.addAll(unchangedPosts);
+        return posts;
+    }
+
+    public ReaderActions.UpdateResult getUpdateResult() {
+        if (newPosts.size() > 0) {
+            return ReaderActions.UpdateResult.HAS_NEW;
+        } else if (changedPosts.size() > 0) {
+            return ReaderActions.UpdateResult.CHANGED;
+        } else {
+            return ReaderActions.UpdateResult.UNCHANGED;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d new, %d changed, %d unchanged", newPosts.size(), changedPosts.size(),
+                unchangedPosts.size());
+    }
+}
@@ -0,0 +1,42 @@
+package org.wordpress.android.ui.reader.models;
+
+/**
+ * identifies a post in a list of posts ordered by timestamp and pseudo_id - used by
+ * ReaderPostWindow to page through tbl_posts without loading all the posts
+ */
+public class ReaderPostKey {
+    private final long blogId;
+    private final long postId;
+    private final long timestamp;
+    private final String pseudoId;
+
+    public ReaderPostKey(long blogId, long postId, long timestamp, String pseudoId) {
+        this.blogId = blogId;
+        this.postId = postId;
+        this.timestamp = timestamp;
+        this.pseudoId = pseudoId;
+    }
+
+    public long getBlogId() {
+        return blogId;
+    }
+
+    public long getPostId() {
+        return postId;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public String getPseudoId() {
+        return pseudoId;
+    }
+
+    /*
+     * same as ReaderPost.getStableId()
+     */
+    public long getStableId() {
+        return (pseudoId != null ? pseudoId.hashCode() : 0);
+    }
+}
@@ -0,0 +1,15 @@
+package org.wordpress.android.ui.reader.models;
+
+import java.util.ArrayList;
+
+public class ReaderPostKeyList extends ArrayList<ReaderPostKey> {
+
+    public int indexOfPost(long blogId, long postId) {
+        for (int i = 0; i < size(); i++) {
+            if (this.get(i).getBlogId() == blogId && this.get(i).getPostId() == postId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -3,6 +3,7 @@ package org.wordpress.android.ui.reader.services;
 import android.app.Service;
 import android.content.Context;
 import android.content.Intent;
+import android.database.sqlite.SQLiteDatabase;
 import android.os.IBinder;
 
 import com.android.volley.VolleyError;
@@ -12,7 +13,7 @@ import org.json.JSONArray;
 import org.json.JSONObject;
 import org.wordpress.android.WordPress;
 import org.wordpress.android.datasets.ReaderCommentTable;
-import org.wordpress.android.datasets.ReaderDatabase;
+import org.wordpress.android.datasets.ReaderDatabaseWriter;
 import org.wordpress.android.datasets.ReaderLikeTable;
 import org.wordpress.android.datasets.ReaderUserTable;
 import org.wordpress.android.models.ReaderComment;
@@ -21,6 +22,7 @@ import org.wordpress.android.models.ReaderPost;
 import org.wordpress.android.models.ReaderUserList;
 import org.wordpress.android.ui.reader.ReaderConstants;
 import org.wordpress.android.ui.reader.ReaderEvents;
+import org.wordpress.android.ui.reader.ReaderScheduler;
 import org.wordpress.android.ui.reader.actions.ReaderActions;
 import org.wordpress.android.ui.reader.actions.ReaderActions.UpdateResult;
 import org.wordpress.android.ui.reader.actions.ReaderActions.UpdateResultListener;
@@ -29,6 +31,9 @@ import org.wordpress.android.util.JSONUtil;
 
 import de.greenrobot.event.EventBus;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class ReaderCommentService extends Service {
 
     private static final String ARG_POST_ID   = "post_id";
@@ -127,47 +132,52 @@ public class ReaderCommentService extends Service {
             return;
         }
 
-        new Thread() {
+        ReaderScheduler.submit(ReaderScheduler.Lane.SYNC, new Runnable() {
             @Override
             public void run() {
-                final boolean hasNewComments;
-
-                ReaderDatabase.getWritableDb().beginTransaction();
-                try {
-                    ReaderCommentList serverComments = new ReaderCommentList();
-                    JSONArray jsonCommentList = jsonObject.optJSONArray("comments");
-                    if (jsonCommentList != null) {
-                        for (int i = 0; i < jsonCommentList.length(); i++) {
-                            JSONObject jsonComment = jsonCommentList.optJSONObject(i);
-
-                            // extract this comment and add it to the list
-                            ReaderComment comment = ReaderComment.fromJson(jsonComment, blogId);
-                            comment.pageNumber = pageNumber;
-                            serverComments.add(comment);
-
-                            // extract and save likes for this comment
-                            JSONObject jsonLikes = JSONUtil.getJSONChild(jsonComment, "meta/data/likes");
-                            if (jsonLikes != null) {
-                                ReaderUserList likingUsers = ReaderUserList.fromJsonLikes(jsonLikes);
+                // parse the comments and their likes before handing them to the writer, so the
+                // mutation only writes
+                final ReaderCommentList serverComments = new ReaderCommentList();
+                final List<ReaderUserList> likingUsersList = new ArrayList<ReaderUserList>();
+                JSONArray jsonCommentList = jsonObject.optJSONArray("comments");
+                if (jsonCommentList != null) {
+                    for (int i = 0; i < jsonCommentList.length(); i++) {
+                        JSONObject jsonComment = jsonCommentList.optJSONObject(i);
+
+                        // extract this comment and add it to the list
+                        ReaderComment comment = ReaderComment.fromJson(jsonComment, blogId);
+                        comment.pageNumber = pageNumber;
+                        serverComments.add(comment);
+
+                        // extract likes for this comment
+                        JSONObject jsonLikes = JSONUtil.getJSONChild(jsonComment, "meta/data/likes");
+                        likingUsersList.add(jsonLikes != null ? ReaderUserList.fromJsonLikes(jsonLikes) : null);
+                    }
+                }
+
+                // the comments and their likes are written in a single transaction
+                ReaderDatabaseWriter.write(new ReaderDatabaseWriter.Mutation() {
+                    @Override
+                    public void apply(SQLiteDatabase db) {
+                        for (int i = 0; i < serverComments.size(); i++) {
+                            ReaderUserList likingUsers = likingUsersList.get(i);
+                            if (likingUsers != null) {
                                 ReaderUserTable.addOrUpdateUsers(likingUsers);
-                                ReaderLikeTable.setLikesForComment(comment, likingUsers.getUserIds());
+                                ReaderLikeTable.setLikesForComment(serverComments.get(i), likingUsers.getUserIds());
                             }
                         }
-                    }
 
-                    hasNewComments = (serverComments.size() > 0);
+                        // save to db regardless of whether any are new so changes to likes are stored
+                        ReaderCommentTable.addOrUpdateComments(serverComments);
+                    }
+                });
 
-                    // save to db regardless of whether any are new so changes to likes are stored
-                    ReaderCommentTable.addOrUpdateComments(serverComments);
-                    ReaderDatabase.getWritableDb().setTransactionSuccessful();
-                } finally {
-                    ReaderDatabase.getWritableDb().endTransaction();
-                }
+                boolean hasNewComments = (serverComments.size() > 0);
 
                 ReaderActions.UpdateResult result =
                         (hasNewComments ? ReaderActions.UpdateResult.HAS_NEW : ReaderActions.UpdateResult.UNCHANGED);
                 resultListener.onUpdateResult(result);
             }
-        }.start();
+        });
     }
 }
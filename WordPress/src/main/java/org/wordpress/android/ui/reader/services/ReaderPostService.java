@@ -12,19 +12,27 @@ import com.wordpress.rest.RestRequest;
 import org.json.JSONObject;
 import org.wordpress.android.WordPress;
 import org.wordpress.android.datasets.ReaderPostTable;
+import org.wordpress.android.datasets.ReaderSyncStateTable;
 import org.wordpress.android.datasets.ReaderTagTable;
 import org.wordpress.android.models.ReaderPostList;
 import org.wordpress.android.models.ReaderTag;
 import org.wordpress.android.models.ReaderTagType;
+import org.wordpress.android.networking.ConditionalRestRequest;
 import org.wordpress.android.ui.reader.ReaderConstants;
 import org.wordpress.android.ui.reader.ReaderEvents;
+import org.wordpress.android.ui.reader.ReaderScheduler;
 import org.wordpress.android.ui.reader.actions.ReaderActions.UpdateResult;
 import org.wordpress.android.ui.reader.actions.ReaderActions.UpdateResultListener;
+import org.wordpress.android.ui.reader.models.ReaderPostDiff;
 import org.wordpress.android.ui.reader.utils.ReaderUtils;
 import org.wordpress.android.util.AppLog;
 import org.wordpress.android.util.StringUtils;
 import org.wordpress.android.util.UrlUtils;
 
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
 import de.greenrobot.event.EventBus;
 
 /**
@@ -41,6 +49,10 @@ public class ReaderPostService extends Service {
 
     public static enum UpdateAction {REQUEST_NEWER, REQUEST_OLDER}
 
+    // keys of the updates that are in progress, see onStartCommand()
+    private static final Set<String> sUpdatesInProgress =
+            Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
     /*
      * update posts with the passed tag
      */
@@ -101,39 +113,67 @@ public class ReaderPostService extends Service {
             action = UpdateAction.REQUEST_NEWER;
         }
 
+        // coalesce duplicate updates - the in-progress one posts UpdatePostsEnded to everyone
+        // who's waiting for it
+        String updateKey = getUpdateKey(intent, action);
+        if (!sUpdatesInProgress.add(updateKey)) {
+            AppLog.d(AppLog.T.READER, "reader post service > already updating " + updateKey);
+            return START_NOT_STICKY;
+        }
+
         EventBus.getDefault().post(new ReaderEvents.UpdatePostsStarted(action));
 
         if (intent.hasExtra(ARG_TAG)) {
             ReaderTag tag = (ReaderTag) intent.getSerializableExtra(ARG_TAG);
-            updatePostsWithTag(tag, action);
+            updatePostsWithTag(tag, action, updateKey);
         } else if (intent.hasExtra(ARG_BLOG_ID)) {
             long blogId = intent.getLongExtra(ARG_BLOG_ID, 0);
-            updatePostsInBlog(blogId, action);
+            updatePostsInBlog(blogId, action, updateKey);
         } else if (intent.hasExtra(ARG_FEED_ID)) {
             long feedId = intent.getLongExtra(ARG_FEED_ID, 0);
-            updatePostsInFeed(feedId, action);
+            updatePostsInFeed(feedId, action, updateKey);
+        } else {
+            sUpdatesInProgress.remove(updateKey);
         }
 
         return START_NOT_STICKY;
     }
 
-    void updatePostsWithTag(final ReaderTag tag, final UpdateAction action) {
+    /*
+     * returns the key which identifies the update requested by the passed intent
+     */
+    private static String getUpdateKey(Intent intent, UpdateAction action) {
+        String key;
+        if (intent.hasExtra(ARG_TAG)) {
+            ReaderTag tag = (ReaderTag) intent.getSerializableExtra(ARG_TAG);
+            key = "tag:" + (tag != null ? tag.tagType.toInt() + ":" + tag.getTagName() : "");
+        } else if (intent.hasExtra(ARG_BLOG_ID)) {
+            key = "blog:" + intent.getLongExtra(ARG_BLOG_ID, 0);
+        } else {
+            key = "feed:" + intent.getLongExtra(ARG_FEED_ID, 0);
+        }
+        return key + ":" + action.name();
+    }
+
+    void updatePostsWithTag(final ReaderTag tag, final UpdateAction action, final String updateKey) {
         requestPostsWithTag(
                 tag,
                 action,
                 new UpdateResultListener() {
                     @Override
                     public void onUpdateResult(UpdateResult result) {
+                        sUpdatesInProgress.remove(updateKey);
                         EventBus.getDefault().post(new ReaderEvents.UpdatePostsEnded(tag, result, action));
                         stopSelf();
                     }
                 });
     }
 
-    void updatePostsInBlog(long blogId, final UpdateAction action) {
+    void updatePostsInBlog(long blogId, final UpdateAction action, final String updateKey) {
         UpdateResultListener listener = new UpdateResultListener() {
             @Override
             public void onUpdateResult(UpdateResult result) {
+                sUpdatesInProgress.remove(updateKey);
                 EventBus.getDefault().post(new ReaderEvents.UpdatePostsEnded(result, action));
                 stopSelf();
             }
@@ -141,10 +181,11 @@ public class ReaderPostService extends Service {
         requestPostsForBlog(blogId, action, listener);
     }
 
-    void updatePostsInFeed(long feedId, final UpdateAction action) {
+    void updatePostsInFeed(long feedId, final UpdateAction action, final String updateKey) {
         UpdateResultListener listener = new UpdateResultListener() {
             @Override
             public void onUpdateResult(UpdateResult result) {
+                sUpdatesInProgress.remove(updateKey);
                 EventBus.getDefault().post(new ReaderEvents.UpdatePostsEnded(result, action));
                 stopSelf();
             }
@@ -155,12 +196,70 @@ public class ReaderPostService extends Service {
     private static void requestPostsWithTag(final ReaderTag tag,
                                             final UpdateAction updateAction,
                                             final UpdateResultListener resultListener) {
-        String endpoint = getEndpointForTag(tag);
-        if (TextUtils.isEmpty(endpoint)) {
+        String path = getPathForTag(tag, updateAction);
+        if (TextUtils.isEmpty(path)) {
             resultListener.onUpdateResult(UpdateResult.FAILED);
             return;
         }
 
+        // newer posts are requested conditionally, but only when the tag has posts since a 304
+        // would otherwise leave it empty after its posts were deleted locally
+        String syncEndpoint = null;
+        if (updateAction == UpdateAction.REQUEST_NEWER && ReaderPostTable.getNumPostsWithTag(tag) > 0) {
+            syncEndpoint = "posts/tag/" + tag.tagType.toInt() + "/" + tag.getTagName();
+        }
+
+        UpdateResultListener listener = new UpdateResultListener() {
+            @Override
+            public void onUpdateResult(UpdateResult result) {
+                // remember when this tag was updated if newer posts were requested
+                if (updateAction == UpdateAction.REQUEST_NEWER && result != UpdateResult.FAILED) {
+                    ReaderTagTable.setTagLastUpdated(tag);
+                }
+                resultListener.onUpdateResult(result);
+            }
+        };
+
+        requestPosts(tag, path, syncEndpoint, listener);
+    }
+
+    private static void requestPostsForBlog(final long blogId,
+                                            final UpdateAction updateAction,
+                                            final UpdateResultListener resultListener) {
+        String syncEndpoint = null;
+        if (updateAction == UpdateAction.REQUEST_NEWER && ReaderPostTable.getNumPostsInBlog(blogId) > 0) {
+            syncEndpoint = "posts/blog/" + blogId;
+        }
+
+        AppLog.d(AppLog.T.READER, "updating posts in blog " + blogId);
+        requestPosts(null, getPathForBlog(blogId, updateAction), syncEndpoint, resultListener);
+    }
+
+    private static void requestPostsForFeed(final long feedId,
+                                            final UpdateAction updateAction,
+                                            final UpdateResultListener resultListener) {
+        String syncEndpoint = null;
+        if (updateAction == UpdateAction.REQUEST_NEWER && ReaderPostTable.getNumPostsInFeed(feedId) > 0) {
+            syncEndpoint = "posts/feed/" + feedId;
+        }
+
+        AppLog.d(AppLog.T.READER, "updating posts in feed " + feedId);
+        requestPosts(null, getPathForFeed(feedId, updateAction), syncEndpoint, resultListener);
+    }
+
+    /*
+     * returns the path to request posts with the passed tag, or null if the tag has no endpoint.
+     * Newer posts are always requested as the newest page rather than only the posts published
+     * after the newest stored one, since lists like "Posts I Like" and "Blogs I Follow" can gain
+     * posts older than that, and stored posts may have been edited, liked or commented on since
+     * they were requested - the validators stored for the page let the server skip unchanged ones.
+     */
+    static String getPathForTag(final ReaderTag tag, final UpdateAction updateAction) {
+        String endpoint = getEndpointForTag(tag);
+        if (TextUtils.isEmpty(endpoint)) {
+            return null;
+        }
+
         StringBuilder sb = new StringBuilder(endpoint);
 
         // append #posts to retrieve
@@ -177,31 +276,10 @@ public class ReaderPostService extends Service {
             }
         }
 
-        com.wordpress.rest.RestRequest.Listener listener = new RestRequest.Listener() {
-            @Override
-            public void onResponse(JSONObject jsonObject) {
-                // remember when this tag was updated if newer posts were requested
-                if (updateAction == UpdateAction.REQUEST_NEWER) {
-                    ReaderTagTable.setTagLastUpdated(tag);
-                }
-                handleUpdatePostsResponse(tag, jsonObject, resultListener);
-            }
-        };
-        RestRequest.ErrorListener errorListener = new RestRequest.ErrorListener() {
-            @Override
-            public void onErrorResponse(VolleyError volleyError) {
-                AppLog.e(AppLog.T.READER, volleyError);
-                resultListener.onUpdateResult(UpdateResult.FAILED);
-            }
-        };
-
-        WordPress.getRestClientUtilsV1_1().get(sb.toString(), null, null, listener, errorListener);
+        return sb.toString();
     }
 
-
-    private static void requestPostsForBlog(final long blogId,
-                                            final UpdateAction updateAction,
-                                            final UpdateResultListener resultListener) {
+    static String getPathForBlog(final long blogId, final UpdateAction updateAction) {
         String path = "sites/" + blogId + "/posts/?meta=site,likes";
 
         // append the date of the oldest cached post in this blog when requesting older posts
@@ -212,26 +290,10 @@ public class ReaderPostService extends Service {
             }
         }
 
-        com.wordpress.rest.RestRequest.Listener listener = new RestRequest.Listener() {
-            @Override
-            public void onResponse(JSONObject jsonObject) {
-                handleUpdatePostsResponse(null, jsonObject, resultListener);
-            }
-        };
-        RestRequest.ErrorListener errorListener = new RestRequest.ErrorListener() {
-            @Override
-            public void onErrorResponse(VolleyError volleyError) {
-                AppLog.e(AppLog.T.READER, volleyError);
-                resultListener.onUpdateResult(UpdateResult.FAILED);
-            }
-        };
-        AppLog.d(AppLog.T.READER, "updating posts in blog " + blogId);
-        WordPress.getRestClientUtilsV1_1().get(path, null, null, listener, errorListener);
+        return path;
     }
 
-    private static void requestPostsForFeed(final long feedId,
-                                            final UpdateAction updateAction,
-                                            final UpdateResultListener resultListener) {
+    static String getPathForFeed(final long feedId, final UpdateAction updateAction) {
         String path = "read/feed/" + feedId + "/posts/?meta=site,likes";
         if (updateAction == UpdateAction.REQUEST_OLDER) {
             String dateOldest = ReaderPostTable.getOldestPubDateInFeed(feedId);
@@ -240,10 +302,34 @@ public class ReaderPostService extends Service {
             }
         }
 
-        com.wordpress.rest.RestRequest.Listener listener = new RestRequest.Listener() {
+        return path;
+    }
+
+    /*
+     * requests posts using the passed path - if a sync endpoint is passed the request is
+     * conditional, sending the validators stored for it if the same path was requested last time
+     * so the server can respond with 304 Not Modified when nothing on the page changed. The sync
+     * endpoint should only be passed when the list has posts, otherwise a 304 would leave the
+     * list empty after its posts were deleted locally.
+     */
+    private static void requestPosts(final ReaderTag tag,
+                                     final String path,
+                                     final String syncEndpoint,
+                                     final UpdateResultListener resultListener) {
+        ConditionalRestRequest.Validators validators = null;
+        if (syncEndpoint != null) {
+            validators = ReaderSyncStateTable.getValidators(syncEndpoint, path);
+        }
+
+        ConditionalRestRequest.Listener listener = new ConditionalRestRequest.Listener() {
+            @Override
+            public void onResponse(JSONObject jsonObject, ConditionalRestRequest.Validators responseValidators) {
+                handleUpdatePostsResponse(tag, jsonObject, resultListener, syncEndpoint, path, responseValidators);
+            }
             @Override
-            public void onResponse(JSONObject jsonObject) {
-                handleUpdatePostsResponse(null, jsonObject, resultListener);
+            public void onNotModified() {
+                AppLog.d(AppLog.T.READER, "requested posts not modified");
+                resultListener.onUpdateResult(UpdateResult.UNCHANGED);
             }
         };
         RestRequest.ErrorListener errorListener = new RestRequest.ErrorListener() {
@@ -254,33 +340,48 @@ public class ReaderPostService extends Service {
             }
         };
 
-        AppLog.d(AppLog.T.READER, "updating posts in feed " + feedId);
-        WordPress.getRestClientUtilsV1_1().get(path, null, null, listener, errorListener);
+        WordPress.getRestClientUtilsV1_1().getConditional(path, validators, listener, errorListener);
     }
 
     /*
-     * called after requesting posts with a specific tag or in a specific blog
+     * called after requesting posts with a specific tag or in a specific blog - the validators
+     * of the response are stored once its posts are written
      */
     private static void handleUpdatePostsResponse(final ReaderTag tag,
                                                   final JSONObject jsonObject,
-                                                  final UpdateResultListener resultListener) {
+                                                  final UpdateResultListener resultListener,
+                                                  final String syncEndpoint,
+                                                  final String path,
+                                                  final ConditionalRestRequest.Validators validators) {
         if (jsonObject == null) {
             resultListener.onUpdateResult(UpdateResult.FAILED);
             return;
         }
 
-        new Thread() {
+        ReaderScheduler.submit(ReaderScheduler.Lane.SYNC, new Runnable() {
             @Override
             public void run() {
-                ReaderPostList serverPosts = ReaderPostList.fromJson(jsonObject);
-                UpdateResult updateResult = ReaderPostTable.comparePosts(serverPosts);
-                if (updateResult.isNewOrChanged()) {
-                    ReaderPostTable.addOrUpdatePosts(tag, serverPosts);
+                // the listener must always be called since it ends the update, otherwise later
+                // updates of the same list would be ignored as already in progress
+                UpdateResult updateResult;
+                try {
+                    ReaderPostList serverPosts = ReaderPostList.fromJson(jsonObject);
+                    // only new and changed posts are written
+                    ReaderPostDiff diff = ReaderPostTable.diffPosts(serverPosts);
+                    ReaderPostTable.addOrUpdatePosts(tag, diff);
+                    if (syncEndpoint != null) {
+                        ReaderSyncStateTable.setValidators(syncEndpoint, path, validators);
+                    }
+                    updateResult = diff.getUpdateResult();
+                    AppLog.d(AppLog.T.READER, "requested posts response = " + updateResult.toString()
+                            + " (" + diff.toString() + ")");
+                } catch (RuntimeException e) {
+                    AppLog.e(AppLog.T.READER, "reader post service > failed to save requested posts", e);
+                    updateResult = UpdateResult.FAILED;
                 }
-                AppLog.d(AppLog.T.READER, "requested posts response = " + updateResult.toString());
                 resultListener.onUpdateResult(updateResult);
             }
-        }.start();
+        });
     }
 
     /*
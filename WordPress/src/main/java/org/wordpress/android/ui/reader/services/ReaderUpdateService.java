@@ -14,14 +14,17 @@ import org.wordpress.android.WordPress;
 import org.wordpress.android.datasets.ReaderBlogTable;
 import org.wordpress.android.datasets.ReaderDatabase;
 import org.wordpress.android.datasets.ReaderPostTable;
+import org.wordpress.android.datasets.ReaderSyncStateTable;
 import org.wordpress.android.datasets.ReaderTagTable;
 import org.wordpress.android.models.ReaderBlogList;
 import org.wordpress.android.models.ReaderRecommendBlogList;
 import org.wordpress.android.models.ReaderTag;
 import org.wordpress.android.models.ReaderTagList;
 import org.wordpress.android.models.ReaderTagType;
+import org.wordpress.android.networking.ConditionalRestRequest;
 import org.wordpress.android.ui.reader.ReaderConstants;
 import org.wordpress.android.ui.reader.ReaderEvents;
+import org.wordpress.android.ui.reader.ReaderScheduler;
 import org.wordpress.android.util.AppLog;
 import org.wordpress.android.util.JSONUtil;
 
@@ -110,15 +113,29 @@ public class ReaderUpdateService extends Service {
         stopSelf();
     }
 
+    /*
+     * returns the validators of the last response to the passed path, these are sent with the
+     * next request to it so the server can respond with 304 Not Modified if it hasn't changed
+     */
+    private static ConditionalRestRequest.Validators getValidators(String path) {
+        return ReaderSyncStateTable.getValidators(path, path);
+    }
+
     /***
      * update the tags the user is followed - also handles recommended (popular) tags since
      * they're included in the response
      */
     private void updateTags() {
-        com.wordpress.rest.RestRequest.Listener listener = new RestRequest.Listener() {
+        final String path = "read/menu";
+        ConditionalRestRequest.Listener listener = new ConditionalRestRequest.Listener() {
             @Override
-            public void onResponse(JSONObject jsonObject) {
-                handleUpdateTagsResponse(jsonObject);
+            public void onResponse(JSONObject jsonObject, ConditionalRestRequest.Validators validators) {
+                handleUpdateTagsResponse(jsonObject, path, validators);
+            }
+            @Override
+            public void onNotModified() {
+                AppLog.d(AppLog.T.READER, "reader service > tags not modified");
+                taskCompleted(UpdateTask.TAGS);
             }
         };
 
@@ -130,11 +147,13 @@ public class ReaderUpdateService extends Service {
             }
         };
         AppLog.d(AppLog.T.READER, "reader service > updating tags");
-        WordPress.getRestClientUtilsV1_1().get("read/menu", null, null, listener, errorListener);
+        WordPress.getRestClientUtilsV1_1().getConditional(path, getValidators(path), listener, errorListener);
     }
 
-    private void handleUpdateTagsResponse(final JSONObject jsonObject) {
-        new Thread() {
+    private void handleUpdateTagsResponse(final JSONObject jsonObject,
+                                          final String path,
+                                          final ConditionalRestRequest.Validators validators) {
+        ReaderScheduler.submit(ReaderScheduler.Lane.SYNC, new Runnable() {
             @Override
             public void run() {
                 // get server topics, both default & followed
@@ -167,9 +186,10 @@ public class ReaderUpdateService extends Service {
                     EventBus.getDefault().post(new ReaderEvents.RecommendedTagsChanged());
                 }
 
+                ReaderSyncStateTable.setValidators(path, path, validators);
                 taskCompleted(UpdateTask.TAGS);
             }
-        }.start();
+        });
     }
 
     /*
@@ -224,10 +244,17 @@ public class ReaderUpdateService extends Service {
      * request the list of blogs the current user is following
      */
     void updateFollowedBlogs() {
-        RestRequest.Listener listener = new RestRequest.Listener() {
+        // request using ?meta=site,feed to get extra info
+        final String path = "read/following/mine?meta=site%2Cfeed";
+        ConditionalRestRequest.Listener listener = new ConditionalRestRequest.Listener() {
             @Override
-            public void onResponse(JSONObject jsonObject) {
-                handleFollowedBlogsResponse(jsonObject);
+            public void onResponse(JSONObject jsonObject, ConditionalRestRequest.Validators validators) {
+                handleFollowedBlogsResponse(jsonObject, path, validators);
+            }
+            @Override
+            public void onNotModified() {
+                AppLog.d(AppLog.T.READER, "reader service > followed blogs not modified");
+                taskCompleted(UpdateTask.FOLLOWED_BLOGS);
             }
         };
         RestRequest.ErrorListener errorListener = new RestRequest.ErrorListener() {
@@ -239,11 +266,12 @@ public class ReaderUpdateService extends Service {
         };
 
         AppLog.d(AppLog.T.READER, "reader service > updating followed blogs");
-        // request using ?meta=site,feed to get extra info
-        WordPress.getRestClientUtilsV1_1().get("read/following/mine?meta=site%2Cfeed", listener, errorListener);
+        WordPress.getRestClientUtilsV1_1().getConditional(path, getValidators(path), listener, errorListener);
     }
-    private void handleFollowedBlogsResponse(final JSONObject jsonObject) {
-        new Thread() {
+    private void handleFollowedBlogsResponse(final JSONObject jsonObject,
+                                             final String path,
+                                             final ConditionalRestRequest.Validators validators) {
+        ReaderScheduler.submit(ReaderScheduler.Lane.SYNC, new Runnable() {
             @Override
             public void run() {
                 ReaderBlogList serverBlogs = ReaderBlogList.fromJson(jsonObject);
@@ -255,19 +283,28 @@ public class ReaderUpdateService extends Service {
                     EventBus.getDefault().post(new ReaderEvents.FollowedBlogsChanged());
                 }
 
+                ReaderSyncStateTable.setValidators(path, path, validators);
                 taskCompleted(UpdateTask.FOLLOWED_BLOGS);
             }
-        }.start();
+        });
     }
 
     /***
      * request the latest recommended blogs, replaces all local ones
      */
     void updateRecommendedBlogs() {
-        RestRequest.Listener listener = new RestRequest.Listener() {
+        final String path = "read/recommendations/mine/"
+                          + "?source=mobile"
+                          + "&number=" + Integer.toString(ReaderConstants.READER_MAX_RECOMMENDED_TO_REQUEST);
+        ConditionalRestRequest.Listener listener = new ConditionalRestRequest.Listener() {
             @Override
-            public void onResponse(JSONObject jsonObject) {
-                handleRecommendedBlogsResponse(jsonObject);
+            public void onResponse(JSONObject jsonObject, ConditionalRestRequest.Validators validators) {
+                handleRecommendedBlogsResponse(jsonObject, path, validators);
+            }
+            @Override
+            public void onNotModified() {
+                AppLog.d(AppLog.T.READER, "reader service > recommended blogs not modified");
+                taskCompleted(UpdateTask.RECOMMENDED_BLOGS);
             }
         };
         RestRequest.ErrorListener errorListener = new RestRequest.ErrorListener() {
@@ -279,13 +316,12 @@ public class ReaderUpdateService extends Service {
         };
 
         AppLog.d(AppLog.T.READER, "reader service > updating recommended blogs");
-        String path = "read/recommendations/mine/"
-                    + "?source=mobile"
-                    + "&number=" + Integer.toString(ReaderConstants.READER_MAX_RECOMMENDED_TO_REQUEST);
-        WordPress.getRestClientUtilsV1_1().get(path, listener, errorListener);
+        WordPress.getRestClientUtilsV1_1().getConditional(path, getValidators(path), listener, errorListener);
     }
-    private void handleRecommendedBlogsResponse(final JSONObject jsonObject) {
-        new Thread() {
+    private void handleRecommendedBlogsResponse(final JSONObject jsonObject,
+                                                final String path,
+                                                final ConditionalRestRequest.Validators validators) {
+        ReaderScheduler.submit(ReaderScheduler.Lane.SYNC, new Runnable() {
             @Override
             public void run() {
                 ReaderRecommendBlogList serverBlogs = ReaderRecommendBlogList.fromJson(jsonObject);
@@ -296,8 +332,9 @@ public class ReaderUpdateService extends Service {
                     EventBus.getDefault().post(new ReaderEvents.RecommendedBlogsChanged());
                 }
 
+                ReaderSyncStateTable.setValidators(path, path, validators);
                 taskCompleted(UpdateTask.RECOMMENDED_BLOGS);
             }
-        }.start();
+        });
     }
 }
@@ -0,0 +1,121 @@
+package org.wordpress.android.ui.reader.utils;
+
+import android.text.TextUtils;
+
+/**
+ * rewrites the image and iframe tags in post content in a single pass - the content is scanned
+ * once for tags, and the content between them is copied unchanged to the output along with the
+ * tags returned by the TagRewriter. This replaces scanning the content with regexes and then
+ * searching & replacing each tag in a StringBuilder, which is quadratic on posts with lots of images
+ */
+public class ReaderHtmlRewriter {
+
+    public interface TagRewriter {
+        /*
+         * returns the tag to use in place of the passed image tag, or null to keep it
+         */
+        String rewriteImageTag(String imageTag, String imageUrl);
+
+        /*
+         * returns the tag to use in place of the passed iframe tag, or null to keep it
+         */
+        String rewriteIframeTag(String iframeTag, String src);
+    }
+
+    private static final String IMG = "img";
+    private static final String IFRAME = "iframe";
+
+    public static String rewrite(final String content, TagRewriter rewriter) {
+        if (rewriter == null) {
+            throw new IllegalArgumentException("TagRewriter is required");
+        }
+        if (content == null) {
+            return "";
+        }
+
+        int length = content.length();
+        StringBuilder sb = null;
+        int copyFrom = 0;
+        int tagStart = content.indexOf('<');
+
+        while (tagStart != -1) {
+            final boolean isImage;
+            int nameEnd;
+            if (isTagName(content, tagStart, IMG)) {
+                isImage = true;
+                nameEnd = tagStart + 1 + IMG.length();
+            } else if (isTagName(content, tagStart, IFRAME)) {
+                isImage = false;
+                nameEnd = tagStart + 1 + IFRAME.length();
+            } else {
+                tagStart = content.indexOf('<', tagStart + 1);
+                continue;
+            }
+
+            int tagEnd = findTagEnd(content, nameEnd);
+            if (tagEnd == -1) {
+                // unterminated tag, leave the rest of the content as is
+                break;
+            }
+
+            String tag = content.substring(tagStart, tagEnd + 1);
+            String src = ReaderHtmlUtils.getSrcAttrValue(tag);
+            if (!TextUtils.isEmpty(src)) {
+                String newTag = isImage ? rewriter.rewriteImageTag(tag, src) : rewriter.rewriteIframeTag(tag, src);
+                if (newTag != null) {
+                    if (sb == null) {
+                        sb = new StringBuilder(length + (length / 4));
+                    }
+                    sb.append(content, copyFrom, tagStart).append(newTag);
+                    copyFrom = tagEnd + 1;
+                }
+            }
+
+            tagStart = content.indexOf('<', tagEnd + 1);
+        }
+
+        if (sb == null) {
+            return content;
+        }
+        sb.append(content, copyFrom, length);
+        return sb.toString();
+    }
+
+    /*
+     * returns true if the tag starting at the passed position has the passed name followed by
+     * whitespace (tags without attributes have no src, so they're ignored)
+     */
+    private static boolean isTagName(final String content, int tagStart, final String name) {
+        int nameEnd = tagStart + 1 + name.length();
+        return nameEnd < content.length()
+                && content.regionMatches(true, tagStart + 1, name, 0, name.length())
+                && Character.isWhitespace(content.charAt(nameEnd));
+    }
+
+    /*
+     * returns the position of the '>' which closes the tag, skipping quoted attribute values
+     * so a '>' in an attribute doesn't end the tag, or -1 if the tag isn't closed
+     */
+    private static int findTagEnd(final String content, int fromIndex) {
+        int length = content.length();
+        char prevChar = 0;
+        for (int i = fromIndex; i < length; i++) {
+            char c = content.charAt(i);
+            if (c == '>') {
+                return i;
+            }
+            if ((c == '"' || c == '\'') && prevChar == '=') {
+                int quoteEnd = content.indexOf(c, i + 1);
+                if (quoteEnd == -1) {
+                    return -1;
+                }
+                i = quoteEnd;
+                c = 0;
+            }
+            if (!Character.isWhitespace(c)) {
+                prevChar = c;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,135 @@
+package org.wordpress.android.util;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.support.v4.util.LruCache;
+
+import com.android.volley.toolbox.ImageLoader.ImageCache;
+
+import org.wordpress.android.util.AppLog.T;
+
+import java.io.File;
+import java.util.Locale;
+
+/**
+ * Two-tier bitmap cache shared by Volley's ImageLoader and the local media thumbnails: an in-memory
+ * LRU backed by a size-bounded disk cache of thumbnails (see BitmapDiskCache), so thumbnails survive
+ * process restarts and don't have to be downloaded and decoded again. Bitmaps are keyed by url (or
+ * file path) and target size - Volley's keys already include the size, use getCacheKey() for others.
+ * get() and getBitmap() only look in the memory tier so they can be called from the ui thread, the
+ * disk tier is read by load() from a background thread (see BitmapCacheImageLoader).
+ */
+public class BitmapCache implements ImageCache {
+    private static final String DISK_CACHE_DIRECTORY = "bitmap_cache";
+
+    private final LruCache<String, Bitmap> mMemoryCache;
+    private final BitmapDiskCache mDiskCache;
+
+    /**
+     * @param memoryCacheSizeKb max size of the memory tier, in kilobytes
+     * @param diskCacheSizeBytes max size of the disk tier, in bytes
+     */
+    public BitmapCache(Context context, int memoryCacheSizeKb, long diskCacheSizeBytes) {
+        if (context != null) {
+            mDiskCache = new BitmapDiskCache(new File(context.getCacheDir(), DISK_CACHE_DIRECTORY),
+                    diskCacheSizeBytes);
+        } else {
+            mDiskCache = null;
+        }
+        mMemoryCache = new LruCache<String, Bitmap>(memoryCacheSizeKb) {
+            @Override
+            protected int sizeOf(String key, Bitmap value) {
+                // The cache size will be measured in kilobytes rather than
+                // number of items.
+                int bytes = (value.getRowBytes() * value.getHeight());
+                return (bytes / 1024); //value.getByteCount() introduced in HONEYCOMB_MR1 or higher.
+            }
+        };
+    }
+
+    /**
+     * Returns the key of the passed url or file path decoded to fit in the passed size
+     */
+    public static String getCacheKey(String url, int maxWidth, int maxHeight) {
+        return "#W" + maxWidth + "#H" + maxHeight + url;
+    }
+
+    /**
+     * Returns the bitmap from the memory tier, or null if it's not in memory
+     */
+    public Bitmap get(String key) {
+        if (key == null) {
+            return null;
+        }
+        return mMemoryCache.get(key);
+    }
+
+    /**
+     * Returns the bitmap from the memory tier, or reads it from the disk tier and keeps it in memory -
+     * must not be called from the ui thread
+     */
+    public Bitmap load(String key) {
+        Bitmap bitmap = get(key);
+        if (bitmap == null && key != null && mDiskCache != null) {
+            bitmap = mDiskCache.get(key);
+            if (bitmap != null) {
+                mMemoryCache.put(key, bitmap);
+            }
+        }
+        return bitmap;
+    }
+
+    /**
+     * Returns true if the disk tier holds the passed key, without reading it
+     */
+    public boolean isOnDisk(String key) {
+        return key != null && mDiskCache != null && mDiskCache.contains(key);
+    }
+
+    public void put(String key, Bitmap bitmap) {
+        if (key == null || bitmap == null) {
+            return;
+        }
+        mMemoryCache.put(key, bitmap);
+        if (mDiskCache != null) {
+            mDiskCache.put(key, bitmap);
+        }
+    }
+
+    @Override
+    public Bitmap getBitmap(String key) {
+        return get(key);
+    }
+
+    @Override
+    public void putBitmap(String key, Bitmap bitmap) {
+        put(key, bitmap);
+    }
+
+    /**
+     * Empties the memory tier and the bitmap pool, the disk tier is kept
+     */
+    public void evictAll() {
+        mMemoryCache.evictAll();
+        BitmapPool.getInstance().clear();
+    }
+
+    /**
+     * Returns the hit, miss and eviction counts of both tiers and the bitmap pool, for logging
+     */
+    public String getStats() {
+        String stats = String.format(Locale.US, "memory: %d hits, %d misses, %d evictions, %d of %d KB",
+                mMemoryCache.hitCount(), mMemoryCache.missCount(), mMemoryCache.evictionCount(),
+                mMemoryCache.size(), mMemoryCache.maxSize());
+        if (mDiskCache != null) {
+            stats += String.format(Locale.US, " - disk: %d hits, %d misses, %d evictions, %d KB",
+                    mDiskCache.getHitCount(), mDiskCache.getMissCount(), mDiskCache.getEvictionCount(),
+                    mDiskCache.getSizeBytes() / 1024);
+        }
+        return stats + " - pool: " + BitmapPool.getInstance().getStats();
+    }
+
+    public void logStats() {
+        AppLog.d(T.UTILS, "BitmapCache > " + getStats());
+    }
+}
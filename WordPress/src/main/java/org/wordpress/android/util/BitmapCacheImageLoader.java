@@ -0,0 +1,109 @@
+package org.wordpress.android.util;
+
+import android.graphics.Bitmap;
+import android.os.AsyncTask;
+import android.os.Handler;
+import android.os.Looper;
+import android.widget.ImageView.ScaleType;
+
+import com.android.volley.RequestQueue;
+import com.android.volley.toolbox.ImageLoader;
+
+/**
+ * ImageLoader backed by a BitmapCache - Volley only asks the cache for bitmaps from the ui thread, where
+ * BitmapCache only looks in its memory tier, so bitmaps that are only in the disk tier are read from it
+ * on a background thread here before falling back to the network.
+ */
+public class BitmapCacheImageLoader extends ImageLoader {
+    private final BitmapCache mBitmapCache;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+    public BitmapCacheImageLoader(RequestQueue queue, BitmapCache bitmapCache) {
+        super(queue, bitmapCache);
+        mBitmapCache = bitmapCache;
+    }
+
+    @Override
+    public ImageContainer get(String requestUrl, ImageListener imageListener, int maxWidth, int maxHeight,
+                              ScaleType scaleType) {
+        String cacheKey = getCacheKey(requestUrl, maxWidth, maxHeight, scaleType);
+        if (mBitmapCache.get(cacheKey) != null || !mBitmapCache.isOnDisk(cacheKey)) {
+            return getFromMemoryOrNetwork(requestUrl, imageListener, maxWidth, maxHeight, scaleType);
+        }
+
+        DiskImageContainer container = new DiskImageContainer(requestUrl, imageListener, maxWidth, maxHeight,
+                scaleType, cacheKey);
+        // like a network request, tell the listener right away that the bitmap isn't available yet
+        imageListener.onResponse(container, true);
+        AsyncTask.THREAD_POOL_EXECUTOR.execute(container);
+        return container;
+    }
+
+    private ImageContainer getFromMemoryOrNetwork(String requestUrl, ImageListener imageListener, int maxWidth,
+                                                  int maxHeight, ScaleType scaleType) {
+        return super.get(requestUrl, imageListener, maxWidth, maxHeight, scaleType);
+    }
+
+    /*
+     * same as the key ImageLoader uses for the cache
+     */
+    private static String getCacheKey(String url, int maxWidth, int maxHeight, ScaleType scaleType) {
+        return "#W" + maxWidth + "#H" + maxHeight + "#S" + scaleType.ordinal() + url;
+    }
+
+    /*
+     * container returned while the bitmap is read from the disk tier - once it's read, the request is
+     * handed to ImageLoader, which finds it in the memory tier (or requests it from the network if it
+     * couldn't be read)
+     */
+    private class DiskImageContainer extends ImageContainer implements Runnable {
+        private final String mRequestUrl;
+        private final ImageListener mImageListener;
+        private final int mMaxWidth;
+        private final int mMaxHeight;
+        private final ScaleType mScaleType;
+        private final String mCacheKey;
+
+        // only used from the ui thread
+        private ImageContainer mContainer;
+        private boolean mIsCancelled;
+
+        DiskImageContainer(String requestUrl, ImageListener imageListener, int maxWidth, int maxHeight,
+                           ScaleType scaleType, String cacheKey) {
+            super(null, requestUrl, null, null);
+            mRequestUrl = requestUrl;
+            mImageListener = imageListener;
+            mMaxWidth = maxWidth;
+            mMaxHeight = maxHeight;
+            mScaleType = scaleType;
+            mCacheKey = cacheKey;
+        }
+
+        @Override
+        public void run() {
+            mBitmapCache.load(mCacheKey);
+            mHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    if (!mIsCancelled) {
+                        mContainer = getFromMemoryOrNetwork(mRequestUrl, mImageListener, mMaxWidth, mMaxHeight,
+                                mScaleType);
+                    }
+                }
+            });
+        }
+
+        @Override
+        public void cancelRequest() {
+            mIsCancelled = true;
+            if (mContainer != null) {
+                mContainer.cancelRequest();
+            }
+        }
+
+        @Override
+        public Bitmap getBitmap() {
+            return (mContainer != null ? mContainer.getBitmap() : null);
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package org.wordpress.android.util;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Build;
+
+import org.wordpress.android.util.AppLog.T;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Size-bounded disk tier of BitmapCache: stores the bitmaps put in the cache as compressed thumbnails
+ * (JPEG, or WebP for bitmaps with transparency) so they survive process restarts. Files are evicted
+ * least-recently-used first, using their last modified time, which is updated on every read.
+ * Files are written on a background thread, and only the bitmaps that are small enough to be thumbnails
+ * are stored - anything bigger would take longer to read back than it's worth.
+ */
+class BitmapDiskCache {
+    private static final int MAX_THUMBNAIL_PIXELS = 800 * 800;
+    private static final int JPEG_QUALITY = 85;
+    private static final int WEBP_QUALITY = 85;
+
+    private final File mDirectory;
+    private final long mMaxSizeBytes;
+    private final ExecutorService mWriteExecutor = Executors.newSingleThreadExecutor();
+
+    // the size of each file by key, in access order, which is the eviction order
+    private final LinkedHashMap<String, Long> mFileSizes = new LinkedHashMap<String, Long>(64, 0.75f, true);
+    private long mSizeBytes;
+    private volatile boolean mIsInitialized;
+
+    private final AtomicInteger mHitCount = new AtomicInteger();
+    private final AtomicInteger mMissCount = new AtomicInteger();
+    private final AtomicInteger mEvictionCount = new AtomicInteger();
+
+    BitmapDiskCache(File directory, long maxSizeBytes) {
+        mDirectory = directory;
+        mMaxSizeBytes = maxSizeBytes;
+        // reading the existing files is done on the write thread, lookups miss until it's done
+        mWriteExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                initialize();
+            }
+        });
+    }
+
+    private void initialize() {
+        if (!mDirectory.exists() && !mDirectory.mkdirs()) {
+            AppLog.w(T.UTILS, "BitmapDiskCache > unable to create " + mDirectory);
+            return;
+        }
+
+        File[] files = mDirectory.listFiles();
+        if (files != null) {
+            // oldest first, so the least recently used files come first in the access order
+            Arrays.sort(files, new Comparator<File>() {
+                @Override
+                public int compare(File lhs, File rhs) {
+                    long lhsModified = lhs.lastModified();
+                    long rhsModified = rhs.lastModified();
+                    return lhsModified < rhsModified ? -1 : (lhsModified == rhsModified ? 0 : 1);
+                }
+            });
+            synchronized (mFileSizes) {
+                for (File file : files) {
+                    if (file.getName().endsWith(".tmp")) {
+                        // left over by a write that didn't complete
+                        file.delete();
+                    } else {
+                        mFileSizes.put(file.getName(), file.length());
+                        mSizeBytes += file.length();
+                    }
+                }
+            }
+        }
+
+        mIsInitialized = true;
+        trimToSize();
+    }
+
+    /*
+     * returns true if a bitmap is stored for the passed key - this doesn't touch the disk, so it can be
+     * called from the ui thread
+     */
+    boolean contains(String key) {
+        String fileName = getFileName(key);
+        synchronized (mFileSizes) {
+            return mIsInitialized && mFileSizes.containsKey(fileName);
+        }
+    }
+
+    /*
+     * returns the bitmap stored for the passed key, or null if there isn't one - this reads and decodes
+     * the file, so it must not be called from the ui thread. Thumbnails are decoded into pooled bitmaps
+     * when possible.
+     */
+    Bitmap get(String key) {
+        String fileName = getFileName(key);
+        boolean isStored;
+        synchronized (mFileSizes) {
+            isStored = mIsInitialized && mFileSizes.get(fileName) != null;
+        }
+        if (!isStored) {
+            mMissCount.incrementAndGet();
+            return null;
+        }
+
+        final File file = new File(mDirectory, fileName);
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(file.getPath(), options);
+        Bitmap bitmap = BitmapPool.getInstance().decodeFile(file.getPath(), options);
+        if (bitmap == null) {
+            mMissCount.incrementAndGet();
+            remove(fileName);
+            return null;
+        }
+
+        mHitCount.incrementAndGet();
+        mWriteExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                file.setLastModified(System.currentTimeMillis());
+            }
+        });
+        return bitmap;
+    }
+
+    void put(String key, final Bitmap bitmap) {
+        if (bitmap == null || bitmap.getWidth() * bitmap.getHeight() > MAX_THUMBNAIL_PIXELS) {
+            return;
+        }
+        final Bitmap.CompressFormat format;
+        final int quality;
+        if (!bitmap.hasAlpha()) {
+            format = Bitmap.CompressFormat.JPEG;
+            quality = JPEG_QUALITY;
+        } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
+            // WebP with transparency isn't supported before 4.2
+            format = Bitmap.CompressFormat.WEBP;
+            quality = WEBP_QUALITY;
+        } else {
+            return;
+        }
+
+        final String fileName = getFileName(key);
+        synchronized (mFileSizes) {
+            if (mFileSizes.get(fileName) != null) {
+                return;
+            }
+        }
+
+        mWriteExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                write(fileName, bitmap, format, quality);
+            }
+        });
+    }
+
+    private void write(String fileName, Bitmap bitmap, Bitmap.CompressFormat format, int quality) {
+        if (!mIsInitialized || bitmap.isRecycled()) {
+            return;
+        }
+        File tmpFile = new File(mDirectory, fileName + ".tmp");
+        File file = new File(mDirectory, fileName);
+        OutputStream out = null;
+        boolean isWritten = false;
+        try {
+            out = new BufferedOutputStream(new FileOutputStream(tmpFile));
+            isWritten = bitmap.compress(format, quality, out);
+        } catch (IOException e) {
+            AppLog.w(T.UTILS, "BitmapDiskCache > unable to write " + fileName + ": " + e.getMessage());
+        } finally {
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException e) {
+                    isWritten = false;
+                }
+            }
+        }
+
+        if (!isWritten || !tmpFile.renameTo(file)) {
+            tmpFile.delete();
+            return;
+        }
+        synchronized (mFileSizes) {
+            Long previousSize = mFileSizes.put(fileName, file.length());
+            mSizeBytes += file.length() - (previousSize != null ? previousSize : 0);
+        }
+        trimToSize();
+    }
+
+    private void remove(String fileName) {
+        synchronized (mFileSizes) {
+            Long size = mFileSizes.remove(fileName);
+            if (size != null) {
+                mSizeBytes -= size;
+            }
+        }
+        new File(mDirectory, fileName).delete();
+    }
+
+    /*
+     * deletes the least recently used files until the cache fits in its max size
+     */
+    private void trimToSize() {
+        while (true) {
+            String fileName;
+            synchronized (mFileSizes) {
+                if (mSizeBytes <= mMaxSizeBytes || mFileSizes.isEmpty()) {
+                    return;
+                }
+                Iterator<Map.Entry<String, Long>> iterator = mFileSizes.entrySet().iterator();
+                Map.Entry<String, Long> eldest = iterator.next();
+                fileName = eldest.getKey();
+                mSizeBytes -= eldest.getValue();
+                iterator.remove();
+            }
+            new File(mDirectory, fileName).delete();
+            mEvictionCount.incrementAndGet();
+        }
+    }
+
+    private static String getFileName(String key) {
+        return StringUtils.getMd5Hash(key);
+    }
+
+    int getHitCount() {
+        return mHitCount.get();
+    }
+
+    int getMissCount() {
+        return mMissCount.get();
+    }
+
+    int getEvictionCount() {
+        return mEvictionCount.get();
+    }
+
+    long getSizeBytes() {
+        synchronized (mFileSizes) {
+            return mSizeBytes;
+        }
+    }
+}
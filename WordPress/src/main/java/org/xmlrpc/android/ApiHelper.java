@@ -28,18 +28,21 @@ import org.wordpress.android.util.MapUtils;
 import org.xmlpull.v1.XmlPullParser;
 import org.xmlpull.v1.XmlPullParserException;
 
-import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.StringReader;
 import java.net.HttpURLConnection;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Vector;
+import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.regex.Matcher;
@@ -121,15 +124,19 @@ public class ApiHelper {
         }
 
         protected void onPostExecute(Object result) {
-            if (result != null && result instanceof HashMap) {
-                Map<?, ?> postFormats = (HashMap<?, ?>) result;
-                if (postFormats.size() > 0) {
-                    Gson gson = new Gson();
-                    String postFormatsJson = gson.toJson(postFormats);
-                    if (postFormatsJson != null) {
-                        if (mBlog.bsetPostFormats(postFormatsJson)) {
-                            WordPress.wpDB.saveBlog(mBlog);
-                        }
+            updatePostFormats(mBlog, result);
+        }
+    }
+
+    private static void updatePostFormats(Blog blog, Object result) {
+        if (result != null && result instanceof HashMap) {
+            Map<?, ?> postFormats = (HashMap<?, ?>) result;
+            if (postFormats.size() > 0) {
+                Gson gson = new Gson();
+                String postFormatsJson = gson.toJson(postFormats);
+                if (postFormatsJson != null) {
+                    if (blog.bsetPostFormats(postFormatsJson)) {
+                        WordPress.wpDB.saveBlog(blog);
                     }
                 }
             }
@@ -226,59 +233,83 @@ public class ApiHelper {
             XMLRPCClientInterface client = XMLRPCFactory.instantiate(mBlog.getUri(), mBlog.getHttpuser(),
                     mBlog.getHttppassword());
 
+            // all the calls are sent in a single system.multicall request
+            XMLRPCMulticall multicall = new XMLRPCMulticall();
+            XMLRPCMulticall.Call optionsCall = null;
+            XMLRPCMulticall.Call postFormatsCall = null;
             if (!commentsOnly) {
                 // check the WP number if self-hosted
                 Map<String, String> hPost = ApiHelper.blogOptionsXMLRPCParameters;
-
                 Object[] vParams = {mBlog.getRemoteBlogId(),
                                     mBlog.getUsername(),
                                     mBlog.getPassword(),
                                     hPost};
+                optionsCall = multicall.add("wp.getOptions", vParams);
+
+                // get theme post formats
+                Object[] postFormatsParams = {mBlog.getRemoteBlogId(), mBlog.getUsername(),
+                        mBlog.getPassword(), "show-supported"};
+                postFormatsCall = multicall.add("wp.getPostFormats", postFormatsParams);
+            }
+
+            // Check if user is an admin
+            Object[] userParams = {mBlog.getRemoteBlogId(), mBlog.getUsername(), mBlog.getPassword()};
+            XMLRPCMulticall.Call profileCall = multicall.add("wp.getProfile", userParams);
+
+            // refresh the comments
+            Map<String, Object> hPost = new HashMap<String, Object>();
+            hPost.put("number", 30);
+            Object[] commentParams = {mBlog.getRemoteBlogId(), mBlog.getUsername(),
+                    mBlog.getPassword(), hPost};
+            XMLRPCMulticall.Call commentsCall = multicall.add("wp.getComments", commentParams);
+
+            try {
+                client.callMulticall(multicall);
+            } catch (Exception e) {
+                setError(ErrorType.NETWORK_XMLRPC, e.getMessage(), e);
+                return false;
+            }
+
+            if (optionsCall != null) {
                 Object versionResult = null;
                 try {
-                    versionResult = client.call("wp.getOptions", vParams);
-                } catch (ClassCastException cce) {
-                    setError(ErrorType.INVALID_RESULT, cce.getMessage(), cce);
-                    return false;
+                    versionResult = optionsCall.getResult();
                 } catch (Exception e) {
                     setError(ErrorType.NETWORK_XMLRPC, e.getMessage(), e);
                     return false;
                 }
 
                 if (versionResult != null) {
-                    Map<?, ?> blogOptions = (HashMap<?, ?>) versionResult;
-                    ApiHelper.updateBlogOptions(mBlog, blogOptions);
+                    try {
+                        Map<?, ?> blogOptions = (HashMap<?, ?>) versionResult;
+                        ApiHelper.updateBlogOptions(mBlog, blogOptions);
+                    } catch (ClassCastException cce) {
+                        setError(ErrorType.INVALID_RESULT, cce.getMessage(), cce);
+                        return false;
+                    }
                 }
+            }
 
-                // get theme post formats
-                List<Object> args = new Vector<Object>();
-                args.add(mBlog);
-                new GetPostFormatsTask().execute(args);
+            if (postFormatsCall != null) {
+                try {
+                    updatePostFormats(mBlog, postFormatsCall.getResult());
+                } catch (XMLRPCException e) {
+                    AppLog.e(T.API, "Cannot fetch the post formats", e);
+                }
             }
 
-            // Check if user is an admin
-            Object[] userParams = {mBlog.getRemoteBlogId(), mBlog.getUsername(), mBlog.getPassword()};
             try {
-                Map<String, Object> userInfos = (HashMap<String, Object>) client.call("wp.getProfile", userParams);
+                Map<String, Object> userInfos = (HashMap<String, Object>) profileCall.getResult();
                 updateBlogAdmin(userInfos);
             } catch (ClassCastException cce) {
                 setError(ErrorType.INVALID_RESULT, cce.getMessage(), cce);
                 return false;
             } catch (XMLRPCException e) {
                 setError(ErrorType.NETWORK_XMLRPC, e.getMessage(), e);
-            } catch (IOException e) {
-                setError(ErrorType.NETWORK_XMLRPC, e.getMessage(), e);
-            } catch (XmlPullParserException e) {
-                setError(ErrorType.NETWORK_XMLRPC, e.getMessage(), e);
             }
 
-            // refresh the comments
-            Map<String, Object> hPost = new HashMap<String, Object>();
-            hPost.put("number", 30);
-            Object[] commentParams = {mBlog.getRemoteBlogId(), mBlog.getUsername(),
-                    mBlog.getPassword(), hPost};
             try {
-                ApiHelper.refreshComments(mBlog, commentParams);
+                ApiHelper.updateComments(mBlog, (Object[]) commentsCall.getResult());
             } catch (Exception e) {
                 setError(ErrorType.NETWORK_XMLRPC, e.getMessage(), e);
                 return false;
@@ -359,7 +390,14 @@ public class ApiHelper {
                 blog.getHttppassword());
         Object[] result;
         result = (Object[]) client.call("wp.getComments", commentParams);
+        return updateComments(blog, result);
+    }
 
+    /**
+     * save the comments returned by wp.getComments for the passed blog
+     * @return the saved comments, or null if there are none
+     */
+    private static CommentList updateComments(Blog blog, Object[] result) {
         if (result.length == 0) {
             return null;
         }
@@ -431,37 +469,16 @@ public class ApiHelper {
             XMLRPCClientInterface client = XMLRPCFactory.instantiate(blog.getUri(), blog.getHttpuser(),
                     blog.getHttppassword());
 
-            Object[] result;
             Object[] xmlrpcParams = { blog.getRemoteBlogId(),
                     blog.getUsername(),
                     blog.getPassword(), recordCount };
+            SavePostsVisitor savePostsVisitor = new SavePostsVisitor(blog.getLocalTableBlogId(), isPage, loadMore);
             try {
-                result = (Object[]) client.call((isPage) ? "wp.getPages"
-                        : "metaWeblog.getRecentPosts", xmlrpcParams);
-                if (result != null && result.length > 0) {
-                    mPostCount = result.length;
-                    List<Map<?, ?>> postsList = new ArrayList<Map<?, ?>>();
-
-                    if (!loadMore) {
-                        WordPress.wpDB.deleteUploadedPosts(
-                                blog.getLocalTableBlogId(), isPage);
-                    }
-
-                    // If we're loading more posts, only save the posts at the end of the array.
-                    // NOTE: Switching to wp.getPosts wouldn't require janky solutions like this
-                    // since it allows for an offset parameter.
-                    int startPosition = 0;
-                    if (loadMore && result.length > PostsListFragment.POSTS_REQUEST_COUNT) {
-                        startPosition = result.length - PostsListFragment.POSTS_REQUEST_COUNT;
-                    }
-
-                    for (int ctr = startPosition; ctr < result.length; ctr++) {
-                        Map<?, ?> postMap = (Map<?, ?>) result[ctr];
-                        postsList.add(postMap);
-                    }
-
-                    WordPress.wpDB.savePosts(postsList, blog.getLocalTableBlogId(), isPage, !loadMore);
-                }
+                // posts are saved while the response is parsed, see SavePostsVisitor
+                mPostCount = client.callStreaming((isPage) ? "wp.getPages"
+                        : "metaWeblog.getRecentPosts", xmlrpcParams, savePostsVisitor);
+                savePostsVisitor.flush();
+                savePostsVisitor.deleteRemovedPosts();
                 return true;
             } catch (XMLRPCFault e) {
                 mErrorType = ErrorType.NETWORK_XMLRPC;
@@ -483,6 +500,59 @@ public class ApiHelper {
             return false;
         }
 
+        /**
+         * Saves posts to the db in small batches while the response is being parsed.
+         * If we're loading more posts, only the posts at the end of the array are saved, so we
+         * keep a window of the last POSTS_REQUEST_COUNT posts and save it once the response is
+         * complete.
+         * Existing posts are updated in place (unchanged posts are skipped by savePosts), and the
+         * posts that weren't returned by a full refresh are deleted once the response is complete.
+         * NOTE: Switching to wp.getPosts wouldn't require janky solutions like this
+         * since it allows for an offset parameter.
+         */
+        private static class SavePostsVisitor extends XMLRPCStructVisitor {
+            private static final int SAVE_BATCH_SIZE = 20;
+
+            private final int mLocalBlogId;
+            private final boolean mIsPage;
+            private final boolean mLoadMore;
+            private final LinkedList<Map<?, ?>> mPendingPosts = new LinkedList<Map<?, ?>>();
+            private final Set<String> mSavedPostIds = new HashSet<String>();
+
+            SavePostsVisitor(int localBlogId, boolean isPage, boolean loadMore) {
+                mLocalBlogId = localBlogId;
+                mIsPage = isPage;
+                mLoadMore = loadMore;
+            }
+
+            @Override
+            public void onStruct(int index, Map<?, ?> postMap) {
+                mPendingPosts.add(postMap);
+                if (mLoadMore) {
+                    if (mPendingPosts.size() > PostsListFragment.POSTS_REQUEST_COUNT) {
+                        mPendingPosts.removeFirst();
+                    }
+                } else if (mPendingPosts.size() >= SAVE_BATCH_SIZE) {
+                    flush();
+                }
+            }
+
+            void flush() {
+                mSavedPostIds.addAll(WordPress.wpDB.savePosts(mPendingPosts, mLocalBlogId, mIsPage, !mLoadMore));
+                mPendingPosts.clear();
+            }
+
+            /*
+             * delete the uploaded posts that weren't returned by a full refresh, they were deleted on
+             * the server (an empty response leaves the posts as they are)
+             */
+            void deleteRemovedPosts() {
+                if (!mLoadMore && !mSavedPostIds.isEmpty()) {
+                    WordPress.wpDB.deleteUploadedPostsExcept(mLocalBlogId, mIsPage, mSavedPostIds);
+                }
+            }
+        }
+
         @Override
         protected void onCancelled() {
             super.onCancelled();
@@ -579,19 +649,56 @@ public class ApiHelper {
         }
     }
 
+    /**
+     * Syncs the media library of a blog. A task created with an offset fetches (and saves) a single page
+     * of the filtered library starting at that offset. A full sync task, only started when the user
+     * refreshes the media browser, syncs the whole library: its pages are fetched a few at a time and
+     * saved as they arrive, then the files the server didn't return are deleted. A full sync can take a
+     * while on a large library, so it should be run on AsyncTask.THREAD_POOL_EXECUTOR rather than hold
+     * up the serial executor.
+     */
     public static class SyncMediaLibraryTask extends HelperAsyncTask<java.util.List<?>, Void, Integer> {
         public interface Callback extends GenericErrorCallback {
             public void onSuccess(int results);
         }
 
+        private static final int PAGE_SIZE = 50;
+        private static final int MAX_PAGE_SIZE = 500;
+        // each page holds a connection to the blog
+        private static final int MAX_CONCURRENT_PAGES = XMLRPCConnectionManager.MEDIA_SYNC_CONNECTIONS_PER_HOST;
+        // pages that take longer than this shrink the next pages, pages that take less than half of it grow them
+        private static final long TARGET_PAGE_MS = 3000;
+
         private Callback mCallback;
         private int mOffset;
         private Filter mFilter;
+        private final boolean mIsFullSync;
+
+        // full sync state, shared by the threads fetching the pages
+        private final Object mPageLock = new Object();
+        private final LinkedList<int[]> mGapPages = new LinkedList<int[]>();
+        private int mNextPageOffset;
+        private int mPageSize = PAGE_SIZE;
+        private int mLibrarySize = Integer.MAX_VALUE;
+        private int mSyncedCount;
+        private boolean mIsSyncFailed;
 
         public SyncMediaLibraryTask(int offset, Filter filter, Callback callback) {
+            this(offset, filter, callback, false);
+        }
+
+        private SyncMediaLibraryTask(int offset, Filter filter, Callback callback, boolean isFullSync) {
             mOffset = offset;
             mCallback = callback;
             mFilter = filter;
+            mIsFullSync = isFullSync;
+        }
+
+        /*
+         * returns a task that syncs the whole library, the filter only applies to the local library
+         */
+        public static SyncMediaLibraryTask newFullSyncTask(Callback callback) {
+            return new SyncMediaLibraryTask(0, Filter.ALL, callback, true);
         }
 
         @Override
@@ -605,61 +712,186 @@ public class ApiHelper {
             }
 
             String blogId = String.valueOf(blog.getLocalTableBlogId());
-            XMLRPCClientInterface client = XMLRPCFactory.instantiate(blog.getUri(), blog.getHttpuser(),
-                    blog.getHttppassword());
-            Map<String, Object> filter = new HashMap<String, Object>();
-            filter.put("number", 50);
-            filter.put("offset", mOffset);
-
-            if (mFilter == Filter.IMAGES) {
-                filter.put("mime_type","image/*");
-            } else if(mFilter == Filter.UNATTACHED) {
-                filter.put("parent_id", 0);
-            }
-
-            Object[] apiParams = {blog.getRemoteBlogId(), blog.getUsername(), blog.getPassword(),
-                    filter};
-
-            Object[] results = null;
             try {
-                results = (Object[]) client.call("wp.getMediaLibrary", apiParams);
+                if (mIsFullSync) {
+                    return syncMediaLibrary(blog, blogId);
+                }
+                List<MediaFile> mediaFiles = fetchMediaPage(newClient(blog), blog, blogId, mOffset, PAGE_SIZE,
+                        mFilter);
+                WordPress.wpDB.saveMediaFilesFromSync(blogId, mediaFiles, 0);
+                return mediaFiles.size();
             } catch (ClassCastException cce) {
                 setError(ErrorType.INVALID_RESULT, cce.getMessage(), cce);
-                return 0;
             } catch (XMLRPCException e) {
                 prepareErrorMessage(e);
-                return 0;
             } catch (IOException e) {
                 prepareErrorMessage(e);
-                return 0;
             } catch (XmlPullParserException e) {
                 prepareErrorMessage(e);
-                return 0;
+            } catch (InterruptedException e) {
+                prepareErrorMessage(e);
             }
+            return 0;
+        }
 
-            if (blogId == null) {
-                setError(ErrorType.INVALID_CURRENT_BLOG, "Invalid blogId");
-                return 0;
+        /*
+         * syncs the whole library (the filter only applies to the local library) and returns the
+         * number of files the server returned. Each page is saved in a single transaction as soon as
+         * it's fetched, stamped with a new sync generation, and the files stamped with an older
+         * generation are deleted once all pages were fetched - a failed sync deletes nothing.
+         */
+        private int syncMediaLibrary(final Blog blog, final String blogId)
+                throws XMLRPCException, IOException, XmlPullParserException, InterruptedException {
+            final int syncGeneration = WordPress.wpDB.getNextMediaSyncGeneration(blogId);
+            long startTime = System.currentTimeMillis();
+
+            List<Callable<Void>> pageFetchers = new ArrayList<Callable<Void>>();
+            for (int i = 0; i < MAX_CONCURRENT_PAGES; i++) {
+                pageFetchers.add(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        fetchMediaPages(blog, blogId, syncGeneration);
+                        return null;
+                    }
+                });
             }
 
-            if (results == null) {
-                setError(ErrorType.INVALID_RESULT, "Invalid blogId");
-                return 0;
+            ExecutorService executor = Executors.newFixedThreadPool(MAX_CONCURRENT_PAGES);
+            try {
+                for (Future<Void> future : executor.invokeAll(pageFetchers)) {
+                    future.get();
+                }
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof XMLRPCException) {
+                    throw (XMLRPCException) cause;
+                } else if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                } else if (cause instanceof XmlPullParserException) {
+                    throw (XmlPullParserException) cause;
+                } else if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                } else if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new XMLRPCException((Exception) cause);
+            } finally {
+                executor.shutdownNow();
+            }
+
+            int deletedCount = WordPress.wpDB.deleteMediaFilesNotInSync(blogId, syncGeneration);
+            AppLog.d(T.MEDIA, "SyncMediaLibraryTask: synced " + mSyncedCount + " files, deleted " + deletedCount
+                    + " in " + (System.currentTimeMillis() - startTime) + " ms");
+            return mSyncedCount;
+        }
+
+        /*
+         * fetches and saves pages of the library until all of it was fetched or another page failed
+         */
+        private void fetchMediaPages(Blog blog, String blogId, int syncGeneration)
+                throws XMLRPCException, IOException, XmlPullParserException {
+            XMLRPCClientInterface client = newClient(blog);
+            int[] page;
+            while ((page = nextMediaPage()) != null) {
+                int offset = page[0];
+                int number = page[1];
+                long startTime = System.currentTimeMillis();
+                List<MediaFile> mediaFiles;
+                try {
+                    mediaFiles = fetchMediaPage(client, blog, blogId, offset, number, Filter.ALL);
+                    WordPress.wpDB.saveMediaFilesFromSync(blogId, mediaFiles, syncGeneration);
+                } catch (RuntimeException e) {
+                    onMediaPageFailed();
+                    throw e;
+                } catch (XMLRPCException e) {
+                    onMediaPageFailed();
+                    throw e;
+                } catch (IOException e) {
+                    onMediaPageFailed();
+                    throw e;
+                } catch (XmlPullParserException e) {
+                    onMediaPageFailed();
+                    throw e;
+                }
+                onMediaPageFetched(offset, number, mediaFiles.size(), System.currentTimeMillis() - startTime);
+            }
+        }
+
+        /*
+         * returns the {offset, number} of the next page to fetch, or null if there's none left
+         */
+        private int[] nextMediaPage() {
+            synchronized (mPageLock) {
+                if (mIsSyncFailed) {
+                    return null;
+                }
+                if (!mGapPages.isEmpty()) {
+                    return mGapPages.removeFirst();
+                }
+                if (mNextPageOffset >= mLibrarySize) {
+                    return null;
+                }
+                int[] page = {mNextPageOffset, mPageSize};
+                mNextPageOffset += mPageSize;
+                return page;
+            }
+        }
+
+        private void onMediaPageFetched(int offset, int number, int count, long elapsedMs) {
+            synchronized (mPageLock) {
+                mSyncedCount += count;
+                if (count == 0) {
+                    // nothing left past this offset
+                    mLibrarySize = Math.min(mLibrarySize, offset);
+                } else if (count < number) {
+                    // either the end of the library or the server returns less than asked for - fetch
+                    // the rest of the page to find out, so no file is missed and deleted
+                    mGapPages.add(new int[]{offset + count, number - count});
+                }
+
+                if (elapsedMs > TARGET_PAGE_MS) {
+                    mPageSize = Math.max(PAGE_SIZE, mPageSize / 2);
+                } else if (elapsedMs < TARGET_PAGE_MS / 2 && count == number) {
+                    mPageSize = Math.min(MAX_PAGE_SIZE, mPageSize * 2);
+                }
             }
+        }
 
-            Map<?, ?> resultMap;
-            // results returned, so mark everything existing to deleted
-            // since offset is 0, we are doing a full refresh
-            if (mOffset == 0) {
-                WordPress.wpDB.setMediaFilesMarkedForDeleted(blogId);
+        private void onMediaPageFailed() {
+            synchronized (mPageLock) {
+                mIsSyncFailed = true;
             }
-            for (Object result : results) {
-                resultMap = (Map<?, ?>) result;
-                MediaFile mediaFile = new MediaFile(blogId, resultMap);
-                WordPress.wpDB.saveMediaFile(mediaFile);
+        }
+
+        private static XMLRPCClientInterface newClient(Blog blog) {
+            return XMLRPCFactory.instantiate(blog.getUri(), blog.getHttpuser(), blog.getHttppassword());
+        }
+
+        private static List<MediaFile> fetchMediaPage(XMLRPCClientInterface client, Blog blog, final String blogId,
+                                                      int offset, int number, Filter filter)
+                throws XMLRPCException, IOException, XmlPullParserException {
+            Map<String, Object> filterParams = new HashMap<String, Object>();
+            filterParams.put("number", number);
+            filterParams.put("offset", offset);
+
+            if (filter == Filter.IMAGES) {
+                filterParams.put("mime_type","image/*");
+            } else if(filter == Filter.UNATTACHED) {
+                filterParams.put("parent_id", 0);
             }
-            WordPress.wpDB.deleteFilesMarkedForDeleted(blogId);
-            return results.length;
+
+            Object[] apiParams = {blog.getRemoteBlogId(), blog.getUsername(), blog.getPassword(),
+                    filterParams};
+
+            // the page is saved in one transaction once it's parsed
+            final List<MediaFile> mediaFiles = new ArrayList<MediaFile>();
+            client.callStreaming("wp.getMediaLibrary", apiParams, new XMLRPCStructVisitor() {
+                @Override
+                public void onStruct(int index, Map<?, ?> resultMap) {
+                    mediaFiles.add(new MediaFile(blogId, resultMap));
+                }
+            });
+            return mediaFiles;
         }
 
         private void prepareErrorMessage(Exception e) {
@@ -751,6 +983,59 @@ public class ApiHelper {
         }
     }
 
+    /**
+     * Retrieves the passed media item from the passed blog and saves it, must be called from a
+     * background thread
+     * @return the saved media item, or null if the blog didn't return it
+     */
+    public static MediaFile getMediaItem(Blog blog, int mediaId)
+            throws XMLRPCException, IOException, XmlPullParserException {
+        XMLRPCClientInterface client = XMLRPCFactory.instantiate(blog.getUri(), blog.getHttpuser(),
+                blog.getHttppassword());
+        Object[] apiParams = {
+                blog.getRemoteBlogId(),
+                blog.getUsername(),
+                blog.getPassword(),
+                mediaId
+        };
+        Map<?, ?> results = (Map<?, ?>) client.call("wp.getMediaItem", apiParams);
+        if (results == null) {
+            return null;
+        }
+        MediaFile mediaFile = new MediaFile(String.valueOf(blog.getLocalTableBlogId()), results);
+        mediaFile.save();
+        return mediaFile;
+    }
+
+    /**
+     * Uploads the passed media file to the passed blog, must be called from a background thread
+     * @return the id of the new media item, or null if the blog didn't return one
+     */
+    public static String uploadMediaFile(Blog blog, MediaFile mediaFile)
+            throws XMLRPCException, IOException, XmlPullParserException {
+        XMLRPCClientInterface client = XMLRPCFactory.instantiate(blog.getUri(), blog.getHttpuser(),
+                blog.getHttppassword());
+
+        Map<String, Object> data = new HashMap<String, Object>();
+        data.put("name", mediaFile.getFileName());
+        data.put("type", mediaFile.getMimeType());
+        data.put("bits", mediaFile);
+        data.put("overwrite", true);
+
+        Object[] apiParams = {
+                blog.getRemoteBlogId(),
+                blog.getUsername(),
+                blog.getPassword(),
+                data
+        };
+
+        Map<?, ?> resultMap = (HashMap<?, ?>) client.call("wp.uploadFile", apiParams);
+        if (resultMap != null && resultMap.containsKey("id")) {
+            return (String) resultMap.get("id");
+        }
+        return null;
+    }
+
     public static class GetMediaItemTask extends HelperAsyncTask<List<?>, Void, MediaFile> {
         public interface Callback extends GenericErrorCallback {
             public void onSuccess(MediaFile results);
@@ -773,19 +1058,8 @@ public class ApiHelper {
                 return null;
             }
 
-            String blogId = String.valueOf(blog.getLocalTableBlogId());
-
-            XMLRPCClientInterface client = XMLRPCFactory.instantiate(blog.getUri(), blog.getHttpuser(),
-                    blog.getHttppassword());
-            Object[] apiParams = {
-                    blog.getRemoteBlogId(),
-                    blog.getUsername(),
-                    blog.getPassword(),
-                    mMediaId
-            };
-            Map<?, ?> results = null;
             try {
-                results = (Map<?, ?>) client.call("wp.getMediaItem", apiParams);
+                return getMediaItem(blog, mMediaId);
             } catch (ClassCastException cce) {
                 setError(ErrorType.INVALID_RESULT, cce.getMessage(), cce);
             } catch (XMLRPCException e) {
@@ -795,14 +1069,7 @@ public class ApiHelper {
             } catch (XmlPullParserException e) {
                 setError(ErrorType.NETWORK_XMLRPC, e.getMessage(), e);
             }
-
-            if (results != null && blogId != null) {
-                MediaFile mediaFile = new MediaFile(blogId, results);
-                mediaFile.save();
-                return mediaFile;
-            } else {
-                return null;
-            }
+            return null;
         }
 
         @Override
@@ -843,29 +1110,13 @@ public class ApiHelper {
                 return null;
             }
 
-            XMLRPCClientInterface client = XMLRPCFactory.instantiate(blog.getUri(), blog.getHttpuser(),
-                    blog.getHttppassword());
-
-            Map<String, Object> data = new HashMap<String, Object>();
-            data.put("name", mMediaFile.getFileName());
-            data.put("type", mMediaFile.getMimeType());
-            data.put("bits", mMediaFile);
-            data.put("overwrite", true);
-
-            Object[] apiParams = {
-                    blog.getRemoteBlogId(),
-                    blog.getUsername(),
-                    blog.getPassword(),
-                    data
-            };
-
             if (mContext == null) {
                 return null;
             }
 
-            Map<?, ?> resultMap;
+            String id;
             try {
-                resultMap = (HashMap<?, ?>) client.call("wp.uploadFile", apiParams, getTempFile(mContext));
+                id = uploadMediaFile(blog, mMediaFile);
             } catch (ClassCastException cce) {
                 setError(ErrorType.INVALID_RESULT, cce.getMessage(), cce);
                 return null;
@@ -880,24 +1131,10 @@ public class ApiHelper {
                 return null;
             }
 
-            if (resultMap != null && resultMap.containsKey("id")) {
-                return (String) resultMap.get("id");
-            } else {
+            if (id == null) {
                 setError(ErrorType.INVALID_RESULT, "Invalid result");
             }
-
-            return null;
-        }
-
-        // Create a temp file for media upload
-        private File getTempFile(Context context) {
-            String tempFileName = "wp-" + System.currentTimeMillis();
-            try {
-                context.openFileOutput(tempFileName, Context.MODE_PRIVATE);
-            } catch (FileNotFoundException e) {
-                return null;
-            }
-            return context.getFileStreamPath(tempFileName);
+            return id;
         }
 
         @Override
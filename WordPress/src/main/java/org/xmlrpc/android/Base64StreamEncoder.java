@@ -0,0 +1,195 @@
+package org.xmlrpc.android;
+
+import org.xmlpull.v1.XmlSerializer;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Base64 encodes a file straight from its FileChannel to an OutputStream (or an XmlSerializer),
+ * using the same buffers for every chunk. Unlike android.util.Base64.encodeToString() this
+ * doesn't allocate a String per chunk, which matters when uploading large videos.
+ *
+ * The output has no line breaks, so its exact length is known up front (see encodedLength()).
+ * An instance isn't thread-safe, but it can be reused for several files.
+ */
+final class Base64StreamEncoder {
+    private static final byte[] ALPHABET =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".getBytes();
+    private static final byte PAD = '=';
+
+    // must be a multiple of 3 so that only the last chunk of a file needs padding
+    private static final int INPUT_CHUNK_SIZE = 3 * 16 * 1024;
+
+    private final ByteBuffer mInput = ByteBuffer.allocate(INPUT_CHUNK_SIZE);
+    private final byte[] mOutput = new byte[INPUT_CHUNK_SIZE / 3 * 4];
+    private char[] mOutputChars;
+
+    /**
+     * Length of the base64 encoding of byteCount bytes
+     */
+    static long encodedLength(long byteCount) {
+        return (byteCount + 2) / 3 * 4;
+    }
+
+    /**
+     * Encode the file to the output stream, returns the number of bytes written
+     */
+    long encode(File file, OutputStream out) throws IOException {
+        FileInputStream inputStream = new FileInputStream(file);
+        try {
+            FileChannel channel = inputStream.getChannel();
+            long expected = channel.size();
+            long read = 0;
+            long written = 0;
+            int length;
+            while ((length = fillChunk(channel)) > 0) {
+                read += length;
+                int encoded = encodeChunk(length);
+                out.write(mOutput, 0, encoded);
+                written += encoded;
+            }
+            if (read != expected) {
+                // the Content-Length was computed from the file size, we can't send something else
+                throw new EOFException("File size changed during upload: " + file.getPath());
+            }
+            return written;
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    /**
+     * Returns a stream reading the encoding of the file, for consumers that pull the content
+     * rather than have it written to them. The stream uses this encoder's buffers, so the encoder
+     * must not be used for anything else until the stream is closed.
+     */
+    InputStream openEncodedStream(File file) throws IOException {
+        return new EncodedFileInputStream(file);
+    }
+
+    /**
+     * Encode the file as the text content of the current serializer tag
+     */
+    void encodeAsText(File file, XmlSerializer serializer) throws IOException {
+        if (mOutputChars == null) {
+            mOutputChars = new char[mOutput.length];
+        }
+        FileInputStream inputStream = new FileInputStream(file);
+        try {
+            FileChannel channel = inputStream.getChannel();
+            int length;
+            while ((length = fillChunk(channel)) > 0) {
+                int encoded = encodeChunk(length);
+                for (int i = 0; i < encoded; i++) {
+                    mOutputChars[i] = (char) mOutput[i];
+                }
+                serializer.text(mOutputChars, 0, encoded);
+            }
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    private class EncodedFileInputStream extends InputStream {
+        private final File mFile;
+        private final FileInputStream mFileStream;
+        private final FileChannel mChannel;
+        private final long mExpected;
+        private long mRead;
+        private int mOutputPosition;
+        private int mOutputLength;
+
+        EncodedFileInputStream(File file) throws IOException {
+            mFile = file;
+            mFileStream = new FileInputStream(file);
+            mChannel = mFileStream.getChannel();
+            mExpected = mChannel.size();
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] singleByte = new byte[1];
+            return read(singleByte, 0, 1) == -1 ? -1 : singleByte[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int count) throws IOException {
+            if (count == 0) {
+                return 0;
+            }
+            if (mOutputPosition == mOutputLength) {
+                int length = fillChunk(mChannel);
+                if (length == 0) {
+                    if (mRead != mExpected) {
+                        // the Content-Length was computed from the file size, we can't send something else
+                        throw new EOFException("File size changed during upload: " + mFile.getPath());
+                    }
+                    return -1;
+                }
+                mRead += length;
+                mOutputLength = encodeChunk(length);
+                mOutputPosition = 0;
+            }
+            int copied = Math.min(count, mOutputLength - mOutputPosition);
+            System.arraycopy(mOutput, mOutputPosition, buffer, offset, copied);
+            mOutputPosition += copied;
+            return copied;
+        }
+
+        @Override
+        public void close() throws IOException {
+            mFileStream.close();
+        }
+    }
+
+    /*
+     * read a full chunk (less only at the end of the file), returns the number of bytes read
+     */
+    private int fillChunk(FileChannel channel) throws IOException {
+        mInput.clear();
+        while (mInput.hasRemaining()) {
+            if (channel.read(mInput) == -1) {
+                break;
+            }
+        }
+        return mInput.position();
+    }
+
+    /*
+     * encode the first length bytes of the input buffer into the output buffer, returns the
+     * number of bytes encoded
+     */
+    private int encodeChunk(int length) {
+        byte[] in = mInput.array();
+        byte[] out = mOutput;
+        int inPos = 0;
+        int outPos = 0;
+        int fullTriplets = length - length % 3;
+        while (inPos < fullTriplets) {
+            int bits = (in[inPos++] & 0xff) << 16 | (in[inPos++] & 0xff) << 8 | (in[inPos++] & 0xff);
+            out[outPos++] = ALPHABET[(bits >>> 18) & 0x3f];
+            out[outPos++] = ALPHABET[(bits >>> 12) & 0x3f];
+            out[outPos++] = ALPHABET[(bits >>> 6) & 0x3f];
+            out[outPos++] = ALPHABET[bits & 0x3f];
+        }
+        int remaining = length - fullTriplets;
+        if (remaining > 0) {
+            int bits = (in[inPos++] & 0xff) << 16;
+            if (remaining == 2) {
+                bits |= (in[inPos] & 0xff) << 8;
+            }
+            out[outPos++] = ALPHABET[(bits >>> 18) & 0x3f];
+            out[outPos++] = ALPHABET[(bits >>> 12) & 0x3f];
+            out[outPos++] = remaining == 2 ? ALPHABET[(bits >>> 6) & 0x3f] : PAD;
+            out[outPos++] = PAD;
+        }
+        return outPos;
+    }
+}
@@ -0,0 +1,95 @@
+package org.xmlrpc.android;
+
+import org.apache.http.client.methods.HttpPost;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Future of an asynchronous XML-RPC call, see XMLRPCClientInterface.callAsync().
+ *
+ * The listener is notified on the executor thread once the call completes, unless the call has
+ * been cancelled. Cancelling a running call aborts its HTTP request.
+ */
+public class XMLRPCAsyncCall extends FutureTask<Object> implements Comparable<XMLRPCAsyncCall> {
+    public enum Priority {LOW, NORMAL, HIGH}
+
+    private static final AtomicLong sNextId = new AtomicLong(1);
+
+    private final long mId;
+    private final Priority mPriority;
+    private final XMLRPCCallback mListener;
+    private volatile HttpPost mPostMethod;
+
+    XMLRPCAsyncCall(Callable<Object> callable, XMLRPCCallback listener, Priority priority) {
+        super(callable);
+        // ids also give the submission order, used to run calls of the same priority in order
+        mId = sNextId.getAndIncrement();
+        mListener = listener;
+        mPriority = priority != null ? priority : Priority.NORMAL;
+    }
+
+    /**
+     * Id passed to the listener callbacks
+     */
+    public long getId() {
+        return mId;
+    }
+
+    public Priority getPriority() {
+        return mPriority;
+    }
+
+    /**
+     * Called by the executor thread once the HTTP request is prepared, so it can be aborted
+     */
+    void setPostMethod(HttpPost postMethod) {
+        mPostMethod = postMethod;
+        if (isCancelled()) {
+            postMethod.abort();
+        }
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        boolean cancelled = super.cancel(mayInterruptIfRunning);
+        HttpPost postMethod = mPostMethod;
+        if (cancelled && postMethod != null) {
+            postMethod.abort();
+        }
+        return cancelled;
+    }
+
+    @Override
+    protected void done() {
+        if (mListener == null || isCancelled()) {
+            // Don't notify the listener, if the call has been canceled.
+            return;
+        }
+        Object result;
+        try {
+            result = get();
+        } catch (InterruptedException e) {
+            return;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            mListener.onFailure(mId, (Exception) cause);
+            return;
+        }
+        mListener.onSuccess(mId, result);
+    }
+
+    @Override
+    public int compareTo(XMLRPCAsyncCall another) {
+        if (mPriority != another.mPriority) {
+            // higher priority first
+            return another.mPriority.ordinal() - mPriority.ordinal();
+        }
+        return mId < another.mId ? -1 : (mId == another.mId ? 0 : 1);
+    }
+}
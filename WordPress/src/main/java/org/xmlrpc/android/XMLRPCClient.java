@@ -1,17 +1,20 @@
 package org.xmlrpc.android;
 
 import android.content.Context;
+import android.os.Process;
 import android.text.TextUtils;
 import android.util.Xml;
 
+import org.apache.http.Header;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
 import org.apache.http.auth.AuthScope;
 import org.apache.http.auth.UsernamePasswordCredentials;
 import org.apache.http.client.methods.HttpPost;
-import org.apache.http.conn.scheme.Scheme;
-import org.apache.http.entity.FileEntity;
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.conn.params.ConnManagerParams;
+import org.apache.http.entity.HttpEntityWrapper;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.BasicCredentialsProvider;
 import org.apache.http.impl.client.DefaultHttpClient;
@@ -20,6 +23,8 @@ import org.apache.http.params.HttpParams;
 import org.apache.http.params.HttpProtocolParams;
 import org.apache.http.util.EntityUtils;
 import org.wordpress.android.WordPress;
+import org.wordpress.android.networking.CompressionStats;
+import org.wordpress.android.networking.GzipResponseInputStream;
 import org.wordpress.android.util.AppLog;
 import org.wordpress.android.util.AppLog.T;
 import org.wordpress.android.util.StringUtils;
@@ -29,8 +34,6 @@ import org.xmlpull.v1.XmlPullParserFactory;
 import org.xmlpull.v1.XmlSerializer;
 
 import java.io.ByteArrayInputStream;
-import java.io.File;
-import java.io.FileWriter;
 import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -39,12 +42,19 @@ import java.io.SequenceInputStream;
 import java.io.StringWriter;
 import java.net.URI;
 import java.net.URL;
-import java.security.GeneralSecurityException;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.net.ssl.SSLHandshakeException;
 import javax.net.ssl.SSLPeerUnverifiedException;
@@ -58,7 +68,7 @@ import javax.net.ssl.SSLPeerUnverifiedException;
 public class XMLRPCClient implements XMLRPCClientInterface {
 
     public interface OnBytesUploadedListener {
-        public void onBytesUploaded(long uploadedBytes);
+        public void onBytesUploaded(long uploadedBytes, long totalBytes);
     }
 
     private static final String TAG_METHOD_CALL = "methodCall";
@@ -72,14 +82,41 @@ public class XMLRPCClient implements XMLRPCClientInterface {
     private static final int DEFAULT_CONNECTION_TIMEOUT = 30000;
     private static final int DEFAULT_SOCKET_TIMEOUT = 60000;
 
-    private Map<Long,Caller> backgroundCalls = new HashMap<Long, Caller>();
+    // endpoints where system.multicall has been rejected, calls are sent one by one to these
+    private static final Set<String> sMulticallUnsupportedEndpoints =
+            Collections.synchronizedSet(new HashSet<String>());
+
+    // async calls of all the clients run on this executor, so bursts of calls queue up instead of
+    // each starting a thread and a connection
+    private static final int MAX_ASYNC_CALLS = 4;
+    private static final long ASYNC_THREAD_KEEP_ALIVE_SECONDS = 30;
+    private static final ThreadPoolExecutor sAsyncExecutor = new ThreadPoolExecutor(MAX_ASYNC_CALLS,
+            MAX_ASYNC_CALLS, ASYNC_THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new PriorityBlockingQueue<Runnable>(),
+            new ThreadFactory() {
+                private final AtomicInteger mThreadCount = new AtomicInteger(1);
+
+                @Override
+                public Thread newThread(final Runnable runnable) {
+                    return new Thread(new Runnable() {
+                        @Override
+                        public void run() {
+                            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                            runnable.run();
+                        }
+                    }, "XMLRPCClient async #" + mThreadCount.getAndIncrement());
+                }
+            });
+    static {
+        sAsyncExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    private final Map<Long, XMLRPCAsyncCall> backgroundCalls = new ConcurrentHashMap<Long, XMLRPCAsyncCall>();
 
     private DefaultHttpClient mClient;
     private OnBytesUploadedListener mOnBytesUploadedListener;
     private HttpPost mPostMethod;
-    private XmlSerializer mSerializer;
     private HttpParams mHttpParams;
-    private LoggedInputStream mLoggedInputStream;
+    private volatile LoggedInputStream mLoggedInputStream;
 
     private boolean mIsWpcom;
 
@@ -92,6 +129,7 @@ public class XMLRPCClient implements XMLRPCClientInterface {
         mPostMethod.addHeader("Content-Type", "text/xml");
         mPostMethod.addHeader("charset", "UTF-8");
         mPostMethod.addHeader("User-Agent", WordPress.getUserAgent());
+        mPostMethod.addHeader("Accept-Encoding", "gzip");
         addWPComAuthorizationHeaderIfNeeded();
 
         mHttpParams = mPostMethod.getParams();
@@ -103,7 +141,6 @@ public class XMLRPCClient implements XMLRPCClientInterface {
         }
 
         mClient = instantiateClientForUri(uri, credentials);
-        mSerializer = Xml.newSerializer();
     }
 
     public String getResponse() {
@@ -113,46 +150,20 @@ public class XMLRPCClient implements XMLRPCClientInterface {
         return mLoggedInputStream.getResponseDocument();
     }
 
-    private class ConnectionClient extends DefaultHttpClient {
-        public ConnectionClient(int port) throws IOException, GeneralSecurityException {
-            super();
-            TrustUserSSLCertsSocketFactory tasslf = new TrustUserSSLCertsSocketFactory();
-            Scheme scheme = new Scheme("https", tasslf, port);
-            getConnectionManager().getSchemeRegistry().register(scheme);
-        }
-    }
-
     private DefaultHttpClient instantiateClientForUri(URI uri, UsernamePasswordCredentials usernamePasswordCredentials) {
-        DefaultHttpClient client = null;
         if (uri != null && uri.getHost() != null && uri.getHost().endsWith("wordpress.com")) {
             mIsWpcom = true;
         }
-        if (mIsWpcom || (uri == null || uri.getScheme() == null || uri.getScheme().equals("http"))) {
-            //wpcom blog or self-hosted blog on plain HTTP
-            client = new DefaultHttpClient();
-        } else {
-            int port = uri.getPort();
-            if (port == -1) {
-                port = 443;
-            }
-
-            try {
-                client = new ConnectionClient(port);
-            } catch (GeneralSecurityException e) {
-                AppLog.e(T.API, "Cannot create the DefaultHttpClient object with our TrustAllSSLSocketFactory", e);
-                client = null;
-            } catch (IOException e) {
-                AppLog.e(T.API, "Cannot create the DefaultHttpClient object with our TrustAllSSLSocketFactory", e);
-                client = null;
-            }
-
-            if (client == null) {
-                client = new DefaultHttpClient();
-            }
-        }
+        // wpcom blogs and self-hosted blogs on plain HTTP use the default SSL socket factory, self-hosted
+        // blogs on HTTPS use our TrustUserSSLCertsSocketFactory
+        boolean trustUserCerts = !mIsWpcom && uri != null && "https".equals(uri.getScheme());
+        ClientConnectionManager connectionManager = XMLRPCConnectionManager.getConnectionManager(trustUserCerts);
+        DefaultHttpClient client = new DefaultHttpClient(connectionManager, null);
+        client.setKeepAliveStrategy(XMLRPCConnectionManager.KEEP_ALIVE_STRATEGY);
 
         HttpConnectionParams.setConnectionTimeout(client.getParams(), DEFAULT_CONNECTION_TIMEOUT);
         HttpConnectionParams.setSoTimeout(client.getParams(), DEFAULT_SOCKET_TIMEOUT);
+        ConnManagerParams.setTimeout(client.getParams(), DEFAULT_CONNECTION_TIMEOUT);
 
         // Setup HTTP Basic Auth if necessary
         if (usernamePasswordCredentials != null) {
@@ -206,7 +217,7 @@ public class XMLRPCClient implements XMLRPCClientInterface {
      * @throws XMLRPCException
      */
     public Object call(String method, Object[] params) throws XMLRPCException, IOException, XmlPullParserException {
-        return call(method, params, null);
+        return new Caller().callXMLRPC(method, params, null);
     }
 
     /**
@@ -217,12 +228,59 @@ public class XMLRPCClient implements XMLRPCClientInterface {
      * @throws XMLRPCException
      */
     public Object call(String method) throws XMLRPCException, IOException, XmlPullParserException {
-        return call(method, null, null);
+        return call(method, null);
     }
 
+    /**
+     * Call method and stream the response to the visitor: array responses are passed element by
+     * element as they're parsed, so the whole response tree is never held in memory.
+     *
+     * @param method name of method to call
+     * @param params parameters to pass to method (may be null if method has no parameters)
+     * @param visitor receives each deserialized element of the response
+     * @return number of elements passed to the visitor
+     * @throws XMLRPCException
+     */
+    public int callStreaming(String method, Object[] params, XMLRPCStreamVisitor visitor)
+            throws XMLRPCException, IOException, XmlPullParserException {
+        return (Integer) new Caller().callXMLRPC(method, params, visitor);
+    }
+
+    /**
+     * Send the queued calls in a single system.multicall request, and dispatch the results and faults
+     * to each call. Falls back to sending the calls one by one when the server rejects system.multicall.
+     */
+    public void callMulticall(XMLRPCMulticall multicall) throws IOException, XmlPullParserException {
+        String endpoint = mPostMethod.getURI().toString();
+        if (multicall.size() < 2 || sMulticallUnsupportedEndpoints.contains(endpoint)) {
+            multicall.callSequentially(this);
+            return;
+        }
 
-    public Object call(String method, Object[] params, File tempFile) throws XMLRPCException, IOException, XmlPullParserException {
-        return new Caller().callXMLRPC(method, params, tempFile);
+        Object response;
+        try {
+            response = call(XMLRPCMulticall.METHOD_MULTICALL, new Object[]{multicall.getMulticallParams()});
+        } catch (XMLRPCException e) {
+            AppLog.w(T.API, XMLRPCMulticall.METHOD_MULTICALL + " failed, sending the calls one by one: " + e.getMessage());
+            if (e instanceof XMLRPCFault) {
+                // the server answered with a fault: system.multicall is missing or disabled
+                sMulticallUnsupportedEndpoints.add(endpoint);
+            }
+            multicall.callSequentially(this);
+            return;
+        }
+
+        try {
+            multicall.dispatchResponse(response);
+        } catch (XMLRPCException e) {
+            AppLog.e(T.API, e.getMessage());
+            return;
+        }
+        for (XMLRPCMulticall.Call call : multicall.getCalls()) {
+            if (call.getError() instanceof XMLRPCFault) {
+                broadcastFaultAction((XMLRPCFault) call.getError());
+            }
+        }
     }
 
     /**
@@ -233,25 +291,73 @@ public class XMLRPCClient implements XMLRPCClientInterface {
      * @throws XMLRPCException
      */
     public long callAsync(XMLRPCCallback listener, String methodName, Object[] params) {
-        return callAsync(listener, methodName, params, null);
+        return submitAsync(listener, methodName, params, XMLRPCAsyncCall.Priority.NORMAL).getId();
     }
 
     /**
-     * Asynchronous XMLRPC call
+     * Asynchronous XMLRPC call with a priority
      *
-     * @param listener, XMLRPC methodName, XMLRPC parameters, File for large uploads
-     * @return unique id of this async call
-     * @throws XMLRPCException
+     * @return the future of this call, cancelling it aborts the HTTP request
      */
-    public long callAsync(XMLRPCCallback listener, String methodName, Object[] params, File tempFile) {
-        long id = System.currentTimeMillis();
-        new Caller(listener, id, methodName, params, tempFile).start();
-        return id;
+    public XMLRPCAsyncCall callAsync(XMLRPCCallback listener, String methodName, Object[] params,
+                                     XMLRPCAsyncCall.Priority priority) {
+        return submitAsync(listener, methodName, params, priority);
+    }
+
+    /**
+     * Cancel an asynchronous call, the listener won't be notified
+     *
+     * @param id id returned by callAsync()
+     * @return false if the call already completed
+     */
+    public boolean cancelAsync(long id) {
+        XMLRPCAsyncCall asyncCall = backgroundCalls.get(id);
+        return asyncCall != null && asyncCall.cancel(true);
+    }
+
+    /**
+     * Cancel all the pending and running asynchronous calls of this client
+     */
+    public void cancelAllAsync() {
+        for (XMLRPCAsyncCall asyncCall : backgroundCalls.values()) {
+            asyncCall.cancel(true);
+        }
+    }
+
+    private XMLRPCAsyncCall submitAsync(XMLRPCCallback listener, String methodName, Object[] params,
+                                        XMLRPCAsyncCall.Priority priority) {
+        Caller caller = new Caller(methodName, params);
+        XMLRPCAsyncCall asyncCall = new XMLRPCAsyncCall(caller, listener, priority) {
+            @Override
+            protected void done() {
+                backgroundCalls.remove(getId());
+                super.done();
+            }
+        };
+        caller.setAsyncCall(asyncCall);
+        backgroundCalls.put(asyncCall.getId(), asyncCall);
+        sAsyncExecutor.execute(asyncCall);
+        return asyncCall;
     }
 
-    @SuppressWarnings("unchecked")
     public static Object parseXMLRPCResponse(InputStream is, HttpEntity entity)
             throws XMLRPCException, IOException, XmlPullParserException, NumberFormatException {
+        return parseXMLRPCResponse(is, entity, null);
+    }
+
+    /**
+     * Parse a response document and pass its elements to the visitor as they're deserialized.
+     *
+     * @return number of elements passed to the visitor
+     */
+    public static int streamXMLRPCResponse(InputStream is, HttpEntity entity, XMLRPCStreamVisitor visitor)
+            throws XMLRPCException, IOException, XmlPullParserException, NumberFormatException {
+        return (Integer) parseXMLRPCResponse(is, entity, visitor);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object parseXMLRPCResponse(InputStream is, HttpEntity entity, XMLRPCStreamVisitor visitor)
+            throws XMLRPCException, IOException, XmlPullParserException, NumberFormatException {
         // setup pull parser
         XmlPullParser pullParser = XmlPullParserFactory.newInstance().newPullParser();
 
@@ -297,7 +403,12 @@ public class XMLRPCClient implements XMLRPCClientInterface {
             pullParser.nextTag(); // TAG_VALUE (<value>)
             // no parser.require() here since its called in XMLRPCSerializer.deserialize() below
             // deserialize result
-            Object obj = XMLRPCSerializer.deserialize(pullParser);
+            Object obj;
+            if (visitor != null) {
+                obj = XMLRPCSerializer.deserialize(pullParser, visitor);
+            } else {
+                obj = XMLRPCSerializer.deserialize(pullParser);
+            }
             consumeHttpEntity(entity);
             return obj;
         } else if (tag.equals(TAG_FAULT)) {
@@ -331,133 +442,151 @@ public class XMLRPCClient implements XMLRPCClientInterface {
         }
     }
 
-    public void preparePostMethod(String method, Object[] params, File tempFile) throws IOException, XMLRPCException, IllegalArgumentException, IllegalStateException {
-        // prepare POST body
-        if (method.equals("wp.uploadFile")) {
-            if (!tempFile.exists() && !tempFile.mkdirs()) {
-                throw new XMLRPCException("Path to file could not be created.");
-            }
-
-            FileWriter fileWriter = new FileWriter(tempFile);
-            mSerializer.setOutput(fileWriter);
-
-            mSerializer.startDocument(null, null);
-            mSerializer.startTag(null, TAG_METHOD_CALL);
-            // set method name
-            mSerializer.startTag(null, TAG_METHOD_NAME).text(method).endTag(null, TAG_METHOD_NAME);
-            if (params != null && params.length != 0) {
-                // set method params
-                mSerializer.startTag(null, TAG_PARAMS);
-                for (int i = 0; i < params.length; i++) {
-                    mSerializer.startTag(null, TAG_PARAM).startTag(null, XMLRPCSerializer.TAG_VALUE);
-                    XMLRPCSerializer.serialize(mSerializer, params[i]);
-                    mSerializer.endTag(null, XMLRPCSerializer.TAG_VALUE).endTag(null, TAG_PARAM);
-                }
-                mSerializer.endTag(null, TAG_PARAMS);
-            }
-            mSerializer.endTag(null, TAG_METHOD_CALL);
-            mSerializer.endDocument();
+    public void preparePostMethod(String method, Object[] params) throws IOException, XMLRPCException, IllegalArgumentException, IllegalStateException {
+        preparePostMethod(mPostMethod, method, params, false);
+    }
 
-            fileWriter.flush();
-            fileWriter.close();
+    /**
+     * Each call gets its own HttpPost, with the headers and parameters set on this client, so
+     * concurrent calls don't share a request and a call can be aborted alone
+     */
+    private HttpPost newPostMethod() {
+        HttpPost postMethod = new HttpPost(mPostMethod.getURI());
+        postMethod.setHeaders(mPostMethod.getAllHeaders());
+        postMethod.setParams(mHttpParams.copy());
+        return postMethod;
+    }
 
-            FileEntity fEntity = new FileEntity(tempFile, "text/xml; charset=\"UTF-8\"") {
+    private void preparePostMethod(HttpPost postMethod, String method, Object[] params) throws IOException {
+        XmlSerializer serializer = Xml.newSerializer();
+        // prepare POST body
+        if (method.equals("wp.uploadFile")) {
+            // file contents are base64 encoded straight to the connection by the entity
+            XMLRPCUploadEntity uploadEntity = new XMLRPCUploadEntity() {
                 // Hook in a CountingOutputStream to keep track of bytes uploaded
                 @Override
                 public void writeTo(final OutputStream outstream) throws IOException {
-                    super.writeTo(new CountingOutputStream(outstream));
+                    super.writeTo(new CountingOutputStream(outstream, getContentLength()));
                 }
             };
-
-            fEntity.setContentType("text/xml");
-            mPostMethod.setEntity(fEntity);
+            serializer.setOutput(uploadEntity.getDocumentOutputStream(), "UTF-8");
+            serializeMethodCall(serializer, method, params, uploadEntity);
+            uploadEntity.finishDocument();
+            postMethod.setEntity(uploadEntity);
         } else {
             StringWriter bodyWriter = new StringWriter();
-            mSerializer.setOutput(bodyWriter);
-
-            mSerializer.startDocument(null, null);
-            mSerializer.startTag(null, TAG_METHOD_CALL);
-            // set method name
-            mSerializer.startTag(null, TAG_METHOD_NAME).text(method).endTag(null, TAG_METHOD_NAME);
-            if (params != null && params.length != 0) {
-                // set method params
-                mSerializer.startTag(null, TAG_PARAMS);
-                for (int i = 0; i < params.length; i++) {
-                    mSerializer.startTag(null, TAG_PARAM).startTag(null, XMLRPCSerializer.TAG_VALUE);
-                    if (method.equals("metaWeblog.editPost") || method.equals("metaWeblog.newPost")) {
-                        XMLRPCSerializer.serialize(mSerializer, params[i]);
-                    } else {
-                        XMLRPCSerializer.serialize(mSerializer, params[i]);
+            serializer.setOutput(bodyWriter);
+            serializeMethodCall(serializer, method, params, null);
+            postMethod.setEntity(new StringEntity(bodyWriter.toString()));
+        }
+    }
+
+    private String getStatsEndpoint() {
+        URI uri = mPostMethod.getURI();
+        return CompressionStats.getEndpoint(uri.getHost(), uri.getPath());
+    }
+
+    /**
+     * Returns an entity decompressing the content of gzip encoded responses, the content can be
+     * wrapped in a LoggedInputStream as usual
+     */
+    private HttpEntity decodeResponseEntity(HttpEntity entity) {
+        Header contentEncoding = entity.getContentEncoding();
+        if (contentEncoding == null || !GzipResponseInputStream.isGzipEncoding(contentEncoding.getValue())) {
+            return entity;
+        }
+        final String statsEndpoint = getStatsEndpoint();
+        return new HttpEntityWrapper(entity) {
+            @Override
+            public InputStream getContent() throws IOException {
+                return new GzipResponseInputStream(wrappedEntity.getContent(), statsEndpoint);
+            }
+
+            @Override
+            public long getContentLength() {
+                return -1;
+            }
+
+            @Override
+            public Header getContentEncoding() {
+                return null;
+            }
+
+            @Override
+            public void writeTo(OutputStream outstream) throws IOException {
+                InputStream content = getContent();
+                try {
+                    byte[] buffer = new byte[4096];
+                    int length;
+                    while ((length = content.read(buffer)) != -1) {
+                        outstream.write(buffer, 0, length);
                     }
-                    mSerializer.endTag(null, XMLRPCSerializer.TAG_VALUE).endTag(null, TAG_PARAM);
+                } finally {
+                    content.close();
                 }
-                mSerializer.endTag(null, TAG_PARAMS);
             }
-            mSerializer.endTag(null, TAG_METHOD_CALL);
-            mSerializer.endDocument();
+        };
+    }
 
-            HttpEntity entity = new StringEntity(bodyWriter.toString());
-            mPostMethod.setEntity(entity);
+    private void serializeMethodCall(XmlSerializer serializer, String method, Object[] params,
+                                     XMLRPCSerializer.MediaFileWriter mediaFileWriter) throws IOException {
+        serializer.startDocument(null, null);
+        serializer.startTag(null, TAG_METHOD_CALL);
+        // set method name
+        serializer.startTag(null, TAG_METHOD_NAME).text(method).endTag(null, TAG_METHOD_NAME);
+        if (params != null && params.length != 0) {
+            // set method params
+            serializer.startTag(null, TAG_PARAMS);
+            for (int i = 0; i < params.length; i++) {
+                serializer.startTag(null, TAG_PARAM).startTag(null, XMLRPCSerializer.TAG_VALUE);
+                XMLRPCSerializer.serialize(serializer, params[i], mediaFileWriter);
+                serializer.endTag(null, XMLRPCSerializer.TAG_VALUE).endTag(null, TAG_PARAM);
+            }
+            serializer.endTag(null, TAG_PARAMS);
         }
+        serializer.endTag(null, TAG_METHOD_CALL);
+        serializer.endDocument();
+        serializer.flush();
     }
 
     /**
      * The Caller class is used to make asynchronous calls to the server.
-     * For synchronous calls the Thread function of this class isn't used.
+     * For synchronous calls the Callable function of this class isn't used.
      */
-    private class Caller extends Thread {
-        private XMLRPCCallback listener;
-        private long threadId;
+    private class Caller implements Callable<Object> {
         private String methodName;
         private Object[] params;
-        private File tempFile;
+        private XMLRPCAsyncCall asyncCall;
 
         /**
-         * Create a new Caller for asynchronous use.
+         * Create a new Caller for asynchronous use, see submitAsync().
          *
-         * @param listener The listener to notice about the response or an error.
-         * @param threadId An id that will be send to the listener.
          * @param methodName The method name to call.
          * @param params The parameters of the call or null.
          */
-        public Caller(XMLRPCCallback listener, long threadId, String methodName, Object[] params, File tempFile) {
-            this.listener = listener;
-            this.threadId = threadId;
+        public Caller(String methodName, Object[] params) {
             this.methodName = methodName;
             this.params = params;
-            this.tempFile = tempFile;
         }
 
         /**
          * Create a new Caller for synchronous use.
-         * If the caller has been created with this constructor you cannot use the
-         * start method to start it as a thread. But you can call the call method
-         * on it for synchronous use.
+         * If the caller has been created with this constructor you cannot submit
+         * it to the executor. But you can call the callXMLRPC method on it for
+         * synchronous use.
          */
         public Caller() { }
 
+        void setAsyncCall(XMLRPCAsyncCall asyncCall) {
+            this.asyncCall = asyncCall;
+        }
+
         /**
-         * The run method is invoked when the thread gets started.
-         * This will only work, if the Caller has been created with parameters.
-         * It execute the call method and notify the listener about the result.
+         * Invoked by the executor, the listener is notified by the XMLRPCAsyncCall.
          */
         @Override
-        public void run() {
-            if(listener == null)
-                return;
-
-            try {
-                backgroundCalls.put(threadId, this);
-                Object o = this.callXMLRPC(methodName, params, tempFile);
-                listener.onSuccess(threadId, o);
-            } catch(CancelException ex) {
-                // Don't notify the listener, if the call has been canceled.
-            } catch (Exception ex) {
-                listener.onFailure(threadId, ex);
-            } finally {
-                backgroundCalls.remove(threadId);
-            }
-
+        public Object call() throws Exception {
+            return callXMLRPC(methodName, params, null);
         }
 
         /**
@@ -465,17 +594,23 @@ public class XMLRPCClient implements XMLRPCClientInterface {
          *
          * @param method name of method to call
          * @param params parameters to pass to method (may be null if method has no parameters)
-         * @return deserialized method return value
+         * @param visitor if not null, the response is streamed to this visitor
+         * @return deserialized method return value, or the number of visited elements when streaming
          * @throws XMLRPCException
          */
-        private Object callXMLRPC(String method, Object[] params, File tempFile)
+        private Object callXMLRPC(String method, Object[] params, XMLRPCStreamVisitor visitor)
                 throws XMLRPCException, IOException, XmlPullParserException {
-            mLoggedInputStream = null;
+            LoggedInputStream loggedInputStream = null;
             try {
-                preparePostMethod(method, params, tempFile);
+                HttpPost postMethod = newPostMethod();
+                preparePostMethod(postMethod, method, params);
+                if (asyncCall != null) {
+                    asyncCall.setPostMethod(postMethod);
+                }
 
                 // execute HTTP POST request
-                HttpResponse response = mClient.execute(mPostMethod);
+                XMLRPCConnectionManager.evictIdleConnections();
+                HttpResponse response = mClient.execute(postMethod);
 
                 if (response.getStatusLine() == null) // StatusLine is null. We can't read the response code.
                     throw new XMLRPCException( "HTTP Status code is missing!" );
@@ -487,10 +622,12 @@ public class XMLRPCClient implements XMLRPCClientInterface {
                     //This is an error since the parser will fail here.
                     throw new XMLRPCException( "HTTP status code: " + statusCode + " was returned AND no response from the server." );
                 }
+                entity = decodeResponseEntity(entity);
 
                 if (statusCode == HttpStatus.SC_OK) {
-                    mLoggedInputStream = new LoggedInputStream(entity.getContent());
-                    return XMLRPCClient.parseXMLRPCResponse(mLoggedInputStream, entity);
+                    loggedInputStream = new LoggedInputStream(entity.getContent());
+                    mLoggedInputStream = loggedInputStream;
+                    return XMLRPCClient.parseXMLRPCResponse(loggedInputStream, entity, visitor);
                 }
 
                 String statusLineReasonPhrase = StringUtils.notNullStr(response.getStatusLine().getReasonPhrase());
@@ -524,26 +661,15 @@ public class XMLRPCClient implements XMLRPCClientInterface {
                 }
                 throw new XMLRPCException( "HTTP status code: " + statusCode + " was returned. " + statusLineReasonPhrase);
             } catch (XMLRPCFault e) {
-                if (mLoggedInputStream!=null) {
-                    AppLog.w(T.API, "Response document received from the server: " + mLoggedInputStream.getResponseDocument());
-                }
-                // Detect login issues and broadcast a message if the error is known
-                switch (e.getFaultCode()) {
-                    case 403:
-                        broadcastAction(WordPress.BROADCAST_ACTION_XMLRPC_INVALID_CREDENTIALS);
-                        break;
-                    case 425:
-                        broadcastAction(WordPress.BROADCAST_ACTION_XMLRPC_TWO_FA_AUTH);
-                        break;
-                    //TODO: Check the login limit here
-                    default:
-                        break;
+                if (loggedInputStream != null) {
+                    AppLog.w(T.API, "Response document received from the server: " + loggedInputStream.getResponseDocument());
                 }
+                broadcastFaultAction(e);
                 throw e;
             } catch (XmlPullParserException e) {
                 AppLog.e(T.API, "Error while parsing the XML-RPC response document received from the server.", e);
-                if (mLoggedInputStream!=null) {
-                    AppLog.e(T.API, "Response document received from the server: " + mLoggedInputStream.getResponseDocument());
+                if (loggedInputStream != null) {
+                    AppLog.e(T.API, "Response document received from the server: " + loggedInputStream.getResponseDocument());
                 }
                 checkXMLRPCErrorMessage(e);
                 throw e;
@@ -551,13 +677,13 @@ public class XMLRPCClient implements XMLRPCClientInterface {
                 //we can catch NumberFormatException here and re-throw an XMLRPCException.
                 //The response document is not a valid XML-RPC document after all.
                 AppLog.e(T.API, "Error while parsing the XML-RPC response document received from the server.", e);
-                if (mLoggedInputStream!=null) {
-                    AppLog.e(T.API, "Response document received from the server: " + mLoggedInputStream.getResponseDocument());
+                if (loggedInputStream != null) {
+                    AppLog.e(T.API, "Response document received from the server: " + loggedInputStream.getResponseDocument());
                 }
                 throw new XMLRPCException("The response received contains an invalid number. " + e.getMessage());
             } catch (XMLRPCException e) {
-                if (mLoggedInputStream!=null) {
-                    AppLog.e(T.API, "Response document received from the server: " + mLoggedInputStream.getResponseDocument());
+                if (loggedInputStream != null) {
+                    AppLog.e(T.API, "Response document received from the server: " + loggedInputStream.getResponseDocument());
                 }
                 checkXMLRPCErrorMessage(e);
                 throw e;
@@ -580,10 +706,9 @@ public class XMLRPCClient implements XMLRPCClientInterface {
             } catch (IOException e) {
                 throw e;
             } finally {
-                deleteTempFile(method, tempFile);
                 try {
-                    if (mLoggedInputStream != null) {
-                        mLoggedInputStream.close();
+                    if (loggedInputStream != null) {
+                        loggedInputStream.close();
                     }
                 } catch (Exception e) {
                 }
@@ -607,16 +732,25 @@ public class XMLRPCClient implements XMLRPCClientInterface {
         return false;
     }
 
-    private void broadcastAction(String action) {
-        WordPress.sendLocalBroadcast(WordPress.getContext(), action);
+    /**
+     * Detect login issues and broadcast a message if the error is known
+     */
+    private void broadcastFaultAction(XMLRPCFault fault) {
+        switch (fault.getFaultCode()) {
+            case 403:
+                broadcastAction(WordPress.BROADCAST_ACTION_XMLRPC_INVALID_CREDENTIALS);
+                break;
+            case 425:
+                broadcastAction(WordPress.BROADCAST_ACTION_XMLRPC_TWO_FA_AUTH);
+                break;
+            //TODO: Check the login limit here
+            default:
+                break;
+        }
     }
 
-    private void deleteTempFile(String method, File tempFile) {
-        if (tempFile != null) {
-            if ((method.equals("wp.uploadFile"))){ //get rid of the temp file
-                tempFile.delete();
-            }
-        }
+    private void broadcastAction(String action) {
+        WordPress.sendLocalBroadcast(WordPress.getContext(), action);
     }
 
     private void addWPComAuthorizationHeaderIfNeeded() {
@@ -645,16 +779,14 @@ public class XMLRPCClient implements XMLRPCClientInterface {
         return path.equals("/xmlrpc.php") && host.endsWith("wordpress.com") && protocol.equals("https");
     }
 
-    private class CancelException extends RuntimeException {
-        private static final long serialVersionUID = 1L;
-    }
-
     private class CountingOutputStream extends FilterOutputStream {
 
         private long mTotalBytes;
+        private final long mContentLength;
 
-        CountingOutputStream(final OutputStream out) {
+        CountingOutputStream(final OutputStream out, long contentLength) {
             super(out);
+            mContentLength = contentLength;
         }
 
         @Override
@@ -664,12 +796,7 @@ public class XMLRPCClient implements XMLRPCClientInterface {
 
         @Override
         public void write(byte[] b) throws IOException {
-            out.write(b);
-            mTotalBytes += b.length;
-
-            if (mOnBytesUploadedListener != null) {
-                mOnBytesUploadedListener.onBytesUploaded(mTotalBytes);
-            }
+            write(b, 0, b.length);
         }
 
         @Override
@@ -678,7 +805,7 @@ public class XMLRPCClient implements XMLRPCClientInterface {
             mTotalBytes += len;
 
             if (mOnBytesUploadedListener != null) {
-                mOnBytesUploadedListener.onBytesUploaded(mTotalBytes);
+                mOnBytesUploadedListener.onBytesUploaded(mTotalBytes, mContentLength);
             }
         }
     }
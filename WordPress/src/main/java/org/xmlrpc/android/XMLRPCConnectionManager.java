@@ -0,0 +1,158 @@
+package org.xmlrpc.android;
+
+import org.apache.http.HeaderElement;
+import org.apache.http.HeaderElementIterator;
+import org.apache.http.HttpResponse;
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.params.ConnManagerParams;
+import org.apache.http.conn.params.ConnPerRouteBean;
+import org.apache.http.conn.scheme.PlainSocketFactory;
+import org.apache.http.conn.scheme.Scheme;
+import org.apache.http.conn.scheme.SchemeRegistry;
+import org.apache.http.conn.scheme.SocketFactory;
+import org.apache.http.conn.ssl.SSLSocketFactory;
+import org.apache.http.impl.conn.tsccm.ThreadSafeClientConnManager;
+import org.apache.http.message.BasicHeaderElementIterator;
+import org.apache.http.params.BasicHttpParams;
+import org.apache.http.params.HttpParams;
+import org.apache.http.protocol.HTTP;
+import org.apache.http.protocol.HttpContext;
+import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.AppLog.T;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Connection pools shared by all the XMLRPCClient instances.
+ *
+ * Each XMLRPCClient still has its own DefaultHttpClient (and so its own HTTP auth credentials),
+ * but the connections are kept alive and reused between clients and calls, so refreshing a blog
+ * doesn't pay a TCP and TLS handshake for every call. Connections are pooled by route (host and
+ * port), with a bounded number of connections per host and in total.
+ *
+ * There are two pools: one using the default SSL socket factory (wpcom and plain HTTP blogs), and
+ * one using TrustUserSSLCertsSocketFactory for self-hosted HTTPS blogs.
+ */
+public final class XMLRPCConnectionManager {
+    // connections to a blog are shared out between its media uploads, the pages of a media library
+    // sync, which can all run at once, and the other calls to the blog, like refreshing its posts,
+    // which shouldn't wait behind them
+    public static final int MEDIA_UPLOAD_CONNECTIONS_PER_HOST = 3;
+    public static final int MEDIA_SYNC_CONNECTIONS_PER_HOST = 3;
+    private static final int OTHER_CONNECTIONS_PER_HOST = 2;
+    private static final int MAX_CONNECTIONS_PER_HOST = MEDIA_UPLOAD_CONNECTIONS_PER_HOST
+            + MEDIA_SYNC_CONNECTIONS_PER_HOST + OTHER_CONNECTIONS_PER_HOST;
+    private static final int MAX_TOTAL_CONNECTIONS = 16;
+    // keep-alive duration when the server doesn't send a Keep-Alive timeout
+    private static final long DEFAULT_KEEP_ALIVE_MS = 15000;
+    private static final long MAX_IDLE_MS = 30000;
+    private static final long EVICTION_INTERVAL_MS = 10000;
+
+    private static ClientConnectionManager sDefaultConnectionManager;
+    private static ClientConnectionManager sUserTrustedConnectionManager;
+    private static long sLastEvictionTime;
+
+    static final ConnectionKeepAliveStrategy KEEP_ALIVE_STRATEGY = new ConnectionKeepAliveStrategy() {
+        @Override
+        public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+            HeaderElementIterator it = new BasicHeaderElementIterator(response.headerIterator(HTTP.CONN_KEEP_ALIVE));
+            while (it.hasNext()) {
+                HeaderElement element = it.nextElement();
+                if ("timeout".equalsIgnoreCase(element.getName()) && element.getValue() != null) {
+                    try {
+                        return Math.min(Long.parseLong(element.getValue()) * 1000, MAX_IDLE_MS);
+                    } catch (NumberFormatException e) {
+                        break;
+                    }
+                }
+            }
+            return DEFAULT_KEEP_ALIVE_MS;
+        }
+    };
+
+    private XMLRPCConnectionManager() {
+        throw new AssertionError();
+    }
+
+    /**
+     * Returns the shared connection manager, trustUserCerts must be true for self-hosted HTTPS
+     * blogs (user trusted certificates and SNI support)
+     */
+    static synchronized ClientConnectionManager getConnectionManager(boolean trustUserCerts) {
+        if (trustUserCerts) {
+            if (sUserTrustedConnectionManager == null) {
+                try {
+                    sUserTrustedConnectionManager = newConnectionManager(new TrustUserSSLCertsSocketFactory());
+                } catch (GeneralSecurityException e) {
+                    AppLog.e(T.API, "Cannot create the connection manager with our TrustUserSSLCertsSocketFactory", e);
+                    return getConnectionManager(false);
+                } catch (IOException e) {
+                    AppLog.e(T.API, "Cannot create the connection manager with our TrustUserSSLCertsSocketFactory", e);
+                    return getConnectionManager(false);
+                }
+            }
+            return sUserTrustedConnectionManager;
+        }
+        if (sDefaultConnectionManager == null) {
+            sDefaultConnectionManager = newConnectionManager(SSLSocketFactory.getSocketFactory());
+        }
+        return sDefaultConnectionManager;
+    }
+
+    /**
+     * Close the connections that expired or have been idle for too long, at most once every
+     * EVICTION_INTERVAL_MS. Called before each request, so we don't need a thread to do it.
+     */
+    static void evictIdleConnections() {
+        ClientConnectionManager defaultConnectionManager;
+        ClientConnectionManager userTrustedConnectionManager;
+        synchronized (XMLRPCConnectionManager.class) {
+            long now = System.currentTimeMillis();
+            if (now - sLastEvictionTime < EVICTION_INTERVAL_MS) {
+                return;
+            }
+            sLastEvictionTime = now;
+            defaultConnectionManager = sDefaultConnectionManager;
+            userTrustedConnectionManager = sUserTrustedConnectionManager;
+        }
+        evictIdleConnections(defaultConnectionManager);
+        evictIdleConnections(userTrustedConnectionManager);
+    }
+
+    /**
+     * Drop the pool of self-hosted HTTPS connections: the trust manager is built once with the user
+     * trusted certificates, so it must be recreated when a certificate is added. Requests running on
+     * the previous pool complete normally.
+     */
+    public static void resetUserTrustedConnections() {
+        ClientConnectionManager previous;
+        synchronized (XMLRPCConnectionManager.class) {
+            previous = sUserTrustedConnectionManager;
+            sUserTrustedConnectionManager = null;
+        }
+        if (previous != null) {
+            previous.closeIdleConnections(0, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static void evictIdleConnections(ClientConnectionManager connectionManager) {
+        if (connectionManager != null) {
+            connectionManager.closeExpiredConnections();
+            connectionManager.closeIdleConnections(MAX_IDLE_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static ClientConnectionManager newConnectionManager(SocketFactory sslSocketFactory) {
+        SchemeRegistry schemeRegistry = new SchemeRegistry();
+        schemeRegistry.register(new Scheme("http", PlainSocketFactory.getSocketFactory(), 80));
+        schemeRegistry.register(new Scheme("https", sslSocketFactory, 443));
+
+        HttpParams params = new BasicHttpParams();
+        ConnManagerParams.setMaxTotalConnections(params, MAX_TOTAL_CONNECTIONS);
+        ConnManagerParams.setMaxConnectionsPerRoute(params, new ConnPerRouteBean(MAX_CONNECTIONS_PER_HOST));
+        return new ThreadSafeClientConnManager(params, schemeRegistry);
+    }
+}
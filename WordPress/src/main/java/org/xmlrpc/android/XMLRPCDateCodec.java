@@ -0,0 +1,183 @@
+package org.xmlrpc.android;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.SimpleTimeZone;
+
+/**
+ * Codec for XML-RPC dateTime.iso8601 values ("yyyyMMdd'T'HH:mm:ss", GMT).
+ *
+ * The fixed layout is parsed and formatted by hand, without Calendar or SimpleDateFormat, so it's
+ * thread-safe and doesn't allocate anything but the resulting Date/chars. Values that don't match
+ * the layout (out of range fields like "00000000T00:00:00", years before 1583) go through a
+ * per-thread lenient SimpleDateFormat, which is what was used for every value before.
+ *
+ * Like the SimpleDateFormat we used before, anything after the seconds (a "Z" or a timezone
+ * offset) is ignored and the value is read as GMT.
+ */
+final class XMLRPCDateCodec {
+    static final int FORMATTED_LENGTH = 17; // yyyyMMddTHH:mm:ss
+
+    // GregorianCalendar switches to the Julian calendar before the 1582 cutover, leave these
+    // dates to SimpleDateFormat
+    private static final int MIN_YEAR = 1583;
+    private static final int MAX_YEAR = 9999;
+
+    private static final long MILLIS_PER_SECOND = 1000L;
+    private static final long MILLIS_PER_DAY = 24L * 60L * 60L * MILLIS_PER_SECOND;
+
+    private static final ThreadLocal<SimpleDateFormat> sFallbackFormat = new ThreadLocal<SimpleDateFormat>() {
+        @Override
+        protected SimpleDateFormat initialValue() {
+            SimpleDateFormat dateFormat = new SimpleDateFormat("yyyyMMdd'T'HH:mm:ss");
+            dateFormat.setCalendar(Calendar.getInstance(new SimpleTimeZone(0, "GMT")));
+            return dateFormat;
+        }
+    };
+
+    private static final ThreadLocal<char[]> sFormatBuffer = new ThreadLocal<char[]>() {
+        @Override
+        protected char[] initialValue() {
+            return new char[FORMATTED_LENGTH];
+        }
+    };
+
+    private XMLRPCDateCodec() {
+        throw new AssertionError();
+    }
+
+    static Date parse(String value) throws ParseException {
+        long millis = parseMillis(value);
+        if (millis != Long.MIN_VALUE) {
+            return new Date(millis);
+        }
+        return (Date) sFallbackFormat.get().parseObject(value);
+    }
+
+    /**
+     * Parse the fixed layout, returns Long.MIN_VALUE if the value doesn't match it
+     */
+    static long parseMillis(String value) {
+        if (value == null || value.length() < FORMATTED_LENGTH
+                || value.charAt(8) != 'T' || value.charAt(11) != ':' || value.charAt(14) != ':') {
+            return Long.MIN_VALUE;
+        }
+        int year = parseDigits(value, 0, 4);
+        int month = parseDigits(value, 4, 2);
+        int day = parseDigits(value, 6, 2);
+        int hour = parseDigits(value, 9, 2);
+        int minute = parseDigits(value, 12, 2);
+        int second = parseDigits(value, 15, 2);
+        if (year < MIN_YEAR || year > MAX_YEAR || month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            return Long.MIN_VALUE;
+        }
+        long days = daysFromCivil(year, month, day);
+        return days * MILLIS_PER_DAY + ((hour * 60L + minute) * 60L + second) * MILLIS_PER_SECOND;
+    }
+
+    /**
+     * Format the date in the returned per-thread buffer, only the first FORMATTED_LENGTH chars are
+     * valid and the buffer is overwritten by the next call on the same thread. Returns null if the
+     * year is out of the range handled by the codec.
+     */
+    static char[] format(long millis) {
+        long days = floorDiv(millis, MILLIS_PER_DAY);
+        long millisOfDay = millis - days * MILLIS_PER_DAY;
+        int secondOfDay = (int) (millisOfDay / MILLIS_PER_SECOND);
+
+        // civil from days, see daysFromCivil()
+        long z = days + 719468;
+        long era = floorDiv(z, 146097);
+        long dayOfEra = z - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long mp = (5 * dayOfYear + 2) / 153;
+        int day = (int) (dayOfYear - (153 * mp + 2) / 5 + 1);
+        int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        if (year < MIN_YEAR || year > MAX_YEAR) {
+            return null;
+        }
+
+        char[] buffer = sFormatBuffer.get();
+        writeDigits(buffer, 0, (int) year, 4);
+        writeDigits(buffer, 4, month, 2);
+        writeDigits(buffer, 6, day, 2);
+        buffer[8] = 'T';
+        writeDigits(buffer, 9, secondOfDay / 3600, 2);
+        buffer[11] = ':';
+        writeDigits(buffer, 12, (secondOfDay / 60) % 60, 2);
+        buffer[14] = ':';
+        writeDigits(buffer, 15, secondOfDay % 60, 2);
+        return buffer;
+    }
+
+    /**
+     * Format to a String, falling back to SimpleDateFormat for years that don't fit the layout
+     */
+    static String formatToString(Date date) {
+        char[] buffer = format(date.getTime());
+        if (buffer != null) {
+            return new String(buffer, 0, FORMATTED_LENGTH);
+        }
+        return sFallbackFormat.get().format(date);
+    }
+
+    private static int parseDigits(String value, int start, int count) {
+        int result = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            result = result * 10 + (c - '0');
+        }
+        return result;
+    }
+
+    private static void writeDigits(char[] buffer, int start, int value, int count) {
+        for (int i = start + count - 1; i >= start; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    private static int daysInMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                boolean isLeapYear = (year % 4 == 0) && (year % 100 != 0 || year % 400 == 0);
+                return isLeapYear ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    /*
+     * days since 1970-01-01 in the proleptic Gregorian calendar, based on
+     * http://howardhinnant.github.io/date_algorithms.html
+     */
+    private static long daysFromCivil(int year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    private static long floorDiv(long x, long y) {
+        long result = x / y;
+        if ((x % y != 0) && ((x < 0) != (y < 0))) {
+            result--;
+        }
+        return result;
+    }
+}
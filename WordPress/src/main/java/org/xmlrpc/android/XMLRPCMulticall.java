@@ -0,0 +1,156 @@
+package org.xmlrpc.android;
+
+import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.AppLog.T;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Queue of method calls sent together in a single system.multicall request, see
+ * XMLRPCClientInterface.callMulticall().
+ *
+ * Usage:
+ *   XMLRPCMulticall multicall = new XMLRPCMulticall();
+ *   XMLRPCMulticall.Call optionsCall = multicall.add("wp.getOptions", optionsParams);
+ *   XMLRPCMulticall.Call profileCall = multicall.add("wp.getProfile", profileParams);
+ *   client.callMulticall(multicall);
+ *   Object options = optionsCall.getResult(); // throws the fault returned for this call, if any
+ */
+public class XMLRPCMulticall {
+    public static final String METHOD_MULTICALL = "system.multicall";
+
+    private final List<Call> mCalls = new ArrayList<Call>();
+
+    public static class Call {
+        private final String mMethod;
+        private final Object[] mParams;
+        private Object mResult;
+        private XMLRPCException mError;
+        private boolean mIsDone;
+
+        private Call(String method, Object[] params) {
+            mMethod = method;
+            mParams = params;
+        }
+
+        public String getMethod() {
+            return mMethod;
+        }
+
+        /**
+         * Returns the deserialized value returned by this call, or throws the fault returned by the
+         * server for this call only
+         */
+        public Object getResult() throws XMLRPCException {
+            if (!mIsDone) {
+                throw new IllegalStateException(mMethod + " hasn't been sent yet");
+            }
+            if (mError != null) {
+                throw mError;
+            }
+            return mResult;
+        }
+
+        XMLRPCException getError() {
+            return mError;
+        }
+
+        void setResult(Object result) {
+            mResult = result;
+            mError = null;
+            mIsDone = true;
+        }
+
+        void setError(XMLRPCException error) {
+            mResult = null;
+            mError = error;
+            mIsDone = true;
+        }
+    }
+
+    public Call add(String method, Object[] params) {
+        Call call = new Call(method, params);
+        mCalls.add(call);
+        return call;
+    }
+
+    public List<Call> getCalls() {
+        return Collections.unmodifiableList(mCalls);
+    }
+
+    public int size() {
+        return mCalls.size();
+    }
+
+    /**
+     * Parameters of the system.multicall request: an array of {methodName, params} structs
+     */
+    Object[] getMulticallParams() {
+        Object[] calls = new Object[mCalls.size()];
+        for (int i = 0; i < mCalls.size(); i++) {
+            Call call = mCalls.get(i);
+            Map<String, Object> callStruct = new HashMap<String, Object>();
+            callStruct.put("methodName", call.mMethod);
+            callStruct.put("params", call.mParams != null ? call.mParams : new Object[0]);
+            calls[i] = callStruct;
+        }
+        return calls;
+    }
+
+    /**
+     * Dispatch the system.multicall response to the calls: each element is either a one element
+     * array holding the call result, or a fault struct.
+     *
+     * @throws XMLRPCException if the response doesn't match the calls, in which case every call fails
+     * with this exception (the calls ran on the server, so they can't be retried one by one)
+     */
+    void dispatchResponse(Object response) throws XMLRPCException {
+        if (!(response instanceof Object[]) || ((Object[]) response).length != mCalls.size()) {
+            XMLRPCException error = new XMLRPCException("Invalid " + METHOD_MULTICALL + " response");
+            for (Call call : mCalls) {
+                call.setError(error);
+            }
+            throw error;
+        }
+        Object[] results = (Object[]) response;
+        for (int i = 0; i < results.length; i++) {
+            Call call = mCalls.get(i);
+            Object result = results[i];
+            if (result instanceof Object[] && ((Object[]) result).length == 1) {
+                call.setResult(((Object[]) result)[0]);
+            } else if (result instanceof Map && ((Map<?, ?>) result).containsKey("faultCode")) {
+                Map<?, ?> fault = (Map<?, ?>) result;
+                int faultCode;
+                try {
+                    faultCode = Integer.parseInt(String.valueOf(fault.get("faultCode")));
+                } catch (NumberFormatException e) {
+                    faultCode = 0;
+                }
+                call.setError(new XMLRPCFault(String.valueOf(fault.get("faultString")), faultCode));
+            } else {
+                call.setError(new XMLRPCException("Invalid " + METHOD_MULTICALL + " result for " + call.mMethod));
+            }
+        }
+    }
+
+    /**
+     * Send the calls one by one, used when the server doesn't support system.multicall. Faults and
+     * XML-RPC errors are set on each call, but network and parsing errors abort the remaining calls.
+     */
+    public void callSequentially(XMLRPCClientInterface client) throws IOException, XmlPullParserException {
+        for (Call call : mCalls) {
+            try {
+                call.setResult(client.call(call.mMethod, call.mParams));
+            } catch (XMLRPCException e) {
+                AppLog.w(T.API, call.mMethod + " failed: " + e.getMessage());
+                call.setError(e);
+            }
+        }
+    }
+}
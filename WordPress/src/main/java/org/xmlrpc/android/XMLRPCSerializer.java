@@ -13,13 +13,10 @@ import org.xmlpull.v1.XmlPullParserException;
 import org.xmlpull.v1.XmlSerializer;
 
 import java.io.BufferedReader;
-import java.io.DataInputStream;
-import java.io.FileInputStream;
+import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.StringReader;
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
@@ -28,7 +25,6 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.SimpleTimeZone;
 
 class XMLRPCSerializer {
     static final String TAG_NAME = "name";
@@ -47,9 +43,6 @@ class XMLRPCSerializer {
     static final String TYPE_ARRAY = "array";
     static final String TYPE_STRUCT = "struct";
 
-    static SimpleDateFormat dateFormat = new SimpleDateFormat("yyyyMMdd'T'HH:mm:ss");
-    static Calendar cal = Calendar.getInstance(new SimpleTimeZone(0, "GMT"));
-
     private static final XmlSerializer serializeTester;
 
     static {
@@ -65,8 +58,21 @@ class XMLRPCSerializer {
         }
     }
 
-    @SuppressWarnings("unchecked")
+    /**
+     * Receives the MediaFile values found while serializing, so their content can be written
+     * to the request separately from the rest of the document.
+     */
+    interface MediaFileWriter {
+        void writeMediaFile(XmlSerializer serializer, MediaFile mediaFile) throws IOException;
+    }
+
     static void serialize(XmlSerializer serializer, Object object) throws IOException {
+        serialize(serializer, object, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    static void serialize(XmlSerializer serializer, Object object, MediaFileWriter mediaFileWriter)
+            throws IOException {
         // check for scalar types:
         if (object instanceof Integer || object instanceof Short || object instanceof Byte) {
             serializer.startTag(null, TYPE_I4).text(object.toString()).endTag(null, TYPE_I4);
@@ -89,11 +95,15 @@ class XMLRPCSerializer {
             serializer.startTag(null, TYPE_STRING).text(makeValidInputString((String) object)).endTag(null, TYPE_STRING);
         } else
         if (object instanceof Date || object instanceof Calendar) {
-            Date date = (Date) object;
-            SimpleDateFormat dateFormat = new SimpleDateFormat("yyyyMMdd'T'HH:mm:ss");
-            dateFormat.setCalendar(cal);
-            String sDate = dateFormat.format(date);
-            serializer.startTag(null, TYPE_DATE_TIME_ISO8601).text(sDate).endTag(null, TYPE_DATE_TIME_ISO8601);
+            Date date = (object instanceof Calendar) ? ((Calendar) object).getTime() : (Date) object;
+            serializer.startTag(null, TYPE_DATE_TIME_ISO8601);
+            char[] formattedDate = XMLRPCDateCodec.format(date.getTime());
+            if (formattedDate != null) {
+                serializer.text(formattedDate, 0, XMLRPCDateCodec.FORMATTED_LENGTH);
+            } else {
+                serializer.text(XMLRPCDateCodec.formatToString(date));
+            }
+            serializer.endTag(null, TYPE_DATE_TIME_ISO8601);
         } else
         if (object instanceof byte[] ){
             String value;
@@ -106,18 +116,14 @@ class XMLRPCSerializer {
         }
         else if( object instanceof MediaFile ) {
             //convert media file binary to base64
-            serializer.startTag( null, "base64" );
+            serializer.startTag(null, TYPE_BASE64);
             MediaFile mediaFile = (MediaFile) object;
-            InputStream inStream = new DataInputStream(new FileInputStream(mediaFile.getFilePath()));
-            byte[] buffer = new byte[3600];//you must use a 24bit multiple
-            int length = -1;
-            String chunk = null;
-            while ((length = inStream.read(buffer)) > 0) {
-                chunk = Base64.encodeToString(buffer, 0, length, Base64.DEFAULT);
-                serializer.text(chunk);
+            if (mediaFileWriter != null) {
+                mediaFileWriter.writeMediaFile(serializer, mediaFile);
+            } else {
+                new Base64StreamEncoder().encodeAsText(new File(mediaFile.getFilePath()), serializer);
             }
-            inStream.close();
-            serializer.endTag(null, "base64");
+            serializer.endTag(null, TYPE_BASE64);
         }else
         if (object instanceof List<?>) {
             serializer.startTag(null, TYPE_ARRAY).startTag(null, TAG_DATA);
@@ -126,7 +132,7 @@ class XMLRPCSerializer {
             while (iter.hasNext()) {
                 Object o = iter.next();
                 serializer.startTag(null, TAG_VALUE);
-                serialize(serializer, o);
+                serialize(serializer, o, mediaFileWriter);
                 serializer.endTag(null, TAG_VALUE);
             }
             serializer.endTag(null, TAG_DATA).endTag(null, TYPE_ARRAY);
@@ -137,7 +143,7 @@ class XMLRPCSerializer {
             for (int i=0; i<objects.length; i++) {
                 Object o = objects[i];
                 serializer.startTag(null, TAG_VALUE);
-                serialize(serializer, o);
+                serialize(serializer, o, mediaFileWriter);
                 serializer.endTag(null, TAG_VALUE);
             }
             serializer.endTag(null, TAG_DATA).endTag(null, TYPE_ARRAY);
@@ -154,7 +160,7 @@ class XMLRPCSerializer {
                 serializer.startTag(null, TAG_MEMBER);
                 serializer.startTag(null, TAG_NAME).text(key).endTag(null, TAG_NAME);
                 serializer.startTag(null, TAG_VALUE);
-                serialize(serializer, value);
+                serialize(serializer, value, mediaFileWriter);
                 serializer.endTag(null, TAG_VALUE);
                 serializer.endTag(null, TAG_MEMBER);
             }
@@ -200,6 +206,53 @@ class XMLRPCSerializer {
         parser.require(XmlPullParser.START_TAG, null, TAG_VALUE);
 
         parser.nextTag();
+        Object obj = deserializeTypedValue(parser);
+        parser.nextTag(); // TAG_VALUE (</value>)
+        parser.require(XmlPullParser.END_TAG, null, TAG_VALUE);
+        return obj;
+    }
+
+    /**
+     * Streaming version of deserialize(): if the value is an array, its elements are deserialized
+     * one by one and passed to the visitor without building the Object[]. Any other value type is
+     * passed to the visitor as a single element.
+     *
+     * @return number of elements passed to the visitor
+     */
+    static int deserialize(XmlPullParser parser, XMLRPCStreamVisitor visitor)
+            throws XmlPullParserException, IOException, NumberFormatException {
+        parser.require(XmlPullParser.START_TAG, null, TAG_VALUE);
+
+        parser.nextTag();
+        int count = 0;
+        if (parser.getName().equals(TYPE_ARRAY)) {
+            parser.nextTag(); // TAG_DATA (<data>)
+            parser.require(XmlPullParser.START_TAG, null, TAG_DATA);
+
+            parser.nextTag();
+            while (parser.getName().equals(TAG_VALUE)) {
+                visitor.onValue(count, deserialize(parser));
+                count++;
+                parser.nextTag();
+            }
+            parser.require(XmlPullParser.END_TAG, null, TAG_DATA);
+            parser.nextTag(); // TAG_ARRAY (</array>)
+            parser.require(XmlPullParser.END_TAG, null, TYPE_ARRAY);
+        } else {
+            visitor.onValue(count, deserializeTypedValue(parser));
+            count++;
+        }
+        parser.nextTag(); // TAG_VALUE (</value>)
+        parser.require(XmlPullParser.END_TAG, null, TAG_VALUE);
+        return count;
+    }
+
+    /**
+     * Deserialize the typed node (<string>, <struct>, <array>...) the parser is positioned on,
+     * leaves the parser on the end tag of that node.
+     */
+    private static Object deserializeTypedValue(XmlPullParser parser)
+            throws XmlPullParserException, IOException, NumberFormatException {
         String typeNodeName = parser.getName();
 
         Object obj;
@@ -228,10 +281,9 @@ class XMLRPCSerializer {
             obj = parser.nextText();
         } else
         if (typeNodeName.equals(TYPE_DATE_TIME_ISO8601)) {
-            dateFormat.setCalendar(cal);
             String value = parser.nextText();
             try {
-                obj = dateFormat.parseObject(value);
+                obj = XMLRPCDateCodec.parse(value);
             } catch (ParseException e) {
                 AppLog.e(T.API, e);
                 obj = value;
@@ -291,8 +343,6 @@ class XMLRPCSerializer {
         } else {
             throw new IOException("Cannot deserialize " + parser.getName());
         }
-        parser.nextTag(); // TAG_VALUE (</value>)
-        parser.require(XmlPullParser.END_TAG, null, TAG_VALUE);
         return obj;
     }
 }
@@ -0,0 +1,19 @@
+package org.xmlrpc.android;
+
+/**
+ * The XMLRPCStreamVisitor interface is implemented by callers that want to consume an XML-RPC
+ * response as it is parsed instead of waiting for the whole response tree to be built.
+ *
+ * When the response is an array, each element is deserialized on its own and passed to
+ * onValue(), then dropped by the parser. Any other response type is passed as a single value
+ * with index 0.
+ */
+public interface XMLRPCStreamVisitor {
+    /**
+     * Called for each element of the response, in document order.
+     *
+     * @param index The position of the element in the response array.
+     * @param value The deserialized element (usually a Map for WordPress list methods).
+     */
+    public void onValue(int index, Object value);
+}
@@ -0,0 +1,24 @@
+package org.xmlrpc.android;
+
+import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.AppLog.T;
+
+import java.util.Map;
+
+/**
+ * Typed XMLRPCStreamVisitor for the common case of methods returning an array of structs
+ * (wp.getMediaLibrary, metaWeblog.getRecentPosts, wp.getComments...). Elements that aren't
+ * structs are logged and skipped.
+ */
+public abstract class XMLRPCStructVisitor implements XMLRPCStreamVisitor {
+    public abstract void onStruct(int index, Map<?, ?> struct);
+
+    @Override
+    public final void onValue(int index, Object value) {
+        if (value instanceof Map) {
+            onStruct(index, (Map<?, ?>) value);
+        } else {
+            AppLog.w(T.API, "skipping non-struct element at index " + index);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package org.xmlrpc.android;
+
+import org.apache.http.entity.AbstractHttpEntity;
+import org.wordpress.android.models.MediaFile;
+import org.xmlpull.v1.XmlSerializer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Request entity for methods sending files (wp.uploadFile).
+ *
+ * The XML-RPC document is serialized to memory without the file contents: each MediaFile only
+ * records its position in the document. When the request is sent, the files are base64 encoded
+ * straight from disk into the connection's output stream, so there's no temp file holding the
+ * whole encoded request, and the Content-Length is still known before sending. getContent() reads
+ * the same bytes, encoding the files as the stream is read.
+ */
+class XMLRPCUploadEntity extends AbstractHttpEntity implements XMLRPCSerializer.MediaFileWriter {
+    private final ByteArrayOutputStream mDocumentStream = new ByteArrayOutputStream();
+    private final List<File> mFiles = new ArrayList<File>();
+    private final List<Integer> mFileOffsets = new ArrayList<Integer>();
+    private final Base64StreamEncoder mEncoder = new Base64StreamEncoder();
+
+    private byte[] mDocument;
+    private long mContentLength = -1;
+
+    XMLRPCUploadEntity() {
+        setContentType("text/xml; charset=\"UTF-8\"");
+    }
+
+    /**
+     * Stream the XML-RPC document (without the file contents) should be serialized to
+     */
+    OutputStream getDocumentOutputStream() {
+        return mDocumentStream;
+    }
+
+    @Override
+    public void writeMediaFile(XmlSerializer serializer, MediaFile mediaFile) throws IOException {
+        // close the <base64> start tag and flush the serializer: the file content will be
+        // written at this offset when sending the request
+        serializer.text("");
+        serializer.flush();
+        mFileOffsets.add(mDocumentStream.size());
+        mFiles.add(new File(mediaFile.getFilePath()));
+    }
+
+    /**
+     * Must be called once the document has been serialized and flushed
+     */
+    void finishDocument() {
+        mDocument = mDocumentStream.toByteArray();
+        mContentLength = mDocument.length;
+        for (File file : mFiles) {
+            mContentLength += Base64StreamEncoder.encodedLength(file.length());
+        }
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return true;
+    }
+
+    @Override
+    public long getContentLength() {
+        return mContentLength;
+    }
+
+    @Override
+    public InputStream getContent() throws IOException {
+        if (mDocument == null) {
+            throw new IllegalStateException("finishDocument() must be called before sending the entity");
+        }
+        return new ContentInputStream();
+    }
+
+    @Override
+    public void writeTo(OutputStream outstream) throws IOException {
+        if (mDocument == null) {
+            throw new IllegalStateException("finishDocument() must be called before sending the entity");
+        }
+        int documentPosition = 0;
+        for (int i = 0; i < mFiles.size(); i++) {
+            int fileOffset = mFileOffsets.get(i);
+            outstream.write(mDocument, documentPosition, fileOffset - documentPosition);
+            mEncoder.encode(mFiles.get(i), outstream);
+            documentPosition = fileOffset;
+        }
+        outstream.write(mDocument, documentPosition, mDocument.length - documentPosition);
+        outstream.flush();
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return false;
+    }
+
+    /**
+     * Reads the parts of the request in order: the document up to the first file, the encoded
+     * first file, the document up to the next file, and so on. Each file is only opened when the
+     * stream reaches it.
+     */
+    private class ContentInputStream extends InputStream {
+        // has its own buffers, so several content streams (and writeTo()) can be used at once
+        private final Base64StreamEncoder mContentEncoder = new Base64StreamEncoder();
+        // even parts are document segments, odd parts are files
+        private int mPart;
+        private InputStream mPartStream;
+
+        @Override
+        public int read() throws IOException {
+            byte[] singleByte = new byte[1];
+            return read(singleByte, 0, 1) == -1 ? -1 : singleByte[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int count) throws IOException {
+            if (count == 0) {
+                return 0;
+            }
+            while (true) {
+                if (mPartStream == null) {
+                    mPartStream = openPart(mPart);
+                    if (mPartStream == null) {
+                        return -1;
+                    }
+                }
+                int read = mPartStream.read(buffer, offset, count);
+                if (read != -1) {
+                    return read;
+                }
+                mPartStream.close();
+                mPartStream = null;
+                mPart++;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (mPartStream != null) {
+                mPartStream.close();
+                mPartStream = null;
+            }
+            mPart = 2 * mFiles.size() + 1;
+        }
+
+        private InputStream openPart(int part) throws IOException {
+            int fileCount = mFiles.size();
+            if (part > 2 * fileCount) {
+                return null;
+            }
+            int fileIndex = part / 2;
+            if (part % 2 == 1) {
+                return mContentEncoder.openEncodedStream(mFiles.get(fileIndex));
+            }
+            int start = (fileIndex == 0 ? 0 : mFileOffsets.get(fileIndex - 1));
+            int end = (fileIndex < fileCount ? mFileOffsets.get(fileIndex) : mDocument.length);
+            return new ByteArrayInputStream(mDocument, start, end - start);
+        }
+    }
+}
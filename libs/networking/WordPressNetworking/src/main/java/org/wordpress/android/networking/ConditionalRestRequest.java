@@ -0,0 +1,118 @@
+package org.wordpress.android.networking;
+
+import com.android.volley.NetworkResponse;
+import com.android.volley.Request.Method;
+import com.android.volley.Response;
+import com.wordpress.rest.RestRequest;
+
+import org.json.JSONObject;
+
+import java.net.HttpURLConnection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * GET request which sends the validators (ETag and Last-Modified) returned by a previous response
+ * to the same url, so the server can respond with 304 Not Modified and no body when nothing has
+ * changed. The validators of the new response are passed to the listener so the caller can store
+ * them for the next request. Responses aren't added to Volley's cache since the caller is
+ * expected to store what it needs from them.
+ */
+public class ConditionalRestRequest extends RestRequest {
+    private static final String HEADER_ETAG = "ETag";
+    private static final String HEADER_LAST_MODIFIED = "Last-Modified";
+    private static final String HEADER_IF_NONE_MATCH = "If-None-Match";
+    private static final String HEADER_IF_MODIFIED_SINCE = "If-Modified-Since";
+
+    public interface Listener {
+        void onResponse(JSONObject response, Validators validators);
+        void onNotModified();
+    }
+
+    public static class Validators {
+        private final String mETag;
+        private final String mLastModified;
+
+        public Validators(String eTag, String lastModified) {
+            mETag = eTag;
+            mLastModified = lastModified;
+        }
+
+        public String getETag() {
+            return mETag;
+        }
+
+        public String getLastModified() {
+            return mLastModified;
+        }
+
+        public boolean isEmpty() {
+            return mETag == null && mLastModified == null;
+        }
+    }
+
+    private final Listener mConditionalListener;
+    private final Validators mValidators;
+    private Validators mResponseValidators;
+
+    public ConditionalRestRequest(String url, Validators validators, Listener listener,
+                                  ErrorListener errorListener) {
+        super(Method.GET, url, null, null, errorListener);
+        mValidators = validators;
+        mConditionalListener = listener;
+        setShouldCache(false);
+    }
+
+    @Override
+    public Map<String, String> getHeaders() {
+        Map<String, String> headers = new HashMap<String, String>(super.getHeaders());
+        if (mValidators != null) {
+            if (mValidators.getETag() != null) {
+                headers.put(HEADER_IF_NONE_MATCH, mValidators.getETag());
+            }
+            if (mValidators.getLastModified() != null) {
+                headers.put(HEADER_IF_MODIFIED_SINCE, mValidators.getLastModified());
+            }
+        }
+        return headers;
+    }
+
+    @Override
+    protected Response<JSONObject> parseNetworkResponse(NetworkResponse response) {
+        // a 304 has no body, it's delivered as a null response
+        if (response.statusCode == HttpURLConnection.HTTP_NOT_MODIFIED) {
+            return Response.success(null, null);
+        }
+        mResponseValidators = new Validators(getHeader(response.headers, HEADER_ETAG),
+                getHeader(response.headers, HEADER_LAST_MODIFIED));
+        return super.parseNetworkResponse(response);
+    }
+
+    @Override
+    protected void deliverResponse(JSONObject response) {
+        if (mConditionalListener == null) {
+            return;
+        }
+        if (response == null) {
+            mConditionalListener.onNotModified();
+        } else {
+            mConditionalListener.onResponse(response, mResponseValidators);
+        }
+    }
+
+    /*
+     * header names are case-insensitive, but not all versions of Volley return them in a
+     * case-insensitive map
+     */
+    private static String getHeader(Map<String, String> headers, String name) {
+        if (headers == null) {
+            return null;
+        }
+        for (Map.Entry<String, String> entry : headers.entrySet()) {
+            if (name.equalsIgnoreCase(entry.getKey())) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+}
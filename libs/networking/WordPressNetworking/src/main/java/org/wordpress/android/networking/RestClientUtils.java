@@ -243,6 +243,22 @@ public class RestClientUtils {
         return request;
     }
 
+    /**
+     * Make conditional GET request - the passed validators (from a previous response to the same
+     * path) are sent so the server can respond with 304 Not Modified, see ConditionalRestRequest
+     */
+    public Request<JSONObject> getConditional(String path, ConditionalRestRequest.Validators validators,
+                                              ConditionalRestRequest.Listener listener,
+                                              ErrorListener errorListener) {
+        ConditionalRestRequest request = new ConditionalRestRequest(mRestClient.getAbsoluteURL(path), validators,
+                                                                    listener, errorListener);
+        request.setUserAgent(sUserAgent);
+        request.setRetryPolicy(new DefaultRetryPolicy(REST_TIMEOUT_MS, REST_MAX_RETRIES_GET, REST_BACKOFF_MULT));
+        AuthenticatorRequest authCheck = new AuthenticatorRequest(request, errorListener, mRestClient, mAuthenticator);
+        authCheck.send();
+        return request;
+    }
+
     /**
      * Make Synchronous GET request
      *
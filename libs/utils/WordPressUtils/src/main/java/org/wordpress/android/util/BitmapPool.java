@@ -0,0 +1,234 @@
+package org.wordpress.android.util;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Build;
+import android.util.SparseArray;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.Locale;
+
+/**
+ * Pool of bitmaps that are no longer used (intermediate bitmaps of a resize, see release()) so their
+ * memory can be reused through BitmapFactory.Options.inBitmap rather than allocating a new bitmap for
+ * every decode - see decodeFile(). A pooled bitmap is overwritten by a later decode, so bitmaps that may
+ * still be displayed (ex: ones in the bitmap cache) must never be pooled. Bitmaps are grouped in size classes (their byte
+ * count rounded up to a power of two), and the least recently pooled bitmaps are dropped once the pool
+ * is full. Before KitKat a bitmap can only be reused for an image of the exact same size decoded
+ * without sampling, so the pool is mostly useful on KitKat and up.
+ */
+public class BitmapPool {
+    private static BitmapPool sInstance;
+
+    private final long mMaxSizeBytes;
+    private long mSizeBytes;
+    // pooled bitmaps by size class, and all pooled bitmaps in the order they were pooled
+    private final SparseArray<LinkedList<Bitmap>> mSizeClasses = new SparseArray<LinkedList<Bitmap>>();
+    private final LinkedHashSet<Bitmap> mBitmaps = new LinkedHashSet<Bitmap>();
+
+    private int mHitCount;
+    private int mMissCount;
+    private int mPutCount;
+    private int mEvictionCount;
+
+    public static synchronized BitmapPool getInstance() {
+        if (sInstance == null) {
+            // use 1/32th of the available memory, half the size of the bitmap cache
+            sInstance = new BitmapPool(Runtime.getRuntime().maxMemory() / 32);
+        }
+        return sInstance;
+    }
+
+    public BitmapPool(long maxSizeBytes) {
+        mMaxSizeBytes = maxSizeBytes;
+    }
+
+    /**
+     * Adds a bitmap that's no longer used to the pool - the caller must not use it afterwards.
+     * Returns false if the bitmap can't be reused.
+     */
+    public synchronized boolean put(Bitmap bitmap) {
+        if (bitmap == null || bitmap.isRecycled() || !bitmap.isMutable() || mBitmaps.contains(bitmap)) {
+            return false;
+        }
+        int byteCount = getByteCount(bitmap);
+        if (byteCount > mMaxSizeBytes / 4) {
+            // a few big bitmaps would take the place of many thumbnails
+            return false;
+        }
+
+        int sizeClass = getSizeClass(byteCount);
+        LinkedList<Bitmap> bitmaps = mSizeClasses.get(sizeClass);
+        if (bitmaps == null) {
+            bitmaps = new LinkedList<Bitmap>();
+            mSizeClasses.put(sizeClass, bitmaps);
+        }
+        bitmaps.add(bitmap);
+        mBitmaps.add(bitmap);
+        mSizeBytes += byteCount;
+        mPutCount++;
+
+        trimToSize(mMaxSizeBytes);
+        return true;
+    }
+
+    /**
+     * Decodes the passed file with BitmapFactory.Options.inBitmap set to a pooled bitmap, if there's one
+     * the image fits in. The options must hold the image size (from a decode with inJustDecodeBounds)
+     * and the sample size it's decoded with. The decoded bitmap is mutable, so it can be pooled later.
+     */
+    public Bitmap decodeFile(String path, BitmapFactory.Options options) {
+        return decode(path, null, options);
+    }
+
+    /**
+     * Same as decodeFile() for an image held in memory
+     */
+    public Bitmap decodeByteArray(byte[] data, BitmapFactory.Options options) {
+        return decode(null, data, options);
+    }
+
+    private Bitmap decode(String path, byte[] data, BitmapFactory.Options options) {
+        options.inJustDecodeBounds = false;
+        options.inMutable = true;
+        options.inBitmap = getReusableBitmap(options);
+        try {
+            return (data != null ? BitmapFactory.decodeByteArray(data, 0, data.length, options)
+                    : BitmapFactory.decodeFile(path, options));
+        } catch (IllegalArgumentException e) {
+            // the image didn't fit in the pooled bitmap after all (ex: it decoded to a different config)
+            AppLog.w(AppLog.T.UTILS, "BitmapPool > unable to decode into pooled bitmap: " + e.getMessage());
+            options.inBitmap = null;
+            return (data != null ? BitmapFactory.decodeByteArray(data, 0, data.length, options)
+                    : BitmapFactory.decodeFile(path, options));
+        }
+    }
+
+    /**
+     * Adds the passed bitmap to the pool, or recycles it if it can't be reused - for bitmaps that
+     * were only needed to create another one
+     */
+    public void release(Bitmap bitmap) {
+        if (bitmap != null && !put(bitmap)) {
+            bitmap.recycle();
+        }
+    }
+
+    /*
+     * removes and returns a pooled bitmap the image described by the passed options can be decoded into
+     */
+    synchronized Bitmap getReusableBitmap(BitmapFactory.Options options) {
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            return null;
+        }
+
+        Bitmap.Config config = (options.inPreferredConfig != null ? options.inPreferredConfig : Bitmap.Config.ARGB_8888);
+        int sampleSize = Math.max(1, options.inSampleSize);
+        boolean canReuseLarger = Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT;
+        if (!canReuseLarger && sampleSize > 1) {
+            mMissCount++;
+            return null;
+        }
+
+        // decoders round the sample size down to a power of two
+        sampleSize = Integer.highestOneBit(sampleSize);
+        int width = (options.outWidth + sampleSize - 1) / sampleSize;
+        int height = (options.outHeight + sampleSize - 1) / sampleSize;
+        int byteCount = width * height * getBytesPerPixel(config);
+
+        // the next size class only holds bitmaps up to four times as big, which is worth reusing
+        int sizeClass = getSizeClass(byteCount);
+        for (int i = sizeClass; i <= (canReuseLarger ? sizeClass + 1 : sizeClass); i++) {
+            LinkedList<Bitmap> bitmaps = mSizeClasses.get(i);
+            if (bitmaps == null) {
+                continue;
+            }
+            Iterator<Bitmap> iterator = bitmaps.iterator();
+            while (iterator.hasNext()) {
+                Bitmap bitmap = iterator.next();
+                boolean fits;
+                if (canReuseLarger) {
+                    fits = getByteCount(bitmap) >= byteCount;
+                } else {
+                    fits = bitmap.getWidth() == width && bitmap.getHeight() == height
+                            && bitmap.getConfig() == config;
+                }
+                if (fits) {
+                    iterator.remove();
+                    mBitmaps.remove(bitmap);
+                    mSizeBytes -= getByteCount(bitmap);
+                    mHitCount++;
+                    return bitmap;
+                }
+            }
+        }
+
+        mMissCount++;
+        return null;
+    }
+
+    /**
+     * Empties the pool
+     */
+    public synchronized void clear() {
+        trimToSize(0);
+    }
+
+    private void trimToSize(long maxSizeBytes) {
+        Iterator<Bitmap> iterator = mBitmaps.iterator();
+        while (mSizeBytes > maxSizeBytes && iterator.hasNext()) {
+            Bitmap bitmap = iterator.next();
+            iterator.remove();
+            int byteCount = getByteCount(bitmap);
+            LinkedList<Bitmap> bitmaps = mSizeClasses.get(getSizeClass(byteCount));
+            if (bitmaps != null) {
+                bitmaps.remove(bitmap);
+            }
+            mSizeBytes -= byteCount;
+            mEvictionCount++;
+        }
+    }
+
+    /**
+     * Returns the fraction of decodes that reused a pooled bitmap
+     */
+    public synchronized float getHitRate() {
+        int lookupCount = mHitCount + mMissCount;
+        return (lookupCount > 0 ? (float) mHitCount / lookupCount : 0f);
+    }
+
+    /**
+     * Returns the hit, miss, put and eviction counts of the pool, for logging
+     */
+    public synchronized String getStats() {
+        return String.format(Locale.US, "%d hits, %d misses (%.0f%% hit rate), %d puts, %d evictions, %d of %d KB",
+                mHitCount, mMissCount, getHitRate() * 100, mPutCount, mEvictionCount, mSizeBytes / 1024,
+                mMaxSizeBytes / 1024);
+    }
+
+    private static int getByteCount(Bitmap bitmap) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+            // the size of the memory the bitmap can be reconfigured to, which may exceed its current size
+            return bitmap.getAllocationByteCount();
+        }
+        return bitmap.getRowBytes() * bitmap.getHeight();
+    }
+
+    private static int getBytesPerPixel(Bitmap.Config config) {
+        if (config == Bitmap.Config.ALPHA_8) {
+            return 1;
+        } else if (config == Bitmap.Config.RGB_565 || config == Bitmap.Config.ARGB_4444) {
+            return 2;
+        }
+        return 4;
+    }
+
+    /*
+     * the exponent of the smallest power of two the passed byte count fits in
+     */
+    private static int getSizeClass(int byteCount) {
+        return 32 - Integer.numberOfLeadingZeros(Math.max(1, byteCount) - 1);
+    }
+}
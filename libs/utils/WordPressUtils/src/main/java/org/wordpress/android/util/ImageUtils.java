@@ -28,7 +28,6 @@ import org.apache.http.impl.client.DefaultHttpClient;
 
 import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.ref.WeakReference;
@@ -179,6 +178,58 @@ public class ImageUtils {
     }
 
 
+    /**
+     * Decodes the passed image file sampled down to roughly the passed size and rotated according to
+     * its exif orientation - must be called from a background thread
+     */
+    public static Bitmap decodeThumbnailFromFilePath(String path, int targetWidth, int targetHeight) {
+        BitmapFactory.Options bfo = new BitmapFactory.Options();
+        bfo.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(path, bfo);
+
+        bfo.inSampleSize = calculateInSampleSize(bfo, targetWidth, targetHeight);
+        bfo.inJustDecodeBounds = false;
+
+        // get proper rotation
+        try {
+            File f = new File(path);
+            ExifInterface exif = new ExifInterface(f.getPath());
+            int orientation = exif.getAttributeInt(ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL);
+            int angle = 0;
+            if (orientation == ExifInterface.ORIENTATION_NORMAL) { // no need to rotate
+                return BitmapPool.getInstance().decodeFile(path, bfo);
+            } else if (orientation == ExifInterface.ORIENTATION_ROTATE_90) {
+                angle = 90;
+            } else if (orientation == ExifInterface.ORIENTATION_ROTATE_180) {
+                angle = 180;
+            } else if (orientation == ExifInterface.ORIENTATION_ROTATE_270) {
+                angle = 270;
+            }
+
+            Matrix mat = new Matrix();
+            mat.postRotate(angle);
+
+            try {
+                Bitmap bmp = BitmapPool.getInstance().decodeFile(f.getPath(), bfo);
+                if (bmp == null) {
+                    AppLog.e(AppLog.T.UTILS, "can't decode bitmap: " + f.getPath());
+                    return null;
+                }
+                Bitmap rotated = Bitmap.createBitmap(bmp, 0, 0, bmp.getWidth(), bmp.getHeight(), mat, true);
+                if (rotated != bmp) {
+                    BitmapPool.getInstance().release(bmp);
+                }
+                return rotated;
+            } catch (OutOfMemoryError oom) {
+                AppLog.e(AppLog.T.UTILS, "OutOfMemoryError Error in setting image: " + oom);
+            }
+        } catch (IOException e) {
+            AppLog.e(AppLog.T.UTILS, "Error in setting image", e);
+        }
+
+        return null;
+    }
+
     public interface BitmapWorkerCallback {
         public void onBitmapReady(String filePath, ImageView imageView, Bitmap bitmap);
     }
@@ -202,52 +253,7 @@ public class ImageUtils {
         @Override
         protected Bitmap doInBackground(String... params) {
             path = params[0];
-
-            BitmapFactory.Options bfo = new BitmapFactory.Options();
-            bfo.inJustDecodeBounds = true;
-            BitmapFactory.decodeFile(path, bfo);
-
-            bfo.inSampleSize = calculateInSampleSize(bfo, targetWidth, targetHeight);
-            bfo.inJustDecodeBounds = false;
-
-            // get proper rotation
-            int bitmapWidth = 0;
-            int bitmapHeight = 0;
-            try {
-                File f = new File(path);
-                ExifInterface exif = new ExifInterface(f.getPath());
-                int orientation = exif.getAttributeInt(ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL);
-                int angle = 0;
-                if (orientation == ExifInterface.ORIENTATION_NORMAL) { // no need to rotate
-                    return BitmapFactory.decodeFile(path, bfo);
-                } else if (orientation == ExifInterface.ORIENTATION_ROTATE_90) {
-                    angle = 90;
-                } else if (orientation == ExifInterface.ORIENTATION_ROTATE_180) {
-                    angle = 180;
-                } else if (orientation == ExifInterface.ORIENTATION_ROTATE_270) {
-                    angle = 270;
-                }
-
-                Matrix mat = new Matrix();
-                mat.postRotate(angle);
-
-                try {
-                    Bitmap bmp = BitmapFactory.decodeStream(new FileInputStream(f), null, bfo);
-                    if (bmp == null) {
-                        AppLog.e(AppLog.T.UTILS, "can't decode bitmap: " + f.getPath());
-                        return null;
-                    }
-                    bitmapWidth = bmp.getWidth();
-                    bitmapHeight = bmp.getHeight();
-                    return Bitmap.createBitmap(bmp, 0, 0, bmp.getWidth(), bmp.getHeight(), mat, true);
-                } catch (OutOfMemoryError oom) {
-                    AppLog.e(AppLog.T.UTILS, "OutOfMemoryError Error in setting image: " + oom);
-                }
-            } catch (IOException e) {
-                AppLog.e(AppLog.T.UTILS, "Error in setting image", e);
-            }
-
-            return null;
+            return decodeThumbnailFromFilePath(path, targetWidth, targetHeight);
         }
 
         // Once complete, see if ImageView is still around and set bitmap.
@@ -340,7 +346,11 @@ public class ImageUtils {
             Bitmap videoThumbnail = MediaStore.Video.Thumbnails.getThumbnail(crThumb, videoId, MediaStore.Video.Thumbnails.MINI_KIND,
                     options);
             if (videoThumbnail != null) {
-                return getScaledBitmapAtLongestSide(videoThumbnail, targetWidth);
+                Bitmap scaledThumbnail = getScaledBitmapAtLongestSide(videoThumbnail, targetWidth);
+                if (scaledThumbnail != videoThumbnail) {
+                    BitmapPool.getInstance().release(videoThumbnail);
+                }
+                return scaledThumbnail;
             } else {
                 return null;
             }
@@ -351,9 +361,16 @@ public class ImageUtils {
 
             if (bytes != null && bytes.length > 0) {
                 try {
-                    Bitmap resizedBitmap = BitmapFactory.decodeByteArray(bytes, 0, bytes.length);
+                    BitmapFactory.Options options = new BitmapFactory.Options();
+                    options.inJustDecodeBounds = true;
+                    BitmapFactory.decodeByteArray(bytes, 0, bytes.length, options);
+                    Bitmap resizedBitmap = BitmapPool.getInstance().decodeByteArray(bytes, options);
                     if (resizedBitmap != null) {
-                        return getScaledBitmapAtLongestSide(resizedBitmap, targetWidth);
+                        Bitmap scaledBitmap = getScaledBitmapAtLongestSide(resizedBitmap, targetWidth);
+                        if (scaledBitmap != resizedBitmap) {
+                            BitmapPool.getInstance().release(resizedBitmap);
+                        }
+                        return scaledBitmap;
                     }
                 } catch (OutOfMemoryError e) {
                     AppLog.e(AppLog.T.UTILS, "OutOfMemoryError Error in setting image: " + e);
@@ -442,11 +459,13 @@ public class ImageUtils {
 
         BitmapFactory.Options optActual = new BitmapFactory.Options();
         optActual.inSampleSize = scale;
+        optActual.outWidth = optBounds.outWidth;
+        optActual.outHeight = optBounds.outHeight;
 
         // Get the roughly resized bitmap
         final Bitmap bmpResized;
         try {
-            bmpResized = BitmapFactory.decodeFile(filePath, optActual);
+            bmpResized = BitmapPool.getInstance().decodeFile(filePath, optActual);
         } catch (OutOfMemoryError e) {
             AppLog.e(AppLog.T.UTILS, "OutOfMemoryError Error in setting image: " + e);
             return null;
@@ -504,8 +523,11 @@ public class ImageUtils {
         }
 
         bmpRotated.compress(fmt, 100, stream);
-        bmpResized.recycle();
-        bmpRotated.recycle();
+        // both bitmaps were only needed to create the thumbnail
+        BitmapPool.getInstance().release(bmpResized);
+        if (bmpRotated != bmpResized) {
+            BitmapPool.getInstance().release(bmpRotated);
+        }
 
         return stream.toByteArray();
     }